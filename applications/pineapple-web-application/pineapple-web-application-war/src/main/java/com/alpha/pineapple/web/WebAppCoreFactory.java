@@ -24,6 +24,7 @@ package com.alpha.pineapple.web;
 
 import static com.alpha.pineapple.web.WebApplicationConstants.REACTOR_TOPIC_SERVICE_CREATED_REPORT;
 import static com.alpha.pineapple.web.WebApplicationConstants.REACTOR_TOPIC_SERVICE_NOTIFICATION;
+import static com.alpha.pineapple.web.WebApplicationConstants.RESULT_LISTENER_POLICY;
 import static reactor.event.selector.Selectors.$;
 import static reactor.event.selector.Selectors.T;
 
@@ -44,6 +45,7 @@ import com.alpha.pineapple.web.event.consumer.CreatedReportNotifierImpl;
 import com.alpha.pineapple.web.event.consumer.ExecuteOperationActivityInvokerImpl;
 import com.alpha.pineapple.web.event.consumer.OpenModuleActivityInvokerImpl;
 import com.alpha.pineapple.web.event.consumer.ResultNotificationNotifierImpl;
+import com.alpha.pineapple.web.event.consumer.ResultStreamPublisherImpl;
 import com.alpha.pineapple.web.model.ExecuteOperationActivity;
 import com.alpha.pineapple.web.model.OpenModuleActivity;
 import com.alpha.pineapple.web.report.ReportRepository;
@@ -122,12 +124,20 @@ public class WebAppCoreFactory {
 	@Resource
 	ResultNotificationNotifierImpl resultNotificationNotifier;
 
+	/**
+	 * Reactor consumer which pushes results to REST clients.
+	 */
+	@Resource
+	ResultStreamPublisherImpl resultStreamPublisher;
+
 	/**
 	 * Create Pineapple core instance.
 	 * 
 	 * Registers Reactor consumers and configures the core component with a result
 	 * listener {@linkplain WebAppResultListenerImpl} which forwards Pineapple
-	 * events {@linkplain ExecutionResultNotification} as Reactor events.
+	 * events {@linkplain ExecutionResultNotification} as Reactor events. The
+	 * listener is notified asynchronously, so report creation and the web
+	 * consumers don't slow down the execution of operations.
 	 *
 	 * @return new Pineapple core instance.
 	 * 
@@ -139,6 +149,7 @@ public class WebAppCoreFactory {
 		webAppReactor.getConsumerRegistry().clear();
 		webAppReactor.on($(REACTOR_TOPIC_SERVICE_NOTIFICATION), createReport);
 		webAppReactor.on($(REACTOR_TOPIC_SERVICE_NOTIFICATION), resultNotificationNotifier);
+		webAppReactor.on($(REACTOR_TOPIC_SERVICE_NOTIFICATION), resultStreamPublisher);
 		webAppReactor.on($(REACTOR_TOPIC_SERVICE_CREATED_REPORT), createdReportNotification);
 		webAppReactor.on(T(OpenModuleActivity.class), openModuleActivityInvoker);
 		webAppReactor.on(T(ExecuteOperationActivity.class), executeOperationActivityInvoker);
@@ -148,7 +159,7 @@ public class WebAppCoreFactory {
 
 		// create core and register event listener
 		ResultListener[] listeners = { webAppResultListener };
-		PineappleCore coreComponent = coreFactory.createCore(listeners);
+		PineappleCore coreComponent = coreFactory.createCore(listeners, RESULT_LISTENER_POLICY);
 
 		// initialize report repository
 		ExecutionResult result = new ExecutionResultImpl("Initialize report repository");
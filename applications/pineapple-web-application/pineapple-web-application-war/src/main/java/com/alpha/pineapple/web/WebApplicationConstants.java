@@ -29,6 +29,8 @@ import java.util.Map;
 import org.zkoss.zk.ui.Component;
 import org.zkoss.zk.ui.event.EventQueues;
 
+import com.alpha.pineapple.execution.BackPressurePolicy;
+
 /**
  * Web application constants.
  */
@@ -40,6 +42,13 @@ public interface WebApplicationConstants {
 	 */
 	public static final String REACTOR_TOPIC_SERVICE_NOTIFICATION = "/webapp/service/execution-result-notification";
 
+	/**
+	 * Back-pressure policy for the web application result listener. Coalescing
+	 * keeps the latest notification for each execution result, so the report
+	 * is still created from the completed result.
+	 */
+	public static final BackPressurePolicy RESULT_LISTENER_POLICY = BackPressurePolicy.COALESCE;
+
 	/**
 	 * Reactor topic used to for posting created report events.
 	 */
@@ -737,6 +746,27 @@ public interface WebApplicationConstants {
 	 */
 	public static final String REST_EXECUTE_CANCEL_URI = REST_EXECUTE_URI + REST_EXECUTE_CANCEL_PATH;
 
+	/**
+	 * Execute REST stream operation status service path.
+	 */
+	public static final String REST_EXECUTE_STREAM_PATH = "/{id}/stream";
+
+	/**
+	 * Execute REST stream operation status service URI.
+	 */
+	public static final String REST_EXECUTE_STREAM_URI = REST_EXECUTE_URI + REST_EXECUTE_STREAM_PATH;
+
+	/**
+	 * Execute REST stream operation status event name.
+	 */
+	public static final String REST_EXECUTE_STREAM_EVENT = "results";
+
+	/**
+	 * Execute REST stream operation status timeout in milliseconds. The client
+	 * resumes the stream after the timeout.
+	 */
+	public static final long REST_EXECUTE_STREAM_TIMEOUT = 300000L;
+
 	/**
 	 * System REST service URI.
 	 */
@@ -767,6 +797,11 @@ public interface WebApplicationConstants {
 	 */
 	public static final String LOCATION_HEADER = "Location";
 
+	/**
+	 * Last-Event-ID Header.
+	 */
+	public static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
 	/**
 	 * File REST service URI.
 	 */
@@ -26,6 +26,7 @@ import static com.alpha.pineapple.web.WebApplicationConstants.REACTOR_EVENT_CREA
 import static com.alpha.pineapple.web.WebApplicationConstants.REACTOR_TOPIC_SERVICE_CREATED_REPORT;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import javax.annotation.Resource;
 
@@ -35,6 +36,7 @@ import com.alpha.javautils.StackTraceHelper;
 import com.alpha.pineapple.execution.ExecutionResult;
 import com.alpha.pineapple.execution.ExecutionResultNotification;
 import com.alpha.pineapple.execution.ResultListener;
+import com.alpha.pineapple.i18n.MessageProvider;
 import com.alpha.pineapple.io.file.RuntimeDirectoryProvider;
 import com.alpha.pineapple.report.basichtml.ReportGeneratorInfo;
 import com.alpha.pineapple.web.report.ReportRepository;
@@ -49,6 +51,10 @@ import reactor.function.Consumer;
  * 
  * The class is invoked from the {@linkplain Reactor} where it is registered as
  * a consumer. The consumer listens to result notifications.
+ * 
+ * The report is rendered asynchronously by the report generator. The report is
+ * added to the report repository when the rendering is completed. Reports which
+ * fail to render aren't added.
  */
 public class CreateReportImpl implements Consumer<Event<ExecutionResultNotification>> {
 
@@ -57,6 +63,12 @@ public class CreateReportImpl implements Consumer<Event<ExecutionResultNotificat
 	 */
 	Logger logger = Logger.getLogger(this.getClass().getName());
 
+	/**
+	 * Message provider for I18N support.
+	 */
+	@Resource
+	MessageProvider webMessageProvider;
+
 	/**
 	 * Report repository.
 	 */
@@ -98,20 +110,55 @@ public class CreateReportImpl implements Consumer<Event<ExecutionResultNotificat
 			generatorInfo.setReportDirectory(runtimeDirectoryProvider.getReportsDirectory());
 
 			// generate report
-			reportGenerator.notify(notification);
+			CompletableFuture<Boolean> rendering = generatorInfo.generateReport(notification);
+			if (rendering == null)
+				return;
 
 			// exit if no report was generated
 			Map<String, String> messages = notification.getResult().getMessages();
 			if (!messages.containsKey(ExecutionResult.MSG_REPORT))
 				return;
 
-			// log exception if report generation failed.
-
 			// get generated report id
 			String reportId = messages.get(ExecutionResult.MSG_REPORT);
 
+			// register report when rendering is completed
+			rendering.whenComplete((rendered, e) -> registerReport(reportId, notification.getResult(), rendered, e));
+
+		} catch (Exception e) {
+			logger.error(StackTraceHelper.getStrackTrace(e));
+		}
+
+	}
+
+	/**
+	 * Add rendered report to report repository and post created report event. The
+	 * report isn't added if the rendering failed.
+	 * 
+	 * @param reportId
+	 *            report ID.
+	 * @param result
+	 *            root execution result.
+	 * @param rendered
+	 *            true if the report was rendered.
+	 * @param renderingException
+	 *            exception thrown by the rendering. Null if no exception was
+	 *            thrown.
+	 */
+	void registerReport(String reportId, ExecutionResult result, Boolean rendered, Throwable renderingException) {
+		try {
+
+			// exit if rendering failed
+			if ((renderingException != null) || (!Boolean.TRUE.equals(rendered))) {
+				Object[] args = { reportId };
+				logger.error(webMessageProvider.getMessage("cri.report_rendering_failure", args));
+				if (renderingException != null)
+					logger.error(StackTraceHelper.getStrackTrace(renderingException));
+				return;
+			}
+
 			// update report repository with new execution
-			reportRepository.add(reportId, notification.getResult());
+			reportRepository.add(reportId, result);
 
 			// post created report event
 			webAppReactor.notify(REACTOR_TOPIC_SERVICE_CREATED_REPORT, Event.wrap(REACTOR_EVENT_CREATED_REPORT));
@@ -119,7 +166,6 @@ public class CreateReportImpl implements Consumer<Event<ExecutionResultNotificat
 		} catch (Exception e) {
 			logger.error(StackTraceHelper.getStrackTrace(e));
 		}
-
 	}
 
 	/**
@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+* Copyright (C) 2007-2015 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package com.alpha.pineapple.web.event.consumer;
+
+/**
+ * Exception class for signaling that a result stream can't be resumed because
+ * the event ID is outside the result sequence of the execution.
+ */
+public class EventIdOutOfRangeException extends Exception {
+
+	/**
+	 * serialVersionUID
+	 */
+	private static final long serialVersionUID = -2179544371862105933L;
+
+	/**
+	 * EventIdOutOfRangeException constructor.
+	 * 
+	 * @param message
+	 *            Error message.
+	 */
+	public EventIdOutOfRangeException(String message) {
+		super(message);
+	}
+
+}
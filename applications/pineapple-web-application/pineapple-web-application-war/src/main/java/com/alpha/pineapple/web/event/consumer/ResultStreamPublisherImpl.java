@@ -0,0 +1,356 @@
+/*
+ *    Pineapple - a tool to install, configure and test Java web applications 
+ *    and infrastructure. 
+ *
+ *    Copyright (C) 2007-2016 Allan Thrane Andersen..
+ *
+ *    This file is part of Pineapple.
+ *
+ *    Pineapple is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation, either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    Pineapple is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.alpha.pineapple.web.event.consumer;
+
+import static com.alpha.pineapple.web.WebApplicationConstants.REST_EXECUTE_STREAM_EVENT;
+import static com.alpha.pineapple.web.WebApplicationConstants.REST_EXECUTE_STREAM_TIMEOUT;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Resource;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+
+import org.apache.log4j.Logger;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import com.alpha.pineapple.execution.ExecutionInfo;
+import com.alpha.pineapple.execution.ExecutionInfoNotFoundException;
+import com.alpha.pineapple.execution.ExecutionResult;
+import com.alpha.pineapple.execution.ExecutionResult.ExecutionState;
+import com.alpha.pineapple.execution.ExecutionResultNotification;
+import com.alpha.pineapple.execution.ResultRepository;
+import com.alpha.pineapple.i18n.MessageProvider;
+import com.alpha.pineapple.model.ExecutionResultMapper;
+import com.alpha.pineapple.model.JAXBContextRegistry;
+import com.alpha.pineapple.model.execution.Results;
+
+import reactor.core.Reactor;
+import reactor.event.Event;
+import reactor.function.Consumer;
+
+/**
+ * Implementation of the {@linkplain Consumer} interface which pushes execution
+ * results to REST clients as server-sent events.
+ * 
+ * The class is invoked from the {@linkplain Reactor} where it is registered as
+ * a consumer. The consumer listens to result notifications and publishes the
+ * results created since the last published event to each stream which is
+ * subscribed to the execution.
+ * 
+ * Each event contains a sequence of model results and the ID of the event is
+ * the index of the next result in the result repository. A client can resume a
+ * stream by subscribing with the ID of the last received event. Subscription
+ * with an ID outside the result sequence is rejected, since the client can't
+ * tell which of its results are stale.
+ */
+public class ResultStreamPublisherImpl implements Consumer<Event<ExecutionResultNotification>> {
+
+	/**
+	 * Index of the first result.
+	 */
+	static final int FIRST_RESULT_INDEX = 0;
+
+	/**
+	 * Encoding of marshalled event data. Non-ASCII characters are escaped as
+	 * character references.
+	 */
+	static final String EVENT_DATA_ENCODING = "US-ASCII";
+
+	/**
+	 * Regular expression used to split event data into lines.
+	 */
+	static final String LINE_SEPARATOR_REGEX = "\\r\\n|\\r|\\n";
+
+	/**
+	 * Logger object.
+	 */
+	Logger logger = Logger.getLogger(this.getClass().getName());
+
+	/**
+	 * Message provider for I18N support.
+	 */
+	@Resource
+	MessageProvider webMessageProvider;
+
+	/**
+	 * Execution result model mapper.
+	 */
+	@Resource
+	ExecutionResultMapper resultMapper;
+
+	/**
+	 * JAXB context registry.
+	 */
+	@Resource
+	JAXBContextRegistry jaxbContextRegistry;
+
+	/**
+	 * Executor used to publish events.
+	 */
+	@Resource
+	TaskExecutor resultStreamExecutor;
+
+	/**
+	 * Subscribed streams. The streams are keyed by the root result of the
+	 * execution.
+	 */
+	ConcurrentMap<ExecutionResult, Queue<ResultStream>> streams = new ConcurrentHashMap<ExecutionResult, Queue<ResultStream>>();
+
+	/**
+	 * Subscribe to the results of an execution. The stream starts with the result
+	 * at the first index.
+	 * 
+	 * @param executionInfo
+	 *            execution info of executing or completed operation.
+	 * @param resultRepository
+	 *            result repository which contains the results of the execution.
+	 * @param firstIndex
+	 *            index of first result published to the stream.
+	 * 
+	 * @return emitter which sends the events to the client.
+	 * 
+	 * @throws ExecutionInfoNotFoundException
+	 *             if execution info is unknown.
+	 * @throws EventIdOutOfRangeException
+	 *             if the first index is outside the sequence of results.
+	 */
+	public SseEmitter subscribe(ExecutionInfo executionInfo, ResultRepository resultRepository, int firstIndex)
+			throws ExecutionInfoNotFoundException, EventIdOutOfRangeException {
+
+		// validate first index
+		int currentIndex = resultRepository.getCurrentResultIndex(executionInfo);
+		if ((firstIndex < FIRST_RESULT_INDEX) || (firstIndex > currentIndex)) {
+			Object[] args = { firstIndex, currentIndex };
+			String message = webMessageProvider.getMessage("rsp_illegal_index_failure", args);
+			throw new EventIdOutOfRangeException(message);
+		}
+
+		// register stream
+		final ResultStream stream = new ResultStream(executionInfo, resultRepository, firstIndex);
+		ExecutionResult rootResult = executionInfo.getResult();
+		streams.computeIfAbsent(rootResult, key -> new ConcurrentLinkedQueue<ResultStream>()).add(stream);
+		stream.emitter.onCompletion(() -> unsubscribe(stream));
+		stream.emitter.onTimeout(() -> unsubscribe(stream));
+
+		// publish results created prior to subscription
+		schedule(stream);
+
+		return stream.emitter;
+	}
+
+	/**
+	 * Unsubscribe stream.
+	 * 
+	 * @param stream
+	 *            stream to unsubscribe.
+	 */
+	void unsubscribe(ResultStream stream) {
+		ExecutionResult rootResult = stream.executionInfo.getResult();
+		streams.computeIfPresent(rootResult, (key, queue) -> {
+			queue.remove(stream);
+			return queue.isEmpty() ? null : queue;
+		});
+	}
+
+	@Override
+	public void accept(Event<ExecutionResultNotification> t) {
+		ExecutionResultNotification notification = t.getData();
+		Queue<ResultStream> subscribedStreams = streams.get(notification.getResult().getRootResult());
+		if (subscribedStreams == null)
+			return;
+		for (ResultStream stream : subscribedStreams)
+			schedule(stream);
+	}
+
+	/**
+	 * Schedule publication of results to stream. The publication is skipped if
+	 * the stream is already scheduled, since the scheduled publication includes
+	 * all results created until it is executed.
+	 * 
+	 * @param stream
+	 *            stream to publish results to.
+	 */
+	void schedule(final ResultStream stream) {
+		if (stream.scheduled.compareAndSet(false, true))
+			resultStreamExecutor.execute(() -> publish(stream));
+	}
+
+	/**
+	 * Publish the results created since the last published event to stream. The
+	 * stream is completed and unsubscribed when the execution is completed. The
+	 * stream is unsubscribed explicitly since the completion callback of the
+	 * emitter isn't invoked if the emitter is completed before it is initialized.
+	 * 
+	 * @param stream
+	 *            stream to publish results to.
+	 */
+	void publish(ResultStream stream) {
+		synchronized (stream) {
+			stream.scheduled.set(false);
+
+			// exit if stream is completed
+			if (stream.completed)
+				return;
+
+			try {
+				ExecutionInfo executionInfo = stream.executionInfo;
+				ResultRepository resultRepository = stream.resultRepository;
+				int lastIndex = resultRepository.getCurrentResultIndex(executionInfo);
+
+				// send results created since the last event
+				if (lastIndex > stream.nextIndex) {
+					ExecutionResultNotification[] notifications = resultRepository.getResultSequence(executionInfo,
+							stream.nextIndex, lastIndex);
+					Results results = resultMapper.mapNotificationsToModel(notifications);
+					SseEventBuilder event = SseEmitter.event().id(Integer.toString(lastIndex))
+							.name(REST_EXECUTE_STREAM_EVENT);
+					for (String line : marshall(results).split(LINE_SEPARATOR_REGEX))
+						event.data(line);
+					stream.emitter.send(event);
+					stream.nextIndex = lastIndex;
+				}
+
+				// complete stream if execution is completed
+				if (isExecutionCompleted(stream)) {
+					stream.completed = true;
+					stream.emitter.complete();
+					unsubscribe(stream);
+				}
+
+			} catch (ExecutionInfoNotFoundException | JAXBException | IOException e) {
+				if (logger.isDebugEnabled()) {
+					Object[] args = { e };
+					logger.debug(webMessageProvider.getMessage("rsp_publish_failure", args));
+				}
+				stream.completed = true;
+				stream.emitter.completeWithError(e);
+				unsubscribe(stream);
+			}
+		}
+	}
+
+	/**
+	 * Return true if execution is completed, i.e. the last published result is
+	 * the root result which signals that it isn't running anymore.
+	 * 
+	 * @param stream
+	 *            stream to test.
+	 * 
+	 * @return true if execution is completed.
+	 * 
+	 * @throws ExecutionInfoNotFoundException
+	 *             if execution info is unknown.
+	 */
+	boolean isExecutionCompleted(ResultStream stream) throws ExecutionInfoNotFoundException {
+		if (stream.nextIndex == FIRST_RESULT_INDEX)
+			return false;
+		ExecutionResultNotification[] notifications = stream.resultRepository
+				.getResultSequence(stream.executionInfo, stream.nextIndex - 1, stream.nextIndex);
+		ExecutionResultNotification notification = notifications[0];
+		if (!notification.getResult().isRoot())
+			return false;
+		return (!notification.getState().equals(ExecutionState.EXECUTING));
+	}
+
+	/**
+	 * Marshall model results to XML. The marshaller is bound to the calling
+	 * thread by the JAXB context registry.
+	 * 
+	 * @param results
+	 *            model results.
+	 * 
+	 * @return XML representation of model results.
+	 * 
+	 * @throws JAXBException
+	 *             if marshalling fails.
+	 */
+	String marshall(Results results) throws JAXBException {
+		Marshaller marshaller = jaxbContextRegistry.getMarshaller(Results.class.getPackage().getName());
+		marshaller.setProperty(Marshaller.JAXB_ENCODING, EVENT_DATA_ENCODING);
+		StringWriter writer = new StringWriter();
+		marshaller.marshal(results, writer);
+		return writer.toString();
+	}
+
+	/**
+	 * Stream of execution results to a single client.
+	 */
+	static class ResultStream {
+
+		/**
+		 * Emitter which sends events to client.
+		 */
+		final SseEmitter emitter = new SseEmitter(REST_EXECUTE_STREAM_TIMEOUT);
+
+		/**
+		 * Scheduled publication flag.
+		 */
+		final AtomicBoolean scheduled = new AtomicBoolean();
+
+		/**
+		 * Execution info of the streamed execution.
+		 */
+		final ExecutionInfo executionInfo;
+
+		/**
+		 * Result repository.
+		 */
+		final ResultRepository resultRepository;
+
+		/**
+		 * Index of next result to publish.
+		 */
+		int nextIndex;
+
+		/**
+		 * Completed stream flag.
+		 */
+		boolean completed;
+
+		/**
+		 * ResultStream constructor.
+		 * 
+		 * @param executionInfo
+		 *            execution info of the streamed execution.
+		 * @param resultRepository
+		 *            result repository.
+		 * @param firstIndex
+		 *            index of first result to publish.
+		 */
+		ResultStream(ExecutionInfo executionInfo, ResultRepository resultRepository, int firstIndex) {
+			this.executionInfo = executionInfo;
+			this.resultRepository = resultRepository;
+			this.nextIndex = firstIndex;
+		}
+	}
+
+}
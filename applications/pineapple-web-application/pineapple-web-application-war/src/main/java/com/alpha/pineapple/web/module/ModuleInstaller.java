@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+ * Copyright (C) 2007-2012 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package com.alpha.pineapple.web.module;
+
+import java.io.InputStream;
+
+import com.alpha.pineapple.module.ModuleInstallationFailedException;
+
+/**
+ * Installs zipped modules into the modules directory.
+ */
+public interface ModuleInstaller {
+
+	/**
+	 * Install zipped module by unpacking the archive in a single pass from the
+	 * stream. The archive is unpacked into a staging directory. When the archive
+	 * is unpacked then each unpacked module is moved into the modules directory,
+	 * replacing any existing module with the same name. The module repository
+	 * will never see a partially unpacked module.
+	 * 
+	 * The module repository isn't refreshed by the installer.
+	 * 
+	 * @param archiveName
+	 *            name of archive.
+	 * @param archive
+	 *            stream with zipped module. The stream is closed by the
+	 *            installer.
+	 * @param archiveSize
+	 *            size of archive in bytes. Is -1 if the size is unknown.
+	 * @param listener
+	 *            listener which is notified about the unpack progress. Can be
+	 *            null.
+	 * 
+	 * @throws ModuleInstallationFailedException
+	 *             if the archive doesn't contain any entries or contains entries
+	 *             outside of the module directory.
+	 * @throws Exception
+	 *             if installation fails.
+	 */
+	void install(String archiveName, InputStream archive, long archiveSize, UnpackProgressListener listener)
+			throws Exception;
+
+}
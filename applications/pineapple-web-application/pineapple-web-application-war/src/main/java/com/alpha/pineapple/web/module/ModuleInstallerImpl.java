@@ -0,0 +1,312 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+ * Copyright (C) 2007-2012 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package com.alpha.pineapple.web.module;
+
+import static com.alpha.javautils.ArgumentUtils.notNull;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import javax.annotation.Resource;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.log4j.Logger;
+
+import com.alpha.pineapple.i18n.MessageProvider;
+import com.alpha.pineapple.io.file.RuntimeDirectoryProvider;
+import com.alpha.pineapple.module.ModuleInstallationFailedException;
+
+/**
+ * Implementation of the {@linkplain ModuleInstaller} interface.
+ * 
+ * The staging directory is created next to the modules directory to support
+ * atomic moves of the unpacked modules into the modules directory. If the file
+ * system doesn't support atomic moves then the modules are copied.
+ */
+public class ModuleInstallerImpl implements ModuleInstaller {
+
+	/**
+	 * Copy buffer size.
+	 */
+	static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Minimum interval (in ms) between notifications of the progress listener.
+	 */
+	static final long PROGRESS_INTERVAL = 1000;
+
+	/**
+	 * Prefix of staging directory.
+	 */
+	static final String STAGING_DIRECTORY_PREFIX = ".modules-staging-";
+
+	/**
+	 * Staging sub directory which contains the unpacked modules.
+	 */
+	static final String UNPACKED_DIRECTORY = "unpacked";
+
+	/**
+	 * Staging sub directory which contains the replaced modules.
+	 */
+	static final String REPLACED_DIRECTORY = "replaced";
+
+	/**
+	 * Logger object.
+	 */
+	Logger logger = Logger.getLogger(this.getClass().getName());
+
+	/**
+	 * Message provider for I18N support.
+	 */
+	@Resource(name = "webMessageProvider")
+	MessageProvider messageProvider;
+
+	/**
+	 * Runtime directory resolver.
+	 */
+	@Resource
+	RuntimeDirectoryProvider runtimeDirectoryResolver;
+
+	@Override
+	public void install(String archiveName, InputStream archive, long archiveSize, UnpackProgressListener listener)
+			throws Exception {
+		notNull(archiveName, "archiveName is undefined.");
+		notNull(archive, "archive is undefined.");
+
+		// define staging directories
+		File modulesDirectory = runtimeDirectoryResolver.getModulesDirectory().getAbsoluteFile();
+		File stagingDirectory = new File(modulesDirectory.getParentFile(),
+				STAGING_DIRECTORY_PREFIX + UUID.randomUUID());
+		File unpackedDirectory = new File(stagingDirectory, UNPACKED_DIRECTORY);
+		File replacedDirectory = new File(stagingDirectory, REPLACED_DIRECTORY);
+
+		try {
+			// unpack archive
+			int entries = unpack(archive, archiveSize, unpackedDirectory, listener);
+
+			// fail if archive is empty
+			if (entries == 0) {
+				Object[] args = { archiveName };
+				String message = messageProvider.getMessage("mi.empty_archive_failure", args);
+				throw new ModuleInstallationFailedException(message);
+			}
+
+			// move unpacked modules into modules directory
+			modulesDirectory.mkdirs();
+			replacedDirectory.mkdirs();
+			for (File unpackedModule : unpackedDirectory.listFiles()) {
+				File module = new File(modulesDirectory, unpackedModule.getName());
+				File replacedModule = new File(replacedDirectory, unpackedModule.getName());
+				replaceModule(unpackedModule, module, replacedModule);
+			}
+
+		} finally {
+			FileUtils.deleteQuietly(stagingDirectory);
+		}
+	}
+
+	/**
+	 * Unpack archive into directory.
+	 * 
+	 * @param archive
+	 *            stream with zipped module.
+	 * @param archiveSize
+	 *            size of archive in bytes. Is -1 if the size is unknown.
+	 * @param directory
+	 *            directory to unpack archive into.
+	 * @param listener
+	 *            progress listener. Can be null.
+	 * 
+	 * @return number of unpacked entries.
+	 * 
+	 * @throws Exception
+	 *             if unpacking fails.
+	 */
+	int unpack(InputStream archive, long archiveSize, File directory, UnpackProgressListener listener)
+			throws Exception {
+
+		// declare streams
+		CountingInputStream cis = null;
+		ZipInputStream zis = null;
+		OutputStream os = null;
+
+		try {
+			// create root directory
+			directory.mkdirs();
+			Path root = directory.getCanonicalFile().toPath();
+
+			// count bytes read from the archive
+			cis = new CountingInputStream(archive);
+			zis = new ZipInputStream(new BufferedInputStream(cis, BUFFER_SIZE));
+
+			// set counters
+			int entries = 0;
+			long lastNotification = System.currentTimeMillis();
+			byte buffer[] = new byte[BUFFER_SIZE];
+
+			// iterate over archive content
+			ZipEntry zipEntry;
+			ZipEntry lastEntry = null;
+			while ((zipEntry = zis.getNextEntry()) != null) {
+				entries++;
+				lastEntry = zipEntry;
+				File file = resolveEntry(root, zipEntry);
+
+				// if entry is directory then create it
+				if (zipEntry.isDirectory()) {
+					file.mkdirs();
+					continue;
+				}
+
+				// unpack entry as file
+				file.getParentFile().mkdirs();
+				os = new FileOutputStream(file);
+				for (int b; (b = zis.read(buffer, 0, BUFFER_SIZE)) != -1;) {
+					os.write(buffer, 0, b);
+
+					// notify listener if interval has passed
+					long timeStamp = System.currentTimeMillis();
+					if ((listener != null) && ((timeStamp - lastNotification) >= PROGRESS_INTERVAL)) {
+						listener.progress(zipEntry, entries, cis.getByteCount(), archiveSize);
+						lastNotification = timeStamp;
+					}
+				}
+				os.close();
+				os = null;
+			}
+
+			// notify listener about completion
+			if ((listener != null) && (lastEntry != null))
+				listener.progress(lastEntry, entries, cis.getByteCount(), archiveSize);
+
+			return entries;
+
+		} finally {
+			IOUtils.closeQuietly(os);
+			IOUtils.closeQuietly(zis);
+			IOUtils.closeQuietly(cis);
+		}
+	}
+
+	/**
+	 * Resolve file for ZIP entry. Fails if the entry is located outside of the
+	 * root directory, e.g. if the entry name contains "..".
+	 * 
+	 * @param root
+	 *            canonical root directory.
+	 * @param zipEntry
+	 *            ZIP entry.
+	 * 
+	 * @return file for ZIP entry.
+	 * 
+	 * @throws ModuleInstallationFailedException
+	 *             if the entry is located outside of the root directory.
+	 */
+	File resolveEntry(Path root, ZipEntry zipEntry) throws ModuleInstallationFailedException {
+		Path path = root.resolve(zipEntry.getName()).normalize();
+		if (!path.startsWith(root)) {
+			Object[] args = { zipEntry.getName() };
+			String message = messageProvider.getMessage("mi.illegal_entry_failure", args);
+			throw new ModuleInstallationFailedException(message);
+		}
+		return path.toFile();
+	}
+
+	/**
+	 * Replace module in the modules directory with unpacked module. The module is
+	 * replaced in three steps:
+	 * 
+	 * 1) The existing module (if any) is renamed aside into the staging directory.
+	 * 2) The unpacked module is moved into the modules directory. If the move
+	 * fails then the existing module is restored.
+	 * 3) The replaced module is deleted.
+	 * 
+	 * The module is only absent from the modules directory in the window between
+	 * the two renames, if the file system supports atomic moves.
+	 * 
+	 * @param unpackedModule
+	 *            unpacked module in staging directory.
+	 * @param module
+	 *            module in modules directory.
+	 * @param replacedModule
+	 *            location in staging directory for the replaced module.
+	 * 
+	 * @throws IOException
+	 *             if the move fails.
+	 */
+	void replaceModule(File unpackedModule, File module, File replacedModule) throws IOException {
+		boolean exists = module.exists();
+		if (exists)
+			move(module, replacedModule);
+
+		try {
+			move(unpackedModule, module);
+		} catch (IOException e) {
+			if (exists)
+				move(replacedModule, module);
+			throw e;
+		}
+
+		if (exists)
+			FileUtils.deleteQuietly(replacedModule);
+	}
+
+	/**
+	 * Move file or directory. The move is atomic if supported by the file system,
+	 * otherwise the file or directory is copied.
+	 * 
+	 * @param source
+	 *            source file or directory.
+	 * @param target
+	 *            target file or directory.
+	 * 
+	 * @throws IOException
+	 *             if the move fails.
+	 */
+	void move(File source, File target) throws IOException {
+		try {
+			Files.move(source.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Object[] args = { source, target };
+			logger.warn(messageProvider.getMessage("mi.atomic_move_unsupported_warn", args));
+			if (source.isDirectory())
+				FileUtils.moveDirectory(source, target);
+			else
+				FileUtils.moveFile(source, target);
+		}
+	}
+
+}
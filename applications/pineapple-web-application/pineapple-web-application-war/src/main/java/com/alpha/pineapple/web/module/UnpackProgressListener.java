@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+ * Copyright (C) 2007-2012 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package com.alpha.pineapple.web.module;
+
+import java.util.zip.ZipEntry;
+
+/**
+ * Listener which is notified about the progress of unpacking a zipped module.
+ * 
+ * The listener is notified at most once per progress interval while the archive
+ * is unpacked and once when the archive is completely unpacked.
+ */
+public interface UnpackProgressListener {
+
+	/**
+	 * Notify about unpack progress.
+	 * 
+	 * @param entry
+	 *            current ZIP entry.
+	 * @param entries
+	 *            number of ZIP entries read from the archive.
+	 * @param bytesRead
+	 *            number of bytes read from the archive.
+	 * @param archiveSize
+	 *            size of archive in bytes. Is -1 if the size is unknown.
+	 */
+	void progress(ZipEntry entry, int entries, long bytesRead, long archiveSize);
+
+}
@@ -29,7 +29,6 @@ import java.util.List;
 import java.util.stream.Stream;
 
 import javax.annotation.Resource;
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.Unmarshaller;
 
@@ -37,6 +36,7 @@ import com.alpha.pineapple.exception.SaveConfigurationFailedException;
 import com.alpha.pineapple.execution.ExecutionResult;
 import com.alpha.pineapple.i18n.MessageProvider;
 import com.alpha.pineapple.io.file.RuntimeDirectoryProvider;
+import com.alpha.pineapple.model.JAXBContextRegistry;
 import com.alpha.pineapple.model.report.ObjectFactory;
 import com.alpha.pineapple.model.report.Report;
 import com.alpha.pineapple.model.report.Reports;
@@ -63,6 +63,12 @@ public class ReportSetMarshallerImpl implements ReportSetMarshaller {
 	@Resource
 	RuntimeDirectoryProvider runtimeDirectoryProvider;
 
+	/**
+	 * JAXB context registry.
+	 */
+	@Resource
+	JAXBContextRegistry jaxbContextRegistry;
+
 	/**
 	 * Message provider for I18N support.
 	 */
@@ -94,9 +100,8 @@ public class ReportSetMarshallerImpl implements ReportSetMarshaller {
 
 		try {
 
-			// create unmarshaller
-			JAXBContext jaxbContext = JAXBContext.newInstance(PACKAGE_NAME);
-			Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
+			// get unmarshaller
+			Unmarshaller unmarshaller = jaxbContextRegistry.getUnmarshaller(PACKAGE_NAME);
 
 			// load
 			Object results = unmarshaller.unmarshal(reportsFile);
@@ -127,8 +132,7 @@ public class ReportSetMarshallerImpl implements ReportSetMarshaller {
 
 		try {
 
-			JAXBContext jaxbContext = JAXBContext.newInstance(PACKAGE_NAME);
-			Marshaller marshaller = jaxbContext.createMarshaller();
+			Marshaller marshaller = jaxbContextRegistry.getMarshaller(PACKAGE_NAME);
 			marshaller.setProperty("jaxb.formatted.output", Boolean.TRUE);
 
 			// save
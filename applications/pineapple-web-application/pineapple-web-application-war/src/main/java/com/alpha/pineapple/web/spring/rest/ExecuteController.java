@@ -22,11 +22,13 @@
 
 package com.alpha.pineapple.web.spring.rest;
 
+import static com.alpha.pineapple.web.WebApplicationConstants.LAST_EVENT_ID_HEADER;
 import static com.alpha.pineapple.web.WebApplicationConstants.LOCATION_HEADER;
 import static com.alpha.pineapple.web.WebApplicationConstants.REST_EXECUTE_CANCEL_PATH;
 import static com.alpha.pineapple.web.WebApplicationConstants.REST_EXECUTE_EXECUTE_PATH;
 import static com.alpha.pineapple.web.WebApplicationConstants.REST_EXECUTE_STATUS_PATH;
 import static com.alpha.pineapple.web.WebApplicationConstants.REST_EXECUTE_STATUS_URI;
+import static com.alpha.pineapple.web.WebApplicationConstants.REST_EXECUTE_STREAM_PATH;
 import static com.alpha.pineapple.web.WebApplicationConstants.REST_EXECUTE_URI;
 
 import java.net.URI;
@@ -39,14 +41,17 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.log4j.Logger;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.util.UriTemplate;
 
 import com.alpha.pineapple.PineappleCore;
@@ -61,6 +66,8 @@ import com.alpha.pineapple.model.execution.Results;
 import com.alpha.pineapple.module.ModuleInfo;
 import com.alpha.pineapple.module.ModuleNotFoundException;
 import com.alpha.pineapple.module.ModuleRepository;
+import com.alpha.pineapple.web.event.consumer.EventIdOutOfRangeException;
+import com.alpha.pineapple.web.event.consumer.ResultStreamPublisherImpl;
 
 /**
  * Execute REST web service controller.
@@ -103,6 +110,12 @@ public class ExecuteController {
 	@Resource
 	ExecutionResultMapper resultMapper;
 
+	/**
+	 * Execution result stream publisher.
+	 */
+	@Resource
+	ResultStreamPublisherImpl resultStreamPublisher;
+
 	/**
 	 * Execution Info container
 	 */
@@ -315,6 +328,56 @@ public class ExecuteController {
 		return notifications;
 	}
 
+	/**
+	 * Stream operation status.
+	 * 
+	 * Pushes the status of executing or completed operation as server-sent
+	 * events. Each event contains the sequence of execution results which are
+	 * generated since the previous event. The stream is completed when the
+	 * operation is completed. The ID of each event can be sent in the
+	 * Last-Event-ID header to resume the stream after the event.
+	 * 
+	 * The stream is independent of the results returned by the get operation
+	 * status service.
+	 * 
+	 * @param id
+	 *            the operation ID of the executing operation. Used to identify
+	 *            execution result tree.
+	 * @param lastEventId
+	 *            ID of the last event received by the client. The stream starts
+	 *            with the first result if the ID is undefined.
+	 * 
+	 * @return If the operation ID is known then a stream of model results is
+	 *         returned. If the operation ID isn't known the a HTTP 404 (Not
+	 *         Found) is returned along with a error message. If the last event
+	 *         ID is outside the result sequence then a HTTP 400 (Bad Request) is
+	 *         returned along with a error message.
+	 * 
+	 * @throws ExecutionInfoNotFoundException
+	 *             if operation ID isn't known. The exception is handled by the
+	 *             spring exception handler.
+	 * @throws EventIdOutOfRangeException
+	 *             if the last event ID is outside the result sequence. The
+	 *             exception is handled by the spring exception handler.
+	 */
+	@RequestMapping(value = REST_EXECUTE_STREAM_PATH, method = RequestMethod.GET,
+			produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter streamOperationStatus(@PathVariable String id,
+			@RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) Integer lastEventId)
+			throws ExecutionInfoNotFoundException, EventIdOutOfRangeException {
+
+		// get execution info
+		ExecutionInfo executionInfo = getExecutionInfo(id);
+
+		// get result repository
+		Administration admin = coreComponent.getAdministration();
+		ResultRepository resultRepository = admin.getResultRepository();
+
+		// subscribe
+		int firstIndex = (lastEventId == null) ? FIRST_MAPPED_RESULT_INDEX : lastEventId.intValue();
+		return resultStreamPublisher.subscribe(executionInfo, resultRepository, firstIndex);
+	}
+
 	/**
 	 * Cancel execution of operation.
 	 * 
@@ -413,4 +476,21 @@ public class ExecuteController {
 		return e.getMessage();
 	}
 
+	/**
+	 * Exception handler for handling event ID outside the result sequence.
+	 * 
+	 * @param e
+	 *            event ID out of range exception.
+	 * @param response
+	 *            HTTP response.
+	 * 
+	 * @return bad request HTTP status code and error message.
+	 */
+	@ExceptionHandler(EventIdOutOfRangeException.class)
+	@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+	@ResponseBody
+	public String handleException(EventIdOutOfRangeException e, HttpServletResponse response) {
+		return e.getMessage();
+	}
+
 }
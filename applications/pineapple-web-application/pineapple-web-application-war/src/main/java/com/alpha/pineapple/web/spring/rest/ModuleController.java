@@ -29,19 +29,9 @@ import static com.alpha.pineapple.web.WebApplicationConstants.REST_MODULE_GET_MO
 import static com.alpha.pineapple.web.WebApplicationConstants.REST_MODULE_REFRESH_PATH;
 import static com.alpha.pineapple.web.WebApplicationConstants.REST_MODULE_UPLOAD_PATH;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.InputStream;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
-
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletResponse;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.log4j.Logger;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -59,7 +49,6 @@ import org.springframework.web.multipart.MultipartFile;
 import com.alpha.pineapple.PineappleCore;
 import com.alpha.pineapple.admin.Administration;
 import com.alpha.pineapple.i18n.MessageProvider;
-import com.alpha.pineapple.io.file.RuntimeDirectoryProvider;
 import com.alpha.pineapple.model.module.info.Modules;
 import com.alpha.pineapple.module.ModelNotFoundException;
 import com.alpha.pineapple.module.ModuleDeletionFailedException;
@@ -69,6 +58,7 @@ import com.alpha.pineapple.module.ModuleNotFoundException;
 import com.alpha.pineapple.module.ModuleRepository;
 import com.alpha.pineapple.web.WebApplicationConstants;
 import com.alpha.pineapple.web.model.RestResultMapper;
+import com.alpha.pineapple.web.module.ModuleInstaller;
 
 /**
  * Module REST web service controller.
@@ -77,16 +67,6 @@ import com.alpha.pineapple.web.model.RestResultMapper;
 @RequestMapping(WebApplicationConstants.REST_MODULE_URI)
 public class ModuleController {
 
-	/**
-	 * 100% percentage.
-	 */
-	static final int HUNDRED_PERCENTAGE = 100;
-
-	/**
-	 * Copy buffer size.
-	 */
-	static final int ONE_KB_BUFFER = 1024;
-
 	/**
 	 * Logger object.
 	 */
@@ -99,10 +79,10 @@ public class ModuleController {
 	MessageProvider webMessageProvider;
 
 	/**
-	 * Runtime directory resolver.
+	 * Module installer.
 	 */
 	@Resource
-	RuntimeDirectoryProvider runtimeDirectoryResolver;
+	ModuleInstaller moduleInstaller;
 
 	/**
 	 * Pineapple core component.
@@ -214,23 +194,8 @@ public class ModuleController {
 
 		try {
 
-			// store uploaded file at temp directory.
-			String fileName = file.getOriginalFilename();			
-			File tmpFile = new File(runtimeDirectoryResolver.getTempDirectory(), fileName);
-			FileOutputStream fos = new FileOutputStream(tmpFile);
-			InputStream is = file.getInputStream();
-			IOUtils.copy(is, fos);
-
-			// exit if archive is empty
-			int numberEntries = countArchiveEntries(tmpFile);
-			if (numberEntries == 0) {
-				Object[] args = { fileName };
-				String message = webMessageProvider.getMessage("mc.upload_module_empty_zip_failure", args);
-				throw new ModuleInstallationFailedException(message);
-			}
-
-			// unpack zipped tmp file to module directory
-			unpackZippedModule(tmpFile, numberEntries);
+			// unpack uploaded file directly from the request to module directory
+			moduleInstaller.install(file.getOriginalFilename(), file.getInputStream(), file.getSize(), null);
 
 			// get modules repository
 			Administration admin = coreComponent.getAdministration();
@@ -269,209 +234,6 @@ public class ModuleController {
 		moduleRepository.delete(module);
 	}
 
-	/**
-	 * Unpack zipped module.
-	 * 
-	 * @param fileName      file name of archive to unpack.
-	 * @param numberEntries number of entries in archive.
-	 * 
-	 * @throws Exception if unpacking fails.
-	 */
-	public void unpackZippedModule(File fileName, int numberEntries) throws Exception {
-
-		// declare streams
-		FileInputStream is = null;
-		ZipInputStream zis = null;
-		BufferedInputStream bis = null;
-		FileOutputStream fos = null;
-		BufferedOutputStream bos = null;
-
-		try {
-			// set counters
-			int entryNumber = 0;
-
-			// get media as zip stream
-			is = new FileInputStream(fileName);
-			zis = new ZipInputStream(is);
-			bis = new BufferedInputStream(zis);
-
-			// iterate over archive content
-			ZipEntry zipEntry;
-			while ((zipEntry = zis.getNextEntry()) != null) {
-
-				// define next file to unpack
-				File file = new File(runtimeDirectoryResolver.getModulesDirectory(), zipEntry.getName());
-
-				// compute progress
-				entryNumber++;
-				int zipPercentage = (HUNDRED_PERCENTAGE * entryNumber) / numberEntries;
-
-				// schedule event
-				// UnpackedEntryEvent event = new
-				// UnpackedEntryEvent(zipPercentage, zipEntry, entryNumber,
-				// numberEntries );
-				// asyncTaskHelper.scheduleEvent(event, desktop, eventListener);
-				// logger.debug("DEBUG Unpacked entry:" + file);
-				// logger.debug("DEBUG zipPercentage:" + zipPercentage);
-				// logger.debug("DEBUG zipEntry:" + zipEntry);
-				// logger.debug("DEBUG entryNumber:" + entryNumber);
-				// logger.debug("DEBUG numberEntries:" + numberEntries);
-
-				// if entry is directory then create it
-				if (zipEntry.isDirectory()) {
-					file.mkdirs();
-					continue;
-				}
-
-				// unpack entry as file
-				createParentDirectory(file);
-
-				// set counters
-				int unpackedSizeKb = 0;
-				long totalSizeKb = computeTotalFileSizeInKb(zipEntry);
-				int lastFilePercentage = 0;
-				long lastTimeStamp = System.currentTimeMillis();
-				long timeStamp = lastTimeStamp;
-
-				// open streams
-				fos = new FileOutputStream(file);
-				bos = new BufferedOutputStream(fos);
-				byte buffer[] = new byte[ONE_KB_BUFFER];
-
-				// unzip file
-				for (int b; (b = bis.read(buffer, 0, ONE_KB_BUFFER)) != -1;) {
-					bos.write(buffer, 0, b);
-
-					// compute progress
-					unpackedSizeKb++;
-					int filePercentage = computeFileProgress(totalSizeKb, unpackedSizeKb);
-
-					// we don't skip at hundred percentage
-					if (filePercentage < HUNDRED_PERCENTAGE) {
-
-						// skip scheduling event if we haven't changed
-						// percentage
-						if (filePercentage == lastFilePercentage)
-							continue;
-
-						// skip scheduling event if last event is less than a
-						// second old
-						timeStamp = System.currentTimeMillis();
-						if ((timeStamp - lastTimeStamp) < 1000)
-							continue;
-					}
-
-					// update
-					lastTimeStamp = timeStamp;
-					lastFilePercentage = filePercentage;
-
-					// schedule event
-					// FileUnpackUpdateEvent event2 = new
-					// FileUnpackUpdateEvent(filePercentage, unpackedSizeKb,
-					// totalSizeKb);
-					// asyncTaskHelper.scheduleEvent(event2, desktop,
-					// eventListener);
-					// logger.debug("DEBUG filePercentage:" + filePercentage);
-					// logger.debug("DEBUG unpackedSizeKb:" + unpackedSizeKb);
-					// logger.debug("DEBUG totalSizeKb:" + totalSizeKb);
-				}
-
-				// close streams
-				bos.flush();
-				bos.close();
-				fos.close();
-			}
-
-			// close streams
-			bis.close();
-			zis.close();
-			is.close();
-
-		} finally {
-			IOUtils.closeQuietly(bos);
-			IOUtils.closeQuietly(fos);
-			IOUtils.closeQuietly(bis);
-			IOUtils.closeQuietly(zis);
-			IOUtils.closeQuietly(is);
-		}
-	}
-
-	/**
-	 * Compute total file size in KB.
-	 * 
-	 * If file size is less than 1 KB then 1 KB is returned.
-	 * 
-	 * @param zipEntry Zip entry to calculate size for.
-	 * 
-	 * @return total file size in KB.
-	 */
-	long computeTotalFileSizeInKb(ZipEntry zipEntry) {
-		if (zipEntry.getSize() < ONE_KB_BUFFER)
-			return 1;
-		double sizeKb = (double) zipEntry.getSize() / (double) ONE_KB_BUFFER;
-		sizeKb = Math.ceil(sizeKb);
-		return (long) sizeKb;
-	}
-
-	/**
-	 * Compute file unpack progress in percentage.
-	 * 
-	 * @param totalSize Total file size in KB.
-	 * @param counter   Number of KB unpacked.
-	 * 
-	 * @return file unpack progress in percentage.
-	 */
-	int computeFileProgress(long totalSize, int counter) {
-		if (totalSize == 0)
-			return 0;
-		int result = (int) ((100 * counter) / totalSize);
-		return result;
-	}
-
-	/**
-	 * Create parent directory for zipped file.
-	 * 
-	 * @param file Zipped file.
-	 */
-	File createParentDirectory(File file) {
-		File dir = new File(file.getParent());
-		dir.mkdirs();
-		return dir;
-	}
-
-	/**
-	 * Count the number of archive entries.
-	 * 
-	 * @return number of archive entries.
-	 * 
-	 * @throws Exception If count operation fails.
-	 */
-	int countArchiveEntries(File fileName) throws Exception {
-
-		// declare stream
-		ZipInputStream zis = null;
-		InputStream is = null;
-
-		try {
-			// get zip stream
-			is = new FileInputStream(fileName);
-			zis = new ZipInputStream(is);
-
-			// iterate to count
-			int counter = 0;
-			ZipEntry zipEntry = null;
-			while ((zipEntry = zis.getNextEntry()) != null) {
-				counter++;
-			}
-
-			return counter;
-
-		} finally {
-			IOUtils.closeQuietly(zis);
-			IOUtils.closeQuietly(is);
-		}
-	}
-
 	/**
 	 * Exception handler for handling unknown module.
 	 * 
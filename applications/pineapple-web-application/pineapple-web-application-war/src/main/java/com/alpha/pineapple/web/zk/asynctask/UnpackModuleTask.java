@@ -22,16 +22,13 @@
 
 package com.alpha.pineapple.web.zk.asynctask;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
-import java.io.File;
-import java.io.FileOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 
 import javax.annotation.Resource;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.log4j.Logger;
 import org.zkoss.util.media.Media;
 import org.zkoss.zk.ui.Desktop;
@@ -40,14 +37,19 @@ import org.zkoss.zk.ui.event.EventListener;
 
 import com.alpha.javautils.StackTraceHelper;
 import com.alpha.pineapple.i18n.MessageProvider;
-import com.alpha.pineapple.io.file.RuntimeDirectoryProvider;
 import com.alpha.pineapple.module.ModuleRepository;
+import com.alpha.pineapple.web.module.ModuleInstaller;
 import com.alpha.pineapple.web.zk.asynctask.event.FileUnpackUpdateEvent;
 import com.alpha.pineapple.web.zk.asynctask.event.UnpackedEntryEvent;
 
 /**
  * Implementation of the {@linkplain AsyncTask} interface which implement upload
  * of a zipped module and unpacking it into the module repository.
+ * 
+ * The module is unpacked in a single pass from the uploaded media. Progress is
+ * reported by the number of bytes read from the media, at most once per second.
+ * If the size of a streamed upload can't be determined then progress is
+ * reported as the number of bytes and entries processed.
  */
 public class UnpackModuleTask implements AsyncTask {
 
@@ -57,9 +59,14 @@ public class UnpackModuleTask implements AsyncTask {
 	static final int HUNDRED_PERCENTAGE = 100;
 
 	/**
-	 * Copy buffer size.
+	 * Number of bytes in a KB.
 	 */
-	static final int ONE_KB_BUFFER = 1024;
+	static final int ONE_KB = 1024;
+
+	/**
+	 * Size used when the media size is unknown.
+	 */
+	static final long UNKNOWN_SIZE = -1;
 
 	/**
 	 * Logger object.
@@ -79,10 +86,10 @@ public class UnpackModuleTask implements AsyncTask {
 	AsyncTaskHelper asyncTaskHelper;
 
 	/**
-	 * Runtime directory resolver.
+	 * Module installer.
 	 */
 	@Resource
-	RuntimeDirectoryProvider runtimeDirectoryResolver;
+	ModuleInstaller moduleInstaller;
 
 	/**
 	 * Module repository.
@@ -105,6 +112,21 @@ public class UnpackModuleTask implements AsyncTask {
 	 */
 	Media uploadedMedia;
 
+	/**
+	 * Last reported ZIP entry.
+	 */
+	ZipEntry lastEntry;
+
+	/**
+	 * Number of unpacked ZIP entries.
+	 */
+	int unpackedEntries;
+
+	/**
+	 * Number of bytes read from the media.
+	 */
+	long bytesRead;
+
 	/**
 	 * Set media.
 	 * 
@@ -119,196 +141,120 @@ public class UnpackModuleTask implements AsyncTask {
 	public void runAsync(Desktop desktop, EventListener<Event> eventListener) {
 		this.desktop = desktop;
 		this.eventListener = eventListener;
-
-		// declare streams
-		ZipInputStream zis = null;
-		BufferedInputStream bis = null;
-		FileOutputStream fos = null;
-		BufferedOutputStream bos = null;
+		this.lastEntry = null;
+		this.unpackedEntries = 0;
+		this.bytesRead = 0;
 
 		try {
-			// set counters
-			int entryNumber = 0;
-			int numberEntries = countArchiveEntries();
-
-			// get media as zip stream
-			zis = new ZipInputStream(uploadedMedia.getStreamData());
-			bis = new BufferedInputStream(zis);
-
-			// iterate over archive content
-			ZipEntry zipEntry;
-			while ((zipEntry = zis.getNextEntry()) != null) {
-
-				// define next file to unpack
-				File file = new File(runtimeDirectoryResolver.getModulesDirectory(), zipEntry.getName());
-
-				// compute progress
-				entryNumber++;
-				int zipPercentage = (HUNDRED_PERCENTAGE * entryNumber) / numberEntries;
-
-				// schedule event
-				UnpackedEntryEvent event = new UnpackedEntryEvent(zipPercentage, zipEntry, entryNumber, numberEntries);
-				asyncTaskHelper.scheduleEvent(event, desktop, eventListener);
-
-				// if entry is directory then create it
-				if (zipEntry.isDirectory()) {
-					file.mkdirs();
-					continue;
-				}
-
-				// unpack entry as file
-				createParentDirectory(file);
-
-				// set counters
-				int unpackedSizeKb = 0;
-				long totalSizeKb = computeTotalFileSizeInKb(zipEntry);
-				int lastFilePercentage = 0;
-				long lastTimeStamp = System.currentTimeMillis();
-				long timeStamp = lastTimeStamp;
-
-				// open streams
-				fos = new FileOutputStream(file);
-				bos = new BufferedOutputStream(fos);
-				byte buffer[] = new byte[ONE_KB_BUFFER];
-
-				// unzip file
-				for (int b; (b = bis.read(buffer, 0, ONE_KB_BUFFER)) != -1;) {
-					bos.write(buffer, 0, b);
-
-					// compute progress
-					unpackedSizeKb++;
-					int filePercentage = computeFileProgress(totalSizeKb, unpackedSizeKb);
-
-					// we don't skip at hundred percentage
-					if (filePercentage < HUNDRED_PERCENTAGE) {
-
-						// skip scheduling event if we haven't changed
-						// percentage
-						if (filePercentage == lastFilePercentage)
-							continue;
-
-						// skip scheduling event if last event is less than a
-						// second old
-						timeStamp = System.currentTimeMillis();
-						if ((timeStamp - lastTimeStamp) < 1000)
-							continue;
-					}
-
-					// update
-					lastTimeStamp = timeStamp;
-					lastFilePercentage = filePercentage;
-
-					// schedule event
-					FileUnpackUpdateEvent event2 = new FileUnpackUpdateEvent(filePercentage, unpackedSizeKb,
-							totalSizeKb);
-					asyncTaskHelper.scheduleEvent(event2, desktop, eventListener);
-				}
-
-				// close streams
-				bos.flush();
-				bos.close();
-				fos.close();
-			}
-
-			// close streams
-			bis.close();
-			zis.close();
+			// install module directly from the uploaded media
+			InputStream archive = uploadedMedia.getStreamData();
+			moduleInstaller.install(uploadedMedia.getName(), archive, getMediaSize(archive), this::reportProgress);
 
 			// refresh module repository
 			moduleRepository.initialize();
 
+			// schedule completion events
+			FileUnpackUpdateEvent event = new FileUnpackUpdateEvent(HUNDRED_PERCENTAGE, toKb(bytesRead),
+					toKb(bytesRead));
+			asyncTaskHelper.scheduleEvent(event, desktop, eventListener);
+			UnpackedEntryEvent event2 = new UnpackedEntryEvent(HUNDRED_PERCENTAGE, lastEntry, unpackedEntries,
+					unpackedEntries);
+			asyncTaskHelper.scheduleEvent(event2, desktop, eventListener);
+
 		} catch (Exception e) {
 
 			// log error message
 			Object[] args = { StackTraceHelper.getStrackTrace(e) };
 			String message = messageProvider.getMessage("umt.install_failed", args);
 			logger.error(message);
-
-		} finally {
-			IOUtils.closeQuietly(bos);
-			IOUtils.closeQuietly(fos);
-			IOUtils.closeQuietly(bis);
-			IOUtils.closeQuietly(zis);
 		}
 
 	}
 
 	/**
-	 * Compute total file size in KB.
+	 * Report unpack progress by scheduling events. The installation progress
+	 * reaches 100% when the module repository is refreshed.
 	 * 
-	 * If file size is less than 1 KB then 1 KB is returned.
+	 * If the archive size is unknown then the number of bytes read so far is
+	 * reported as the total.
 	 * 
-	 * @param zipEntry
-	 *            Zip entry to calculate size for.
-	 * 
-	 * @return total file size in KB.
+	 * @param entry
+	 *            current ZIP entry.
+	 * @param entries
+	 *            number of ZIP entries read from the archive.
+	 * @param bytesRead
+	 *            number of bytes read from the archive.
+	 * @param archiveSize
+	 *            size of archive in bytes. Is -1 if the size is unknown.
 	 */
-	long computeTotalFileSizeInKb(ZipEntry zipEntry) {
-		if (zipEntry.getSize() < ONE_KB_BUFFER)
-			return 1;
-		double sizeKb = (double) zipEntry.getSize() / (double) ONE_KB_BUFFER;
-		sizeKb = Math.ceil(sizeKb);
-		return (long) sizeKb;
+	void reportProgress(ZipEntry entry, int entries, long bytesRead, long archiveSize) {
+		lastEntry = entry;
+		unpackedEntries = entries;
+		this.bytesRead = bytesRead;
+		int percentage = computeProgress(bytesRead, archiveSize);
+		long total = (archiveSize > 0) ? archiveSize : bytesRead;
+
+		// schedule byte progress event
+		FileUnpackUpdateEvent event = new FileUnpackUpdateEvent(percentage, toKb(bytesRead), toKb(total));
+		asyncTaskHelper.scheduleEvent(event, desktop, eventListener);
+
+		// schedule entry progress event
+		int entryPercentage = Math.min(percentage, HUNDRED_PERCENTAGE - 1);
+		UnpackedEntryEvent event2 = new UnpackedEntryEvent(entryPercentage, entry, entries, entries);
+		asyncTaskHelper.scheduleEvent(event2, desktop, eventListener);
 	}
 
 	/**
-	 * Compute file unpack progress in percentage.
+	 * Get size of uploaded media in bytes.
+	 * 
+	 * The size of a media held in memory is the length of its data. The size of
+	 * a streamed media is the size of the file backing the stream, if any.
 	 * 
-	 * @param totalSize
-	 *            Total file size in KB.
-	 * @param counter
-	 *            Number of KB unpacked.
+	 * @param archive
+	 *            stream data of the uploaded media.
 	 * 
-	 * @return file unpack progress in percentage.
+	 * @return size of uploaded media in bytes. Returns -1 if the size is unknown.
 	 */
-	int computeFileProgress(long totalSize, int counter) {
-		if (totalSize == 0)
-			return 0;
-		int result = (int) ((100 * counter) / totalSize);
-		return result;
+	long getMediaSize(InputStream archive) {
+		if (uploadedMedia.inMemory())
+			return uploadedMedia.getByteData().length;
+		if (!(archive instanceof FileInputStream))
+			return UNKNOWN_SIZE;
+		try {
+			return ((FileInputStream) archive).getChannel().size();
+		} catch (IOException e) {
+			return UNKNOWN_SIZE;
+		}
 	}
 
 	/**
-	 * Create parent directory for zipped file.
+	 * Compute unpack progress in percentage.
+	 * 
+	 * @param bytesRead
+	 *            Number of bytes read.
+	 * @param archiveSize
+	 *            Archive size in bytes. Is -1 if the size is unknown.
 	 * 
-	 * @param file
-	 *            Zipped file.
+	 * @return unpack progress in percentage. Returns 0 if the size is unknown.
 	 */
-	File createParentDirectory(File file) {
-		File dir = new File(file.getParent());
-		dir.mkdirs();
-		return dir;
+	int computeProgress(long bytesRead, long archiveSize) {
+		if (archiveSize <= 0)
+			return 0;
+		return (int) Math.min(HUNDRED_PERCENTAGE, (HUNDRED_PERCENTAGE * bytesRead) / archiveSize);
 	}
 
 	/**
-	 * Count the number of archive entries.
+	 * Convert bytes to KB. If the size is unknown then 0 is returned.
 	 * 
-	 * @return number of archive entries.
+	 * @param bytes
+	 *            number of bytes.
 	 * 
-	 * @throws Exception
-	 *             If count operation fails.
+	 * @return number of KB, rounded up.
 	 */
-	int countArchiveEntries() throws Exception {
-
-		// declare stream
-		ZipInputStream zis = null;
-
-		try {
-			// get media as zip stream
-			zis = new ZipInputStream(uploadedMedia.getStreamData());
-
-			// iterate to count
-			int counter = 0;
-			ZipEntry zipEntry = null;
-			while ((zipEntry = zis.getNextEntry()) != null) {
-				counter++;
-			}
-
-			return counter;
-
-		} finally {
-			IOUtils.closeQuietly(zis);
-		}
+	long toKb(long bytes) {
+		if (bytes <= 0)
+			return 0;
+		return (bytes + ONE_KB - 1) / ONE_KB;
 	}
 
 }
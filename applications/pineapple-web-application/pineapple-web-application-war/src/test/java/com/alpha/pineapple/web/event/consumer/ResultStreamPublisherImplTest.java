@@ -0,0 +1,298 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+ * Copyright (C) 2007-2012 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package com.alpha.pineapple.web.event.consumer;
+
+import static com.alpha.pineapple.web.WebApplicationConstants.LAST_EVENT_ID_HEADER;
+import static com.alpha.pineapple.web.WebApplicationConstants.REST_EXECUTE_STREAM_EVENT;
+import static com.alpha.pineapple.web.WebApplicationConstants.REST_EXECUTE_STREAM_URI;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Map;
+
+import org.apache.commons.lang3.RandomStringUtils;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.alpha.pineapple.PineappleCore;
+import com.alpha.pineapple.admin.Administration;
+import com.alpha.pineapple.execution.ExecutionInfo;
+import com.alpha.pineapple.execution.ExecutionResult;
+import com.alpha.pineapple.execution.ExecutionResult.ExecutionState;
+import com.alpha.pineapple.execution.ExecutionResultImpl;
+import com.alpha.pineapple.execution.ExecutionResultNotification;
+import com.alpha.pineapple.execution.ExecutionResultNotificationImpl;
+import com.alpha.pineapple.execution.ResultRepository;
+import com.alpha.pineapple.i18n.PropertyFileMessageProviderImpl;
+import com.alpha.pineapple.model.ExecutionResultMapper;
+import com.alpha.pineapple.model.JAXBContextRegistryImpl;
+import com.alpha.pineapple.model.execution.Results;
+import com.alpha.pineapple.web.spring.rest.ExecuteController;
+
+import reactor.event.Event;
+
+/**
+ * Unit test of the {@linkplain ResultStreamPublisherImpl} class.
+ * 
+ * The stream is requested through the {@linkplain ExecuteController} which is
+ * set up with Spring MVC in standalone mode, so the events are written to the
+ * response by the Spring MVC asynchronous request processing.
+ */
+public class ResultStreamPublisherImplTest {
+
+	/**
+	 * Timeout in milliseconds for completion of result stream.
+	 */
+	static final long STREAM_TIMEOUT = 10000;
+
+	/**
+	 * Object under test.
+	 */
+	ResultStreamPublisherImpl publisher;
+
+	/**
+	 * Mock MVC.
+	 */
+	MockMvc mockMvc;
+
+	/**
+	 * Mock result repository.
+	 */
+	ResultRepository resultRepository;
+
+	/**
+	 * Mock execution info.
+	 */
+	ExecutionInfo executionInfo;
+
+	/**
+	 * Root result of the execution.
+	 */
+	ExecutionResult rootResult;
+
+	/**
+	 * Random execution ID.
+	 */
+	String randomExecutionId;
+
+	@Before
+	public void setUp() throws Exception {
+		randomExecutionId = RandomStringUtils.randomNumeric(10);
+		rootResult = new ExecutionResultImpl(RandomStringUtils.randomAlphabetic(10));
+
+		PropertyFileMessageProviderImpl messageProvider = new PropertyFileMessageProviderImpl();
+		messageProvider.setBasename("com.alpha.pineapple.web-messages");
+
+		// create mock mapper
+		ExecutionResultMapper resultMapper = EasyMock.createMock(ExecutionResultMapper.class);
+		EasyMock.expect(resultMapper.mapNotificationsToModel(EasyMock.isA(ExecutionResultNotification[].class)))
+				.andReturn(new Results()).anyTimes();
+		EasyMock.replay(resultMapper);
+
+		// create publisher
+		publisher = new ResultStreamPublisherImpl();
+		publisher.webMessageProvider = messageProvider;
+		publisher.resultMapper = resultMapper;
+		publisher.jaxbContextRegistry = new JAXBContextRegistryImpl();
+		publisher.resultStreamExecutor = new SyncTaskExecutor();
+
+		// create mock execution info and result repository
+		executionInfo = EasyMock.createMock(ExecutionInfo.class);
+		EasyMock.expect(executionInfo.getResult()).andReturn(rootResult).anyTimes();
+		EasyMock.replay(executionInfo);
+		resultRepository = EasyMock.createMock(ResultRepository.class);
+
+		// create mock core component
+		Administration administration = EasyMock.createMock(Administration.class);
+		EasyMock.expect(administration.getResultRepository()).andReturn(resultRepository).anyTimes();
+		EasyMock.replay(administration);
+		PineappleCore coreComponent = EasyMock.createMock(PineappleCore.class);
+		EasyMock.expect(coreComponent.getAdministration()).andReturn(administration).anyTimes();
+		EasyMock.replay(coreComponent);
+
+		// create controller
+		ExecuteController controller = new ExecuteController();
+		ReflectionTestUtils.setField(controller, "webMessageProvider", messageProvider);
+		ReflectionTestUtils.setField(controller, "coreComponent", coreComponent);
+		ReflectionTestUtils.setField(controller, "resultMapper", resultMapper);
+		ReflectionTestUtils.setField(controller, "resultStreamPublisher", publisher);
+		@SuppressWarnings("unchecked")
+		Map<String, ExecutionInfo> executionInfos = (Map<String, ExecutionInfo>) ReflectionTestUtils
+				.getField(controller, "executionInfos");
+		executionInfos.put(randomExecutionId, executionInfo);
+		mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+	}
+
+	/**
+	 * Create notification for the root result.
+	 * 
+	 * @param state
+	 *            execution state.
+	 * 
+	 * @return notification array with a single notification for the root
+	 *         result.
+	 */
+	ExecutionResultNotification[] createRootNotification(ExecutionState state) {
+		ExecutionResultNotification notification = ExecutionResultNotificationImpl.getInstance(rootResult, state);
+		ExecutionResultNotification[] notifications = { notification };
+		return notifications;
+	}
+
+	/**
+	 * Create notifications for the root result.
+	 * 
+	 * @param states
+	 *            execution states.
+	 * 
+	 * @return notifications for the root result.
+	 */
+	ExecutionResultNotification[] createRootNotifications(ExecutionState... states) {
+		ExecutionResultNotification[] notifications = new ExecutionResultNotification[states.length];
+		for (int i = 0; i < states.length; i++) {
+			notifications[i] = ExecutionResultNotificationImpl.getInstance(rootResult, states[i]);
+		}
+		return notifications;
+	}
+
+	/**
+	 * Test that the results of a completed execution are published as a single
+	 * event and that the stream is completed.
+	 */
+	@Test
+	public void testStreamPublishesResultsOfCompletedExecution() throws Exception {
+		EasyMock.expect(resultRepository.getCurrentResultIndex(executionInfo)).andReturn(2).anyTimes();
+		EasyMock.expect(resultRepository.getResultSequence(executionInfo, 0, 2))
+				.andReturn(createRootNotifications(ExecutionState.EXECUTING, ExecutionState.SUCCESS));
+		EasyMock.expect(resultRepository.getResultSequence(executionInfo, 1, 2))
+				.andReturn(createRootNotification(ExecutionState.SUCCESS));
+		EasyMock.replay(resultRepository);
+
+		MvcResult result = mockMvc
+				.perform(get(REST_EXECUTE_STREAM_URI, randomExecutionId).accept(MediaType.TEXT_EVENT_STREAM))
+				.andExpect(request().asyncStarted()).andReturn();
+		result.getAsyncResult(STREAM_TIMEOUT);
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+		// test
+		String content = result.getResponse().getContentAsString();
+		assertTrue(content.startsWith("id:2\nevent:" + REST_EXECUTE_STREAM_EVENT + "\ndata:<?xml"));
+		assertTrue(content.contains("encoding=\"US-ASCII\""));
+		assertTrue(content.endsWith("\n\n"));
+		assertTrue(publisher.streams.isEmpty());
+		EasyMock.verify(resultRepository);
+	}
+
+	/**
+	 * Test that the stream is resumed after the last event ID sent by the
+	 * client.
+	 */
+	@Test
+	public void testStreamIsResumedAfterLastEventId() throws Exception {
+		EasyMock.expect(resultRepository.getCurrentResultIndex(executionInfo)).andReturn(2).anyTimes();
+		EasyMock.expect(resultRepository.getResultSequence(executionInfo, 1, 2))
+				.andReturn(createRootNotification(ExecutionState.SUCCESS)).times(2);
+		EasyMock.replay(resultRepository);
+
+		MvcResult result = mockMvc.perform(get(REST_EXECUTE_STREAM_URI, randomExecutionId)
+				.accept(MediaType.TEXT_EVENT_STREAM).header(LAST_EVENT_ID_HEADER, 1))
+				.andExpect(request().asyncStarted()).andReturn();
+		result.getAsyncResult(STREAM_TIMEOUT);
+
+		// test
+		assertTrue(result.getResponse().getContentAsString().startsWith("id:2\n"));
+		EasyMock.verify(resultRepository);
+	}
+
+	/**
+	 * Test that results created after the subscription are published when the
+	 * publisher is notified, and that the stream is completed when the root
+	 * result completes.
+	 */
+	@Test
+	public void testNotificationPublishesNewResultsToStream() throws Exception {
+		EasyMock.expect(resultRepository.getCurrentResultIndex(executionInfo)).andReturn(1).times(2);
+		EasyMock.expect(resultRepository.getResultSequence(executionInfo, 0, 1))
+				.andReturn(createRootNotification(ExecutionState.EXECUTING)).times(2);
+		EasyMock.expect(resultRepository.getCurrentResultIndex(executionInfo)).andReturn(2);
+		EasyMock.expect(resultRepository.getResultSequence(executionInfo, 1, 2))
+				.andReturn(createRootNotification(ExecutionState.SUCCESS)).times(2);
+		EasyMock.replay(resultRepository);
+
+		MvcResult result = mockMvc
+				.perform(get(REST_EXECUTE_STREAM_URI, randomExecutionId).accept(MediaType.TEXT_EVENT_STREAM))
+				.andExpect(request().asyncStarted()).andReturn();
+
+		// test stream is open after the first event
+		assertTrue(result.getResponse().getContentAsString().startsWith("id:1\n"));
+		assertFalse(publisher.streams.isEmpty());
+
+		// notify about the completed root result
+		publisher.accept(Event.wrap(createRootNotification(ExecutionState.SUCCESS)[0]));
+		result.getAsyncResult(STREAM_TIMEOUT);
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+		// test
+		assertTrue(result.getResponse().getContentAsString().contains("\n\nid:2\n"));
+		assertTrue(publisher.streams.isEmpty());
+		EasyMock.verify(resultRepository);
+	}
+
+	/**
+	 * Test that the stream is rejected with HTTP 404 for an unknown execution
+	 * ID.
+	 */
+	@Test
+	public void testStreamReturnsHttpNotFoundForUnknownExecutionId() throws Exception {
+		EasyMock.replay(resultRepository);
+
+		mockMvc.perform(get(REST_EXECUTE_STREAM_URI, randomExecutionId + "1").accept(MediaType.TEXT_EVENT_STREAM))
+				.andExpect(status().isNotFound());
+	}
+
+	/**
+	 * Test that the stream is rejected with HTTP 400 if the last event ID is
+	 * outside the result sequence.
+	 */
+	@Test
+	public void testStreamReturnsHttpBadRequestForEventIdOutOfRange() throws Exception {
+		EasyMock.expect(resultRepository.getCurrentResultIndex(executionInfo)).andReturn(2);
+		EasyMock.replay(resultRepository);
+
+		mockMvc.perform(get(REST_EXECUTE_STREAM_URI, randomExecutionId).accept(MediaType.TEXT_EVENT_STREAM)
+				.header(LAST_EVENT_ID_HEADER, 3)).andExpect(status().isBadRequest());
+		assertTrue(publisher.streams.isEmpty());
+		EasyMock.verify(resultRepository);
+	}
+
+}
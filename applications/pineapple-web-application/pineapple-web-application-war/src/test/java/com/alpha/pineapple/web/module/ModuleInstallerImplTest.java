@@ -0,0 +1,239 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+ * Copyright (C) 2007-2012 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package com.alpha.pineapple.web.module;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import com.alpha.pineapple.i18n.MessageProvider;
+import com.alpha.pineapple.io.file.RuntimeDirectoryProvider;
+import com.alpha.pineapple.module.ModuleInstallationFailedException;
+import com.alpha.springutils.DirectoryTestExecutionListener;
+
+/**
+ * Unit test of the class {@linkplain ModuleInstallerImpl}.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@TestExecutionListeners(DirectoryTestExecutionListener.class)
+public class ModuleInstallerImplTest {
+
+	/**
+	 * Object under test.
+	 */
+	ModuleInstallerImpl installer;
+
+	/**
+	 * Modules directory.
+	 */
+	File modulesDirectory;
+
+	/**
+	 * Random module.
+	 */
+	String randomModule;
+
+	@Before
+	public void setUp() throws Exception {
+		randomModule = RandomStringUtils.randomAlphabetic(10);
+
+		// define modules directory in test directory
+		File testDirectory = DirectoryTestExecutionListener.getCurrentTestDirectory();
+		modulesDirectory = new File(testDirectory, "modules");
+
+		// create mocks
+		MessageProvider messageProvider = createNiceMock(MessageProvider.class);
+		replay(messageProvider);
+		RuntimeDirectoryProvider runtimeDirectoryProvider = createMock(RuntimeDirectoryProvider.class);
+		expect(runtimeDirectoryProvider.getModulesDirectory()).andStubReturn(modulesDirectory);
+		replay(runtimeDirectoryProvider);
+
+		// create installer
+		installer = new ModuleInstallerImpl();
+		installer.messageProvider = messageProvider;
+		installer.runtimeDirectoryResolver = runtimeDirectoryProvider;
+	}
+
+	/**
+	 * Create zip archive with entries.
+	 * 
+	 * @param names
+	 *            entry names. Names ending with "/" are directories.
+	 * 
+	 * @return zip archive.
+	 * 
+	 * @throws Exception
+	 *             if creation fails.
+	 */
+	byte[] createArchive(String... names) throws Exception {
+		ByteArrayOutputStream archive = new ByteArrayOutputStream();
+		ZipOutputStream zos = new ZipOutputStream(archive);
+		for (String name : names) {
+			zos.putNextEntry(new ZipEntry(name));
+			if (!name.endsWith("/"))
+				zos.write(name.getBytes());
+			zos.closeEntry();
+		}
+		zos.close();
+		return archive.toByteArray();
+	}
+
+	/**
+	 * Test that module is installed in modules directory.
+	 */
+	@Test
+	public void testInstallsModule() throws Exception {
+		byte[] archive = createArchive(randomModule + "/", randomModule + "/models/model.xml");
+		installer.install(randomModule, new ByteArrayInputStream(archive), archive.length, null);
+
+		assertTrue(new File(modulesDirectory, randomModule + "/models/model.xml").isFile());
+	}
+
+	/**
+	 * Test that existing module is replaced and that the staging directory is
+	 * deleted.
+	 */
+	@Test
+	public void testReplacesExistingModule() throws Exception {
+		File oldFile = new File(modulesDirectory, randomModule + "/old.txt");
+		oldFile.getParentFile().mkdirs();
+		oldFile.createNewFile();
+
+		byte[] archive = createArchive(randomModule + "/new.txt");
+		installer.install(randomModule, new ByteArrayInputStream(archive), archive.length, null);
+
+		assertFalse(oldFile.exists());
+		assertTrue(new File(modulesDirectory, randomModule + "/new.txt").isFile());
+		assertEquals(1, modulesDirectory.getParentFile().list().length);
+	}
+
+	/**
+	 * Test that replaced module is deleted once the unpacked module is moved
+	 * into place.
+	 */
+	@Test
+	public void testReplaceModuleDeletesReplacedModule() throws Exception {
+		File stagingDirectory = new File(modulesDirectory.getParentFile(), "staging");
+		File unpackedModule = new File(stagingDirectory, "unpacked/" + randomModule);
+		File replacedModule = new File(stagingDirectory, "replaced/" + randomModule);
+		File module = new File(modulesDirectory, randomModule);
+		new File(unpackedModule, "new.txt").getParentFile().mkdirs();
+		new File(unpackedModule, "new.txt").createNewFile();
+		new File(module, "old.txt").getParentFile().mkdirs();
+		new File(module, "old.txt").createNewFile();
+		replacedModule.getParentFile().mkdirs();
+
+		installer.replaceModule(unpackedModule, module, replacedModule);
+
+		assertTrue(new File(module, "new.txt").isFile());
+		assertFalse(new File(module, "old.txt").exists());
+		assertFalse(unpackedModule.exists());
+		assertFalse(replacedModule.exists());
+	}
+
+	/**
+	 * Test that existing module is restored if the unpacked module can't be
+	 * moved into place.
+	 */
+	@Test
+	public void testReplaceModuleRestoresExistingModuleIfMoveFails() throws Exception {
+		File stagingDirectory = new File(modulesDirectory.getParentFile(), "staging");
+		File unpackedModule = new File(stagingDirectory, "unpacked/" + randomModule);
+		File replacedModule = new File(stagingDirectory, "replaced/" + randomModule);
+		File module = new File(modulesDirectory, randomModule);
+		new File(module, "old.txt").getParentFile().mkdirs();
+		new File(module, "old.txt").createNewFile();
+		replacedModule.getParentFile().mkdirs();
+
+		try {
+			installer.replaceModule(unpackedModule, module, replacedModule);
+			fail();
+		} catch (IOException e) {
+			assertTrue(new File(module, "old.txt").isFile());
+			assertFalse(replacedModule.exists());
+		}
+	}
+
+	/**
+	 * Test that progress listener is notified on completion.
+	 */
+	@Test
+	public void testNotifiesListenerOnCompletion() throws Exception {
+		List<Long> bytesRead = new ArrayList<Long>();
+		byte[] archive = createArchive(randomModule + "/a.txt", randomModule + "/b.txt");
+		installer.install(randomModule, new ByteArrayInputStream(archive), archive.length,
+				(entry, entries, read, size) -> {
+					assertEquals(2, entries);
+					bytesRead.add(read);
+				});
+
+		assertEquals(1, bytesRead.size());
+		assertEquals(archive.length, bytesRead.get(0).longValue());
+	}
+
+	/**
+	 * Test that installation fails if archive is empty.
+	 */
+	@Test(expected = ModuleInstallationFailedException.class)
+	public void testFailsIfArchiveIsEmpty() throws Exception {
+		byte[] archive = createArchive();
+		installer.install(randomModule, new ByteArrayInputStream(archive), archive.length, null);
+	}
+
+	/**
+	 * Test that installation fails if archive contains entry outside of the
+	 * modules directory and that nothing is installed.
+	 */
+	@Test
+	public void testFailsIfEntryIsOutsideModulesDirectory() throws Exception {
+		byte[] archive = createArchive(randomModule + "/a.txt", "../" + randomModule + ".txt");
+		try {
+			installer.install(randomModule, new ByteArrayInputStream(archive), archive.length, null);
+			fail();
+		} catch (ModuleInstallationFailedException e) {
+			assertFalse(new File(modulesDirectory, randomModule).exists());
+		}
+	}
+
+}
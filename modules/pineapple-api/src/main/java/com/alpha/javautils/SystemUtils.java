@@ -70,6 +70,16 @@ public class SystemUtils {
 	 */
 	public static final String PINEAPPLE_CREDENTIALPROVIDER_PASSWORD_FILE = "pineapple.credentialprovider.password.file";
 
+	/**
+	 * Pineapple parallel model execution system property name.
+	 */
+	public static final String PINEAPPLE_PARALLEL_EXECUTION = "pineapple.execution.parallel";
+
+	/**
+	 * Pineapple eager variable substitution system property name.
+	 */
+	public static final String PINEAPPLE_EAGER_SUBSTITUTION = "pineapple.substitution.eager";
+
 	/**
 	 * The prefix String for all Windows OS.
 	 */
@@ -124,6 +134,28 @@ public class SystemUtils {
 		return (getSystemProperty(PINEAPPLE_CREDENTIALPROVIDER_PASSWORD_FILE, systemProperties) != null);
 	}
 
+	/**
+	 * Returns true if the system property "pineapple.execution.parallel" is
+	 * defined with the value "true". Otherwise false is returned.
+	 * 
+	 * @return true if the system property "pineapple.execution.parallel" is
+	 *         defined with the value "true". Otherwise false is returned.
+	 */
+	public boolean isParallelExecutionEnabled(Properties systemProperties) {
+		return Boolean.parseBoolean(getSystemProperty(PINEAPPLE_PARALLEL_EXECUTION, systemProperties));
+	}
+
+	/**
+	 * Returns true if the system property "pineapple.substitution.eager" is
+	 * defined with the value "true". Otherwise false is returned.
+	 * 
+	 * @return true if the system property "pineapple.substitution.eager" is
+	 *         defined with the value "true". Otherwise false is returned.
+	 */
+	public boolean isEagerSubstitutionEnabled(Properties systemProperties) {
+		return Boolean.parseBoolean(getSystemProperty(PINEAPPLE_EAGER_SUBSTITUTION, systemProperties));
+	}
+
 	/**
 	 * <p>
 	 * Gets a System property. Returns null if the property is undefined or access
@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+* Copyright (C) 2007-2015 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package com.alpha.pineapple.command.initialization;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.alpha.javautils.reflection.ReflectionHelper;
+
+/**
+ * Immutable injection plan for a command class. The plan contains the fields
+ * annotated with {@link Initialize} together with their context keys,
+ * validation policies and setters.
+ * 
+ * Plans are created once per command class and cached in a
+ * {@linkplain ClassValue}, so the cache doesn't prevent unloading of plugin
+ * classes.
+ */
+final class CommandInjectionPlan {
+
+	/**
+	 * Method type used to invoke setters.
+	 */
+	static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	/**
+	 * Empty validation policies.
+	 */
+	static final ValidationPolicy[] NO_POLICIES = new ValidationPolicy[0];
+
+	/**
+	 * Cached injection plans.
+	 */
+	static final ClassValue<CommandInjectionPlan> PLANS = new ClassValue<CommandInjectionPlan>() {
+
+		@Override
+		protected CommandInjectionPlan computeValue(Class<?> commandClass) {
+			return new CommandInjectionPlan(commandClass);
+		}
+	};
+
+	/**
+	 * Field injections.
+	 */
+	final FieldInjection[] injections;
+
+	/**
+	 * CommandInjectionPlan constructor.
+	 * 
+	 * @param commandClass
+	 *            command class.
+	 */
+	CommandInjectionPlan(Class<?> commandClass) {
+		List<FieldInjection> result = new ArrayList<FieldInjection>();
+		for (Field field : commandClass.getDeclaredFields()) {
+			if (field.isAnnotationPresent(Initialize.class))
+				result.add(new FieldInjection(field));
+		}
+		injections = result.toArray(new FieldInjection[result.size()]);
+	}
+
+	/**
+	 * Get injection plan for command class.
+	 * 
+	 * @param commandClass
+	 *            command class.
+	 * 
+	 * @return injection plan for command class.
+	 */
+	static CommandInjectionPlan getPlan(Class<?> commandClass) {
+		return PLANS.get(commandClass);
+	}
+
+	/**
+	 * Injection of a single field.
+	 */
+	static final class FieldInjection {
+
+		/**
+		 * Injected field.
+		 */
+		final Field field;
+
+		/**
+		 * Context key from {@link Initialize} annotation.
+		 */
+		final String contextKey;
+
+		/**
+		 * Validation policies from {@link ValidateValue} annotation.
+		 */
+		final ValidationPolicy[] policies;
+
+		/**
+		 * Setter for field. Null if values are assigned using the reflection
+		 * helper.
+		 */
+		final MethodHandle setter;
+
+		/**
+		 * Defines whether string values are converted before assignment.
+		 */
+		final boolean convertsStrings;
+
+		/**
+		 * FieldInjection constructor.
+		 * 
+		 * @param field
+		 *            injected field.
+		 */
+		FieldInjection(Field field) {
+			this.field = field;
+			this.contextKey = field.getAnnotation(Initialize.class).value();
+			ValidateValue validateValue = field.getAnnotation(ValidateValue.class);
+			this.policies = (validateValue == null) ? NO_POLICIES : validateValue.value();
+			Class<?> type = field.getType();
+			this.convertsStrings = type.isArray() && String.class.equals(type.getComponentType());
+			this.setter = createSetter(field);
+		}
+
+		/**
+		 * Create setter for field. Primitive and final fields are assigned
+		 * using the reflection helper which handles null values and
+		 * conversion of strings.
+		 * 
+		 * @param field
+		 *            field.
+		 * 
+		 * @return setter for field. Returns null if no setter could be created.
+		 */
+		static MethodHandle createSetter(Field field) {
+			if (field.getType().isPrimitive())
+				return null;
+			if (Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers()))
+				return null;
+			try {
+				field.setAccessible(true);
+				return MethodHandles.lookup().unreflectSetter(field).asType(SETTER_TYPE);
+			} catch (IllegalAccessException | RuntimeException e) {
+				return null;
+			}
+		}
+
+		/**
+		 * Assign value to field.
+		 * 
+		 * @param command
+		 *            command whose field is assigned.
+		 * @param value
+		 *            value to assign.
+		 * @param helper
+		 *            reflection helper used for assignments which requires
+		 *            conversion.
+		 * 
+		 * @throws IllegalAccessException
+		 *             If field assignment fails.
+		 * @throws IllegalArgumentException
+		 *             If field assignment fails.
+		 */
+		void assign(Object command, Object value, ReflectionHelper helper)
+				throws IllegalArgumentException, IllegalAccessException {
+			if (setter == null || (convertsStrings && value instanceof String)) {
+				helper.setFieldValue(command, field, value);
+				return;
+			}
+
+			try {
+				setter.invokeExact(command, value);
+			} catch (ClassCastException e) {
+				throw new IllegalArgumentException(e.getMessage(), e);
+			} catch (RuntimeException | Error e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
+}
@@ -64,8 +64,25 @@ class ValueValidator {
 		// get validation annotation
 		ValidateValue annotation = field.getAnnotation(ValidateValue.class);
 
-		// get validation policies
-		ValidationPolicy[] policies = annotation.value();
+		// validate
+		validateValue(value, field, annotation.value());
+	}
+
+	/**
+	 * Validate context value based on validation policies.
+	 * 
+	 * @param value
+	 *            Context value which is validated.
+	 * @param field
+	 *            The field which defined the context key.
+	 * @param policies
+	 *            Validation policies defined on the field.
+	 * 
+	 * @throws CommandInitializationFailedException
+	 *             If value validation fails.
+	 */
+	public void validateValue(Object value, Field field, ValidationPolicy[] policies)
+			throws CommandInitializationFailedException {
 
 		// iterate over defines policies on field.
 		for (ValidationPolicy policy : policies) {
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+* Copyright (C) 2007-2015 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package com.alpha.pineapple.execution;
+
+/**
+ * Back-pressure policy for result listeners which are notified asynchronously.
+ * 
+ * The policy defines what happens when a notification is posted to the
+ * listener and the queue of pending notifications for the listener is full.
+ */
+public enum BackPressurePolicy {
+
+	/**
+	 * The notifying thread is blocked until the queue has room for the
+	 * notification. No notifications are lost.
+	 */
+	BLOCK,
+
+	/**
+	 * The oldest pending notification is discarded to make room for the
+	 * notification.
+	 */
+	DROP_OLDEST,
+
+	/**
+	 * The pending notification for the same execution result is replaced with
+	 * the notification. If no pending notification exists for the execution
+	 * result then the notifying thread is blocked until the queue has room for
+	 * the notification.
+	 */
+	COALESCE
+}
@@ -29,6 +29,12 @@ import com.alpha.pineapple.module.ModuleInfo;
  */
 public interface ExecutionInfo {
 
+	/**
+	 * Execution ID of execution which isn't registered in the result
+	 * repository.
+	 */
+	public final long UNDEFINED_EXECUTION_ID = 0;
+
 	/**
 	 * Returns module info for the executed module.
 	 * 
@@ -58,4 +64,15 @@ public interface ExecutionInfo {
 	 *         module.
 	 */
 	ExecutionResult getResult();
+
+	/**
+	 * Returns the execution ID assigned by the result repository. The ID is
+	 * stable for the lifetime of the execution and unique within the
+	 * repository. Composite executions share the ID of the execution they are
+	 * part of.
+	 * 
+	 * @return the execution ID. Returns {@link #UNDEFINED_EXECUTION_ID} if the
+	 *         execution isn't registered in the result repository.
+	 */
+	long getExecutionId();
 }
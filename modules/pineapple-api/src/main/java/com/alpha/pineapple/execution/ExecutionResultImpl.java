@@ -27,6 +27,9 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 import org.apache.commons.lang3.SystemUtils;
 import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
@@ -50,11 +53,6 @@ public class ExecutionResultImpl implements ExecutionResult {
 	 */
 	static final int NUMBER_FAILED_ARGS = 2;
 
-	/**
-	 * First child result.
-	 */
-	static final int FIRST_INDEX = 0;
-
 	/**
 	 * Fields which are excluded from toString.
 	 */
@@ -71,9 +69,33 @@ public class ExecutionResultImpl implements ExecutionResult {
 	ResultRepository repository;
 
 	/**
-	 * List of children
+	 * Children in the order they were added. Children can be added concurrently
+	 * when models are executed in parallel.
+	 */
+	ConcurrentLinkedQueue<ExecutionResult> children;
+
+	/**
+	 * Number of children.
+	 */
+	AtomicInteger numberOfChildren;
+
+	/**
+	 * Number of children in each state, indexed by the ordinal of the state. The
+	 * counters are updated when a child changes state, so the state of the
+	 * result can be computed without visiting the children.
+	 */
+	AtomicIntegerArray childStates;
+
+	/**
+	 * The state of this result which is counted by the parent.
+	 */
+	ExecutionState countedState = ExecutionState.EXECUTING;
+
+	/**
+	 * Flag to determine whether running children are being forced to complete
+	 * with an error during computation of the state.
 	 */
-	ArrayList<ExecutionResult> children;
+	volatile boolean isForcingChildErrors;
 
 	/**
 	 * Correlation ID.
@@ -96,7 +118,8 @@ public class ExecutionResultImpl implements ExecutionResult {
 	ContinuationPolicy policy;
 
 	/**
-	 * Execution state.
+	 * Execution state. Guarded by the monitor of this result, which is also used
+	 * by the parent when it counts the state.
 	 */
 	ExecutionState state = ExecutionState.EXECUTING;
 
@@ -138,7 +161,9 @@ public class ExecutionResultImpl implements ExecutionResult {
 
 		// set attributes
 		this.correlationId = hashCode();
-		this.children = new ArrayList<ExecutionResult>();
+		this.children = new ConcurrentLinkedQueue<ExecutionResult>();
+		this.numberOfChildren = new AtomicInteger();
+		this.childStates = new AtomicIntegerArray(ExecutionState.values().length);
 		this.repository = repository;
 		this.parent = parent;
 		this.description = description;
@@ -220,18 +245,32 @@ public class ExecutionResultImpl implements ExecutionResult {
 		ExecutionResultImpl child = new ExecutionResultImpl(repository, this, description, policy);
 
 		// store child
+		childStates.incrementAndGet(ExecutionState.EXECUTING.ordinal());
+		numberOfChildren.incrementAndGet();
 		this.children.add(child);
 
 		return child;
 	}
 
 	public ExecutionResult[] getChildren() {
-		return children.toArray(new ExecutionResult[children.size()]);
+		return children.toArray(new ExecutionResult[0]);
 	}
 
 	@Override
 	public int getNumberOfChildren() {
-		return children.size();
+		return numberOfChildren.get();
+	}
+
+	/**
+	 * Get number of children with state.
+	 * 
+	 * @param state
+	 *            execution state.
+	 * 
+	 * @return number of children with state.
+	 */
+	int getNumberOfChildrenWithState(ExecutionState state) {
+		return childStates.get(state.ordinal());
 	}
 
 	public String getDescription() {
@@ -247,7 +286,7 @@ public class ExecutionResultImpl implements ExecutionResult {
 		return this.parent;
 	}
 
-	public ExecutionState getState() {
+	public synchronized ExecutionState getState() {
 		return this.state;
 	}
 
@@ -287,37 +326,44 @@ public class ExecutionResultImpl implements ExecutionResult {
 
 	public void setState(ExecutionState state) {
 
-		// capture current state
-		ExecutionState currentState = this.state;
+		// the state is computed under the lock, so concurrently completing
+		// children can't compute it simultaneously and the transient computed
+		// state isn't observed. The notifications are done outside the lock
+		// since they lock the parent.
+		synchronized (this) {
 
-		// set state
-		this.state = state;
+			// capture current state
+			ExecutionState currentState = this.state;
 
-		// log debug message
-		if (logger.isDebugEnabled()) {
-			StringBuilder debugMessage = new StringBuilder();
-			debugMessage.append(this.hashCode());
-			debugMessage.append(": State is set to [");
-			debugMessage.append(this.state);
-			debugMessage.append("] for [");
-			debugMessage.append(description);
-			debugMessage.append("].");
-			logger.debug(debugMessage.toString());
-		}
+			// set state
+			this.state = state;
 
-		// if not running then compute the final result
-		if (state != ExecutionState.EXECUTING) {
+			// log debug message
+			if (logger.isDebugEnabled()) {
+				StringBuilder debugMessage = new StringBuilder();
+				debugMessage.append(this.hashCode());
+				debugMessage.append(": State is set to [");
+				debugMessage.append(this.state);
+				debugMessage.append("] for [");
+				debugMessage.append(description);
+				debugMessage.append("].");
+				logger.debug(debugMessage.toString());
+			}
+
+			// if not running then compute the final result
+			if (state != ExecutionState.EXECUTING) {
 
-			// stop watch if its is running
-			if (isWatchRunning) {
-				watch.stop();
-				isWatchRunning = false;
+				// stop watch if its is running
+				if (isWatchRunning) {
+					watch.stop();
+					isWatchRunning = false;
+				}
 			}
-		}
 
-		// compute state from child results
-		if (state == ExecutionState.COMPUTED) {
-			computeStatus(currentState);
+			// compute state from child results
+			if (state == ExecutionState.COMPUTED) {
+				computeStatus(currentState);
+			}
 		}
 
 		// update continuation policy
@@ -352,6 +398,16 @@ public class ExecutionResultImpl implements ExecutionResult {
 		if (parent == null)
 			return;
 
+		// update state counters at parent
+		if (parent instanceof ExecutionResultImpl) {
+			ExecutionResultImpl parentImpl = (ExecutionResultImpl) parent;
+			parentImpl.updateChildState(this);
+
+			// exit if parent is forcing its running children to complete
+			if (parentImpl.isForcingChildErrors)
+				return;
+		}
+
 		// exit if parent is still running
 		if (parent.isExecuting())
 			return;
@@ -360,6 +416,29 @@ public class ExecutionResultImpl implements ExecutionResult {
 		parent.setState(ExecutionState.COMPUTED);
 	}
 
+	/**
+	 * Update the state counters with the state change of a child.
+	 * 
+	 * @param child
+	 *            child result which changed state.
+	 */
+	void updateChildState(ExecutionResultImpl child) {
+		ExecutionState previousState;
+		ExecutionState newState;
+		synchronized (child) {
+			previousState = child.countedState;
+			newState = child.state;
+			child.countedState = newState;
+		}
+
+		// exit if state is unchanged
+		if (previousState == newState)
+			return;
+
+		childStates.decrementAndGet(previousState.ordinal());
+		childStates.incrementAndGet(newState.ordinal());
+	}
+
 	/**
 	 * Compute the final status of the result
 	 * 
@@ -368,41 +447,19 @@ public class ExecutionResultImpl implements ExecutionResult {
 	 */
 	void computeStatus(ExecutionState currentState) {
 
-		// define counters
-		int numberFailed = 0;
-		int numberSuccessful = 0;
-		int numberError = 0;
-		int numberInterrupted = 0;
-
-		// get number of results
-		int numberResults = children.size();
-
-		// iterate over the results
-		for (ExecutionResult childResult : children) {
-
-			switch (childResult.getState()) {
-			case SUCCESS:
-				numberSuccessful++;
-				break;
-			case FAILURE:
-				numberFailed++;
-				break;
-			case ERROR:
-				numberError++;
-				break;
-			case EXECUTING:
-				forceChildError(childResult);
-				numberError++;
-				break;
-			case INTERRUPTED:
-				numberInterrupted++;
-				break;
-			default:
-				numberError++;
-				break;
-			}
+		// force running children to complete with an error
+		if (getNumberOfChildrenWithState(ExecutionState.EXECUTING) > 0) {
+			forceChildErrors();
 		}
 
+		// get counters, any child which isn't successful, failed or interrupted
+		// is counted as an error
+		int numberResults = getNumberOfChildren();
+		int numberSuccessful = getNumberOfChildrenWithState(ExecutionState.SUCCESS);
+		int numberFailed = getNumberOfChildrenWithState(ExecutionState.FAILURE);
+		int numberInterrupted = getNumberOfChildrenWithState(ExecutionState.INTERRUPTED);
+		int numberError = numberResults - numberSuccessful - numberFailed - numberInterrupted;
+
 		// create summary message
 		StringBuilder message = new StringBuilder();
 		message.append("Results: ");
@@ -465,6 +522,25 @@ public class ExecutionResultImpl implements ExecutionResult {
 		return;
 	}
 
+	/**
+	 * Force child results with running state to terminate with an error.
+	 * 
+	 * The children doesn't trigger a computation of the state of this result
+	 * while they are forced, since the state is computed when all running
+	 * children are forced.
+	 */
+	void forceChildErrors() {
+		isForcingChildErrors = true;
+		try {
+			for (ExecutionResult childResult : children) {
+				if (childResult.getState() == ExecutionState.EXECUTING)
+					forceChildError(childResult);
+			}
+		} finally {
+			isForcingChildErrors = false;
+		}
+	}
+
 	/**
 	 * Force a child result with running state to terminate with an error.
 	 * 
@@ -488,7 +564,7 @@ public class ExecutionResultImpl implements ExecutionResult {
 		return watch.getStartTime();
 	}
 
-	public void addMessage(String id, String message) {
+	public synchronized void addMessage(String id, String message) {
 
 		// if message doesn't exist then create it
 		if (!detailMessages.containsKey(id)) {
@@ -545,7 +621,7 @@ public class ExecutionResultImpl implements ExecutionResult {
 	 * @param message
 	 *            message.
 	 */
-	public void addOrReplaceMessage(String id, String message) {
+	public synchronized void addOrReplaceMessage(String id, String message) {
 
 		// if message doesn't exist then create it
 		if (!detailMessages.containsKey(id)) {
@@ -568,8 +644,8 @@ public class ExecutionResultImpl implements ExecutionResult {
 		return;
 	}
 
-	public Map<String, String> getMessages() {
-		return Collections.unmodifiableMap(this.detailMessages);
+	public synchronized Map<String, String> getMessages() {
+		return Collections.unmodifiableMap(new HashMap<String, String>(this.detailMessages));
 	}
 
 	public ExecutionResult[] getChildrenWithState(ExecutionState state) {
@@ -578,7 +654,7 @@ public class ExecutionResultImpl implements ExecutionResult {
 		ArrayList<ExecutionResult> foundChildren = new ArrayList<ExecutionResult>();
 
 		// iterate over the children
-		for (ExecutionResult child : children) {
+		for (ExecutionResult child : getChildren()) {
 
 			// store found child
 			if (child.getState() == state) {
@@ -592,9 +668,7 @@ public class ExecutionResultImpl implements ExecutionResult {
 
 	@Override
 	public ExecutionResult getFirstChild() {
-		if (children.isEmpty())
-			return null;
-		return children.get(FIRST_INDEX);
+		return children.peek();
 	}
 
 	@Override
@@ -659,10 +733,8 @@ public class ExecutionResultImpl implements ExecutionResult {
 
 		// create message for failed case, insert values for failed and errors
 		// test as first arguments
-		ExecutionResult[] failedTests = getChildrenWithState(ExecutionState.FAILURE);
-		ExecutionResult[] errorTests = getChildrenWithState(ExecutionState.ERROR);
-		args[0] = failedTests.length;
-		args[1] = errorTests.length;
+		args[0] = getNumberOfChildrenWithState(ExecutionState.FAILURE);
+		args[1] = getNumberOfChildrenWithState(ExecutionState.ERROR);
 		String message = messageProvider.getMessage(failedKey, args);
 
 		// store the message and set as computed
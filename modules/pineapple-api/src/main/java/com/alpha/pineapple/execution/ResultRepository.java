@@ -105,6 +105,24 @@ public interface ResultRepository extends ExecutionResultFactory {
 	 */
 	void addListener(ResultListener listener);
 
+	/**
+	 * Register execution result listener which is notified asynchronously. The
+	 * notifications are queued for the listener and delivered in batches by a
+	 * separate thread, so a slow listener doesn't slow down the execution of
+	 * operations.
+	 * 
+	 * @param listener
+	 *            Execution result listener which is notified during execution of
+	 *            operations.
+	 * @param policy
+	 *            Back-pressure policy which is applied when the queue of pending
+	 *            notifications for the listener is full.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if listener or policy is null.
+	 */
+	void addListener(ResultListener listener, BackPressurePolicy policy);
+
 	/**
 	 * Unregister execution result listener.
 	 * 
@@ -28,23 +28,26 @@ import com.alpha.pineapple.execution.ExecutionResult;
 
 /**
  * Default implementation of the {@linkplain ContinuationPolicy} interface.
+ * 
+ * The policy is shared by all results in an execution result tree and is
+ * updated from multiple threads if models are executed in parallel.
  */
 public class DefaultContinuationPolicyImpl implements ContinuationPolicy {
 
 	/**
 	 * Continue-on-failure directive.
 	 */
-	Boolean continueOnFailure = null;
+	volatile Boolean continueOnFailure = null;
 
 	/**
 	 * Cancellation state.
 	 */
-	boolean isCancelled = false;
+	volatile boolean isCancelled = false;
 
 	/**
 	 * Failure result.
 	 */
-	ExecutionResult failedResult;
+	volatile ExecutionResult failedResult;
 
 	/**
 	 * DefaultContinuationPolicyImpl constructor.
@@ -102,7 +105,7 @@ public class DefaultContinuationPolicyImpl implements ContinuationPolicy {
 	}
 
 	@Override
-	public void setFailed(ExecutionResult result) {
+	public synchronized void setFailed(ExecutionResult result) {
 		notNull(result, "result is undefined");
 		if (failedResult != null)
 			return;
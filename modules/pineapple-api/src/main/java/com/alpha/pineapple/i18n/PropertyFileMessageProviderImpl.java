@@ -26,8 +26,12 @@ import static com.alpha.javautils.ArgumentUtils.notNull;
 
 import java.io.InputStream;
 import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
+import java.util.MissingResourceException;
 import java.util.PropertyResourceBundle;
 import java.util.ResourceBundle;
 
@@ -39,6 +43,11 @@ import com.alpha.javautils.StackTraceHelper;
  * Implementation of the <code>MessageProvider</code> interface which loads
  * messages from a property file using the JDK
  * <code>PropertyResourceBundle</code> implementation.
+ * 
+ * All messages are compiled into immutable message templates when the
+ * resource bundle is loaded. The provider is thread safe since templates are
+ * never modified after creation and each formatting is done on a copy of the
+ * template format.
  */
 public class PropertyFileMessageProviderImpl implements MessageProvider {
 
@@ -50,7 +59,7 @@ public class PropertyFileMessageProviderImpl implements MessageProvider {
 	/**
 	 * Resource bundle
 	 */
-	ResourceBundle messages;
+	volatile ResourceBundle messages;
 
 	/**
 	 * Current Locale
@@ -58,9 +67,9 @@ public class PropertyFileMessageProviderImpl implements MessageProvider {
 	Locale locale;
 
 	/**
-	 * Message format cache
+	 * Compiled message templates, indexed by key.
 	 */
-	HashMap<String, MessageFormat> messageFormatCache;
+	volatile Map<String, MessageTemplate> templates = Collections.emptyMap();
 
 	/**
 	 * PropertyFileMessageProviderImpl constructor.
@@ -69,9 +78,6 @@ public class PropertyFileMessageProviderImpl implements MessageProvider {
 
 		// get default locale
 		locale = Locale.getDefault();
-
-		// create message format cache
-		messageFormatCache = new HashMap<String, MessageFormat>();
 	}
 
 	/**
@@ -110,7 +116,11 @@ public class PropertyFileMessageProviderImpl implements MessageProvider {
 			inStream = this.getClass().getResourceAsStream(fileName);
 
 			// create resource bundle
-			messages = new PropertyResourceBundle(inStream);
+			ResourceBundle bundle = new PropertyResourceBundle(inStream);
+
+			// compile templates
+			templates = compileTemplates(bundle);
+			messages = bundle;
 
 			// log debug message
 			if (logger.isDebugEnabled()) {
@@ -119,7 +129,9 @@ public class PropertyFileMessageProviderImpl implements MessageProvider {
 				debugMessage.append(fileName);
 				debugMessage.append("] into [");
 				debugMessage.append(messages);
-				debugMessage.append("].");
+				debugMessage.append("] with [");
+				debugMessage.append(templates.size());
+				debugMessage.append("] messages.");
 				logger.debug(debugMessage.toString());
 			}
 
@@ -170,20 +182,14 @@ public class PropertyFileMessageProviderImpl implements MessageProvider {
 		// validate argument
 		notNull(key, "key is undefined");
 
-		// get message formatter
-		MessageFormat formatter = getMessageFormat(key);
-
 		// format string with args
-		String value = formatter.format(args);
-
-		return value;
+		return getTemplate(key).format(args);
 	}
 
 	@Override	
 	public String getMessage(String key) {
 		notNull(key, "key is undefined");
-		String value = messages.getString(key);
-		return value;
+		return getTemplate(key).pattern;
 	}
 
 	@Override
@@ -197,13 +203,8 @@ public class PropertyFileMessageProviderImpl implements MessageProvider {
 		// validate argument
 		notNull(key, "key is undefined");
 
-		// get message formatter
-		MessageFormat formatter = getMessageFormat(key);
-
 		// format string with args
-		String value = formatter.format(args);
-
-		return value;		
+		return getTemplate(key).format(args);
 	}
 		
 	/**
@@ -227,30 +228,124 @@ public class PropertyFileMessageProviderImpl implements MessageProvider {
 	}
 
 	/**
-	 * Look up message formatter from cache. if formatter doesn't exist in cache the
-	 * add to the cache.
+	 * Compile message templates for all messages in resource bundle.
+	 * 
+	 * @param bundle
+	 *            resource bundle.
+	 * 
+	 * @return unmodifiable map of message templates indexed by key.
+	 */
+	Map<String, MessageTemplate> compileTemplates(ResourceBundle bundle) {
+		Map<String, MessageTemplate> compiled = new HashMap<String, MessageTemplate>();
+		Enumeration<String> keys = bundle.getKeys();
+		while (keys.hasMoreElements()) {
+			String key = keys.nextElement();
+			compiled.put(key, new MessageTemplate(bundle.getString(key), locale));
+		}
+		return Collections.unmodifiableMap(compiled);
+	}
+
+	/**
+	 * Look up message template.
 	 * 
 	 * @param key
-	 *            Key which identifies message for which a formatter is created.
+	 *            Key which identifies message.
+	 * 
+	 * @return Message template for a message.
 	 * 
-	 * @return Message formatter for a message.
+	 * @throws MissingResourceException
+	 *             If no message is defined for the key.
 	 */
-	MessageFormat getMessageFormat(String key) {
+	MessageTemplate getTemplate(String key) {
 		notNull(key, "key is undefined");
 
-		// get message format
-		if (messageFormatCache.containsKey(key)) {
-			return messageFormatCache.get(key);
+		MessageTemplate template = templates.get(key);
+		if (template == null) {
+			StringBuilder message = new StringBuilder();
+			message.append("Can't find resource for bundle ");
+			message.append(messages);
+			message.append(", key ");
+			message.append(key);
+			throw new MissingResourceException(message.toString(), PropertyResourceBundle.class.getName(), key);
 		}
+		return template;
+	}
 
-		// create message format
-		MessageFormat formatter = new MessageFormat(messages.getString(key));
-		formatter.setLocale(locale);
-
-		// add format to cache
-		messageFormatCache.put(key, formatter);
+	/**
+	 * Immutable compiled message.
+	 */
+	static final class MessageTemplate {
+
+		/**
+		 * Message pattern.
+		 */
+		final String pattern;
+
+		/**
+		 * Locale used for formatting.
+		 */
+		final Locale locale;
+
+		/**
+		 * Compiled format. Null if the pattern has no arguments or is invalid.
+		 * The format is never used directly since it isn't thread safe.
+		 */
+		final MessageFormat format;
+
+		/**
+		 * Formatted message for patterns without arguments. Null if the pattern
+		 * has arguments or is invalid.
+		 */
+		final String formatted;
+
+		/**
+		 * MessageTemplate constructor.
+		 * 
+		 * @param pattern
+		 *            message pattern.
+		 * @param locale
+		 *            locale used for formatting.
+		 */
+		MessageTemplate(String pattern, Locale locale) {
+			this.pattern = pattern;
+			this.locale = locale;
+
+			MessageFormat compiledFormat = null;
+			String formattedPattern = null;
+			try {
+				compiledFormat = new MessageFormat(pattern, locale);
+				if (compiledFormat.getFormatsByArgumentIndex().length == 0) {
+					formattedPattern = compiledFormat.format(new Object[0]);
+					compiledFormat = null;
+				}
+			} catch (IllegalArgumentException e) {
+				// invalid pattern is reported when the message is formatted
+			}
+			this.format = compiledFormat;
+			this.formatted = formattedPattern;
+		}
 
-		return formatter;
+		/**
+		 * Format message.
+		 * 
+		 * @param args
+		 *            message arguments.
+		 * 
+		 * @return formatted message.
+		 */
+		String format(Object[] args) {
+
+			// fast path for messages without arguments
+			if (formatted != null)
+				return formatted;
+
+			// format copy of compiled format
+			if (format != null)
+				return ((MessageFormat) format.clone()).format(args);
+
+			// pattern is invalid, fails with the parse error
+			return new MessageFormat(pattern, locale).format(args);
+		}
 	}
-	
+
 }
@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+* Copyright (C) 2007-2015 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package com.alpha.pineapple.model;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+
+/**
+ * Registry of JAXB contexts shared by all marshalling and unmarshalling paths.
+ * 
+ * A JAXB context is created once per context path (package name) or class set
+ * and reused afterwards. Marshallers and unmarshallers are cached per thread
+ * and context since they aren't thread safe.
+ */
+public interface JAXBContextRegistry {
+
+	/**
+	 * Get JAXB context for context path. The context is created on first
+	 * request.
+	 * 
+	 * @param contextPath
+	 *            colon separated list of Java package names which contains JAXB
+	 *            generated classes.
+	 * 
+	 * @return JAXB context for context path.
+	 * 
+	 * @throws JAXBException
+	 *             if context creation fails.
+	 */
+	JAXBContext getContext(String contextPath) throws JAXBException;
+
+	/**
+	 * Get JAXB context for set of classes. The context is created on first
+	 * request.
+	 * 
+	 * @param classes
+	 *            classes which should be recognized by the context.
+	 * 
+	 * @return JAXB context for the classes.
+	 * 
+	 * @throws JAXBException
+	 *             if context creation fails.
+	 */
+	JAXBContext getContext(Class<?>... classes) throws JAXBException;
+
+	/**
+	 * Get marshaller for context path. The marshaller is cached for the calling
+	 * thread. The formatted output, encoding and fragment properties, the
+	 * schema, event handler and listener are reset to their defaults when the
+	 * marshaller is returned. Other properties must be set by the caller before
+	 * each use.
+	 * 
+	 * @param contextPath
+	 *            colon separated list of Java package names which contains JAXB
+	 *            generated classes.
+	 * 
+	 * @return marshaller for context path bound to the calling thread.
+	 * 
+	 * @throws JAXBException
+	 *             if context or marshaller creation fails.
+	 */
+	Marshaller getMarshaller(String contextPath) throws JAXBException;
+
+	/**
+	 * Get unmarshaller for context path. The unmarshaller is cached for the
+	 * calling thread. The schema, event handler and listener are reset when the
+	 * unmarshaller is returned.
+	 * 
+	 * @param contextPath
+	 *            colon separated list of Java package names which contains JAXB
+	 *            generated classes.
+	 * 
+	 * @return unmarshaller for context path bound to the calling thread.
+	 * 
+	 * @throws JAXBException
+	 *             if context or unmarshaller creation fails.
+	 */
+	Unmarshaller getUnmarshaller(String contextPath) throws JAXBException;
+
+	/**
+	 * Clear the registered contexts and the marshallers and unmarshallers cached
+	 * for all threads. Invoked when the application is stopped, to release the
+	 * classes of the contexts.
+	 */
+	void clear();
+
+	/**
+	 * Get number of JAXB contexts created by the registry.
+	 * 
+	 * @return number of JAXB contexts created by the registry.
+	 */
+	int getNumberOfCreatedContexts();
+
+	/**
+	 * Get number of context requests served from the registry without creating
+	 * a context.
+	 * 
+	 * @return number of context requests served from the registry.
+	 */
+	long getNumberOfCacheHits();
+
+	/**
+	 * Get accumulated time spent creating JAXB contexts.
+	 * 
+	 * @return accumulated time in milliseconds spent creating JAXB contexts.
+	 */
+	long getContextCreationTime();
+
+	/**
+	 * Get time spent creating the JAXB context for a context path or class set.
+	 * 
+	 * @param key
+	 *            context path or class set key, i.e. the sorted class names
+	 *            separated by colon.
+	 * 
+	 * @return time in milliseconds spent creating the context. Returns -1 if no
+	 *         context is registered for the key.
+	 */
+	long getContextCreationTime(String key);
+
+}
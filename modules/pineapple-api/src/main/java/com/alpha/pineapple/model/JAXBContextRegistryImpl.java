@@ -0,0 +1,335 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+* Copyright (C) 2007-2015 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package com.alpha.pineapple.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+
+/**
+ * Implementation of the {@linkplain JAXBContextRegistry} interface.
+ * 
+ * Contexts are created once per key and stored in a concurrent map. The
+ * registry used by Pineapple is available through
+ * {@linkplain #getSharedInstance()} which allows the core component, report
+ * generators and applications to share the same contexts.
+ * 
+ * The marshallers and unmarshallers of each thread are kept in maps of JDK
+ * types, which are also registered weakly by thread. This allows
+ * {@linkplain #clear()} to empty the caches of all threads, so pooled threads
+ * don't keep the classes of the contexts loaded after the application is
+ * stopped.
+ */
+public class JAXBContextRegistryImpl implements JAXBContextRegistry {
+
+	/**
+	 * Default marshaller encoding.
+	 */
+	static final String DEFAULT_ENCODING = "UTF-8";
+
+	/**
+	 * Registered contexts.
+	 */
+	final ConcurrentMap<String, RegisteredContext> contexts = new ConcurrentHashMap<String, RegisteredContext>();
+
+	/**
+	 * Marshallers cached for the current thread.
+	 */
+	final ThreadLocal<Map<JAXBContext, Marshaller>> marshallers = new ThreadLocal<Map<JAXBContext, Marshaller>>();
+
+	/**
+	 * Unmarshallers cached for the current thread.
+	 */
+	final ThreadLocal<Map<JAXBContext, Unmarshaller>> unmarshallers = new ThreadLocal<Map<JAXBContext, Unmarshaller>>();
+
+	/**
+	 * Marshaller caches of all threads, used to clear the caches.
+	 */
+	final Map<Thread, Map<JAXBContext, Marshaller>> threadMarshallers = Collections
+			.synchronizedMap(new WeakHashMap<Thread, Map<JAXBContext, Marshaller>>());
+
+	/**
+	 * Unmarshaller caches of all threads, used to clear the caches.
+	 */
+	final Map<Thread, Map<JAXBContext, Unmarshaller>> threadUnmarshallers = Collections
+			.synchronizedMap(new WeakHashMap<Thread, Map<JAXBContext, Unmarshaller>>());
+
+	/**
+	 * Number of created contexts.
+	 */
+	final AtomicInteger createdContexts = new AtomicInteger();
+
+	/**
+	 * Number of context requests served from the registry.
+	 */
+	final AtomicLong cacheHits = new AtomicLong();
+
+	/**
+	 * Accumulated context creation time in milliseconds.
+	 */
+	final AtomicLong creationTime = new AtomicLong();
+
+	/**
+	 * Get registry shared by all Pineapple components.
+	 * 
+	 * @return registry shared by all Pineapple components.
+	 */
+	public static JAXBContextRegistry getSharedInstance() {
+		return SharedInstanceHolder.INSTANCE;
+	}
+
+	@Override
+	public JAXBContext getContext(String contextPath) throws JAXBException {
+		if (contextPath == null)
+			throw new IllegalArgumentException("contextPath is undefined.");
+		return getRegisteredContext(contextPath, null).context;
+	}
+
+	@Override
+	public JAXBContext getContext(Class<?>... classes) throws JAXBException {
+		if (classes == null || classes.length == 0)
+			throw new IllegalArgumentException("classes is undefined.");
+		String key = Arrays.stream(classes).map(Class::getName).sorted().collect(Collectors.joining(":"));
+		return getRegisteredContext(key, classes).context;
+	}
+
+	@Override
+	public Marshaller getMarshaller(String contextPath) throws JAXBException {
+		JAXBContext context = getContext(contextPath);
+		Map<JAXBContext, Marshaller> cache = getThreadCache(marshallers, threadMarshallers);
+		Marshaller marshaller = cache.get(context);
+		if (marshaller == null) {
+			marshaller = context.createMarshaller();
+			cache.put(context, marshaller);
+			return marshaller;
+		}
+
+		// reset properties set by the previous use
+		marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.FALSE);
+		marshaller.setProperty(Marshaller.JAXB_ENCODING, DEFAULT_ENCODING);
+		marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.FALSE);
+		marshaller.setSchema(null);
+		marshaller.setEventHandler(null);
+		marshaller.setListener(null);
+		return marshaller;
+	}
+
+	@Override
+	public Unmarshaller getUnmarshaller(String contextPath) throws JAXBException {
+		JAXBContext context = getContext(contextPath);
+		Map<JAXBContext, Unmarshaller> cache = getThreadCache(unmarshallers, threadUnmarshallers);
+		Unmarshaller unmarshaller = cache.get(context);
+		if (unmarshaller == null) {
+			unmarshaller = context.createUnmarshaller();
+			cache.put(context, unmarshaller);
+			return unmarshaller;
+		}
+
+		// reset properties set by the previous use
+		unmarshaller.setSchema(null);
+		unmarshaller.setEventHandler(null);
+		unmarshaller.setListener(null);
+		return unmarshaller;
+	}
+
+	@Override
+	public void clear() {
+		contexts.clear();
+		synchronized (threadMarshallers) {
+			threadMarshallers.values().forEach(Map::clear);
+		}
+		synchronized (threadUnmarshallers) {
+			threadUnmarshallers.values().forEach(Map::clear);
+		}
+		marshallers.remove();
+		unmarshallers.remove();
+	}
+
+	@Override
+	public int getNumberOfCreatedContexts() {
+		return createdContexts.get();
+	}
+
+	@Override
+	public long getNumberOfCacheHits() {
+		return cacheHits.get();
+	}
+
+	@Override
+	public long getContextCreationTime() {
+		return creationTime.get();
+	}
+
+	@Override
+	public long getContextCreationTime(String key) {
+		RegisteredContext registered = contexts.get(key);
+		if (registered == null)
+			return -1;
+		return registered.creationTime;
+	}
+
+	/**
+	 * Get cache of the current thread. Creates and registers the cache if it
+	 * doesn't exist.
+	 * 
+	 * @param threadLocal
+	 *            thread local which holds the cache of the current thread.
+	 * @param threadCaches
+	 *            caches of all threads.
+	 * 
+	 * @return cache of the current thread.
+	 */
+	<T> Map<JAXBContext, T> getThreadCache(ThreadLocal<Map<JAXBContext, T>> threadLocal,
+			Map<Thread, Map<JAXBContext, T>> threadCaches) {
+		Map<JAXBContext, T> cache = threadLocal.get();
+		if (cache == null) {
+			cache = new ConcurrentHashMap<JAXBContext, T>();
+			threadLocal.set(cache);
+			threadCaches.put(Thread.currentThread(), cache);
+		}
+		return cache;
+	}
+
+	/**
+	 * Get registered context. Creates and registers the context if it doesn't
+	 * exist.
+	 * 
+	 * @param key
+	 *            context key.
+	 * @param classes
+	 *            classes used to create the context. If null then the key is
+	 *            used as context path.
+	 * 
+	 * @return registered context.
+	 * 
+	 * @throws JAXBException
+	 *             if context creation fails.
+	 */
+	RegisteredContext getRegisteredContext(String key, Class<?>[] classes) throws JAXBException {
+		RegisteredContext registered = contexts.get(key);
+		if (registered != null) {
+			cacheHits.incrementAndGet();
+			return registered;
+		}
+
+		try {
+			return contexts.computeIfAbsent(key, k -> createContext(k, classes));
+		} catch (ContextCreationFailedException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Create context.
+	 * 
+	 * @param key
+	 *            context key.
+	 * @param classes
+	 *            classes used to create the context. If null then the key is
+	 *            used as context path.
+	 * 
+	 * @return created context.
+	 */
+	RegisteredContext createContext(String key, Class<?>[] classes) {
+		long start = System.currentTimeMillis();
+		try {
+			JAXBContext context;
+			if (classes == null)
+				context = JAXBContext.newInstance(key);
+			else
+				context = JAXBContext.newInstance(classes);
+			long elapsed = System.currentTimeMillis() - start;
+			createdContexts.incrementAndGet();
+			creationTime.addAndGet(elapsed);
+			return new RegisteredContext(context, elapsed);
+
+		} catch (JAXBException e) {
+			throw new ContextCreationFailedException(e);
+		}
+	}
+
+	/**
+	 * Registered context and its creation time.
+	 */
+	static class RegisteredContext {
+
+		/**
+		 * JAXB context.
+		 */
+		final JAXBContext context;
+
+		/**
+		 * Creation time in milliseconds.
+		 */
+		final long creationTime;
+
+		RegisteredContext(JAXBContext context, long creationTime) {
+			this.context = context;
+			this.creationTime = creationTime;
+		}
+	}
+
+	/**
+	 * Carries JAXB exception out of context creation in the concurrent map.
+	 */
+	static class ContextCreationFailedException extends RuntimeException {
+
+		/**
+		 * Serial Version UID.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		ContextCreationFailedException(JAXBException cause) {
+			super(cause);
+		}
+
+		@Override
+		public synchronized JAXBException getCause() {
+			return (JAXBException) super.getCause();
+		}
+	}
+
+	/**
+	 * Lazy holder of the shared registry.
+	 */
+	static class SharedInstanceHolder {
+
+		/**
+		 * Registry shared by all Pineapple components.
+		 */
+		static final JAXBContextRegistry INSTANCE = new JAXBContextRegistryImpl();
+	}
+
+}
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+* Copyright (C) 2007-2015 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package com.alpha.pineapple.plugin;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation processor which writes a plugin index when a plugin is compiled.
+ * 
+ * The index is written to the package of each class annotated with
+ * {@link Plugin}. The index contains the fully qualified names of the plugin
+ * classes in the package, one per line. The plugin candidate scanner uses the
+ * index to register the plugin classes without scanning the class path.
+ */
+@SupportedAnnotationTypes("com.alpha.pineapple.plugin.Plugin")
+public class PluginIndexProcessor extends AbstractProcessor {
+
+	/**
+	 * Name of plugin index file. The file is located in the plugin package.
+	 */
+	public static final String PLUGIN_INDEX_FILE = "pineapple-plugin.index";
+
+	/**
+	 * Plugin classes, stored by package name.
+	 */
+	final Map<String, Set<String>> pluginClasses = new TreeMap<String, Set<String>>();
+
+	/**
+	 * Annotated elements, stored by package name.
+	 */
+	final Map<String, List<Element>> originatingElements = new TreeMap<String, List<Element>>();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+
+		// collect plugin classes
+		for (Element element : roundEnv.getElementsAnnotatedWith(Plugin.class)) {
+			if (element.getKind() != ElementKind.CLASS)
+				continue;
+			TypeElement typeElement = (TypeElement) element;
+			PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(typeElement);
+			String packageName = packageElement.getQualifiedName().toString();
+			pluginClasses.computeIfAbsent(packageName, name -> new TreeSet<String>())
+					.add(processingEnv.getElementUtils().getBinaryName(typeElement).toString());
+			originatingElements.computeIfAbsent(packageName, name -> new ArrayList<Element>()).add(element);
+		}
+
+		// write indexes when processing is completed
+		if (roundEnv.processingOver()) {
+			for (Map.Entry<String, Set<String>> entry : pluginClasses.entrySet()) {
+				writeIndex(entry.getKey(), entry.getValue());
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Write plugin index for package.
+	 * 
+	 * @param packageName
+	 *            package name.
+	 * @param classNames
+	 *            fully qualified names of plugin classes in package.
+	 */
+	void writeIndex(String packageName, Set<String> classNames) {
+		try {
+			Element[] elements = originatingElements.get(packageName).toArray(new Element[0]);
+			FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, packageName,
+					PLUGIN_INDEX_FILE, elements);
+			try (Writer writer = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8)) {
+				for (String className : classNames) {
+					writer.write(className);
+					writer.write('\n');
+				}
+			}
+		} catch (IOException e) {
+			String message = new StringBuilder().append("Failed to write plugin index for package [")
+					.append(packageName).append("] due to exception: ").append(e).toString();
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, message);
+		}
+	}
+
+}
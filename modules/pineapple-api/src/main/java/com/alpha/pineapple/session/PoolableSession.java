@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+ * Copyright (C) 2007-2013 Allan Thrane Andersen..
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package com.alpha.pineapple.session;
+
+/**
+ * Defines interface for session which can be kept open and reused for
+ * subsequent executions of operations on the same resource.
+ * 
+ * The core component keeps connected sessions which implements this interface
+ * in a session pool after an operation has completed. The session is handed to
+ * the next operation which targets the same resource with the same credential
+ * if the session still reports itself as connected. Sessions which doesn't
+ * implement this interface are connected and disconnected for each operation.
+ */
+public interface PoolableSession extends Session {
+
+	/**
+	 * Returns true if the session is connected to the external resource and
+	 * can be reused.
+	 * 
+	 * The method is invoked by the session pool as health check before the
+	 * session is reused. The method shouldn't throw exceptions.
+	 * 
+	 * @return true if the session is connected to the external resource.
+	 */
+	public boolean isConnected();
+}
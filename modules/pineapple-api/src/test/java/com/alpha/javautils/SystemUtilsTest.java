@@ -96,6 +96,40 @@ public class SystemUtilsTest {
 	public void tearDown() throws Exception {
 	}
 
+	/**
+	 * Returns true if eager substitution system property is defined as true.
+	 */
+	@Test
+	public void testIsEagerSubstitutionEnabledSucceeds() {
+
+		// complete mock setup
+		expect(systemProperties.getProperty(systemUtils.PINEAPPLE_EAGER_SUBSTITUTION)).andReturn("true");
+		replay(systemProperties);
+
+		// test
+		assertTrue(systemUtils.isEagerSubstitutionEnabled(systemProperties));
+
+		// test
+		verify(systemProperties);
+	}
+
+	/**
+	 * Returns false if eager substitution system property is undefined.
+	 */
+	@Test
+	public void testIsEagerSubstitutionEnabledFailsIfPropertyIsUndefined() {
+
+		// complete mock setup
+		expect(systemProperties.getProperty(systemUtils.PINEAPPLE_EAGER_SUBSTITUTION)).andReturn(null);
+		replay(systemProperties);
+
+		// test
+		assertFalse(systemUtils.isEagerSubstitutionEnabled(systemProperties));
+
+		// test
+		verify(systemProperties);
+	}
+
 	/**
 	 * Fails if system properties is undefined.
 	 */
@@ -196,6 +230,58 @@ public class SystemUtilsTest {
 		verify(systemProperties);
 	}
 
+	/**
+	 * Returns true if parallel execution system property is defined as true.
+	 */
+	@Test
+	public void testIsParallelExecutionEnabledSucceeds() {
+
+		// complete mock setup
+		expect(systemProperties.getProperty(systemUtils.PINEAPPLE_PARALLEL_EXECUTION)).andReturn("true");
+		replay(systemProperties);
+
+		// test
+		assertTrue(systemUtils.isParallelExecutionEnabled(systemProperties));
+
+		// test
+		verify(systemProperties);
+	}
+
+	/**
+	 * Returns false if parallel execution system property is undefined.
+	 */
+	@Test
+	public void testIsParallelExecutionEnabledFailsIfPropertyIsUndefined() {
+
+		// complete mock setup
+		expect(systemProperties.getProperty(systemUtils.PINEAPPLE_PARALLEL_EXECUTION)).andReturn(null);
+		replay(systemProperties);
+
+		// test
+		assertFalse(systemUtils.isParallelExecutionEnabled(systemProperties));
+
+		// test
+		verify(systemProperties);
+	}
+
+	/**
+	 * Returns false if parallel execution system property is defined with
+	 * random value.
+	 */
+	@Test
+	public void testIsParallelExecutionEnabledFailsIfPropertyIsRandomValue() {
+
+		// complete mock setup
+		expect(systemProperties.getProperty(systemUtils.PINEAPPLE_PARALLEL_EXECUTION)).andReturn(randomValue);
+		replay(systemProperties);
+
+		// test
+		assertFalse(systemUtils.isParallelExecutionEnabled(systemProperties));
+
+		// test
+		verify(systemProperties);
+	}
+
 	/**
 	 * Fails if system properties is undefined.
 	 */
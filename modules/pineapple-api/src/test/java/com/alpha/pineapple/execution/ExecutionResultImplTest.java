@@ -28,8 +28,16 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.SystemUtils;
+import org.apache.log4j.Logger;
 import org.easymock.EasyMock;
 import org.easymock.IAnswer;
 import org.junit.After;
@@ -69,6 +77,11 @@ public class ExecutionResultImplTest {
 	 */
 	static final int SOME_MILIS = 123;
 
+	/**
+	 * Number of children in wide result tree.
+	 */
+	static final int WIDE_TREE_CHILDREN = 10000;
+
 	/**
 	 * Object under test.
 	 */
@@ -1540,4 +1553,147 @@ public class ExecutionResultImplTest {
 		assertEquals(child, result.getFirstChild());
 	}
 
+	/**
+	 * Test that a wide result tree with running children is completed by
+	 * computing the state of the root result. The running children are forced to
+	 * complete with an error.
+	 */
+	@Test
+	public void testCanComputeWideResultTreeWithRunningChildren() {
+		result = new ExecutionResultImpl(DESCRIPTION);
+		for (int i = 0; i < WIDE_TREE_CHILDREN; i++) {
+			result.addChild(DESCRIPTION);
+		}
+
+		// complete
+		long startTime = System.currentTimeMillis();
+		result.setState(ExecutionState.COMPUTED);
+		logBenchmark("compute root with running children", startTime);
+
+		// test
+		assertEquals(ExecutionState.ERROR, result.getState());
+		assertEquals(WIDE_TREE_CHILDREN, result.getChildrenWithState(ExecutionState.ERROR).length);
+		assertEquals("Results: " + WIDE_TREE_CHILDREN + ", successful: 0, failures: 0, errors: " + WIDE_TREE_CHILDREN
+				+ ", interrupted: 0.", result.getMessages().get(ExecutionResult.MSG_COMPOSITE));
+	}
+
+	/**
+	 * Test that a wide result tree is completed when the children completes
+	 * before the state of the root result is computed.
+	 */
+	@Test
+	public void testCanComputeWideResultTreeWithCompletedChildren() {
+		result = new ExecutionResultImpl(DESCRIPTION);
+
+		// complete
+		long startTime = System.currentTimeMillis();
+		for (int i = 0; i < WIDE_TREE_CHILDREN; i++) {
+			ExecutionResult child = result.addChild(DESCRIPTION);
+			child.setState((i % 2 == 0) ? ExecutionState.SUCCESS : ExecutionState.FAILURE);
+		}
+		result.setState(ExecutionState.COMPUTED);
+		logBenchmark("compute root with completed children", startTime);
+
+		// test
+		assertEquals(ExecutionState.FAILURE, result.getState());
+		assertEquals(WIDE_TREE_CHILDREN / 2, result.getChildrenWithState(ExecutionState.FAILURE).length);
+		assertEquals("Results: " + WIDE_TREE_CHILDREN + ", successful: " + (WIDE_TREE_CHILDREN / 2) + ", failures: "
+				+ (WIDE_TREE_CHILDREN / 2) + ", errors: 0, interrupted: 0.",
+				result.getMessages().get(ExecutionResult.MSG_COMPOSITE));
+	}
+
+	/**
+	 * Test that children can be added and completed concurrently.
+	 */
+	@Test
+	public void testCanAddAndCompleteChildrenConcurrently() throws Exception {
+		result = new ExecutionResultImpl(DESCRIPTION);
+		int threads = 10;
+		int childrenPerThread = 1000;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (int i = 0; i < threads; i++) {
+				futures.add(executor.submit(() -> {
+					for (int j = 0; j < childrenPerThread; j++) {
+						ExecutionResult child = result.addChild(DESCRIPTION);
+						child.setState(ExecutionState.SUCCESS);
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		result.setState(ExecutionState.COMPUTED);
+
+		// test
+		assertEquals(ExecutionState.SUCCESS, result.getState());
+		assertEquals(threads * childrenPerThread, result.getNumberOfChildren());
+		assertEquals(threads * childrenPerThread, result.getChildren().length);
+		assertEquals(threads * childrenPerThread, result.getChildrenWithState(ExecutionState.SUCCESS).length);
+	}
+
+	/**
+	 * Test that the transient computed state isn't observed while the state is
+	 * computed concurrently.
+	 */
+	@Test
+	public void testComputedStateIsntObservedDuringConcurrentComputation() throws Exception {
+		result = new ExecutionResultImpl(DESCRIPTION);
+		for (int i = 0; i < 100; i++) {
+			ExecutionResult child = result.addChild(DESCRIPTION);
+			child.setState((i == 50) ? ExecutionState.FAILURE : ExecutionState.SUCCESS);
+		}
+
+		int threads = 4;
+		ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+		try {
+			AtomicBoolean computing = new AtomicBoolean(true);
+			Future<Integer> reader = executor.submit(() -> {
+				int observed = 0;
+				while (computing.get()) {
+					if (result.getState() == ExecutionState.COMPUTED)
+						observed++;
+				}
+				return observed;
+			});
+
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (int i = 0; i < threads; i++) {
+				futures.add(executor.submit(() -> {
+					for (int j = 0; j < 1000; j++)
+						result.setState(ExecutionState.COMPUTED);
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+			computing.set(false);
+
+			// test
+			assertEquals(0, reader.get().intValue());
+			assertEquals(ExecutionState.FAILURE, result.getState());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Log completion time of benchmark test.
+	 * 
+	 * @param name
+	 *            name of benchmark.
+	 * @param startTime
+	 *            start time in milliseconds.
+	 */
+	void logBenchmark(String name, long startTime) {
+		long time = System.currentTimeMillis() - startTime;
+		Logger.getLogger(this.getClass().getName()).info(new StringBuilder().append("Benchmark [").append(name)
+				.append("] with [").append(WIDE_TREE_CHILDREN).append("] children completed in [").append(time)
+				.append("] ms.").toString());
+	}
+
 }
@@ -24,6 +24,15 @@ package com.alpha.pineapple.i18n;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.MissingResourceException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -43,6 +52,21 @@ public class PropertyFileMessageProviderTest {
 	 */
 	static final String NOEXISTING_BASE_NAME = "non.existing";
 
+	/**
+	 * Number of threads in stress test.
+	 */
+	static final int STRESS_THREADS = 8;
+
+	/**
+	 * Number of formatted messages per thread in stress test.
+	 */
+	static final int STRESS_MESSAGES = 10000;
+
+	/**
+	 * Number of formatted messages in benchmark.
+	 */
+	static final int BENCHMARK_MESSAGES = 100000;
+
 	/**
 	 * Object under test.
 	 */
@@ -308,5 +332,119 @@ public class PropertyFileMessageProviderTest {
 		// test
 		assertEquals("value is [XXX], [YYY] and [ZZZ].", value);
 	}
-	
+
+	/**
+	 * Test that message without arguments can be resolved with arguments.
+	 * 
+	 * @throws MessageProviderInitializationException
+	 */
+	@Test
+	public void testCanGetMessageWithoutArgumentsWithArgs() throws MessageProviderInitializationException {
+		provider = new PropertyFileMessageProviderImpl();
+		provider.setBasename(BASE_NAME_1);
+		assertEquals("value1", provider.get("key1", "XXX"));
+		assertEquals("value1", provider.getMessage("key1", new Object[] { "XXX" }));
+	}
+
+	/**
+	 * Test that quotes are processed when message is formatted but not when
+	 * message is resolved without arguments.
+	 * 
+	 * @throws MessageProviderInitializationException
+	 */
+	@Test
+	public void testQuotesAreProcessedWhenMessageIsFormatted() throws MessageProviderInitializationException {
+		provider = new PropertyFileMessageProviderImpl();
+		provider.setBasename(BASE_NAME_1);
+		assertEquals("value isn't defined.", provider.get("key6"));
+		assertEquals("value isn''t defined.", provider.getMessage("key6"));
+	}
+
+	/**
+	 * Test that message with number format can be resolved.
+	 * 
+	 * @throws MessageProviderInitializationException
+	 */
+	@Test
+	public void testCanGetMessageWithNumberFormat() throws MessageProviderInitializationException {
+		provider = new PropertyFileMessageProviderImpl();
+		provider.setBasename(BASE_NAME_1);
+		assertEquals("value is [42] and [XXX].", provider.get("key5", 42, "XXX"));
+	}
+
+	/**
+	 * Test that unknown key is rejected.
+	 * 
+	 * @throws MessageProviderInitializationException
+	 */
+	@Test(expected = MissingResourceException.class)
+	public void testFailsIfKeyIsUnknown() throws MessageProviderInitializationException {
+		provider = new PropertyFileMessageProviderImpl();
+		provider.setBasename(BASE_NAME_1);
+		provider.get("unknown-key", "XXX");
+	}
+
+	/**
+	 * Test that messages can be formatted concurrently.
+	 * 
+	 * @throws Exception
+	 *             If test fails.
+	 */
+	@Test
+	public void testCanFormatMessagesConcurrently() throws Exception {
+		provider = new PropertyFileMessageProviderImpl();
+		provider.setBasename(BASE_NAME_1);
+
+		ExecutorService executor = Executors.newFixedThreadPool(STRESS_THREADS);
+		try {
+			List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+			for (int i = 0; i < STRESS_THREADS; i++) {
+				final int thread = i;
+				tasks.add(() -> {
+					int errors = 0;
+					for (int j = 0; j < STRESS_MESSAGES; j++) {
+						int number = thread * STRESS_MESSAGES + j;
+						String value = provider.get("key5", number, "T" + thread);
+						if (!value.equals("value is [" + number + "] and [T" + thread + "]."))
+							errors++;
+						value = provider.get("key3", Integer.toString(number), thread);
+						if (!value.equals("value is [" + number + "] and [" + thread + "]."))
+							errors++;
+					}
+					return errors;
+				});
+			}
+
+			// test
+			for (Future<Integer> future : executor.invokeAll(tasks)) {
+				assertEquals(0, future.get().intValue());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Benchmark of message formatting.
+	 * 
+	 * @throws MessageProviderInitializationException
+	 */
+	@Test
+	public void testBenchmarkMessageFormatting() throws MessageProviderInitializationException {
+		provider = new PropertyFileMessageProviderImpl();
+		provider.setBasename(BASE_NAME_1);
+
+		long startTime = System.nanoTime();
+		for (int i = 0; i < BENCHMARK_MESSAGES; i++) {
+			provider.get("key4", "XXX", "YYY", i);
+			provider.get("key1", i);
+		}
+		long time = System.nanoTime() - startTime;
+
+		Logger.getLogger(this.getClass().getName())
+				.info(new StringBuilder().append("Benchmark [message formatting] with [").append(BENCHMARK_MESSAGES)
+						.append("] messages completed in [").append(time / 1000000).append("] ms, [")
+						.append(time / (BENCHMARK_MESSAGES * 2)).append("] ns per message.").toString());
+	}
+
 }
@@ -29,23 +29,34 @@ import java.lang.reflect.Field;
 import org.apache.commons.chain.Command;
 import org.apache.commons.chain.Context;
 
-import com.alpha.javautils.reflection.AnnotationFinder;
 import com.alpha.javautils.reflection.ReflectionHelper;
+import com.alpha.pineapple.command.initialization.CommandInjectionPlan.FieldInjection;
 
 /**
  * Implementation of the {@link CommandInitializer} interface.
+ * 
+ * The annotated fields of a command class are resolved once into a
+ * {@link CommandInjectionPlan} which is shared by all initializers.
  */
 public class CommandInitializerImpl implements CommandInitializer {
 
 	/**
-	 * Reflection helper
+	 * Reflection helper shared by initializers created with the no-arg
+	 * constructor. The helper is stateless after creation, but its creation is
+	 * expensive since all bean converters are registered.
 	 */
-	ReflectionHelper helper;
+	static final ReflectionHelper SHARED_HELPER = new ReflectionHelper();
 
 	/**
-	 * Annotation finder.
+	 * Value validator shared by initializers created with the no-arg
+	 * constructor.
 	 */
-	AnnotationFinder finder;
+	static final ValueValidator SHARED_VALIDATOR = new ValueValidator();
+
+	/**
+	 * Reflection helper
+	 */
+	ReflectionHelper helper;
 
 	/**
 	 * Value validation object.
@@ -56,7 +67,7 @@ public class CommandInitializerImpl implements CommandInitializer {
 	 * CommandInitializerImpl no-arg constructor.
 	 */
 	public CommandInitializerImpl() {
-		this(new ReflectionHelper(), new AnnotationFinder(), new ValueValidator());
+		this(SHARED_HELPER, SHARED_VALIDATOR);
 	}
 
 	/**
@@ -64,12 +75,11 @@ public class CommandInitializerImpl implements CommandInitializer {
 	 * 
 	 * @param helper
 	 *            Reflection helper object.
-	 * @param finder
-	 *            Annotation finder object.
+	 * @param validator
+	 *            Value validation object.
 	 */
-	public CommandInitializerImpl(ReflectionHelper helper, AnnotationFinder finder, ValueValidator validator) {
+	public CommandInitializerImpl(ReflectionHelper helper, ValueValidator validator) {
 		this.helper = helper;
-		this.finder = finder;
 		this.validator = validator;
 	}
 
@@ -84,25 +94,25 @@ public class CommandInitializerImpl implements CommandInitializer {
 		Object contextValue = null;
 
 		try {
-			// search for annotation
-			Field[] fields = finder.findAnnotatedFields(command, Initialize.class);
+			// get injection plan
+			CommandInjectionPlan plan = CommandInjectionPlan.getPlan(command.getClass());
 
 			// iterate over the fields
-			for (Field field : fields) {
+			for (FieldInjection injection : plan.injections) {
 				// store for exception handling purposes
-				exceptionHandlingField = field;
+				exceptionHandlingField = injection.field;
 
 				// get context key
-				String contextKey = getContextKey(context, field);
+				String contextKey = getContextKey(context, injection);
 
 				// lookup value from context
 				contextValue = getContextValue(context, contextKey);
 
 				// validate value
-				validator.validateValue(contextValue, field);
+				validator.validateValue(contextValue, injection.field, injection.policies);
 
 				// initialize command field with value
-				helper.setFieldValue(command, field, contextValue);
+				injection.assign(command, contextValue, helper);
 			}
 		} catch (Exception e) {
 			// create error message
@@ -123,24 +133,20 @@ public class CommandInitializerImpl implements CommandInitializer {
 	/**
 	 * Look up context key from annotation.
 	 * 
-	 * @param field
-	 *            The field containing the annotation whose value is read as key.
+	 * @param injection
+	 *            The field injection containing the key from the annotation.
 	 * 
 	 * @return Context key from {@link Initialize} annotation.
 	 * 
 	 * @throws CommandInitializationFailedException
 	 *             If key isn't defined in the context.
 	 */
-	String getContextKey(Context context, Field field) throws CommandInitializationFailedException {
+	String getContextKey(Context context, FieldInjection injection) throws CommandInitializationFailedException {
 		notNull(context, "context is undefined.");
-		notNull(field, "field is undefined.");
-
-		// get annotation
-		Initialize annotation;
-		annotation = field.getAnnotation(Initialize.class);
+		notNull(injection, "injection is undefined.");
 
 		// get annotation value
-		String contextKey = annotation.value();
+		String contextKey = injection.contextKey;
 
 		// validate whether context is defined
 		if (!context.containsKey(contextKey)) {
@@ -152,7 +158,7 @@ public class CommandInitializerImpl implements CommandInitializer {
 			message.append("> defined by the < ");
 			message.append(Initialize.class.getName());
 			message.append("> annotation on the field <");
-			message.append(field);
+			message.append(injection.field);
 			message.append("> was not found in the context.");
 
 			// throw exception
@@ -22,7 +22,9 @@
 
 package com.alpha.pineapple.command.initialization;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
@@ -30,6 +32,7 @@ import java.util.ArrayList;
 import org.apache.commons.chain.Command;
 import org.apache.commons.chain.Context;
 import org.apache.commons.chain.impl.ContextBase;
+import org.apache.log4j.Logger;
 import org.junit.*;
 
 import com.alpha.javautils.StackTraceHelper;
@@ -42,6 +45,11 @@ import com.alpha.pineapple.command.InitializeAnnontatedWithEmptyValueCommand;
 
 public class CommandInitializerTest {
 
+	/**
+	 * Number of initializations in benchmark.
+	 */
+	static final int BENCHMARK_INITIALIZATIONS = 100000;
+
 	/**
 	 * Object under test.
 	 */
@@ -565,4 +573,94 @@ public class CommandInitializerTest {
 		}
 	}
 
+	/**
+	 * Test that injection plan is created once for command class.
+	 */
+	@Test
+	public void testInjectionPlanIsCachedForCommandClass() {
+		CommandInjectionPlan plan = CommandInjectionPlan.getPlan(InitializeAndValidateAnnontatedCommand.class);
+		assertSame(plan, CommandInjectionPlan.getPlan(InitializeAndValidateAnnontatedCommand.class));
+		assertEquals(1, plan.injections.length);
+		assertEquals(InitializeAndValidateAnnontatedCommand.CONTEXT_KEY, plan.injections[0].contextKey);
+		assertArrayEquals(new ValidationPolicy[] { ValidationPolicy.NOT_NULL }, plan.injections[0].policies);
+	}
+
+	/**
+	 * Test that injection plan for command without annotations is empty.
+	 */
+	@Test
+	public void testInjectionPlanForCommandWithoutAnnotationsIsEmpty() {
+		CommandInjectionPlan plan = CommandInjectionPlan.getPlan(NullCommand.class);
+		assertEquals(0, plan.injections.length);
+	}
+
+	/**
+	 * Test that validation policy from the injection plan is enforced.
+	 * 
+	 * @throws Exception
+	 */
+	@Test(expected = CommandInitializationFailedException.class)
+	public void testInitializationFailsIfValidationPolicyIsViolated() throws Exception {
+		// create initializer
+		initializer = createInitializer();
+
+		// setup objects
+		Context context = new ContextBase();
+		context.put(InitializeAndValidateAnnontatedCommand.CONTEXT_KEY, null);
+
+		Command command = new InitializeAndValidateAnnontatedCommand();
+
+		// force exception
+		initializer.initialize(context, command);
+	}
+
+	/**
+	 * Test that multiple instances of a command class can be initialized with
+	 * different values.
+	 */
+	@Test
+	public void testCanInitializeMultipleInstancesOfCommandClass() throws Exception {
+		// create initializer
+		initializer = createInitializer();
+
+		// initialize commands
+		InitializeAnnotatedCommand[] commands = new InitializeAnnotatedCommand[10];
+		for (int i = 0; i < commands.length; i++) {
+			Context context = new ContextBase();
+			context.put(InitializeAnnotatedCommand.CONTEXT_KEY, "value" + i);
+			commands[i] = new InitializeAnnotatedCommand();
+			initializer.initialize(context, commands[i]);
+		}
+
+		// test
+		for (int i = 0; i < commands.length; i++) {
+			assertEquals("value" + i, commands[i].annotatedField);
+		}
+	}
+
+	/**
+	 * Benchmark of command initialization.
+	 */
+	@Test
+	public void testBenchmarkCommandInitialization() throws Exception {
+		// setup objects
+		Context context = new ContextBase();
+		context.put(MultipleInitializeAnnontatedCommand.CONTEXT_KEY1, "value1");
+		context.put(MultipleInitializeAnnontatedCommand.CONTEXT_KEY2, 1001);
+
+		// initialize commands
+		long startTime = System.nanoTime();
+		for (int i = 0; i < BENCHMARK_INITIALIZATIONS; i++) {
+			createInitializer().initialize(context, new MultipleInitializeAnnontatedCommand());
+		}
+		long time = System.nanoTime() - startTime;
+
+		// log result
+		Logger.getLogger(this.getClass().getName())
+				.info(new StringBuilder().append("Benchmark [command initialization] with [")
+						.append(BENCHMARK_INITIALIZATIONS).append("] initializations completed in [")
+						.append(time / 1000000).append("] ms, [").append(time / BENCHMARK_INITIALIZATIONS)
+						.append("] ns per command.").toString());
+	}
+
 }
@@ -92,6 +92,31 @@ public interface CoreConstants {
 	 */
 	public static final int EXECUTION_HISTORY_CAPACITY = 5;
 
+	/**
+	 * Maximum estimated number of bytes retained by the notifications of the
+	 * current and past executions in the result repository.
+	 */
+	public static final long EXECUTION_HISTORY_MAXIMUM_BYTES = 16 * 1024 * 1024;
+
+	/**
+	 * Grace period (in ms) after the completion of an execution, in which the
+	 * execution isn't evicted from the result repository when the maximum number
+	 * of retained bytes is exceeded.
+	 */
+	public static final long EXECUTION_HISTORY_EVICTION_GRACE_PERIOD = 60 * 1000;
+
+	/**
+	 * Capacity of the notification queue for result listeners which are notified
+	 * asynchronously.
+	 */
+	public static final int RESULT_DISPATCH_QUEUE_CAPACITY = 1024;
+
+	/**
+	 * Maximum number of notifications delivered per batch to result listeners
+	 * which are notified asynchronously.
+	 */
+	public static final int RESULT_DISPATCH_BATCH_SIZE = 64;
+
 	/**
 	 * key used to store load module model in execution context.
 	 */
@@ -153,6 +178,11 @@ public interface CoreConstants {
 	 */
 	public static final String MSG_CONTINUATION = "Continuation";
 
+	/**
+	 * Execution result key used to messages identifying the execution mode.
+	 */
+	public static final String MSG_PARALLEL_EXECUTION = "Parallel Execution";
+
 	/**
 	 * Execution result key used to messages identifying the resource resolution.
 	 */
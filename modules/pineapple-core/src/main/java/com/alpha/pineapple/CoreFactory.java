@@ -32,6 +32,7 @@ import org.springframework.context.support.ClassPathXmlApplicationContext;
 
 import com.alpha.pineapple.credential.CredentialProvider;
 import com.alpha.pineapple.credential.FileBasedCredentialProviderImpl;
+import com.alpha.pineapple.execution.BackPressurePolicy;
 import com.alpha.pineapple.execution.ResultListener;
 import com.alpha.pineapple.model.configuration.Configuration;
 
@@ -118,6 +119,34 @@ public class CoreFactory {
 		return core;
 	}
 
+	/**
+	 * Create Pineapple core instance with default configuration. The listeners
+	 * are notified asynchronously.
+	 *
+	 * @param listeners
+	 *            Array of Result listeners.
+	 * @param policy
+	 *            Back-pressure policy which is applied when a listener can't keep
+	 *            up with the notifications.
+	 * 
+	 * @return new Pineapple core instance with default configuration.
+	 * 
+	 * @throws CoreException
+	 *             If core instance creation fails.
+	 */
+	public PineappleCore createCore(ResultListener[] listeners, BackPressurePolicy policy) throws CoreException {
+		// create core
+		CoreImpl core = getCoreInstanceFromSpring();
+
+		// register listeners prior to initialization
+		core.addListeners(listeners, policy);
+
+		// initialize core
+		core.initialize();
+
+		return core;
+	}
+
 	/**
 	 * Create Pineapple core instance.
 	 *
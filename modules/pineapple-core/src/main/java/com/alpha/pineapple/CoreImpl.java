@@ -42,6 +42,7 @@ import com.alpha.pineapple.command.CommandFacade;
 import com.alpha.pineapple.command.CommandFacadeException;
 import com.alpha.pineapple.credential.CredentialProvider;
 import com.alpha.pineapple.credential.FileBasedCredentialProviderImpl;
+import com.alpha.pineapple.execution.BackPressurePolicy;
 import com.alpha.pineapple.execution.ExecutionInfo;
 import com.alpha.pineapple.execution.ExecutionResult;
 import com.alpha.pineapple.execution.OperationTask;
@@ -475,6 +476,14 @@ class CoreImpl implements PineappleCore {
 		this.resultRepository.addListener(listener);
 	}
 
+	@Override
+	public void addListener(ResultListener listener, BackPressurePolicy policy) {
+		notNull(listener, "listener is undefined.");
+		notNull(policy, "policy is undefined.");
+
+		this.resultRepository.addListener(listener, policy);
+	}
+
 	public void addListeners(ResultListener[] listeners) {
 		notNull(listeners, "listeners is undefined.");
 
@@ -484,6 +493,17 @@ class CoreImpl implements PineappleCore {
 		}
 	}
 
+	@Override
+	public void addListeners(ResultListener[] listeners, BackPressurePolicy policy) {
+		notNull(listeners, "listeners is undefined.");
+		notNull(policy, "policy is undefined.");
+
+		// add listeners
+		for (ResultListener listener : listeners) {
+			addListener(listener, policy);
+		}
+	}
+
 	@Override
 	public ResultListener[] getListeners() {
 		return resultRepository.getListeners();
@@ -23,6 +23,7 @@
 package com.alpha.pineapple;
 
 import com.alpha.pineapple.admin.Administration;
+import com.alpha.pineapple.execution.BackPressurePolicy;
 import com.alpha.pineapple.execution.ExecutionInfo;
 import com.alpha.pineapple.execution.ExecutionResult;
 import com.alpha.pineapple.execution.ResultListener;
@@ -67,6 +68,20 @@ public interface PineappleCore {
 	 */
 	void addListener(ResultListener listener);
 
+	/**
+	 * Register execution result listener which is notified asynchronously. The
+	 * listener is notified during execution of an operation about how it
+	 * proceeds, without slowing down the execution.
+	 * 
+	 * @param listener
+	 *            Execution result listener which is notified during execution of
+	 *            operations.
+	 * @param policy
+	 *            Back-pressure policy which is applied when the listener can't
+	 *            keep up with the notifications.
+	 */
+	void addListener(ResultListener listener, BackPressurePolicy policy);
+
 	/**
 	 * Register execution result listeners. A listener is notified during execution
 	 * of an operation about how it operation proceeds.
@@ -77,6 +92,20 @@ public interface PineappleCore {
 	 */
 	void addListeners(ResultListener[] listeners);
 
+	/**
+	 * Register execution result listeners which are notified asynchronously. A
+	 * listener is notified during execution of an operation about how it
+	 * proceeds, without slowing down the execution.
+	 * 
+	 * @param listeners
+	 *            Execution result listeners which are notified during execution
+	 *            of operations.
+	 * @param policy
+	 *            Back-pressure policy which is applied when a listener can't keep
+	 *            up with the notifications.
+	 */
+	void addListeners(ResultListener[] listeners, BackPressurePolicy policy);
+
 	/**
 	 * Get set of registered execution result listeners.
 	 * 
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+* Copyright (C) 2007-2015 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package com.alpha.pineapple.command;
+
+import java.io.File;
+
+import javax.annotation.Resource;
+
+import org.apache.commons.chain.Command;
+import org.apache.commons.chain.Context;
+
+import com.alpha.pineapple.command.initialization.CommandInitializer;
+import com.alpha.pineapple.command.initialization.CommandInitializerImpl;
+import com.alpha.pineapple.command.initialization.Initialize;
+import com.alpha.pineapple.command.initialization.ValidateValue;
+import com.alpha.pineapple.command.initialization.ValidationPolicy;
+import com.alpha.pineapple.execution.ExecutionResult;
+import com.alpha.pineapple.i18n.MessageProvider;
+import com.alpha.pineapple.module.ModelCache;
+
+/**
+ * <p>
+ * Implementation of the <code>org.apache.commons.chain.Command</code> interface
+ * which unmarshalls objects from an XML file using the model cache. If the file
+ * is cached and unmodified then the cached root object is stored in the
+ * context. Otherwise the file is unmarshalled by the
+ * {@linkplain UnmarshallJAXBObjectsCommand} and the root object is added to the
+ * cache.
+ * </p>
+ * 
+ * <p>
+ * The command uses the same context keys as the
+ * {@linkplain UnmarshallJAXBObjectsCommand}. Only files with an absolute path
+ * are cached.
+ * </p>
+ */
+public class CachedUnmarshallJAXBObjectsCommand implements Command {
+
+	/**
+	 * Key used to identify property in context: Contains execution result object,.
+	 */
+	public static final String EXECUTIONRESULT_KEY = UnmarshallJAXBObjectsCommand.EXECUTIONRESULT_KEY;
+
+	/**
+	 * Key used to identify property in context: Defines the file to unmarshall
+	 * objects from.
+	 */
+	public static final String FILE_KEY = UnmarshallJAXBObjectsCommand.FILE_KEY;
+
+	/**
+	 * Key used to identify property in context: Defines the Java package which
+	 * contains the JAXB generated classes which should be use to unmarshall the XML
+	 * file into.
+	 */
+	public static final String PACKAGE_KEY = UnmarshallJAXBObjectsCommand.PACKAGE_KEY;
+
+	/**
+	 * Key used to identify property in context: The root object of the unmarshalled
+	 * objects is stored in the context using this key.
+	 */
+	public static final String UNMARSHALLING_RESULT_KEY = UnmarshallJAXBObjectsCommand.UNMARSHALLING_RESULT_KEY;
+
+	/**
+	 * Message provider for I18N support.
+	 */
+	@Resource
+	MessageProvider messageProvider;
+
+	/**
+	 * Model cache.
+	 */
+	@Resource
+	ModelCache modelCache;
+
+	/**
+	 * Unmarshall JAXB objects command.
+	 */
+	@Resource
+	Command unmarshallJAXBObjectsCommand;
+
+	/**
+	 * File to unmarshall objects from.
+	 */
+	@Initialize(FILE_KEY)
+	@ValidateValue(ValidationPolicy.NOT_EMPTY)
+	File file;
+
+	/**
+	 * Package which contains JAXB generated classes.
+	 */
+	@Initialize(PACKAGE_KEY)
+	@ValidateValue(ValidationPolicy.NOT_NULL)
+	Package targetPackage;
+
+	/**
+	 * Defines execution result object.
+	 */
+	@Initialize(EXECUTIONRESULT_KEY)
+	@ValidateValue(ValidationPolicy.NOT_NULL)
+	ExecutionResult executionResult;
+
+	@SuppressWarnings("unchecked")
+	public boolean execute(Context context) throws Exception {
+
+		// initialize command
+		CommandInitializer initializer = new CommandInitializerImpl();
+		initializer.initialize(context, this);
+
+		// unmarshall relative file without the cache
+		if (!file.isAbsolute()) {
+			return unmarshallJAXBObjectsCommand.execute(context);
+		}
+
+		// use cached result
+		Object result = modelCache.get(file, targetPackage);
+		if (result != null) {
+			context.put(UNMARSHALLING_RESULT_KEY, result);
+			Object[] args = { file.getAbsolutePath() };
+			executionResult.completeAsSuccessful(messageProvider, "cujoc.success", args);
+			return Command.CONTINUE_PROCESSING;
+		}
+
+		// unmarshall and add result to the cache if file wasn't modified meanwhile
+		long lastModified = file.lastModified();
+		boolean processing = unmarshallJAXBObjectsCommand.execute(context);
+		if (executionResult.isSuccess() && (file.lastModified() == lastModified)) {
+			modelCache.put(file, targetPackage, context.get(UNMARSHALLING_RESULT_KEY));
+		}
+		return processing;
+	}
+}
@@ -27,10 +27,18 @@ import static com.alpha.pineapple.CoreConstants.MSG_ENVIRONMENT;
 import static com.alpha.pineapple.CoreConstants.MSG_MODULE;
 import static com.alpha.pineapple.CoreConstants.MSG_MODULE_FILE;
 import static com.alpha.pineapple.CoreConstants.MSG_OPERATION;
+import static com.alpha.pineapple.CoreConstants.MSG_PARALLEL_EXECUTION;
 import static com.alpha.pineapple.CoreConstants.MSG_RESOURCE_RESOLUTION;
 import static com.alpha.pineapple.CoreConstants.MSG_TRIGGER_RESOLUTION;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import javax.annotation.Resource;
 import javax.xml.transform.Source;
@@ -39,9 +47,11 @@ import javax.xml.transform.dom.DOMSource;
 import org.apache.commons.chain.Command;
 import org.apache.commons.chain.Context;
 import org.apache.log4j.Logger;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.oxm.Unmarshaller;
 import org.w3c.dom.Element;
 
+import com.alpha.javautils.SystemUtils;
 import com.alpha.pineapple.CoreConstants;
 import com.alpha.pineapple.command.initialization.CommandInitializer;
 import com.alpha.pineapple.command.initialization.CommandInitializerImpl;
@@ -59,6 +69,7 @@ import com.alpha.pineapple.model.module.Module;
 import com.alpha.pineapple.model.module.model.AggregatedModel;
 import com.alpha.pineapple.model.module.model.Content;
 import com.alpha.pineapple.model.module.model.Models;
+import com.alpha.pineapple.module.ModelCache;
 import com.alpha.pineapple.plugin.Operation;
 import com.alpha.pineapple.plugin.PluginExecutionFailedException;
 import com.alpha.pineapple.plugin.activation.PluginActivator;
@@ -103,7 +114,14 @@ import com.alpha.pineapple.substitution.VariableSubstitutionException;
  * Postcondition after execution of the command is no changes in the context but
  * execution of the operation.
  * </p>
- * .
+ * 
+ * <p>
+ * If parallel execution is enabled, either by the <code>parallel</code>
+ * attribute in the module model or by the core wide default defined by the
+ * system property <code>pineapple.execution.parallel</code>, then each model
+ * is executed concurrently on its resolved target resources. The models are
+ * still executed one after another.
+ * </p>
  */
 public class InvokePluginsCommand implements Command {
 
@@ -129,6 +147,14 @@ public class InvokePluginsCommand implements Command {
 	 */
 	static final Object NULL_MODULE_MODEL = null;
 
+	/**
+	 * Marks threads which execute models dispatched in parallel. Nested
+	 * operations (e.g. triggers or composite executions) executed by these
+	 * threads are executed sequentially to avoid exhausting the bounded
+	 * executor.
+	 */
+	static final ThreadLocal<Boolean> PARALLEL_EXECUTION_THREAD = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
 	/**
 	 * Logger object.
 	 */
@@ -182,6 +208,30 @@ public class InvokePluginsCommand implements Command {
 	@Resource
 	CommandFacade commandFacade;
 
+	/**
+	 * Model cache.
+	 */
+	@Resource
+	ModelCache modelCache;
+
+	/**
+	 * Executor for parallel execution of models on target resources.
+	 */
+	@Resource
+	AsyncTaskExecutor modelExecutor;
+
+	/**
+	 * Java System properties.
+	 */
+	@Resource
+	Properties systemProperties;
+
+	/**
+	 * System utilities.
+	 */
+	@Resource
+	SystemUtils systemUtils;
+
 	/**
 	 * Module object.
 	 */
@@ -245,6 +295,12 @@ public class InvokePluginsCommand implements Command {
 	 */
 	void executeModels(ExecutionResult rootResult) {
 
+		// resolve execution mode
+		boolean isParallel = isParallelExecutionEnabled();
+		Object[] parallelArgs = { isParallel };
+		String parallelMessage = messageProvider.getMessage("ipc.parallel_execution_info", parallelArgs);
+		rootResult.addMessage(MSG_PARALLEL_EXECUTION, parallelMessage);
+
 		// iterate over models
 		for (AggregatedModel model : moduleModel.getModel()) {
 
@@ -264,6 +320,12 @@ public class InvokePluginsCommand implements Command {
 					model.getTargetOperation(), rootResult))
 				continue;
 
+			// execute model concurrently on the target resources
+			if (isParallel && (resolvedTargetResources.length > 1)) {
+				executeModelInParallel(rootResult, resolvedTargetResources, model);
+				continue;
+			}
+
 			// iterate over the target resources
 			for (String resolvedTargetResource : resolvedTargetResources) {
 				executeModel(rootResult, resolvedTargetResource, model);
@@ -271,6 +333,197 @@ public class InvokePluginsCommand implements Command {
 		}
 	}
 
+	/**
+	 * Execute module model concurrently on a set of target resources.
+	 * 
+	 * The model results are created in target resource order prior to dispatch
+	 * to produce the same result tree as the sequential execution. The method
+	 * returns when the model is executed on all target resources.
+	 * 
+	 * @param result
+	 *            Execution result for execution of models.
+	 * @param targetResources
+	 *            Target resources.
+	 * @param model
+	 *            Module model
+	 */
+	void executeModelInParallel(ExecutionResult result, String[] targetResources, AggregatedModel model) {
+
+		// log debug message
+		if (logger.isDebugEnabled()) {
+			Object[] args = { getModelDescription(model), targetResources.length };
+			logger.debug(messageProvider.getMessage("ipc.parallel_execution_start", args));
+		}
+
+		// prepare and dispatch execution for each target resource
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+		for (String targetResource : targetResources) {
+			Map<ExecutionResult, Object> executions = prepareModelExecutions(result, targetResource, model);
+			Runnable task = createModelExecutionTask(result, targetResource, model, executions);
+			futures.add(modelExecutor.submit(task));
+		}
+
+		// wait for completion
+		awaitModelExecutions(result, futures);
+	}
+
+	/**
+	 * Prepare execution of module model on target resource. The model content is
+	 * unmarshalled and a model result is created for each content root.
+	 * 
+	 * @param result
+	 *            Execution result for execution of models.
+	 * @param targetResource
+	 *            Target resource.
+	 * @param model
+	 *            Module model
+	 * 
+	 * @return ordered map of model results and unmarshalled model content which
+	 *         should be executed.
+	 */
+	Map<ExecutionResult, Object> prepareModelExecutions(ExecutionResult result, String targetResource,
+			AggregatedModel model) {
+		Map<ExecutionResult, Object> executions = new LinkedHashMap<ExecutionResult, Object>();
+
+		// if input marshalling isn't supported by plugin then execute without a
+		// model
+		if (!isInputMarshallingEnabledForPlugin(targetResource)) {
+			executions.put(createModelResult(result, targetResource, model), NULL_MODULE_MODEL);
+			return executions;
+		}
+
+		// define unmarshaller
+		Unmarshaller unmarshaller;
+
+		try {
+			// get unmarshaller
+			unmarshaller = pluginActivator.getUnmarshaller(executionInfo.getEnvironment(), targetResource);
+
+		} catch (PluginExecutionFailedException e) {
+
+			// complete with error and exit
+			result.completeAsError(messageProvider, "ipc.execute_model_getunmarshaller_failed", e);
+			return executions;
+		}
+
+		// iterate over elements
+		for (Element element : model.getContent().getAny()) {
+
+			try {
+				Object moduleModel = unmarshallModelContent(unmarshaller, element);
+				executions.put(createModelResult(result, targetResource, model), moduleModel);
+
+			} catch (Exception e) {
+				completeAsUnmarshallingError(result, targetResource, e);
+				return executions;
+			}
+		}
+
+		return executions;
+	}
+
+	/**
+	 * Create task which executes prepared module model executions on target
+	 * resource.
+	 * 
+	 * @param result
+	 *            Execution result for execution of models.
+	 * @param targetResource
+	 *            Target resource.
+	 * @param model
+	 *            Module model
+	 * @param executions
+	 *            ordered map of model results and unmarshalled model content.
+	 * 
+	 * @return task which executes the prepared module model executions.
+	 */
+	Runnable createModelExecutionTask(ExecutionResult result, String targetResource, AggregatedModel model,
+			Map<ExecutionResult, Object> executions) {
+		return () -> {
+			PARALLEL_EXECUTION_THREAD.set(Boolean.TRUE);
+			try {
+				executePreparedModels(result, targetResource, model, executions);
+			} finally {
+				PARALLEL_EXECUTION_THREAD.remove();
+			}
+		};
+	}
+
+	/**
+	 * Execute prepared module model executions on target resource. The
+	 * continuation policy is enforced prior to each execution.
+	 * 
+	 * @param result
+	 *            Execution result for execution of models.
+	 * @param targetResource
+	 *            Target resource.
+	 * @param model
+	 *            Module model
+	 * @param executions
+	 *            ordered map of model results and unmarshalled model content.
+	 */
+	void executePreparedModels(ExecutionResult result, String targetResource, AggregatedModel model,
+			Map<ExecutionResult, Object> executions) {
+		for (Map.Entry<ExecutionResult, Object> execution : executions.entrySet()) {
+			ExecutionResult modelResult = execution.getKey();
+
+			// enforce continuation policy
+			if (!result.getContinuationPolicy().continueExecution()) {
+				modelResult.completeAsInterrupted(messageProvider, "ipc.parallel_execution_interrupted_info");
+				continue;
+			}
+
+			// do execute
+			executeModelWithPlugin(modelResult, targetResource, execution.getValue(), model);
+
+			// execute trigger
+			executeTriggers(model, modelResult, result);
+		}
+	}
+
+	/**
+	 * Wait for completion of dispatched module model executions. If an execution
+	 * failed with an unhandled exception then it is rethrown after all
+	 * executions have completed.
+	 * 
+	 * @param result
+	 *            Execution result for execution of models.
+	 * @param futures
+	 *            futures for dispatched executions.
+	 */
+	void awaitModelExecutions(ExecutionResult result, List<Future<?>> futures) {
+		RuntimeException unhandledException = null;
+
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+
+			} catch (InterruptedException e) {
+
+				// cancel remaining executions and exit
+				result.setCancelled();
+				Thread.currentThread().interrupt();
+				return;
+
+			} catch (ExecutionException e) {
+
+				// capture first unhandled exception
+				if (unhandledException != null)
+					continue;
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException)
+					unhandledException = (RuntimeException) cause;
+				else if (cause instanceof Error)
+					throw (Error) cause;
+				else
+					unhandledException = new IllegalStateException(cause);
+			}
+		}
+
+		if (unhandledException != null)
+			throw unhandledException;
+	}
+
 	/**
 	 * Execute module model.
 	 * 
@@ -331,22 +584,10 @@ public class InvokePluginsCommand implements Command {
 			Object moduleModel = null;
 
 			try {
-
-				// create source and unmarshall
-				Source domSource = new DOMSource(element);
-				moduleModel = unmarshaller.unmarshal(domSource);
+				moduleModel = unmarshallModelContent(unmarshaller, element);
 
 			} catch (Exception e) {
-
-				// create execution result description
-				Object[] args = { targetResource };
-				String description = messageProvider.getMessage("ipc.operation_info_onfailure", args);
-
-				// create execution result object for model execution and
-				// complete with error
-				ExecutionResult modelResult = result.addChild(description);
-				Object[] args2 = { e.getMessage() };
-				modelResult.completeAsError(messageProvider, "ipc.execute_model_failed", args2, e);
+				completeAsUnmarshallingError(result, targetResource, e);
 				return;
 			}
 
@@ -359,6 +600,75 @@ public class InvokePluginsCommand implements Command {
 		}
 	}
 
+	/**
+	 * Unmarshall module model content root. The unmarshalled content is cached by
+	 * the model cache, so content of cached module models is only unmarshalled
+	 * once per plugin.
+	 * 
+	 * @param unmarshaller
+	 *            plugin unmarshaller.
+	 * @param element
+	 *            module model content root.
+	 * 
+	 * @return unmarshalled module model content.
+	 * 
+	 * @throws Exception
+	 *             if unmarshalling fails.
+	 */
+	Object unmarshallModelContent(Unmarshaller unmarshaller, Element element) throws Exception {
+		Object content = modelCache.getContent(element, unmarshaller);
+		if (content != null)
+			return content;
+
+		Source domSource = new DOMSource(element);
+		content = unmarshaller.unmarshal(domSource);
+		if (content != null)
+			modelCache.putContent(element, unmarshaller, content);
+		return content;
+	}
+
+	/**
+	 * Create execution result for failed unmarshalling of module model content
+	 * and complete it with error.
+	 * 
+	 * @param result
+	 *            Execution result for execution of models.
+	 * @param targetResource
+	 *            Target resource.
+	 * @param e
+	 *            unmarshalling exception.
+	 */
+	void completeAsUnmarshallingError(ExecutionResult result, String targetResource, Exception e) {
+
+		// create execution result description
+		Object[] args = { targetResource };
+		String description = messageProvider.getMessage("ipc.operation_info_onfailure", args);
+
+		// create execution result object for model execution and
+		// complete with error
+		ExecutionResult modelResult = result.addChild(description);
+		Object[] args2 = { e.getMessage() };
+		modelResult.completeAsError(messageProvider, "ipc.execute_model_failed", args2, e);
+	}
+
+	/**
+	 * Create execution result for execution of module model on target resource.
+	 * 
+	 * @param result
+	 *            Execution result for execution of models.
+	 * @param targetResource
+	 *            Target resource.
+	 * @param moduleModel
+	 *            model module object.
+	 * 
+	 * @return execution result for model execution.
+	 */
+	ExecutionResult createModelResult(ExecutionResult result, String targetResource, AggregatedModel moduleModel) {
+		Object[] args = { getModelDescription(moduleModel), targetResource };
+		String description = messageProvider.getMessage("ipc.operation_info", args);
+		return result.addChild(description);
+	}
+
 	/**
 	 * Execute module model with plugin.
 	 * 
@@ -377,9 +687,25 @@ public class InvokePluginsCommand implements Command {
 			AggregatedModel moduleModel) {
 
 		// create execution result object for model execution
-		Object[] args = { getModelDescription(moduleModel), targetResource };
-		String description = messageProvider.getMessage("ipc.operation_info", args);
-		ExecutionResult modelResult = result.addChild(description);
+		ExecutionResult modelResult = createModelResult(result, targetResource, moduleModel);
+		executeModelWithPlugin(modelResult, targetResource, unmarshallModelContent, moduleModel);
+		return modelResult;
+	}
+
+	/**
+	 * Execute module model with plugin using an existing model result.
+	 * 
+	 * @param modelResult
+	 *            Execution result for executed model.
+	 * @param targetResource
+	 *            Target resource.
+	 * @param unmarshallModelContent
+	 *            module model unmarshalled content
+	 * @param AggregatedModel
+	 *            model module object.
+	 **/
+	void executeModelWithPlugin(ExecutionResult modelResult, String targetResource, Object unmarshallModelContent,
+			AggregatedModel moduleModel) {
 
 		try {
 
@@ -402,7 +728,7 @@ public class InvokePluginsCommand implements Command {
 				modelResult.completeAsFailure(messageProvider, "ipc.operation_didnt_setstate_failed");
 			}
 
-			return modelResult;
+			return;
 
 		} catch (RuntimeException e) {
 
@@ -420,7 +746,7 @@ public class InvokePluginsCommand implements Command {
 				// complete with error
 				Object[] args2 = { channeledException.getMessage() };
 				modelResult.completeAsError(messageProvider, "ipc.session_connect_failed", args2, channeledException);
-				return modelResult;
+				return;
 			}
 
 			// handle session error
@@ -430,7 +756,7 @@ public class InvokePluginsCommand implements Command {
 				Object[] args2 = { channeledException.getMessage() };
 				modelResult.completeAsError(messageProvider, "ipc.session_disconnect_failed", args2,
 						channeledException);
-				return modelResult;
+				return;
 			}
 
 			// handle plugin error
@@ -439,7 +765,7 @@ public class InvokePluginsCommand implements Command {
 				// complete with error
 				Object[] args2 = { channeledException.getMessage() };
 				modelResult.completeAsError(messageProvider, "ipc.execute_plugin_failed", args2, channeledException);
-				return modelResult;
+				return;
 			}
 
 			// handle validation error
@@ -448,14 +774,14 @@ public class InvokePluginsCommand implements Command {
 				// complete with error
 				Object[] args2 = { channeledException.getMessage() };
 				modelResult.completeAsError(messageProvider, "ipc.execute_plugin_failed", args2, channeledException);
-				return modelResult;
+				return;
 			}
 
 			// handle true runtime exceptions (e.g. not channeled)
 			// complete with error
 			Object[] args2 = { e.getMessage() };
 			modelResult.completeAsError(messageProvider, "ipc.execute_model_failed", args2, e);
-			return modelResult;
+			return;
 
 		} catch (Exception e) {
 
@@ -464,7 +790,7 @@ public class InvokePluginsCommand implements Command {
 			// complete with error
 			Object[] args2 = { e.getMessage() };
 			modelResult.completeAsError(messageProvider, "ipc.execute_model_failed", args2, e);
-			return modelResult;
+			return;
 		}
 
 	}
@@ -570,6 +896,22 @@ public class InvokePluginsCommand implements Command {
 		return resolvedTargetResources;
 	}
 
+	/**
+	 * Return true if parallel execution of models is enabled. The
+	 * <code>parallel</code> attribute in the module model takes precedence over
+	 * the core wide default. Nested executions are always sequential.
+	 * 
+	 * @return true if parallel execution of models is enabled.
+	 */
+	boolean isParallelExecutionEnabled() {
+		if (PARALLEL_EXECUTION_THREAD.get())
+			return false;
+		Boolean parallel = moduleModel.isParallel();
+		if (parallel != null)
+			return parallel.booleanValue();
+		return systemUtils.isParallelExecutionEnabled(systemProperties);
+	}
+
 	/**
 	 * Return true if input marshalling is enabled for plugin.
 	 * 
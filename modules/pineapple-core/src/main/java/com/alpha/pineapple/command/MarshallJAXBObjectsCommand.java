@@ -28,7 +28,6 @@ import java.io.IOException;
 import java.io.OutputStream;
 
 import javax.annotation.Resource;
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.Marshaller;
 
 import org.apache.commons.chain.Command;
@@ -44,6 +43,7 @@ import com.alpha.pineapple.command.initialization.ValidateValue;
 import com.alpha.pineapple.command.initialization.ValidationPolicy;
 import com.alpha.pineapple.execution.ExecutionResult;
 import com.alpha.pineapple.i18n.MessageProvider;
+import com.alpha.pineapple.model.JAXBContextRegistry;
 
 /**
  * <p>
@@ -114,6 +114,12 @@ public class MarshallJAXBObjectsCommand implements Command {
 	@Resource
 	MessageProvider messageProvider;
 
+	/**
+	 * JAXB context registry.
+	 */
+	@Resource
+	JAXBContextRegistry jaxbContextRegistry;
+
 	/**
 	 * File to marshall objects to.
 	 */
@@ -173,11 +179,8 @@ public class MarshallJAXBObjectsCommand implements Command {
 			// create parent directories
 			FileUtils.forceMkdir(parent);
 
-			// create JAXB context
-			JAXBContext jaxbContext = JAXBContext.newInstance(packageName);
-
-			// create marshaller
-			Marshaller marshaller = jaxbContext.createMarshaller();
+			// get marshaller
+			Marshaller marshaller = jaxbContextRegistry.getMarshaller(packageName);
 			marshaller.setProperty("jaxb.formatted.output", Boolean.TRUE);
 
 			// marshall
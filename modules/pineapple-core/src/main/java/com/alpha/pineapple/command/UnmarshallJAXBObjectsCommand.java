@@ -26,7 +26,6 @@ import java.io.File;
 import java.net.URL;
 
 import javax.annotation.Resource;
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.Unmarshaller;
 
 import org.apache.commons.chain.Command;
@@ -40,6 +39,7 @@ import com.alpha.pineapple.command.initialization.ValidateValue;
 import com.alpha.pineapple.command.initialization.ValidationPolicy;
 import com.alpha.pineapple.execution.ExecutionResult;
 import com.alpha.pineapple.i18n.MessageProvider;
+import com.alpha.pineapple.model.JAXBContextRegistry;
 
 /**
  * <p>
@@ -118,6 +118,12 @@ public class UnmarshallJAXBObjectsCommand implements Command {
 	@Resource
 	MessageProvider messageProvider;
 
+	/**
+	 * JAXB context registry.
+	 */
+	@Resource
+	JAXBContextRegistry jaxbContextRegistry;
+
 	/**
 	 * File to unmarshall objects from.
 	 */
@@ -152,9 +158,8 @@ public class UnmarshallJAXBObjectsCommand implements Command {
 			Object result = null;
 			URL fileURL = null;
 
-			// create unmarshaller
-			JAXBContext jaxbContext = JAXBContext.newInstance(targetPackage.getName());
-			Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
+			// get unmarshaller
+			Unmarshaller unmarshaller = jaxbContextRegistry.getUnmarshaller(targetPackage.getName());
 
 			if (file.isAbsolute()) {
 				result = unmarshaller.unmarshal(file);
@@ -42,6 +42,7 @@ import com.alpha.pineapple.command.execution.CommandRunner;
 import com.alpha.pineapple.i18n.MessageProvider;
 import com.alpha.pineapple.model.configuration.Configuration;
 import com.alpha.pineapple.model.configuration.Credential;
+import com.alpha.pineapple.plugin.session.pool.SessionPool;
 import com.alpha.pineapple.resource.EnvironmentAlreadyExistsException;
 
 /**
@@ -90,6 +91,12 @@ public class FileBasedCredentialProviderImpl implements CredentialProvider {
 	@Resource
 	Command unmarshallJAXBObjectsCommand;
 
+	/**
+	 * Session pool.
+	 */
+	@Resource
+	SessionPool sessionPool;
+
 	/**
 	 * Configuration info.
 	 */
@@ -275,6 +282,9 @@ public class FileBasedCredentialProviderImpl implements CredentialProvider {
 		// create info - bypassing integrity controls
 		CredentialInfo newInfo = internalCreateCredentialInfo(id, user, password, environmentInfo);
 
+		// evict pooled sessions
+		sessionPool.evictCredential(environment, credentialInfo.getId());
+
 		// save
 		saveProvider();
 
@@ -301,6 +311,9 @@ public class FileBasedCredentialProviderImpl implements CredentialProvider {
 		// delete
 		typecastEnvInfo.deleteCredential(credentialInfo);
 
+		// evict pooled sessions
+		sessionPool.evictCredential(environment, id);
+
 		// save
 		saveProvider();
 
@@ -367,6 +380,9 @@ public class FileBasedCredentialProviderImpl implements CredentialProvider {
 		EnvironmentInfo environmentInfo = getEnvironment(environment);
 		configurationInfo.deleteEnvironment(environmentInfo);
 
+		// evict pooled sessions
+		sessionPool.evictEnvironment(environment);
+
 		// save
 		saveProvider();
 	}
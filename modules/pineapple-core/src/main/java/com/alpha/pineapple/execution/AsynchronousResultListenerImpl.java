@@ -0,0 +1,450 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+* Copyright (C) 2007-2015 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package com.alpha.pineapple.execution;
+
+import static com.alpha.javautils.ArgumentUtils.notNull;
+import static org.apache.commons.lang3.Validate.isTrue;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.log4j.Logger;
+
+import com.alpha.pineapple.i18n.MessageProvider;
+
+/**
+ * Result listener which notifies a registered listener asynchronously.
+ * 
+ * Notifications are queued in a bounded ring buffer. The notifications are
+ * delivered to the registered listener in batches by a task which is executed
+ * by the dispatch executor. A single dispatch task is active at any time, so
+ * notifications are delivered in the order they are queued.
+ * 
+ * When the queue is full, the back-pressure policy is applied.
+ */
+public class AsynchronousResultListenerImpl implements ResultListener {
+
+	/**
+	 * Logger object.
+	 */
+	Logger logger = Logger.getLogger(this.getClass().getName());
+
+	/**
+	 * Registered listener which is notified asynchronously.
+	 */
+	final ResultListener listener;
+
+	/**
+	 * Back-pressure policy.
+	 */
+	final BackPressurePolicy policy;
+
+	/**
+	 * Maximum number of notifications delivered per batch.
+	 */
+	final int batchSize;
+
+	/**
+	 * Executor used to execute dispatch tasks.
+	 */
+	final Executor executor;
+
+	/**
+	 * Message provider for I18N support.
+	 */
+	final MessageProvider messageProvider;
+
+	/**
+	 * Lock which guards the queue.
+	 */
+	final ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * Condition signaled when notifications are removed from the queue.
+	 */
+	final Condition notFull = lock.newCondition();
+
+	/**
+	 * Queued notifications.
+	 */
+	final ExecutionResultNotification[] notifications;
+
+	/**
+	 * Time stamps (in nano seconds) for when the notifications were queued.
+	 */
+	final long[] queuedTimes;
+
+	/**
+	 * Index of the oldest queued notification.
+	 */
+	int head;
+
+	/**
+	 * Number of queued notifications.
+	 */
+	int count;
+
+	/**
+	 * Defines whether a dispatch task is scheduled or running.
+	 */
+	boolean dispatching;
+
+	/**
+	 * Number of delivered notifications.
+	 */
+	final AtomicLong delivered = new AtomicLong();
+
+	/**
+	 * Number of discarded notifications.
+	 */
+	final AtomicLong dropped = new AtomicLong();
+
+	/**
+	 * Number of coalesced notifications.
+	 */
+	final AtomicLong coalesced = new AtomicLong();
+
+	/**
+	 * Dispatch lag (in nano seconds) of the last delivered batch.
+	 */
+	volatile long dispatchLag;
+
+	/**
+	 * Maximum dispatch lag (in nano seconds).
+	 */
+	volatile long maximumDispatchLag;
+
+	/**
+	 * AsynchronousResultListenerImpl constructor.
+	 * 
+	 * @param listener
+	 *            registered listener which is notified asynchronously.
+	 * @param policy
+	 *            back-pressure policy.
+	 * @param capacity
+	 *            capacity of the queue.
+	 * @param batchSize
+	 *            maximum number of notifications delivered per batch.
+	 * @param executor
+	 *            executor used to execute dispatch tasks.
+	 * @param messageProvider
+	 *            message provider for I18N support.
+	 */
+	public AsynchronousResultListenerImpl(ResultListener listener, BackPressurePolicy policy, int capacity,
+			int batchSize, Executor executor, MessageProvider messageProvider) {
+		notNull(listener, "listener is undefined.");
+		notNull(policy, "policy is undefined.");
+		notNull(executor, "executor is undefined.");
+		notNull(messageProvider, "messageProvider is undefined.");
+		isTrue(capacity > 0, "capacity must be positive.");
+		isTrue(batchSize > 0, "batchSize must be positive.");
+		this.listener = listener;
+		this.policy = policy;
+		this.batchSize = batchSize;
+		this.executor = executor;
+		this.messageProvider = messageProvider;
+		this.notifications = new ExecutionResultNotification[capacity];
+		this.queuedTimes = new long[capacity];
+	}
+
+	@Override
+	public void notify(ExecutionResultNotification notification) {
+		boolean schedule = false;
+		lock.lock();
+		try {
+			if (!offer(notification))
+				return;
+
+			// schedule dispatch task if none is active
+			if (!dispatching) {
+				dispatching = true;
+				schedule = true;
+			}
+		} finally {
+			lock.unlock();
+		}
+
+		if (!schedule)
+			return;
+
+		try {
+			executor.execute(this::dispatch);
+		} catch (RejectedExecutionException e) {
+
+			// deliver queued notifications on the notifying thread, the dispatch
+			// clears the flag when the queue is drained
+			Object[] args = { listener, e };
+			logger.warn(messageProvider.getMessage("arl.dispatch_rejected_warn", args));
+			dispatch();
+		}
+	}
+
+	/**
+	 * Add notification to queue and apply back-pressure policy if the queue is
+	 * full. Must be invoked while holding the lock.
+	 * 
+	 * @param notification
+	 *            notification.
+	 * 
+	 * @return true if the notification was added to the queue. False if it was
+	 *         coalesced with a queued notification or if the notifying thread was
+	 *         interrupted while waiting for room in the queue.
+	 */
+	boolean offer(ExecutionResultNotification notification) {
+		if (count == notifications.length) {
+			switch (policy) {
+			case DROP_OLDEST:
+				remove();
+				dropped.incrementAndGet();
+				break;
+
+			case COALESCE:
+				if (coalesce(notification))
+					return false;
+				if (!awaitNotFull())
+					return false;
+				break;
+
+			default:
+				if (!awaitNotFull())
+					return false;
+			}
+		}
+
+		// add notification
+		int tail = (head + count) % notifications.length;
+		notifications[tail] = notification;
+		queuedTimes[tail] = System.nanoTime();
+		count++;
+		return true;
+	}
+
+	/**
+	 * Replace the most recent queued notification for the same execution result.
+	 * Must be invoked while holding the lock.
+	 * 
+	 * @param notification
+	 *            notification.
+	 * 
+	 * @return true if a queued notification was replaced.
+	 */
+	boolean coalesce(ExecutionResultNotification notification) {
+		for (int i = count - 1; i >= 0; i--) {
+			int index = (head + i) % notifications.length;
+			if (notifications[index].getResult() == notification.getResult()) {
+				notifications[index] = notification;
+				coalesced.incrementAndGet();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Wait until the queue has room for a notification. Must be invoked while
+	 * holding the lock.
+	 * 
+	 * @return true if the queue has room for a notification. False if the
+	 *         notifying thread was interrupted.
+	 */
+	boolean awaitNotFull() {
+		try {
+			while (count == notifications.length) {
+				notFull.await();
+			}
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			dropped.incrementAndGet();
+			return false;
+		}
+	}
+
+	/**
+	 * Remove the oldest queued notification. Must be invoked while holding the
+	 * lock.
+	 * 
+	 * @return the oldest queued notification.
+	 */
+	ExecutionResultNotification remove() {
+		ExecutionResultNotification notification = notifications[head];
+		notifications[head] = null;
+		head = (head + 1) % notifications.length;
+		count--;
+		return notification;
+	}
+
+	/**
+	 * Deliver queued notifications in batches until the queue is empty.
+	 */
+	void dispatch() {
+		ExecutionResultNotification[] batch = new ExecutionResultNotification[batchSize];
+		while (true) {
+			int size;
+			lock.lock();
+			try {
+
+				// exit if queue is empty
+				if (count == 0) {
+					dispatching = false;
+					return;
+				}
+
+				// update dispatch lag from the oldest notification in the batch
+				long lag = System.nanoTime() - queuedTimes[head];
+				dispatchLag = lag;
+				if (lag > maximumDispatchLag)
+					maximumDispatchLag = lag;
+
+				// take batch
+				size = Math.min(batchSize, count);
+				for (int i = 0; i < size; i++) {
+					batch[i] = remove();
+				}
+				notFull.signalAll();
+			} finally {
+				lock.unlock();
+			}
+
+			// deliver batch
+			for (int i = 0; i < size; i++) {
+				deliver(batch[i]);
+				batch[i] = null;
+			}
+			delivered.addAndGet(size);
+		}
+	}
+
+	/**
+	 * Deliver notification to the registered listener. Failures are logged and
+	 * doesn't stop the delivery of the remaining notifications.
+	 * 
+	 * @param notification
+	 *            notification.
+	 */
+	void deliver(ExecutionResultNotification notification) {
+		try {
+			listener.notify(notification);
+		} catch (RuntimeException e) {
+			Object[] args = { listener, e };
+			logger.error(messageProvider.getMessage("arl.notify_failure", args));
+		}
+	}
+
+	/**
+	 * Get registered listener which is notified asynchronously.
+	 * 
+	 * @return registered listener.
+	 */
+	public ResultListener getListener() {
+		return listener;
+	}
+
+	/**
+	 * Get back-pressure policy.
+	 * 
+	 * @return back-pressure policy.
+	 */
+	public BackPressurePolicy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Get number of queued notifications.
+	 * 
+	 * @return number of queued notifications.
+	 */
+	public int getQueueDepth() {
+		lock.lock();
+		try {
+			return count;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Get number of delivered notifications.
+	 * 
+	 * @return number of delivered notifications.
+	 */
+	public long getDeliveredNotifications() {
+		return delivered.get();
+	}
+
+	/**
+	 * Get number of notifications which were discarded because the queue was
+	 * full.
+	 * 
+	 * @return number of discarded notifications.
+	 */
+	public long getDroppedNotifications() {
+		return dropped.get();
+	}
+
+	/**
+	 * Get number of notifications which replaced a queued notification for the
+	 * same execution result.
+	 * 
+	 * @return number of coalesced notifications.
+	 */
+	public long getCoalescedNotifications() {
+		return coalesced.get();
+	}
+
+	/**
+	 * Get the time the oldest notification in the last delivered batch spent in
+	 * the queue.
+	 * 
+	 * @return dispatch lag in milliseconds.
+	 */
+	public long getDispatchLag() {
+		return TimeUnit.NANOSECONDS.toMillis(dispatchLag);
+	}
+
+	/**
+	 * Get the maximum time a notification spent in the queue.
+	 * 
+	 * @return maximum dispatch lag in milliseconds.
+	 */
+	public long getMaximumDispatchLag() {
+		return TimeUnit.NANOSECONDS.toMillis(maximumDispatchLag);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("AsynchronousResultListenerImpl [listener=").append(listener);
+		builder.append(", policy=").append(policy);
+		builder.append(", queueDepth=").append(getQueueDepth());
+		builder.append(", dispatchLag=").append(getDispatchLag());
+		builder.append("]");
+		return builder.toString();
+	}
+
+}
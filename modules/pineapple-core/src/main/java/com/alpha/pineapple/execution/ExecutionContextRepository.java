@@ -57,11 +57,26 @@ public interface ExecutionContextRepository {
 	public Context get(ExecutionInfo info);
 
 	/**
-	 * get context.
+	 * get context. If no context is registered for the result then the context
+	 * registered for the nearest ancestor is returned.
 	 * 
 	 * @param result
 	 *            execution result to lookup context.
 	 */
 	public Context get(ExecutionResult result);
 
+	/**
+	 * Get number of registered contexts.
+	 * 
+	 * @return number of registered contexts.
+	 */
+	public int getNumberOfContexts();
+
+	/**
+	 * Get number of execution results with a cached context lookup.
+	 * 
+	 * @return number of execution results with a cached context lookup.
+	 */
+	public int getNumberOfLookups();
+
 }
@@ -24,8 +24,10 @@ package com.alpha.pineapple.execution;
 
 import static com.alpha.javautils.ArgumentUtils.notNull;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.Resource;
 
@@ -36,6 +38,11 @@ import com.alpha.pineapple.i18n.MessageProvider;
 
 /**
  * Implementation of the {@linkplain ExecutionContextRepository} interface.
+ * 
+ * Contexts are registered for the root result of an execution. The context
+ * resolved for a descendant result is cached for the descendant and all its
+ * ancestors up to the registered result, so subsequent lookups are constant
+ * time. Cached lookups are removed when the context is unregistered.
  */
 public class ExecutionContextRepositoryImpl implements ExecutionContextRepository {
 
@@ -51,9 +58,15 @@ public class ExecutionContextRepositoryImpl implements ExecutionContextRepositor
 	MessageProvider messageProvider;
 
 	/**
-	 * Collection of current contexts.
+	 * Registered contexts, indexed by the execution result they were registered
+	 * for.
+	 */
+	Map<ExecutionResult, Registration> registrations = new ConcurrentHashMap<ExecutionResult, Registration>();
+
+	/**
+	 * Resolved contexts, indexed by registered and descendant execution results.
 	 */
-	Map<ExecutionResult, Context> contexts = new HashMap<ExecutionResult, Context>();
+	Map<ExecutionResult, Registration> lookups = new ConcurrentHashMap<ExecutionResult, Registration>();
 
 	@Override
 	public void register(ExecutionInfo info, Context context) {
@@ -61,43 +74,127 @@ public class ExecutionContextRepositoryImpl implements ExecutionContextRepositor
 		notNull(info, "info is undefined");
 
 		ExecutionResult result = info.getResult();
-		contexts.put(result, context);
+		Registration registration = new Registration(context);
+		Registration previous = registrations.put(result, registration);
+		if (previous != null)
+			invalidate(previous);
+		lookups.put(result, registration);
+
+		// log debug message
+		if (logger.isDebugEnabled()) {
+			Object[] args = { result.getDescription(), registrations.size() };
+			logger.debug(messageProvider.getMessage("ecr.register_info", args));
+		}
 	}
 
 	@Override
 	public void unregister(Context context) {
 		notNull(context, "context is undefined");
 
-		if (!contexts.containsValue(context))
-			return;
-		contexts.remove(context);
+		// contexts are compared by identity since a context is a map
+		for (Map.Entry<ExecutionResult, Registration> entry : registrations.entrySet()) {
+			Registration registration = entry.getValue();
+			if (registration.context != context)
+				continue;
+			if (!registrations.remove(entry.getKey(), registration))
+				continue;
+			invalidate(registration);
+
+			// log debug message
+			if (logger.isDebugEnabled()) {
+				Object[] args = { entry.getKey().getDescription(), registrations.size() };
+				logger.debug(messageProvider.getMessage("ecr.unregister_info", args));
+			}
+		}
 	}
 
 	@Override
 	public Context get(ExecutionInfo info) {
 		notNull(info, "info is undefined");
 
-		ExecutionResult result = info.getResult();
-		if (!contexts.containsKey(result))
+		Registration registration = registrations.get(info.getResult());
+		if (registration == null)
 			return null;
-		return contexts.get(result);
+		return registration.context;
 	}
 
 	@Override
 	public Context get(ExecutionResult result) {
 		notNull(result, "result is undefined");
 
-		// if context is defined return it
-		if (contexts.containsKey(result)) {
-			return contexts.get(result);
+		// if context is resolved return it
+		Registration registration = lookups.get(result);
+		if (registration != null)
+			return registration.context;
+
+		// resolve context using the ancestors
+		List<ExecutionResult> visited = new ArrayList<ExecutionResult>();
+		ExecutionResult current = result;
+		while (registration == null) {
+			visited.add(current);
+
+			// exit if result is root result
+			if (current.isRoot())
+				return null;
+
+			current = current.getParent();
+			registration = lookups.get(current);
 		}
 
-		// exit if result is root result
-		if (result.isRoot())
-			return null;
+		// cache resolved context for visited results
+		for (ExecutionResult visitedResult : visited) {
+			lookups.putIfAbsent(visitedResult, registration);
+		}
+
+		// remove cached lookups if the context was unregistered concurrently
+		if (!registration.active) {
+			for (ExecutionResult visitedResult : visited) {
+				lookups.remove(visitedResult, registration);
+			}
+		}
+
+		return registration.context;
+	}
 
-		// try to resolve info using the parent result
-		return get(result.getParent());
+	@Override
+	public int getNumberOfContexts() {
+		return registrations.size();
+	}
+
+	@Override
+	public int getNumberOfLookups() {
+		return lookups.size();
+	}
+
+	/**
+	 * Invalidate registration and remove all lookups which resolves to it.
+	 * 
+	 * @param registration
+	 *            registration to invalidate.
+	 */
+	void invalidate(Registration registration) {
+		registration.active = false;
+		lookups.values().removeIf(value -> value == registration);
+	}
+
+	/**
+	 * Registered context.
+	 */
+	static class Registration {
+
+		/**
+		 * Registered context.
+		 */
+		final Context context;
+
+		/**
+		 * Defines whether the context is registered.
+		 */
+		volatile boolean active = true;
+
+		Registration(Context context) {
+			this.context = context;
+		}
 	}
 
 }
@@ -33,13 +33,20 @@ public class ExecutionInfoImpl implements ExecutionInfo {
 	String environment;
 	String operation;
 	ExecutionResult result;
+	long executionId;
 
 	public ExecutionInfoImpl(ModuleInfo moduleInfo, String environment, String operation, ExecutionResult result) {
+		this(moduleInfo, environment, operation, result, UNDEFINED_EXECUTION_ID);
+	}
+
+	public ExecutionInfoImpl(ModuleInfo moduleInfo, String environment, String operation, ExecutionResult result,
+			long executionId) {
 		super();
 		this.moduleInfo = moduleInfo;
 		this.environment = environment;
 		this.operation = operation;
 		this.result = result;
+		this.executionId = executionId;
 	}
 
 	public ModuleInfo getModuleInfo() {
@@ -58,4 +65,8 @@ public class ExecutionInfoImpl implements ExecutionInfo {
 		return result;
 	}
 
+	public long getExecutionId() {
+		return executionId;
+	}
+
 }
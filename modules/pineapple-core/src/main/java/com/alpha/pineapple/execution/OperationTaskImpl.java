@@ -97,9 +97,9 @@ public class OperationTaskImpl implements OperationTask {
 	Command initializeOperationCommand;
 
 	/**
-	 * Unmarshall JAXB objects command.
+	 * Unmarshall JAXB objects command which uses the model cache.
 	 */
-	@Resource
+	@Resource(name = "cachedUnmarshallJAXBObjectsCommand")
 	Command unmarshallJAXBObjectsCommand;
 
 	/**
@@ -128,11 +128,16 @@ public class OperationTaskImpl implements OperationTask {
 		Context context = commandRunner.createContext();
 		executionContextRepository.register(info, context);
 
-		// execute
-		executeWithRegisteredContext(info, context);
+		try {
+
+			// execute
+			executeWithRegisteredContext(info, context);
 
-		// unregister
-		executionContextRepository.unregister(context);
+		} finally {
+
+			// unregister
+			executionContextRepository.unregister(context);
+		}
 
 		// log debug message
 		if (logger.isDebugEnabled()) {
@@ -24,19 +24,26 @@ package com.alpha.pineapple.execution;
 
 import static com.alpha.javautils.ArgumentUtils.notNull;
 import static com.alpha.pineapple.CoreConstants.EXECUTION_HISTORY_CAPACITY;
+import static com.alpha.pineapple.CoreConstants.EXECUTION_HISTORY_EVICTION_GRACE_PERIOD;
+import static com.alpha.pineapple.CoreConstants.EXECUTION_HISTORY_MAXIMUM_BYTES;
+import static com.alpha.pineapple.CoreConstants.RESULT_DISPATCH_BATCH_SIZE;
+import static com.alpha.pineapple.CoreConstants.RESULT_DISPATCH_QUEUE_CAPACITY;
 import static org.apache.commons.lang3.Validate.isTrue;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.LinkedHashMap;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.Resource;
 
 import org.apache.commons.lang3.Validate;
 import org.apache.log4j.Logger;
+import org.springframework.core.task.TaskExecutor;
 
 import com.alpha.pineapple.execution.ExecutionResult.ExecutionState;
 import com.alpha.pineapple.i18n.MessageProvider;
@@ -44,6 +51,20 @@ import com.alpha.pineapple.module.ModuleInfo;
 
 /**
  * Implementation of the {@link ResultRepository} interface.
+ * 
+ * The execution history contains an append-only notification log for each
+ * execution. The logs are stored by root result and are assigned a stable
+ * execution ID when the first notification is captured. Completed executions
+ * are evicted (oldest first) when the number of executions exceeds the
+ * capacity or when the estimated size of the retained notifications exceeds
+ * the maximum number of retained bytes. Executions which are still running
+ * aren't evicted. Executions which completed within the eviction grace period
+ * are only evicted if the capacity is exceeded, to allow clients to read the
+ * final notifications of an execution.
+ * 
+ * The size of a notification is estimated from the result it refers to. The
+ * notification which starts a result accounts for the result and its
+ * description, the notification which completes it accounts for its messages.
  */
 public class ResultRepositoryImpl implements ResultRepository {
 
@@ -52,6 +73,33 @@ public class ResultRepositoryImpl implements ResultRepository {
 	 */
 	static final int FIRST_INDEX = 0;
 
+	/**
+	 * Estimated number of bytes retained by a captured notification, excluding
+	 * the result.
+	 */
+	static final int NOTIFICATION_OVERHEAD = 48;
+
+	/**
+	 * Estimated number of bytes retained by a result, excluding its strings.
+	 */
+	static final int RESULT_OVERHEAD = 160;
+
+	/**
+	 * Estimated number of bytes retained by a message entry, excluding its
+	 * strings.
+	 */
+	static final int MESSAGE_OVERHEAD = 48;
+
+	/**
+	 * Estimated number of bytes retained by a string, excluding its characters.
+	 */
+	static final int STRING_OVERHEAD = 40;
+
+	/**
+	 * Estimated number of bytes retained by a character.
+	 */
+	static final int CHARACTER_SIZE = 2;
+
 	/**
 	 * Logger object.
 	 */
@@ -65,16 +113,65 @@ public class ResultRepositoryImpl implements ResultRepository {
 
 	/**
 	 * List of result listeners, Which support removal of listeners during
-	 * iteration.
+	 * iteration. Listeners which are notified asynchronously are stored wrapped
+	 * in a {@link AsynchronousResultListenerImpl}.
 	 */
 	List<ResultListener> listeners;
 
 	/**
-	 * Collection of current and past executions.
-	 * 
-	 * Entries are stored by the string representation if the root result.
+	 * Executor used to deliver notifications to asynchronous listeners.
+	 */
+	@Resource
+	TaskExecutor resultDispatchExecutor;
+
+	/**
+	 * Capacity of the notification queue for asynchronous listeners.
+	 */
+	int dispatchQueueCapacity = RESULT_DISPATCH_QUEUE_CAPACITY;
+
+	/**
+	 * Maximum number of notifications delivered per batch to asynchronous
+	 * listeners.
+	 */
+	int dispatchBatchSize = RESULT_DISPATCH_BATCH_SIZE;
+
+	/**
+	 * Current and past executions, stored by root result.
+	 */
+	Map<ExecutionResult, ExecutionHistory> executions;
+
+	/**
+	 * Current and past executions in the order they were started.
+	 */
+	ConcurrentLinkedQueue<ExecutionHistory> executionOrder;
+
+	/**
+	 * Sequence used to create execution ID's.
+	 */
+	AtomicLong executionIdSequence;
+
+	/**
+	 * Estimated number of bytes retained by the notifications in the history.
+	 */
+	AtomicLong retainedBytes;
+
+	/**
+	 * Maximum number of executions in the history.
+	 */
+	int capacity = EXECUTION_HISTORY_CAPACITY;
+
+	/**
+	 * Maximum estimated number of bytes retained by the notifications in the
+	 * history.
+	 */
+	long maximumRetainedBytes = EXECUTION_HISTORY_MAXIMUM_BYTES;
+
+	/**
+	 * Grace period (in ms) after the completion of an execution, in which the
+	 * execution isn't evicted when the maximum number of retained bytes is
+	 * exceeded.
 	 */
-	LinkedHashMap<String, List<ExecutionResultNotification>> executionMap;
+	long evictionGracePeriod = EXECUTION_HISTORY_EVICTION_GRACE_PERIOD;
 
 	/**
 	 * Execution result factory
@@ -88,39 +185,64 @@ public class ResultRepositoryImpl implements ResultRepository {
 	public ResultRepositoryImpl() {
 		super();
 		this.listeners = new CopyOnWriteArrayList<ResultListener>();
+		this.executions = new ConcurrentHashMap<ExecutionResult, ExecutionHistory>();
+		this.executionOrder = new ConcurrentLinkedQueue<ExecutionHistory>();
+		this.executionIdSequence = new AtomicLong();
+		this.retainedBytes = new AtomicLong();
+	}
 
-		/**
-		 * Linked hash map which only has limited capacity.
-		 */
-		this.executionMap = new LinkedHashMap<String, List<ExecutionResultNotification>>(EXECUTION_HISTORY_CAPACITY) {
-
-			/**
-			 * Serial Version UID.
-			 */
-			private static final long serialVersionUID = 386757772945555733L;
-
-			@Override
-			protected boolean removeEldestEntry(Map.Entry<String, List<ExecutionResultNotification>> eldest) {
-				// exit if capacity isn't exceeded
-				if (size() < EXECUTION_HISTORY_CAPACITY)
-					return false;
-
-				// exit if sequence is empty - execution isn't started yet
-				List<ExecutionResultNotification> resultSequence = eldest.getValue();
-				if (resultSequence.isEmpty())
-					return false;
-
-				// only remove eldest if it completed execution
-				ExecutionResultNotification firstNotification = resultSequence.get(FIRST_INDEX);
-				ExecutionResult firstResult = firstNotification.getResult();
-				ExecutionResult rootResult = firstResult.getRootResult();
-				if (rootResult.isExecuting())
-					return false;
-
-				// remove if execution is completed and capacity is exceeded
-				return size() > EXECUTION_HISTORY_CAPACITY;
-			}
-		};
+	/**
+	 * Set maximum number of executions in the history.
+	 * 
+	 * @param capacity
+	 *            maximum number of executions in the history.
+	 */
+	public void setCapacity(int capacity) {
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Set maximum estimated number of bytes retained by the notifications in
+	 * the history.
+	 * 
+	 * @param maximumRetainedBytes
+	 *            maximum number of retained bytes.
+	 */
+	public void setMaximumRetainedBytes(long maximumRetainedBytes) {
+		this.maximumRetainedBytes = maximumRetainedBytes;
+	}
+
+	/**
+	 * Set grace period after the completion of an execution, in which the
+	 * execution isn't evicted when the maximum number of retained bytes is
+	 * exceeded.
+	 * 
+	 * @param evictionGracePeriod
+	 *            grace period in ms.
+	 */
+	public void setEvictionGracePeriod(long evictionGracePeriod) {
+		this.evictionGracePeriod = evictionGracePeriod;
+	}
+
+	/**
+	 * Set capacity of the notification queue for asynchronous listeners.
+	 * 
+	 * @param dispatchQueueCapacity
+	 *            capacity of the notification queue.
+	 */
+	public void setDispatchQueueCapacity(int dispatchQueueCapacity) {
+		this.dispatchQueueCapacity = dispatchQueueCapacity;
+	}
+
+	/**
+	 * Set maximum number of notifications delivered per batch to asynchronous
+	 * listeners.
+	 * 
+	 * @param dispatchBatchSize
+	 *            maximum number of notifications delivered per batch.
+	 */
+	public void setDispatchBatchSize(int dispatchBatchSize) {
+		this.dispatchBatchSize = dispatchBatchSize;
 	}
 
 	public ExecutionInfo startExecution(ModuleInfo moduleInfo, String environment, String operation) {
@@ -133,7 +255,8 @@ public class ResultRepositoryImpl implements ResultRepository {
 		ExecutionResult rootResult = startExecution(description);
 
 		// create execution info
-		ExecutionInfo executionInfo = new ExecutionInfoImpl(moduleInfo, environment, operation, rootResult);
+		ExecutionInfo executionInfo = new ExecutionInfoImpl(moduleInfo, environment, operation, rootResult,
+				getExecutionId(rootResult));
 
 		return executionInfo;
 	}
@@ -151,7 +274,8 @@ public class ResultRepositoryImpl implements ResultRepository {
 		ExecutionResult childResult = result.addChild(description);
 
 		// create execution info
-		ExecutionInfo executionInfo = new ExecutionInfoImpl(moduleInfo, environment, operation, childResult);
+		ExecutionInfo executionInfo = new ExecutionInfoImpl(moduleInfo, environment, operation, childResult,
+				getExecutionId(childResult));
 
 		return executionInfo;
 	}
@@ -195,7 +319,7 @@ public class ResultRepositoryImpl implements ResultRepository {
 		notNull(listener, "listener is undefined.");
 
 		// exit if repository contains listener
-		if (this.listeners.contains(listener))
+		if (findListener(listener) != null)
 			return;
 
 		// register listener
@@ -208,25 +332,81 @@ public class ResultRepositoryImpl implements ResultRepository {
 		}
 	}
 
+	public void addListener(ResultListener listener, BackPressurePolicy policy) {
+		notNull(listener, "listener is undefined.");
+		notNull(policy, "policy is undefined.");
+
+		// exit if repository contains listener
+		if (findListener(listener) != null)
+			return;
+
+		// register listener
+		ResultListener asyncListener = new AsynchronousResultListenerImpl(listener, policy, dispatchQueueCapacity,
+				dispatchBatchSize, resultDispatchExecutor, messageProvider);
+		this.listeners.add(asyncListener);
+
+		// log debug message
+		if (logger.isDebugEnabled()) {
+			Object[] args = { listener, policy };
+			logger.debug(messageProvider.getMessage("rri.add_async_listener_info", args));
+		}
+	}
+
 	public void removeListener(ResultListener listener) {
 		notNull(listener, "listener is undefined.");
 
 		// exit if repository doesn't contain listener.
-		if (!this.listeners.contains(listener))
+		ResultListener registeredListener = findListener(listener);
+		if (registeredListener == null)
 			return;
 
 		// log debug message
 		if (logger.isDebugEnabled()) {
-			Object[] args = { listener };
+			Object[] args = { registeredListener };
 			logger.debug(messageProvider.getMessage("rri.remove_listener_info", args));
 		}
 
 		// remove the listener
-		this.listeners.remove(listener);
+		this.listeners.remove(registeredListener);
 	}
 
 	public ResultListener[] getListeners() {
-		return listeners.toArray(new ResultListener[listeners.size()]);
+		ResultListener[] registeredListeners = listeners.toArray(new ResultListener[listeners.size()]);
+		for (int i = 0; i < registeredListeners.length; i++) {
+			registeredListeners[i] = unwrapListener(registeredListeners[i]);
+		}
+		return registeredListeners;
+	}
+
+	/**
+	 * Find registered listener.
+	 * 
+	 * @param listener
+	 *            listener.
+	 * 
+	 * @return the registered listener, which is the listener itself or its
+	 *         asynchronous wrapper. Returns null if the listener isn't registered.
+	 */
+	ResultListener findListener(ResultListener listener) {
+		for (ResultListener registeredListener : listeners) {
+			if (unwrapListener(registeredListener).equals(listener))
+				return registeredListener;
+		}
+		return null;
+	}
+
+	/**
+	 * Unwrap listener which is notified asynchronously.
+	 * 
+	 * @param listener
+	 *            registered listener.
+	 * 
+	 * @return the listener which is notified.
+	 */
+	ResultListener unwrapListener(ResultListener listener) {
+		if (listener instanceof AsynchronousResultListenerImpl)
+			return ((AsynchronousResultListenerImpl) listener).getListener();
+		return listener;
 	}
 
 	public ExecutionResultNotification[] getResultSequence(ExecutionInfo executionInfo, int firstIndex, int lastIndex)
@@ -239,30 +419,23 @@ public class ResultRepositoryImpl implements ResultRepository {
 
 		// resolve root result
 		ExecutionResult rootResult = executionInfo.getResult();
-		String rootResultId = getResultId(rootResult);
+		ExecutionHistory history = executions.get(rootResult);
 
 		// throw exception if if no execution exists
-		if (!executionMap.containsKey(rootResultId)) {
-			Object[] args = { rootResultId };
+		if (history == null) {
+			Object[] args = { rootResult };
 			String message = messageProvider.getMessage("rri.getresultsequence_notfound_failure", args);
 			throw new ExecutionInfoNotFoundException(message);
 		}
 
-		// get sequence
-		List<ExecutionResultNotification> resultSequence = executionMap.get(rootResultId);
-
 		// throw exception if last index is larger than current index
-		if (lastIndex > resultSequence.size()) {
+		if (lastIndex > history.size()) {
 			String message = messageProvider.getMessage("rri.illegalindex_failure");
 			throw new IllegalArgumentException(message);
 		}
 
 		// create sub sequence
-
-		synchronized (resultSequence) {
-			List<ExecutionResultNotification> subSequence = resultSequence.subList(firstIndex, lastIndex);
-			return subSequence.toArray(new ExecutionResultNotification[subSequence.size()]);
-		}
+		return history.getNotifications(firstIndex, lastIndex);
 	}
 
 	@Override
@@ -271,20 +444,17 @@ public class ResultRepositoryImpl implements ResultRepository {
 
 		// resolve root result
 		ExecutionResult rootResult = executionInfo.getResult();
-		String rootResultId = getResultId(rootResult);
+		ExecutionHistory history = executions.get(rootResult);
 
 		// throw exception if if no execution exists
-		if (!executionMap.containsKey(rootResultId)) {
-			Object[] args = { rootResultId };
+		if (history == null) {
+			Object[] args = { rootResult };
 			String message = messageProvider.getMessage("rri.getresultsequenceindex_notfound_failure", args);
 			throw new ExecutionInfoNotFoundException(message);
 		}
 
-		// return sequence size
-		List<ExecutionResultNotification> resultSequence = executionMap.get(rootResultId);
-
 		// returns last exclusive index
-		return resultSequence.size();
+		return history.size();
 	}
 
 	/**
@@ -292,56 +462,136 @@ public class ResultRepositoryImpl implements ResultRepository {
 	 * to event sequence for the execution.
 	 * 
 	 * If result is a root result in a new execution then a new sequence is created
-	 * (and an old one is discarded if the collection capacity is reached).
+	 * (and old completed ones are discarded if the capacity is exceeded).
 	 * 
 	 * @param result
 	 *            execution result notification which is captured and added to event
 	 *            sequence for the execution.
 	 */
 	void captureEvent(ExecutionResultNotification notification) {
-		ExecutionResult result = notification.getResult();
-		ExecutionResult rootResult = result.getRootResult();
-		String rootId = getResultId(rootResult);
-
-		// add notification if sequence exists
-		if (!executionMap.containsKey(rootId)) {
-			List<ExecutionResultNotification> resultSequence = Collections
-					.synchronizedList(new ArrayList<ExecutionResultNotification>());
-			executionMap.put(getResultId(notification), resultSequence);
+		ExecutionResult rootResult = notification.getResult().getRootResult();
+
+		// create sequence if it doesn't exist
+		ExecutionHistory history = executions.get(rootResult);
+		if (history == null) {
+			ExecutionHistory newHistory = new ExecutionHistory(executionIdSequence.incrementAndGet(), rootResult);
+			history = executions.putIfAbsent(rootResult, newHistory);
+			if (history == null) {
+				history = newHistory;
+				executionOrder.add(history);
+
+				// log debug message
+				if (logger.isDebugEnabled()) {
+					Object[] args = { history.id };
+					logger.debug(messageProvider.getMessage("rri.capture_execution_info", args));
+				}
+			}
 		}
 
 		// add notification
-		List<ExecutionResultNotification> resultSequence = executionMap.get(getResultId(rootResult));
-		resultSequence.add(notification);
+		retainedBytes.addAndGet(history.add(notification, estimateSize(notification)));
+
+		// register completion of execution
+		if ((notification.getResult() == rootResult) && (notification.getState() != ExecutionState.EXECUTING))
+			history.completed(System.currentTimeMillis());
+
+		// evict completed executions if capacity is exceeded
+		if ((executions.size() > capacity) || (retainedBytes.get() > maximumRetainedBytes))
+			evictCompletedExecutions();
 	}
 
 	/**
-	 * Calculate result ID.
-	 * 
-	 * The result is calculated as a string representation of the hash code.
+	 * Get execution ID of the execution which contains the result.
 	 * 
 	 * @param result
-	 *            result for which the Id is calculated.
+	 *            execution result.
 	 * 
-	 * @return result ID.
+	 * @return execution ID of the execution which contains the result. Returns
+	 *         {@link ExecutionInfo#UNDEFINED_EXECUTION_ID} if the execution isn't
+	 *         in the history.
 	 */
-	String getResultId(ExecutionResult result) {
-		return Integer.toString(result.hashCode());
+	long getExecutionId(ExecutionResult result) {
+		ExecutionHistory history = executions.get(result.getRootResult());
+		if (history == null)
+			return ExecutionInfo.UNDEFINED_EXECUTION_ID;
+		return history.id;
 	}
 
 	/**
-	 * Calculate result ID.
-	 * 
-	 * The result is calculated as a string representation of the hash code.
+	 * Estimate number of bytes retained by notification. The notification which
+	 * starts a result accounts for the result and its description. A
+	 * notification which completes a result accounts for its messages, since
+	 * they are added during execution.
 	 * 
 	 * @param notification
-	 *            notification which contains the result for which the ID is
-	 *            calculated.
+	 *            notification.
 	 * 
-	 * @return result ID.
+	 * @return estimated number of bytes retained by the notification.
 	 */
-	String getResultId(ExecutionResultNotification notification) {
-		return getResultId(notification.getResult());
+	static long estimateSize(ExecutionResultNotification notification) {
+		long size = NOTIFICATION_OVERHEAD;
+		ExecutionResult result = notification.getResult();
+
+		// estimate result when it is started
+		if (notification.getState() == ExecutionState.EXECUTING)
+			return size + RESULT_OVERHEAD + estimateSize(result.getDescription());
+
+		// estimate messages when result is completed
+		for (Map.Entry<String, String> message : result.getMessages().entrySet())
+			size += MESSAGE_OVERHEAD + estimateSize(message.getKey()) + estimateSize(message.getValue());
+		return size;
+	}
+
+	/**
+	 * Estimate number of bytes retained by string.
+	 * 
+	 * @param value
+	 *            string.
+	 * 
+	 * @return estimated number of bytes retained by the string. Returns zero if
+	 *         the string is null.
+	 */
+	static long estimateSize(String value) {
+		if (value == null)
+			return 0;
+		return STRING_OVERHEAD + ((long) value.length() * CHARACTER_SIZE);
+	}
+
+	/**
+	 * Evict completed executions, oldest first, until the number of executions
+	 * and the number of retained bytes are within the limits. If only the
+	 * maximum number of retained bytes is exceeded then executions which
+	 * completed within the grace period are skipped.
+	 */
+	synchronized void evictCompletedExecutions() {
+		long now = System.currentTimeMillis();
+		Iterator<ExecutionHistory> iterator = executionOrder.iterator();
+		while (iterator.hasNext()) {
+			boolean capacityExceeded = (executions.size() > capacity);
+			if (!capacityExceeded && (retainedBytes.get() <= maximumRetainedBytes))
+				return;
+
+			// skip running execution
+			ExecutionHistory history = iterator.next();
+			if (history.rootResult.isExecuting())
+				continue;
+
+			// skip recently completed execution if only the bytes are exceeded
+			history.completed(now);
+			if (!capacityExceeded && ((now - history.getCompletionTime()) < evictionGracePeriod))
+				continue;
+
+			// evict
+			iterator.remove();
+			executions.remove(history.rootResult);
+			retainedBytes.addAndGet(-history.getRetainedBytes());
+
+			// log debug message
+			if (logger.isDebugEnabled()) {
+				Object[] args = { history.id };
+				logger.debug(messageProvider.getMessage("rri.evict_execution_info", args));
+			}
+		}
 	}
 
 	@Override
@@ -349,4 +599,138 @@ public class ResultRepositoryImpl implements ResultRepository {
 		return executionResultFactory.createNotification(result, state);
 	}
 
+
+	/**
+	 * Append-only notification log for an execution.
+	 * 
+	 * Notifications are appended under lock. The notifications are read
+	 * without locking, the size is published after the notification is stored.
+	 */
+	static class ExecutionHistory {
+
+		/**
+		 * Initial capacity of notification log.
+		 */
+		static final int INITIAL_CAPACITY = 16;
+
+		/**
+		 * Execution ID.
+		 */
+		final long id;
+
+		/**
+		 * Root result of the execution.
+		 */
+		final ExecutionResult rootResult;
+
+		/**
+		 * Notifications.
+		 */
+		volatile ExecutionResultNotification[] notifications = new ExecutionResultNotification[INITIAL_CAPACITY];
+
+		/**
+		 * Number of notifications.
+		 */
+		volatile int size;
+
+		/**
+		 * Estimated number of bytes retained by the notifications.
+		 */
+		long retainedBytes;
+
+		/**
+		 * Time of completion of the execution. Is zero if completion isn't
+		 * registered.
+		 */
+		long completionTime;
+
+		/**
+		 * ExecutionHistory constructor.
+		 * 
+		 * @param id
+		 *            execution ID.
+		 * @param rootResult
+		 *            root result of the execution.
+		 */
+		ExecutionHistory(long id, ExecutionResult rootResult) {
+			this.id = id;
+			this.rootResult = rootResult;
+		}
+
+		/**
+		 * Append notification.
+		 * 
+		 * @param notification
+		 *            notification.
+		 * @param notificationSize
+		 *            estimated number of bytes retained by the notification.
+		 * 
+		 * @return estimated number of bytes retained by the notification.
+		 */
+		synchronized long add(ExecutionResultNotification notification, long notificationSize) {
+			ExecutionResultNotification[] current = notifications;
+			if (size == current.length)
+				notifications = current = Arrays.copyOf(current, current.length * 2);
+			current[size] = notification;
+			size = size + 1;
+			retainedBytes += notificationSize;
+			return notificationSize;
+		}
+
+		/**
+		 * Get number of notifications.
+		 * 
+		 * @return number of notifications.
+		 */
+		int size() {
+			return size;
+		}
+
+		/**
+		 * Get notifications.
+		 * 
+		 * @param firstIndex
+		 *            first index (inclusive).
+		 * @param lastIndex
+		 *            last index (exclusive). Must be smaller or equal to the
+		 *            number of notifications.
+		 * 
+		 * @return notifications.
+		 */
+		ExecutionResultNotification[] getNotifications(int firstIndex, int lastIndex) {
+			return Arrays.copyOfRange(notifications, firstIndex, lastIndex);
+		}
+
+		/**
+		 * Get estimated number of bytes retained by the notifications.
+		 * 
+		 * @return estimated number of bytes retained by the notifications.
+		 */
+		synchronized long getRetainedBytes() {
+			return retainedBytes;
+		}
+
+		/**
+		 * Register completion of the execution. Only the first registration is
+		 * kept.
+		 * 
+		 * @param time
+		 *            time of completion.
+		 */
+		synchronized void completed(long time) {
+			if (completionTime == 0)
+				completionTime = time;
+		}
+
+		/**
+		 * Get time of completion of the execution.
+		 * 
+		 * @return time of completion of the execution. Is zero if completion isn't
+		 *         registered.
+		 */
+		synchronized long getCompletionTime() {
+			return completionTime;
+		}
+	}
+
 }
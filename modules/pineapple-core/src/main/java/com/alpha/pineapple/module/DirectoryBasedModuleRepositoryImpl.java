@@ -128,6 +128,12 @@ public class DirectoryBasedModuleRepositoryImpl implements DirectoryBasedModuleR
 	@Resource
 	RuntimeDirectoryProvider runtimeDirectoryProvider;
 
+	/**
+	 * Model cache.
+	 */
+	@Resource
+	ModelCache modelCache;
+
 	/**
 	 * Modules container
 	 */
@@ -189,6 +195,7 @@ public class DirectoryBasedModuleRepositoryImpl implements DirectoryBasedModuleR
 		try {
 			// delete
 			FileUtils.deleteDirectory(directory);
+			modelCache.invalidate(directory);
 
 			// remove module
 			modules.remove(info.getId());
@@ -278,6 +285,7 @@ public class DirectoryBasedModuleRepositoryImpl implements DirectoryBasedModuleR
 		try {
 			// delete
 			modelFile.delete();
+			modelCache.invalidate(modelFile);
 
 		} catch (Exception e) {
 			Object[] args = { environment, validatedInfo.getId(), e.getMessage() };
@@ -302,6 +310,7 @@ public class DirectoryBasedModuleRepositoryImpl implements DirectoryBasedModuleR
 
 			// save the model
 			FileUtils.writeStringToFile(modelFile, model, FILE_ENCODING, APPEND_TO_FILE);
+			modelCache.invalidate(modelFile);
 
 			// add model to info
 			info.addEnvironment(environment);
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+* Copyright (C) 2007-2015 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package com.alpha.pineapple.module;
+
+import java.io.File;
+
+import org.springframework.oxm.Unmarshaller;
+import org.w3c.dom.Element;
+
+/**
+ * Cache of unmarshalled module descriptors and module models.
+ * 
+ * Unmarshalled files are cached by path and are validated against the file
+ * fingerprint, i.e. the size and last modification time of the file. Cached
+ * objects are shared between operations and must not be modified.
+ * 
+ * The cache also contains the unmarshalled plugin content of the module
+ * models. The content is cached by the DOM element in the cached module model
+ * and the plugin unmarshaller.
+ */
+public interface ModelCache {
+
+	/**
+	 * Get cached unmarshalled file.
+	 * 
+	 * @param file
+	 *            unmarshalled file.
+	 * @param targetPackage
+	 *            package which contains the JAXB generated classes used for
+	 *            unmarshalling.
+	 * 
+	 * @return cached root object of the unmarshalled file. Returns null if the
+	 *         file isn't cached or if the file is modified since it was cached.
+	 */
+	Object get(File file, Package targetPackage);
+
+	/**
+	 * Add unmarshalled file to cache.
+	 * 
+	 * @param file
+	 *            unmarshalled file.
+	 * @param targetPackage
+	 *            package which contains the JAXB generated classes used for
+	 *            unmarshalling.
+	 * @param model
+	 *            root object of the unmarshalled file.
+	 */
+	void put(File file, Package targetPackage, Object model);
+
+	/**
+	 * Get cached unmarshalled plugin content.
+	 * 
+	 * @param element
+	 *            module model content root.
+	 * @param unmarshaller
+	 *            plugin unmarshaller.
+	 * 
+	 * @return cached unmarshalled plugin content. Returns null if the content
+	 *         isn't cached.
+	 */
+	Object getContent(Element element, Unmarshaller unmarshaller);
+
+	/**
+	 * Add unmarshalled plugin content to cache.
+	 * 
+	 * @param element
+	 *            module model content root.
+	 * @param unmarshaller
+	 *            plugin unmarshaller.
+	 * @param content
+	 *            unmarshalled plugin content.
+	 */
+	void putContent(Element element, Unmarshaller unmarshaller, Object content);
+
+	/**
+	 * Remove cached file. If the file is a directory then all cached files in
+	 * the directory are removed.
+	 * 
+	 * @param file
+	 *            file or directory.
+	 */
+	void invalidate(File file);
+
+	/**
+	 * Remove all cached files and plugin content.
+	 */
+	void invalidateAll();
+
+	/**
+	 * Get number of file lookups served from the cache.
+	 * 
+	 * @return number of file lookups served from the cache.
+	 */
+	long getHits();
+
+	/**
+	 * Get number of file lookups which wasn't served from the cache.
+	 * 
+	 * @return number of file lookups which wasn't served from the cache.
+	 */
+	long getMisses();
+
+	/**
+	 * Get number of plugin content lookups served from the cache.
+	 * 
+	 * @return number of plugin content lookups served from the cache.
+	 */
+	long getContentHits();
+
+	/**
+	 * Get number of plugin content lookups which wasn't served from the cache.
+	 * 
+	 * @return number of plugin content lookups which wasn't served from the
+	 *         cache.
+	 */
+	long getContentMisses();
+}
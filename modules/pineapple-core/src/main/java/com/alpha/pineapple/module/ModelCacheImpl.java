@@ -0,0 +1,305 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+* Copyright (C) 2007-2015 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package com.alpha.pineapple.module;
+
+import static com.alpha.javautils.ArgumentUtils.notNull;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Resource;
+
+import org.apache.log4j.Logger;
+import org.springframework.oxm.Unmarshaller;
+import org.w3c.dom.Element;
+
+import com.alpha.pineapple.i18n.MessageProvider;
+import com.alpha.pineapple.model.module.model.AggregatedModel;
+import com.alpha.pineapple.model.module.model.Models;
+
+/**
+ * Implementation of the {@linkplain ModelCache} interface.
+ * 
+ * Plugin content is kept in a weak map keyed by the DOM element. When a module
+ * model is removed from the cache its plugin content is removed as well.
+ */
+public class ModelCacheImpl implements ModelCache {
+
+	/**
+	 * Logger object.
+	 */
+	Logger logger = Logger.getLogger(this.getClass().getName());
+
+	/**
+	 * Message provider for I18N support.
+	 */
+	@Resource
+	MessageProvider messageProvider;
+
+	/**
+	 * Cached files.
+	 */
+	Map<String, CachedModel> models = new ConcurrentHashMap<String, CachedModel>();
+
+	/**
+	 * Cached plugin content.
+	 */
+	Map<Element, Map<Unmarshaller, Object>> contents = Collections
+			.synchronizedMap(new WeakHashMap<Element, Map<Unmarshaller, Object>>());
+
+	/**
+	 * Number of file lookups served from the cache.
+	 */
+	AtomicLong hits = new AtomicLong();
+
+	/**
+	 * Number of file lookups which wasn't served from the cache.
+	 */
+	AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Number of plugin content lookups served from the cache.
+	 */
+	AtomicLong contentHits = new AtomicLong();
+
+	/**
+	 * Number of plugin content lookups which wasn't served from the cache.
+	 */
+	AtomicLong contentMisses = new AtomicLong();
+
+	@Override
+	public Object get(File file, Package targetPackage) {
+		notNull(file, "file is undefined.");
+		notNull(targetPackage, "targetPackage is undefined.");
+
+		String key = createKey(file, targetPackage);
+		CachedModel cachedModel = models.get(key);
+		if (cachedModel == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+
+		// remove model if file is modified
+		if (!cachedModel.isFingerprintOf(file)) {
+			if (models.remove(key, cachedModel))
+				removeContent(cachedModel.model);
+			misses.incrementAndGet();
+			return null;
+		}
+
+		hits.incrementAndGet();
+		return cachedModel.model;
+	}
+
+	@Override
+	public void put(File file, Package targetPackage, Object model) {
+		notNull(file, "file is undefined.");
+		notNull(targetPackage, "targetPackage is undefined.");
+		notNull(model, "model is undefined.");
+
+		CachedModel previous = models.put(createKey(file, targetPackage), new CachedModel(file, model));
+		if (previous != null)
+			removeContent(previous.model);
+	}
+
+	@Override
+	public Object getContent(Element element, Unmarshaller unmarshaller) {
+		notNull(element, "element is undefined.");
+		notNull(unmarshaller, "unmarshaller is undefined.");
+
+		Object content = null;
+		synchronized (contents) {
+			Map<Unmarshaller, Object> elementContents = contents.get(element);
+			if (elementContents != null)
+				content = elementContents.get(unmarshaller);
+		}
+
+		if (content == null) {
+			contentMisses.incrementAndGet();
+			return null;
+		}
+
+		contentHits.incrementAndGet();
+		return content;
+	}
+
+	@Override
+	public void putContent(Element element, Unmarshaller unmarshaller, Object content) {
+		notNull(element, "element is undefined.");
+		notNull(unmarshaller, "unmarshaller is undefined.");
+		notNull(content, "content is undefined.");
+
+		synchronized (contents) {
+			Map<Unmarshaller, Object> elementContents = contents.get(element);
+			if (elementContents == null) {
+				elementContents = new HashMap<Unmarshaller, Object>();
+				contents.put(element, elementContents);
+			}
+			elementContents.put(unmarshaller, content);
+		}
+	}
+
+	@Override
+	public void invalidate(File file) {
+		notNull(file, "file is undefined.");
+
+		String path = file.getAbsolutePath();
+		String directoryPath = path + File.separator;
+		Iterator<CachedModel> iterator = models.values().iterator();
+		while (iterator.hasNext()) {
+			CachedModel cachedModel = iterator.next();
+			if (cachedModel.path.equals(path) || cachedModel.path.startsWith(directoryPath)) {
+				iterator.remove();
+				removeContent(cachedModel.model);
+
+				// log debug message
+				if (logger.isDebugEnabled()) {
+					Object[] args = { cachedModel.path };
+					logger.debug(messageProvider.getMessage("mc.invalidate_info", args));
+				}
+			}
+		}
+	}
+
+	@Override
+	public void invalidateAll() {
+		models.clear();
+		contents.clear();
+	}
+
+	@Override
+	public long getHits() {
+		return hits.get();
+	}
+
+	@Override
+	public long getMisses() {
+		return misses.get();
+	}
+
+	@Override
+	public long getContentHits() {
+		return contentHits.get();
+	}
+
+	@Override
+	public long getContentMisses() {
+		return contentMisses.get();
+	}
+
+	/**
+	 * Remove cached plugin content for module model.
+	 * 
+	 * @param model
+	 *            cached root object. Plugin content is only removed if the
+	 *            object is a module model.
+	 */
+	void removeContent(Object model) {
+		if (!(model instanceof Models))
+			return;
+
+		Models moduleModel = (Models) model;
+		for (AggregatedModel modelEntry : moduleModel.getModel()) {
+			if (modelEntry.getContent() == null)
+				continue;
+			for (Element element : modelEntry.getContent().getAny()) {
+				contents.remove(element);
+			}
+		}
+	}
+
+	/**
+	 * Create cache key.
+	 * 
+	 * @param file
+	 *            unmarshalled file.
+	 * @param targetPackage
+	 *            package used for unmarshalling.
+	 * 
+	 * @return cache key.
+	 */
+	String createKey(File file, Package targetPackage) {
+		return new StringBuilder().append(file.getAbsolutePath()).append('|').append(targetPackage.getName())
+				.toString();
+	}
+
+	/**
+	 * Cached root object and fingerprint of the unmarshalled file.
+	 */
+	static class CachedModel {
+
+		/**
+		 * Absolute path of the file.
+		 */
+		final String path;
+
+		/**
+		 * File size.
+		 */
+		final long length;
+
+		/**
+		 * File last modification time.
+		 */
+		final long lastModified;
+
+		/**
+		 * Root object of the unmarshalled file.
+		 */
+		final Object model;
+
+		/**
+		 * CachedModel constructor.
+		 * 
+		 * @param file
+		 *            unmarshalled file.
+		 * @param model
+		 *            root object of the unmarshalled file.
+		 */
+		CachedModel(File file, Object model) {
+			this.path = file.getAbsolutePath();
+			this.length = file.length();
+			this.lastModified = file.lastModified();
+			this.model = model;
+		}
+
+		/**
+		 * Returns true if the file has the same fingerprint as the cached file.
+		 * 
+		 * @param file
+		 *            file.
+		 * 
+		 * @return true if the file has the same fingerprint as the cached file.
+		 */
+		boolean isFingerprintOf(File file) {
+			return file.exists() && (file.length() == length) && (file.lastModified() == lastModified);
+		}
+	}
+}
@@ -255,7 +255,8 @@ public class PluginActivatorImpl implements PluginActivator {
 			Credential credential = getCredential(environment, resourceObject);
 
 			// create session handler
-			Operation handler = retrySessionHandlerFactory.getInstance(resourceObject, credential, operationObject);
+			Operation handler = retrySessionHandlerFactory.getInstance(environment, resourceObject, credential,
+					operationObject);
 
 			// log debug message
 			if (logger.isDebugEnabled()) {
@@ -23,28 +23,43 @@
 package com.alpha.pineapple.plugin.repository;
 import static com.alpha.javautils.ArgumentUtils.notNull;
 
+import static com.alpha.pineapple.plugin.PluginIndexProcessor.PLUGIN_INDEX_FILE;
+
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.List;
 
 import javax.annotation.Resource;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.beans.factory.support.BeanNameGenerator;
 import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.AnnotatedBeanDefinitionReader;
 import org.springframework.context.annotation.ClassPathBeanDefinitionScanner;
 import org.springframework.context.support.GenericApplicationContext;
 import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.util.ClassUtils;
 
 import com.alpha.pineapple.i18n.MessageProvider;
 import com.alpha.pineapple.plugin.Plugin;
+import com.alpha.pineapple.plugin.PluginIndexProcessor;
 import com.alpha.pineapple.plugin.PluginInitializationFailedException;
 
 /**
  * Implementation of the {@link PluginCandidateScanner} interface.
+ * 
+ * If a plugin contains a plugin index, written by the
+ * {@link PluginIndexProcessor} when the plugin is compiled, then the plugin
+ * classes in the index are registered directly. The class path is only scanned
+ * for plugins without an index.
  */
 public class PluginCandidateScannerImpl implements PluginCandidateScanner {
 
@@ -77,6 +92,17 @@ public class PluginCandidateScannerImpl implements PluginCandidateScanner {
 			// get class loader
 			ClassLoader classLoader = this.getClass().getClassLoader();
 
+			// create context to store scan result in
+			GenericApplicationContext context = new GenericApplicationContext();
+			context.setClassLoader(classLoader);
+
+			// skip scanning if no plugins are defined
+			if (pluginIds.length == 0)
+				return context;
+
+			// plugin id's without a plugin index
+			List<String> unindexedPluginIds = new ArrayList<String>();
+
 			// iterate over the plugin id's
 			for (String pluginId : pluginIds) {
 				// log debug message
@@ -98,31 +124,33 @@ public class PluginCandidateScannerImpl implements PluginCandidateScanner {
 					String message = messageProvider.getMessage("pcs.plugin_scan_classloader", args);
 					logger.debug(message);
 				}
-			}
 
-			// create context to store scan result in
-			GenericApplicationContext context = new GenericApplicationContext();
-			context.setClassLoader(classLoader);
+				// register plugin classes from plugin index
+				if (!registerIndexedPlugins(context, classLoader, pluginId, preparedPluginId)) {
+					unindexedPluginIds.add(pluginId);
+				}
+			}
 
-			// skip scanning if no plugins are defined
-			if (pluginIds.length == 0)
-				return context;
+			// scan for plugins without a plugin index
+			if (!unindexedPluginIds.isEmpty()) {
 
-			// create component scanner
-			ClassPathBeanDefinitionScanner scanner;
-			scanner = new ClassPathBeanDefinitionScanner((BeanDefinitionRegistry) context, DISABLE_DEFAULT_FILTERS);
+				// create component scanner
+				ClassPathBeanDefinitionScanner scanner;
+				scanner = new ClassPathBeanDefinitionScanner((BeanDefinitionRegistry) context,
+						DISABLE_DEFAULT_FILTERS);
 
-			// setup plugin class scanning
-			scanner.addIncludeFilter(new AnnotationTypeFilter(Plugin.class));
-			scanner.setBeanNameGenerator(pluginNameGenerator);
+				// setup plugin class scanning
+				scanner.addIncludeFilter(new AnnotationTypeFilter(Plugin.class));
+				scanner.setBeanNameGenerator(pluginNameGenerator);
 
-			// scan for plugins
-			scanner.scan(pluginIds);
+				// scan for plugins
+				scanner.scan(unindexedPluginIds.toArray(new String[unindexedPluginIds.size()]));
 
-			// log debug message
-			if (logger.isDebugEnabled()) {
-				String message = messageProvider.getMessage("pcs.plugin_scan_completed");
-				logger.debug(message);
+				// log debug message
+				if (logger.isDebugEnabled()) {
+					String message = messageProvider.getMessage("pcs.plugin_scan_completed");
+					logger.debug(message);
+				}
 			}
 
 			// refresh to support usage in Spring 4.x (see PINEAPPLE-727 for
@@ -139,4 +167,69 @@ public class PluginCandidateScannerImpl implements PluginCandidateScanner {
 		}
 	}
 
+	/**
+	 * Register the plugin classes listed in the plugin index for a plugin.
+	 * 
+	 * If any of the listed classes can't be loaded then the index is ignored and
+	 * the plugin must be found by scanning the class path.
+	 * 
+	 * @param context
+	 *            context where plugin classes are registered.
+	 * @param classLoader
+	 *            class loader.
+	 * @param pluginId
+	 *            plugin id.
+	 * @param preparedPluginId
+	 *            plugin id where dots are replaced with forward slashes.
+	 * 
+	 * @return true if the plugin classes were registered from the plugin index.
+	 * 
+	 * @throws IOException
+	 *             if the plugin index can't be read.
+	 */
+	boolean registerIndexedPlugins(GenericApplicationContext context, ClassLoader classLoader, String pluginId,
+			String preparedPluginId) throws IOException {
+
+		// resolve plugin index
+		String indexName = new StringBuilder().append(preparedPluginId).append("/").append(PLUGIN_INDEX_FILE)
+				.toString();
+		Enumeration<URL> indexes = classLoader.getResources(indexName);
+		if (!indexes.hasMoreElements())
+			return false;
+
+		// load plugin classes
+		List<Class<?>> pluginClasses = new ArrayList<Class<?>>();
+		while (indexes.hasMoreElements()) {
+			URL index = indexes.nextElement();
+			try (InputStream input = index.openStream()) {
+				for (String className : IOUtils.readLines(input, StandardCharsets.UTF_8)) {
+					if (StringUtils.isBlank(className))
+						continue;
+					pluginClasses.add(ClassUtils.forName(className.trim(), classLoader));
+				}
+			} catch (ClassNotFoundException | LinkageError e) {
+				Object[] args = { index, e };
+				String message = messageProvider.getMessage("pcs.plugin_index_invalid_warn", args);
+				logger.warn(message);
+				return false;
+			}
+		}
+
+		// register plugin classes
+		AnnotatedBeanDefinitionReader reader = new AnnotatedBeanDefinitionReader(context);
+		reader.setBeanNameGenerator(pluginNameGenerator);
+		for (Class<?> pluginClass : pluginClasses) {
+			reader.registerBean(pluginClass);
+		}
+
+		// log debug message
+		if (logger.isDebugEnabled()) {
+			Object[] args = { pluginId, pluginClasses };
+			String message = messageProvider.getMessage("pcs.plugin_index_info", args);
+			logger.debug(message);
+		}
+
+		return true;
+	}
+
 }
@@ -26,14 +26,20 @@ import static org.apache.commons.lang3.Validate.notEmpty;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import javax.annotation.Resource;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.time.StopWatch;
 import org.apache.log4j.Logger;
 import org.springframework.context.ApplicationContext;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.oxm.Unmarshaller;
 
 import com.alpha.pineapple.OperationNames;
@@ -50,6 +56,10 @@ import com.alpha.pineapple.session.Session;
  * Implementation of the {@linkplain PluginRuntimeRepository} interface.
  * 
  * The plugin repository services to manage registered plugins.
+ * 
+ * The plugins are scanned and initialized concurrently by the plugin executor.
+ * The execution results for the plugins are created in the order of the
+ * plugin candidates.
  */
 public class PluginRepositoryImpl implements PluginRuntimeRepository {
 
@@ -76,10 +86,16 @@ public class PluginRepositoryImpl implements PluginRuntimeRepository {
 	@Resource
 	MessageProvider messageProvider;
 
+	/**
+	 * Executor used to initialize plugins concurrently.
+	 */
+	@Resource
+	AsyncTaskExecutor pluginExecutor;
+
 	/**
 	 * Plugin definition container.
 	 */
-	HashMap<String, PluginInfo> pluginInfos;
+	Map<String, PluginInfo> pluginInfos;
 
 	@Override
 	public void initialize(ExecutionResult executionResult, String[] pluginIds)
@@ -96,14 +112,32 @@ public class PluginRepositoryImpl implements PluginRuntimeRepository {
 		ExecutionResult repositoryResult = createExecutionResultForRepository(executionResult, pluginIds);
 
 		// create plugin info map
-		pluginInfos = new HashMap<String, PluginInfo>();
+		pluginInfos = new ConcurrentHashMap<String, PluginInfo>();
 		String currentPluginId = null;
+		List<Future<?>> initializations = new ArrayList<Future<?>>();
 
 		try {
 
+			// validate plugin id's
 			for (String pluginId : pluginIds) {
 				currentPluginId = pluginId;
-				initializePlugin(repositoryResult, pluginId);
+				notNull(pluginId, "pluginId is undefined.");
+				notEmpty(pluginId, "pluginId is empty.");
+			}
+
+			// create plugin results in candidate order and initialize plugins
+			for (String pluginId : pluginIds) {
+				ExecutionResult pluginResult = createExecutionResultForPlugin(repositoryResult, pluginId);
+				initializations.add(pluginExecutor.submit(() -> {
+					initializePluginWithResult(pluginResult, pluginId);
+					return null;
+				}));
+			}
+
+			// wait for initializations in candidate order
+			for (int index = 0; index < pluginIds.length; index++) {
+				currentPluginId = pluginIds[index];
+				waitForInitialization(initializations.get(index));
 			}
 
 			repositoryResult.completeAsComputed(messageProvider, "pr.initialize_success");
@@ -115,11 +149,47 @@ public class PluginRepositoryImpl implements PluginRuntimeRepository {
 			}
 
 		} catch (Exception e) {
+			cancel(initializations);
 			Object[] args = { currentPluginId, e.getMessage() };
 			repositoryResult.completeAsError(messageProvider, "pr.initialize_error", args, e);
 		}
 	}
 
+	/**
+	 * Cancel initialization of plugins. Completed initializations aren't
+	 * affected.
+	 * 
+	 * @param initializations
+	 *            initializations of plugins.
+	 */
+	void cancel(List<Future<?>> initializations) {
+		for (Future<?> initialization : initializations) {
+			initialization.cancel(true);
+		}
+	}
+
+	/**
+	 * Wait for initialization of plugin to complete.
+	 * 
+	 * @param initialization
+	 *            initialization of plugin.
+	 * 
+	 * @throws Exception
+	 *             if the initialization failed.
+	 */
+	void waitForInitialization(Future<?> initialization) throws Exception {
+		try {
+			initialization.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception)
+				throw (Exception) e.getCause();
+			throw e;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw e;
+		}
+	}
+
 	public void initializePlugin(ExecutionResult executionResult, String pluginId)
 			throws PluginInitializationFailedException {
 		notNull(pluginId, "pluginId is undefined.");
@@ -127,10 +197,29 @@ public class PluginRepositoryImpl implements PluginRuntimeRepository {
 		notNull(executionResult, "executionResult is undefined.");
 
 		ExecutionResult pluginResult = createExecutionResultForPlugin(executionResult, pluginId);
+		initializePluginWithResult(pluginResult, pluginId);
+	}
+
+	/**
+	 * Initialize plugin. The time used to scan for the plugin and the time used
+	 * to initialize it is added to the plugin result.
+	 * 
+	 * @param pluginResult
+	 *            execution result for initialization of plugin.
+	 * @param pluginId
+	 *            plugin ID.
+	 * 
+	 * @throws PluginInitializationFailedException
+	 *             if plugin initialization fails.
+	 */
+	void initializePluginWithResult(ExecutionResult pluginResult, String pluginId)
+			throws PluginInitializationFailedException {
 
 		// do component scan for plugin
+		StopWatch watch = StopWatch.createStarted();
 		String[] pluginIds = { pluginId };
 		ApplicationContext pluginContext = pluginCandidateScanner.scanForPlugins(pluginIds);
+		addTime(pluginResult, "pr.initialize_plugin_scantime_header", watch);
 
 		// get plugin candidates stored in context
 		String[] candidateNames = pluginContext.getBeanDefinitionNames();
@@ -144,7 +233,9 @@ public class PluginRepositoryImpl implements PluginRuntimeRepository {
 				Object pluginClass = pluginContext.getBean(beanId);
 
 				// create and store plugin info object
+				watch = StopWatch.createStarted();
 				PluginInfo pluginInfo = pluginInitializer.initializePlugin(pluginClass);
+				addTime(pluginResult, "pr.initialize_plugin_inittime_header", watch);
 				this.pluginInfos.put(pluginInfo.getPluginId(), pluginInfo);
 
 				// set state and exit
@@ -157,6 +248,22 @@ public class PluginRepositoryImpl implements PluginRuntimeRepository {
 		setResultToFailedInitialization(pluginResult, pluginId);
 	}
 
+	/**
+	 * Add elapsed time to plugin result.
+	 * 
+	 * @param pluginResult
+	 *            execution result for initialization of plugin.
+	 * @param headerKey
+	 *            message key for message header.
+	 * @param watch
+	 *            running stop watch.
+	 */
+	void addTime(ExecutionResult pluginResult, String headerKey, StopWatch watch) {
+		watch.stop();
+		String header = messageProvider.getMessage(headerKey);
+		pluginResult.addMessage(header, Long.toString(watch.getTime()));
+	}
+
 	/**
 	 * Return true if bean is registered in the context as a plugin candidate.
 	 * 
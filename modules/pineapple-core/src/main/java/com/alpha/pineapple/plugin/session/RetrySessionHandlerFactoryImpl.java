@@ -54,6 +54,8 @@ public class RetrySessionHandlerFactoryImpl implements SessionHandlerFactory {
 	 * {@linkplain Credential} and {@linkplain Operation} which is proxied by the
 	 * session handler.
 	 * 
+	 * @param environment
+	 *            Environment which contains the resource.
 	 * @param resource
 	 *            Resource object.
 	 * @param credential
@@ -61,7 +63,8 @@ public class RetrySessionHandlerFactoryImpl implements SessionHandlerFactory {
 	 * @param operation
 	 *            Operation object.
 	 */
-	public Operation getInstance(Resource resource, Credential credential, Operation operation) {
+	public Operation getInstance(String environment, Resource resource, Credential credential, Operation operation) {
+		notNull(environment, "environment is undefined.");
 		notNull(resource, "resource is undefined.");
 		notNull(operation, "operation is undefined.");
 
@@ -69,7 +72,7 @@ public class RetrySessionHandlerFactoryImpl implements SessionHandlerFactory {
 		if (credential == null)
 			credential = getNullCredential();
 		RetrySessionHandlerImpl sessionHandler = springRetrySessionHandlerFactory.getObject();
-		sessionHandler.initialize(resource, credential, operation);
+		sessionHandler.initialize(environment, resource, credential, operation);
 		return sessionHandler;
 	}
 
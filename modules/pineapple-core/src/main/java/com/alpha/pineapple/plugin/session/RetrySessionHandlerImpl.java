@@ -35,7 +35,9 @@ import com.alpha.pineapple.i18n.MessageProvider;
 import com.alpha.pineapple.model.configuration.Credential;
 import com.alpha.pineapple.plugin.Operation;
 import com.alpha.pineapple.plugin.PluginExecutionFailedException;
+import com.alpha.pineapple.plugin.session.pool.SessionPool;
 import com.alpha.pineapple.plugin.session.retry.SessionRetryProxyFactory;
+import com.alpha.pineapple.session.PoolableSession;
 import com.alpha.pineapple.session.Session;
 import com.alpha.pineapple.session.SessionConnectException;
 import com.alpha.pineapple.session.SessionDisconnectException;
@@ -46,6 +48,11 @@ import com.alpha.pineapple.session.SessionDisconnectException;
  * 
  * This implementation add support for retry logic through instrumentation of
  * the plugin session class.
+ * 
+ * If the plugin session implements {@linkplain PoolableSession} then a
+ * connected session is acquired from the session pool if one is available and
+ * the session is released back into the pool after successful execution of the
+ * operation.
  */
 public class RetrySessionHandlerImpl implements Operation {
 	/**
@@ -64,6 +71,11 @@ public class RetrySessionHandlerImpl implements Operation {
 	 */
 	Operation operation;
 
+	/**
+	 * Environment.
+	 */
+	String environment;
+
 	/**
 	 * Resource object.
 	 */
@@ -80,9 +92,17 @@ public class RetrySessionHandlerImpl implements Operation {
 	@Resource
 	SessionRetryProxyFactory sessionRetryProxyFactory;
 
+	/**
+	 * Session pool.
+	 */
+	@Resource
+	SessionPool sessionPool;
+
 	/**
 	 * Initialize session handler.
 	 * 
+	 * @param environment
+	 *            Environment.
 	 * @param resource
 	 *            Resource object.
 	 * @param credential
@@ -90,8 +110,9 @@ public class RetrySessionHandlerImpl implements Operation {
 	 * @param operation
 	 *            Operation object.
 	 */
-	void initialize(com.alpha.pineapple.model.configuration.Resource resource, Credential credential,
-			Operation operation) {
+	void initialize(String environment, com.alpha.pineapple.model.configuration.Resource resource,
+			Credential credential, Operation operation) {
+		this.environment = environment;
 		this.resource = resource;
 		this.credential = credential;
 		this.operation = operation;
@@ -99,6 +120,10 @@ public class RetrySessionHandlerImpl implements Operation {
 
 	public void execute(Object content, Session session, ExecutionResult result) {
 
+		// session used by the operation, either the plugin session or a pooled
+		// session
+		Session activeSession = session;
+
 		try {
 			notNull(result, "result is undefined");
 
@@ -110,17 +135,18 @@ public class RetrySessionHandlerImpl implements Operation {
 				return;
 			}
 
-			// encapsulate session with retry proxy
-			Session retrySession = sessionRetryProxyFactory.decorateWithProxy(session, result);
-
-			// connect with retry session
-			addExecutionResultSessionConnectMessage(result);
-			retrySession.connect(resource, credential);
-			addExecutionResultSessionConnectedMessage(result);
+			// reuse pooled session if available
+			long generation = sessionPool.getGeneration();
+			PoolableSession pooledSession = acquirePooledSession(session, result);
+			if (pooledSession != null) {
+				activeSession = pooledSession;
+			} else {
+				connectSession(result, session);
+			}
 
 			// execute operation
-			operation.execute(content, session, result);
-			disconnectSession(result, session);
+			operation.execute(content, activeSession, result);
+			releaseSession(result, activeSession, generation);
 
 		} catch (SessionConnectException e) {
 			// throw runtime exception to channel the exception to invoking part
@@ -133,20 +159,99 @@ public class RetrySessionHandlerImpl implements Operation {
 			// of the core
 			throw new RuntimeException(e);
 		} catch (PluginExecutionFailedException e) {
-			disconnectSessionAndHandleException(session, result);
+			disconnectSessionAndHandleException(activeSession, result);
 
 			// throw runtime exception to channel the exception to invoking part
 			// of the core
 			throw new RuntimeException(e);
 		} catch (IllegalArgumentException e) {
-			disconnectSessionAndHandleException(session, result);
+			disconnectSessionAndHandleException(activeSession, result);
 
 			// throw runtime exception to channel the exception to invoking part
 			// of the core
 			throw new RuntimeException(e);
+		} catch (RuntimeException e) {
+			// disconnect session to avoid leaking the connection
+			if (activeSession != null)
+				disconnectSessionAndHandleException(activeSession, result);
+			throw e;
 		}
 	}
 
+	/**
+	 * Acquire connected session from the session pool.
+	 * 
+	 * @param session
+	 *            plugin session.
+	 * @param result
+	 *            execution result.
+	 * 
+	 * @return pooled session. Returns null if the plugin session isn't
+	 *         poolable or if no pooled session is available.
+	 */
+	PoolableSession acquirePooledSession(Session session, ExecutionResult result) {
+		if (!(session instanceof PoolableSession))
+			return null;
+		PoolableSession pooledSession = sessionPool.acquire(environment, resource, credential, session.getClass());
+		if (pooledSession == null)
+			return null;
+		addExecutionResultSessionReusedMessage(result);
+		return pooledSession;
+	}
+
+	/**
+	 * Connect session using the retry proxy.
+	 * 
+	 * @param result
+	 *            execution result.
+	 * @param session
+	 *            session to connect.
+	 * 
+	 * @throws SessionConnectException
+	 *             if connecting fails.
+	 */
+	void connectSession(ExecutionResult result, Session session) throws SessionConnectException {
+
+		// encapsulate session with retry proxy
+		Session retrySession = sessionRetryProxyFactory.decorateWithProxy(session, result);
+
+		// connect with retry session
+		addExecutionResultSessionConnectMessage(result);
+		long start = System.currentTimeMillis();
+		retrySession.connect(resource, credential);
+		addExecutionResultSessionConnectedMessage(result);
+
+		// add connection latency for poolable sessions
+		if (session instanceof PoolableSession)
+			addExecutionResultSessionLatencyMessage(result, System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * Release session into the session pool. If the session isn't poolable or
+	 * the pool rejects the session then the session is disconnected.
+	 * 
+	 * @param result
+	 *            execution result.
+	 * @param session
+	 *            session to release.
+	 * @param generation
+	 *            eviction generation of the pool when the session was acquired
+	 *            or connected.
+	 * 
+	 * @throws SessionDisconnectException
+	 *             if disconnect fails.
+	 */
+	void releaseSession(ExecutionResult result, Session session, long generation)
+			throws SessionDisconnectException {
+		if (session instanceof PoolableSession) {
+			if (sessionPool.release(environment, resource, credential, (PoolableSession) session, generation)) {
+				addExecutionResultSessionReleasedMessage(result);
+				return;
+			}
+		}
+		disconnectSession(result, session);
+	}
+
 	/**
 	 * Disconnect session and handle any exception.
 	 * 
@@ -214,6 +319,44 @@ public class RetrySessionHandlerImpl implements Operation {
 		result.addMessage(MSG_SESSION, message);
 	}
 
+	/**
+	 * Add session reuse information to execution result.
+	 * 
+	 * @param result
+	 *            execution result.
+	 */
+	void addExecutionResultSessionReusedMessage(ExecutionResult result) {
+		Object[] args = { resource.getId(), sessionPool.getHits(), sessionPool.getMisses() };
+		String message = messageProvider.getMessage("sh.execute_session_reused_info", args);
+		result.addMessage(MSG_SESSION, message);
+	}
+
+	/**
+	 * Add session connection latency information to execution result.
+	 * 
+	 * @param result
+	 *            execution result.
+	 * @param latency
+	 *            connection latency in milliseconds.
+	 */
+	void addExecutionResultSessionLatencyMessage(ExecutionResult result, long latency) {
+		Object[] args = { latency, sessionPool.getHits(), sessionPool.getMisses() };
+		String message = messageProvider.getMessage("sh.execute_session_latency_info", args);
+		result.addMessage(MSG_SESSION, message);
+	}
+
+	/**
+	 * Add session release information to execution result.
+	 * 
+	 * @param result
+	 *            execution result.
+	 */
+	void addExecutionResultSessionReleasedMessage(ExecutionResult result) {
+		Object[] args = { resource.getId() };
+		String message = messageProvider.getMessage("sh.execute_session_released_info", args);
+		result.addMessage(MSG_SESSION, message);
+	}
+
 	/**
 	 * Add session disconnecting information to execution result.
 	 * 
@@ -39,6 +39,8 @@ public interface SessionHandlerFactory {
 	 * {@linkplain Credential} and {@linkplain Operation} which is proxied by the
 	 * session handler.
 	 * 
+	 * @param environment
+	 *            Environment which contains the resource.
 	 * @param resource
 	 *            Resource object.
 	 * @param credential
@@ -46,6 +48,6 @@ public interface SessionHandlerFactory {
 	 * @param operation
 	 *            Operation object.
 	 */
-	public Operation getInstance(Resource resource, Credential credential, Operation operation);
+	public Operation getInstance(String environment, Resource resource, Credential credential, Operation operation);
 
 }
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+* Copyright (C) 2007-2015 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package com.alpha.pineapple.plugin.session.pool;
+
+import com.alpha.pineapple.model.configuration.Credential;
+import com.alpha.pineapple.model.configuration.Resource;
+import com.alpha.pineapple.session.PoolableSession;
+
+/**
+ * Pool of connected plugin sessions.
+ * 
+ * Connected sessions are kept idle in the pool after an operation has
+ * completed and are reused by subsequent operations which targets the same
+ * resource with the same credential in the same environment. Only sessions
+ * which implements the {@linkplain PoolableSession} interface are pooled.
+ */
+public interface SessionPool {
+
+	/**
+	 * Acquire connected session from the pool.
+	 * 
+	 * The session is removed from the pool and is owned exclusively by the
+	 * caller until it is released back into the pool. Pooled sessions which
+	 * fails the health check are disconnected and discarded.
+	 * 
+	 * @param environment
+	 *            environment which contains the resource.
+	 * @param resource
+	 *            resource targeted by the session.
+	 * @param credential
+	 *            credential used to connect the session.
+	 * @param sessionClass
+	 *            session class requested by the plugin.
+	 * 
+	 * @return connected session. Returns null if no idle session is available.
+	 */
+	PoolableSession acquire(String environment, Resource resource, Credential credential, Class<?> sessionClass);
+
+	/**
+	 * Release connected session into the pool.
+	 * 
+	 * @param environment
+	 *            environment which contains the resource.
+	 * @param resource
+	 *            resource targeted by the session.
+	 * @param credential
+	 *            credential used to connect the session.
+	 * @param session
+	 *            connected session.
+	 * @param generation
+	 *            eviction generation of the pool when the session was acquired
+	 *            or connected. The session isn't pooled if sessions have been
+	 *            evicted since, as it might be connected with an outdated
+	 *            configuration.
+	 * 
+	 * @return true if session was added to the pool. Returns false if the
+	 *         session wasn't pooled. In that case is the caller responsible for
+	 *         disconnecting the session.
+	 */
+	boolean release(String environment, Resource resource, Credential credential, PoolableSession session,
+			long generation);
+
+	/**
+	 * Disconnect and remove pooled sessions for resource.
+	 * 
+	 * @param environment
+	 *            environment which contains the resource.
+	 * @param resource
+	 *            resource ID.
+	 */
+	void evictResource(String environment, String resource);
+
+	/**
+	 * Disconnect and remove pooled sessions which uses credential.
+	 * 
+	 * @param environment
+	 *            environment which contains the credential.
+	 * @param credential
+	 *            credential ID.
+	 */
+	void evictCredential(String environment, String credential);
+
+	/**
+	 * Disconnect and remove pooled sessions for resources in environment.
+	 * 
+	 * @param environment
+	 *            environment ID.
+	 */
+	void evictEnvironment(String environment);
+
+	/**
+	 * Disconnect and remove all pooled sessions.
+	 */
+	void evictAll();
+
+	/**
+	 * Disconnect and remove sessions which have been idle in the pool longer
+	 * than the idle timeout.
+	 */
+	void evictIdleSessions();
+
+	/**
+	 * Get eviction generation of the pool. The generation is incremented
+	 * whenever sessions are evicted due to changed configuration.
+	 * 
+	 * @return eviction generation of the pool.
+	 */
+	long getGeneration();
+
+	/**
+	 * Get number of idle sessions in the pool.
+	 * 
+	 * @return number of idle sessions in the pool.
+	 */
+	int getNumberOfIdleSessions();
+
+	/**
+	 * Get number of acquisitions served by a pooled session.
+	 * 
+	 * @return number of acquisitions served by a pooled session.
+	 */
+	long getHits();
+
+	/**
+	 * Get number of acquisitions where no pooled session was available.
+	 * 
+	 * @return number of acquisitions where no pooled session was available.
+	 */
+	long getMisses();
+}
@@ -0,0 +1,403 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+* Copyright (C) 2007-2015 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package com.alpha.pineapple.plugin.session.pool;
+
+import static com.alpha.javautils.ArgumentUtils.notNull;
+import static com.alpha.pineapple.CoreConstants.WILDCARD_ENVIRONMENT_ID;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import javax.annotation.Resource;
+
+import org.apache.log4j.Logger;
+
+import com.alpha.javautils.StackTraceHelper;
+import com.alpha.pineapple.i18n.MessageProvider;
+import com.alpha.pineapple.model.configuration.Credential;
+import com.alpha.pineapple.session.PoolableSession;
+
+/**
+ * Implementation of the {@linkplain SessionPool} interface.
+ * 
+ * Idle sessions are kept per environment, resource, credential and session
+ * class. The number of idle sessions per key is capped by
+ * {@linkplain #setMaxIdleSessionsPerResource(int)}. Sessions which exceeds the
+ * cap are rejected and must be disconnected by the caller.
+ */
+public class SessionPoolImpl implements SessionPool {
+
+	/**
+	 * Default maximum number of idle sessions per resource.
+	 */
+	static final int DEFAULT_MAX_IDLE_SESSIONS = 4;
+
+	/**
+	 * Default idle timeout in milliseconds.
+	 */
+	static final long DEFAULT_IDLE_TIMEOUT = 300000;
+
+	/**
+	 * Logger object.
+	 */
+	Logger logger = Logger.getLogger(this.getClass().getName());
+
+	/**
+	 * Message provider for I18N support.
+	 */
+	@Resource
+	MessageProvider messageProvider;
+
+	/**
+	 * Idle sessions.
+	 */
+	Map<PoolKey, Deque<PooledSession>> idleSessions = new ConcurrentHashMap<PoolKey, Deque<PooledSession>>();
+
+	/**
+	 * Maximum number of idle sessions per resource.
+	 */
+	int maxIdleSessionsPerResource = DEFAULT_MAX_IDLE_SESSIONS;
+
+	/**
+	 * Idle timeout in milliseconds.
+	 */
+	long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+
+	/**
+	 * Number of acquisitions served by a pooled session.
+	 */
+	AtomicLong hits = new AtomicLong();
+
+	/**
+	 * Number of acquisitions where no pooled session was available.
+	 */
+	AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Eviction generation.
+	 */
+	AtomicLong generation = new AtomicLong();
+
+	/**
+	 * Set maximum number of idle sessions per resource. If the value is zero
+	 * then sessions aren't pooled.
+	 * 
+	 * @param maxIdleSessionsPerResource
+	 *            maximum number of idle sessions per resource.
+	 */
+	public void setMaxIdleSessionsPerResource(int maxIdleSessionsPerResource) {
+		this.maxIdleSessionsPerResource = maxIdleSessionsPerResource;
+	}
+
+	/**
+	 * Set idle timeout in milliseconds.
+	 * 
+	 * @param idleTimeout
+	 *            idle timeout in milliseconds.
+	 */
+	public void setIdleTimeout(long idleTimeout) {
+		this.idleTimeout = idleTimeout;
+	}
+
+	@Override
+	public PoolableSession acquire(String environment, com.alpha.pineapple.model.configuration.Resource resource,
+			Credential credential, Class<?> sessionClass) {
+		notNull(environment, "environment is undefined.");
+		notNull(resource, "resource is undefined.");
+		notNull(sessionClass, "sessionClass is undefined.");
+
+		PoolKey key = new PoolKey(environment, resource.getId(), getCredentialId(credential), sessionClass.getName());
+		Deque<PooledSession> sessions = idleSessions.get(key);
+		if (sessions != null) {
+			long now = System.currentTimeMillis();
+			while (true) {
+				PooledSession pooledSession;
+				synchronized (sessions) {
+					pooledSession = sessions.pollFirst();
+				}
+				if (pooledSession == null)
+					break;
+
+				// return healthy session
+				if (!pooledSession.isExpired(now, idleTimeout) && isHealthy(pooledSession.session)) {
+					hits.incrementAndGet();
+					return pooledSession.session;
+				}
+
+				// discard stale session
+				disconnect(pooledSession);
+			}
+		}
+
+		misses.incrementAndGet();
+		return null;
+	}
+
+	@Override
+	public boolean release(String environment, com.alpha.pineapple.model.configuration.Resource resource,
+			Credential credential, PoolableSession session, long generation) {
+		notNull(environment, "environment is undefined.");
+		notNull(resource, "resource is undefined.");
+		notNull(session, "session is undefined.");
+
+		if (!isHealthy(session))
+			return false;
+
+		PoolKey key = new PoolKey(environment, resource.getId(), getCredentialId(credential),
+				session.getClass().getName());
+		Deque<PooledSession> sessions = idleSessions.computeIfAbsent(key, k -> new ArrayDeque<PooledSession>());
+		synchronized (sessions) {
+			if (sessions.size() >= maxIdleSessionsPerResource)
+				return false;
+
+			// reject session acquired or connected prior to an eviction
+			if (generation != this.generation.get())
+				return false;
+
+			// push to head to reuse the most recently used session first
+			sessions.addFirst(new PooledSession(key, session, System.currentTimeMillis()));
+			return true;
+		}
+	}
+
+	@Override
+	public void evictResource(String environment, String resource) {
+		evict(key -> matchesEnvironment(key, environment) && Objects.equals(key.resource, resource));
+	}
+
+	@Override
+	public void evictCredential(String environment, String credential) {
+		evict(key -> matchesEnvironment(key, environment) && Objects.equals(key.credential, credential));
+	}
+
+	@Override
+	public void evictEnvironment(String environment) {
+		evict(key -> matchesEnvironment(key, environment));
+	}
+
+	@Override
+	public void evictAll() {
+		evict(key -> true);
+	}
+
+	@Override
+	public void evictIdleSessions() {
+		long now = System.currentTimeMillis();
+		List<PooledSession> expired = new ArrayList<PooledSession>();
+		for (Deque<PooledSession> sessions : idleSessions.values()) {
+			synchronized (sessions) {
+				Iterator<PooledSession> iterator = sessions.iterator();
+				while (iterator.hasNext()) {
+					PooledSession pooledSession = iterator.next();
+					if (pooledSession.isExpired(now, idleTimeout)) {
+						expired.add(pooledSession);
+						iterator.remove();
+					}
+				}
+			}
+		}
+		expired.forEach(this::disconnect);
+	}
+
+	@Override
+	public long getGeneration() {
+		return generation.get();
+	}
+
+	@Override
+	public int getNumberOfIdleSessions() {
+		int counter = 0;
+		for (Deque<PooledSession> sessions : idleSessions.values()) {
+			synchronized (sessions) {
+				counter += sessions.size();
+			}
+		}
+		return counter;
+	}
+
+	@Override
+	public long getHits() {
+		return hits.get();
+	}
+
+	@Override
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * Disconnect and remove pooled sessions whose key matches predicate. The
+	 * eviction generation is incremented first, to reject release of sessions
+	 * which are in use during the eviction.
+	 * 
+	 * @param predicate
+	 *            predicate used to select sessions.
+	 */
+	void evict(Predicate<PoolKey> predicate) {
+		generation.incrementAndGet();
+		List<PooledSession> evicted = new ArrayList<PooledSession>();
+		for (Map.Entry<PoolKey, Deque<PooledSession>> entry : idleSessions.entrySet()) {
+			if (!predicate.test(entry.getKey()))
+				continue;
+			Deque<PooledSession> sessions = entry.getValue();
+			synchronized (sessions) {
+				evicted.addAll(sessions);
+				sessions.clear();
+			}
+		}
+		evicted.forEach(this::disconnect);
+	}
+
+	/**
+	 * Returns true if key matches environment. Resources and credentials
+	 * defined in the wild card environment are used by all environments, so
+	 * the wild card environment matches all keys.
+	 * 
+	 * @param key
+	 *            pool key.
+	 * @param environment
+	 *            environment ID.
+	 * 
+	 * @return true if key matches environment.
+	 */
+	boolean matchesEnvironment(PoolKey key, String environment) {
+		if (WILDCARD_ENVIRONMENT_ID.equals(environment))
+			return true;
+		return Objects.equals(key.environment, environment);
+	}
+
+	/**
+	 * Returns true if session reports itself as connected.
+	 * 
+	 * @param session
+	 *            session to check.
+	 * 
+	 * @return true if session reports itself as connected.
+	 */
+	boolean isHealthy(PoolableSession session) {
+		try {
+			return session.isConnected();
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Disconnect pooled session. Any exception is logged.
+	 * 
+	 * @param pooledSession
+	 *            pooled session.
+	 */
+	void disconnect(PooledSession pooledSession) {
+		try {
+			pooledSession.session.disconnect();
+
+			// log debug message
+			if (logger.isDebugEnabled()) {
+				Object[] args = { pooledSession.key.resource, pooledSession.key.environment };
+				logger.debug(messageProvider.getMessage("sp.evict_session_info", args));
+			}
+
+		} catch (Exception e) {
+			Object[] args = { pooledSession.key.resource, pooledSession.key.environment,
+					StackTraceHelper.getStrackTrace(e) };
+			logger.warn(messageProvider.getMessage("sp.evict_session_failed", args));
+		}
+	}
+
+	/**
+	 * Get credential ID.
+	 * 
+	 * @param credential
+	 *            credential, can be null.
+	 * 
+	 * @return credential ID. Returns empty string if credential is undefined.
+	 */
+	String getCredentialId(Credential credential) {
+		if (credential == null)
+			return "";
+		if (credential.getId() == null)
+			return "";
+		return credential.getId();
+	}
+
+	/**
+	 * Key of idle sessions in the pool.
+	 */
+	static class PoolKey {
+		final String environment;
+		final String resource;
+		final String credential;
+		final String sessionClass;
+
+		PoolKey(String environment, String resource, String credential, String sessionClass) {
+			this.environment = environment;
+			this.resource = resource;
+			this.credential = credential;
+			this.sessionClass = sessionClass;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof PoolKey))
+				return false;
+			PoolKey other = (PoolKey) obj;
+			return Objects.equals(environment, other.environment) && Objects.equals(resource, other.resource)
+					&& Objects.equals(credential, other.credential) && Objects.equals(sessionClass, other.sessionClass);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(environment, resource, credential, sessionClass);
+		}
+	}
+
+	/**
+	 * Idle session in the pool.
+	 */
+	static class PooledSession {
+		final PoolKey key;
+		final PoolableSession session;
+		final long releaseTime;
+
+		PooledSession(PoolKey key, PoolableSession session, long releaseTime) {
+			this.key = key;
+			this.session = session;
+			this.releaseTime = releaseTime;
+		}
+
+		boolean isExpired(long now, long idleTimeout) {
+			return (now - releaseTime) > idleTimeout;
+		}
+	}
+}
@@ -36,6 +36,7 @@ import com.alpha.pineapple.execution.ExecutionResultImpl;
 import com.alpha.pineapple.i18n.MessageProvider;
 import com.alpha.pineapple.model.configuration.Configuration;
 import com.alpha.pineapple.model.configuration.ObjectFactory;
+import com.alpha.pineapple.plugin.session.pool.SessionPool;
 import static com.alpha.javautils.ArgumentUtils.notNull;
 import static org.apache.commons.lang3.Validate.notEmpty;
 
@@ -70,6 +71,12 @@ public class ResourceRepositoryImpl implements ResourceRepository {
 	@javax.annotation.Resource
 	ResourceConfigurationMarshaller resourceConfigurationMarshaller;
 
+	/**
+	 * Session pool.
+	 */
+	@javax.annotation.Resource
+	SessionPool sessionPool;
+
 	/**
 	 * JAXB object factory.
 	 */
@@ -89,6 +96,9 @@ public class ResourceRepositoryImpl implements ResourceRepository {
 	public void initialize(Configuration envConfiguration) {
 		configurationInfo = resourceConfigurationMarshaller.map(envConfiguration);
 
+		// evict pooled sessions connected using the previous configuration
+		sessionPool.evictAll();
+
 		// log debug message
 		if (logger.isDebugEnabled()) {
 			Object[] args = { configurationInfo.getEnvironments().length };
@@ -216,6 +226,9 @@ public class ResourceRepositoryImpl implements ResourceRepository {
 		// delete
 		typecastEnvInfo.deleteResource(resourceInfo);
 
+		// evict pooled sessions
+		sessionPool.evictResource(environment, id);
+
 		// save
 		saveRepository();
 	}
@@ -251,6 +264,9 @@ public class ResourceRepositoryImpl implements ResourceRepository {
 			newInfo.addProperty(propertyInfo);
 		}
 
+		// evict pooled sessions
+		sessionPool.evictResource(environment, resourceInfo.getId());
+
 		// save
 		saveRepository();
 
@@ -287,6 +303,9 @@ public class ResourceRepositoryImpl implements ResourceRepository {
 		// add property
 		typecastResourceInfo.addProperty(propertyInfo);
 
+		// evict pooled sessions
+		sessionPool.evictResource(environment, id);
+
 		// save
 		saveRepository();
 	}
@@ -319,6 +338,9 @@ public class ResourceRepositoryImpl implements ResourceRepository {
 		// delete
 		typecastResourceInfo.deleteProperty(propertyInfo);
 
+		// evict pooled sessions
+		sessionPool.evictResource(environment, id);
+
 		// save
 		saveRepository();
 	}
@@ -456,6 +478,9 @@ public class ResourceRepositoryImpl implements ResourceRepository {
 		EnvironmentInfo environmentInfo = getEnvironment(environment);
 		configurationInfo.deleteEnvironment(environmentInfo);
 
+		// evict pooled sessions
+		sessionPool.evictEnvironment(environment);
+
 		// save
 		saveRepository();
 	}
@@ -22,9 +22,9 @@
 
 package com.alpha.pineapple.substitution;
 
-import java.util.Map;
-
-import org.apache.commons.lang3.text.StrSubstitutor;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 
 import com.alpha.pineapple.substitution.variables.Variables;
 
@@ -34,15 +34,137 @@ import com.alpha.pineapple.substitution.variables.Variables;
 /**
  * Implementation of {@linkplain VariableResolver} interface which support
  * substitution of variables.
+ * 
+ * Resolution is done with the substitutor bound to the variables. Strings
+ * which doesn't contain a variable prefix are returned without processing.
+ * 
+ * Streams are resolved by scanning for variable tokens, i.e. "${...}" and the
+ * escaped form "$${...}". Text outside tokens is copied unchanged and each
+ * complete token is resolved with the substitutor bound to the variables. A
+ * partial token is kept between reads, so tokens split across chunk
+ * boundaries are resolved.
  */
 
 public class DefaultVariableResolverImpl implements VariableResolver {
 
+	/**
+	 * Variable prefix.
+	 */
+	static final String VARIABLE_PREFIX = "${";
+
+	/**
+	 * Variable start character.
+	 */
+	static final char VARIABLE_START = '$';
+
+	/**
+	 * Variable prefix character following the start character.
+	 */
+	static final char VARIABLE_OPEN = '{';
+
+	/**
+	 * Variable suffix character.
+	 */
+	static final char VARIABLE_CLOSE = '}';
+
+	/**
+	 * Size of chunks read from streams (in characters).
+	 */
+	static final int BUFFER_SIZE = 8192;
+
+	/**
+	 * Maximum length of a variable token (in characters). Longer tokens are
+	 * written without resolution.
+	 */
+	static final int MAXIMUM_TOKEN_LENGTH = 4096;
+
 	@Override
 	public String resolve(Variables variables, String source) {
-		Map<String, String> variablesMap = variables.getMap();
-		StrSubstitutor substitutor = new StrSubstitutor(variablesMap);
-		return substitutor.replace(source);
+		if (source == null)
+			return null;
+		if (source.indexOf(VARIABLE_PREFIX) == -1)
+			return source;
+		return variables.getSubstitutor().replace(source);
+	}
+
+	@Override
+	public void resolve(Variables variables, Reader source, Writer destination) throws IOException {
+		char[] buffer = new char[BUFFER_SIZE];
+		StringBuilder token = new StringBuilder();
+		int read;
+
+		while ((read = source.read(buffer)) != -1) {
+
+			// index of first character in the chunk which isn't written yet
+			int start = 0;
+
+			for (int index = 0; index < read; index++) {
+				char character = buffer[index];
+
+				// handle text outside token
+				if (token.length() == 0) {
+					if (character == VARIABLE_START) {
+						destination.write(buffer, start, index - start);
+						token.append(character);
+						start = index + 1;
+					}
+					continue;
+				}
+
+				// handle token start, i.e. "$" or "$$"
+				if (isTokenStart(token)) {
+					if (character == VARIABLE_OPEN) {
+						token.append(character);
+						start = index + 1;
+					} else if (character == VARIABLE_START) {
+						if (token.length() == 1) {
+							token.append(character);
+						} else {
+							destination.write(VARIABLE_START);
+						}
+						start = index + 1;
+					} else {
+
+						// no token, write start and continue with character as text
+						destination.write(token.toString());
+						token.setLength(0);
+						start = index;
+					}
+					continue;
+				}
+
+				// handle token content
+				token.append(character);
+				start = index + 1;
+				if (character == VARIABLE_CLOSE) {
+					destination.write(resolve(variables, token.toString()));
+					token.setLength(0);
+				} else if (token.length() > MAXIMUM_TOKEN_LENGTH) {
+					destination.write(token.toString());
+					token.setLength(0);
+				}
+			}
+
+			// write remaining text in chunk
+			destination.write(buffer, start, read - start);
+		}
+
+		// write unterminated token
+		destination.write(token.toString());
+		destination.flush();
+	}
+
+	/**
+	 * Returns true if token only contains start characters, i.e. the variable
+	 * prefix isn't complete yet.
+	 * 
+	 * @param token
+	 *            token under construction.
+	 * 
+	 * @return true if token only contains start characters.
+	 */
+	boolean isTokenStart(StringBuilder token) {
+		return (token.length() <= 2) && (token.charAt(token.length() - 1) == VARIABLE_START);
 	}
 
 }
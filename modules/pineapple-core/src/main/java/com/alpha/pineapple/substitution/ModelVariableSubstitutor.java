@@ -25,6 +25,7 @@ package com.alpha.pineapple.substitution;
 import com.alpha.pineapple.model.configuration.Resource;
 import com.alpha.pineapple.model.module.Module;
 import com.alpha.pineapple.model.module.model.Models;
+import com.alpha.pineapple.substitution.variables.Variables;
 
 /**
  * Interface for variable substitution in module models.
@@ -58,4 +59,24 @@ public interface ModelVariableSubstitutor {
 	<T> T createObjectWithSubstitution(Module module, Models model, Resource resource, T targetObject)
 			throws VariableSubstitutionException;
 
+	/**
+	 * Create variables for resolution from module descriptor, model and resource.
+	 * 
+	 * The variables are resolved with the same precedence as in
+	 * {@linkplain #createObjectWithSubstitution(Module, Models, Resource, Object)}.
+	 * 
+	 * @param module
+	 *            module descriptor model.
+	 * @param model
+	 *            module model.
+	 * @param resource
+	 *            resource object.
+	 * 
+	 * @return variables for resolution.
+	 * 
+	 * @throws VariableSubstitutionException
+	 *             if initialization of variables fails.
+	 */
+	Variables createVariables(Module module, Models model, Resource resource) throws VariableSubstitutionException;
+
 }
@@ -23,12 +23,16 @@
 package com.alpha.pineapple.substitution;
 import static com.alpha.javautils.ArgumentUtils.notNull;
 
+import java.util.Properties;
+
 import org.springframework.beans.factory.ObjectFactory;
 
+import com.alpha.javautils.SystemUtils;
 import com.alpha.pineapple.i18n.MessageProvider;
 import com.alpha.pineapple.model.configuration.Resource;
 import com.alpha.pineapple.model.module.Module;
 import com.alpha.pineapple.model.module.model.Models;
+import com.alpha.pineapple.substitution.copy.VariableSubstitutedCopyFactory;
 import com.alpha.pineapple.substitution.proxy.VariableSubstitutedProxyFactory;
 import com.alpha.pineapple.substitution.variables.CompositeVariablesBuilder;
 import com.alpha.pineapple.substitution.variables.ModelVariablesBuilder;
@@ -38,6 +42,11 @@ import com.alpha.pineapple.substitution.variables.Variables;
 
 /**
  * Implementation of the {@linkplain ModelVariableSubstitutor} interface.
+ * 
+ * By default the target object is decorated with a proxy which substitutes
+ * variables on access. If the system property "pineapple.substitution.eager"
+ * is set to true then a variable substituted deep copy of the target object is
+ * created instead.
  */
 public class ModelVariableSubstitutorImpl implements ModelVariableSubstitutor {
 
@@ -77,9 +86,45 @@ public class ModelVariableSubstitutorImpl implements ModelVariableSubstitutor {
 	@javax.annotation.Resource
 	ObjectFactory<VariableSubstitutedProxyFactory> variableSubstitutedProxyFactoryFactory;
 
+	/**
+	 * Variable substituted copy factory Factory.
+	 */
+	@javax.annotation.Resource
+	ObjectFactory<VariableSubstitutedCopyFactory> variableSubstitutedCopyFactoryFactory;
+
+	/**
+	 * Java System properties.
+	 */
+	@javax.annotation.Resource
+	Properties systemProperties;
+
+	/**
+	 * System utilities.
+	 */
+	@javax.annotation.Resource
+	SystemUtils systemUtils;
+
 	@Override
 	public <T> T createObjectWithSubstitution(Module module, Models model, Resource resource, T targetObject)
 			throws VariableSubstitutionException {
+		Variables compositeVariables = createVariables(module, model, resource);
+
+		// create substituted copy
+		if (systemUtils.isEagerSubstitutionEnabled(systemProperties)) {
+			VariableSubstitutedCopyFactory copyFactory = variableSubstitutedCopyFactoryFactory.getObject();
+			copyFactory.initialize(compositeVariables);
+			return copyFactory.createCopy(targetObject);
+		}
+
+		// create substituted proxy
+		VariableSubstitutedProxyFactory factory = variableSubstitutedProxyFactoryFactory.getObject();
+		factory.initialize(compositeVariables);
+		return factory.decorateWithProxy(targetObject);
+	}
+
+	@Override
+	public Variables createVariables(Module module, Models model, Resource resource)
+			throws VariableSubstitutionException {
 		notNull(module, "module is undefined.");
 		notNull(model, "model is undefined.");
 		notNull(resource, "resource is undefined.");
@@ -97,11 +142,7 @@ public class ModelVariableSubstitutorImpl implements ModelVariableSubstitutor {
 		compositeVariablesBuilder.addBuilder("module", moduleBuilder);
 		compositeVariablesBuilder.addBuilder("model", modelBuilder);
 		compositeVariablesBuilder.addBuilder("resource", resourceBuilder);
-		Variables compositeVariables = compositeVariablesBuilder.getVariables();
-
-		VariableSubstitutedProxyFactory factory = variableSubstitutedProxyFactoryFactory.getObject();
-		factory.initialize(compositeVariables);
-		return factory.decorateWithProxy(targetObject);
+		return compositeVariablesBuilder.getVariables();
 	}
 
 }
@@ -22,6 +22,10 @@
 
 package com.alpha.pineapple.substitution;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
 import com.alpha.pineapple.substitution.variables.Variables;
 
 /**
@@ -41,4 +45,25 @@ public interface VariableResolver {
 	 */
 	String resolve(Variables variables, String source);
 
+	/**
+	 * Resolve variables in character stream.
+	 * 
+	 * The source is processed in chunks and the resolved content is written to
+	 * the destination, so the memory usage is independent of the size of the
+	 * source. Variables which are split across chunk boundaries are resolved.
+	 * 
+	 * The streams are not closed.
+	 * 
+	 * @param variables
+	 *            variables to for substitution.
+	 * @param source
+	 *            source stream to resolve.
+	 * @param destination
+	 *            destination stream where resolved content is written.
+	 * 
+	 * @throws IOException
+	 *             if reading from source or writing to destination fails.
+	 */
+	void resolve(Variables variables, Reader source, Writer destination) throws IOException;
+
 }
@@ -22,13 +22,22 @@
 
 package com.alpha.pineapple.substitution;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 
 import javax.annotation.Resource;
 
 import org.apache.commons.chain.Context;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 
 import com.alpha.pineapple.CoreConstants;
 import com.alpha.pineapple.execution.ExecutionContextRepository;
@@ -41,11 +50,17 @@ import com.alpha.pineapple.model.module.model.Models;
 import com.alpha.pineapple.session.NullSessionImpl;
 import com.alpha.pineapple.session.Session;
 import com.alpha.pineapple.session.SessionConnectException;
+import com.alpha.pineapple.substitution.variables.Variables;
 import com.alpha.pineapple.test.AssertionHelper;
 
 /**
  * Implementation of the {@linkplain VariableSubstitutionProvider} interface
  * which implements variable substitution functionality for plugins.
+ * 
+ * Files are substituted by streaming the source file through the variable
+ * resolver into a temporary file, so the memory usage is independent of the
+ * file size. If the result is identical to the previously substituted file then
+ * the previous file is kept unchanged.
  */
 public class VariableSubstitutionProviderImpl implements VariableSubstitutionProvider {
 
@@ -55,10 +70,14 @@ public class VariableSubstitutionProviderImpl implements VariableSubstitutionPro
 	static final String DEFAULT_FILEENCODING_UTF_8 = "UTF-8";
 
 	/**
-	 * Default maximum legal file for value substitution (in bytes). Current maximum
-	 * is 1 MB.
+	 * Default file encoding.
+	 */
+	static final Charset DEFAULT_CHARSET = Charset.forName(DEFAULT_FILEENCODING_UTF_8);
+
+	/**
+	 * Suffix for temporary file with processed content.
 	 */
-	static final long DEFAULT_MAXIMUM_SIZE = 1 * (1024 * 1024);
+	static final String PROCESSED_FILE_SUFFIX = ".tmp";
 
 	/**
 	 * Null file returned if substitution process fails.
@@ -89,6 +108,12 @@ public class VariableSubstitutionProviderImpl implements VariableSubstitutionPro
 	@Resource
 	ModelVariableSubstitutor modelVariableSubstitutor;
 
+	/**
+	 * Variable resolver.
+	 */
+	@Resource
+	VariableResolver variableResolver;
+
 	/**
 	 * Execution context repository.
 	 */
@@ -146,11 +171,10 @@ public class VariableSubstitutionProviderImpl implements VariableSubstitutionPro
 
 			// substitute
 			validateFileIsFitforSubstitution(source, substitutionResult);
-			String sourceFileContent = loadSourceFile(source);
 			File destinationFile = createDestinationFileName(source);
-			deletePreviousFile(destinationFile);
-			String processedContent = resolveVariables(sourceFileContent, nullSession, result);
-			saveProcessedFile(destinationFile, processedContent);
+			Variables variables = createVariables(nullSession, result);
+			File processedFile = createProcessedFile(source, destinationFile, variables);
+			updateDestinationFile(processedFile, destinationFile, substitutionResult);
 
 			// complete as success and return
 			substitutionResult.completeAsSuccessful(messageProvider, "dvpp.varsub_info_complete");
@@ -188,11 +212,10 @@ public class VariableSubstitutionProviderImpl implements VariableSubstitutionPro
 
 			// substitute
 			validateFileIsFitforSubstitution(source, substitutionResult);
-			String sourceFileContent = loadSourceFile(source);
 			File destinationFile = createDestinationFileName(source);
-			deletePreviousFile(destinationFile);
-			String processedContent = resolveVariables(sourceFileContent, session, result);
-			saveProcessedFile(destinationFile, processedContent);
+			Variables variables = createVariables(session, result);
+			File processedFile = createProcessedFile(source, destinationFile, variables);
+			updateDestinationFile(processedFile, destinationFile, substitutionResult);
 
 			// complete as success and return
 			substitutionResult.completeAsSuccessful(messageProvider, "dvpp.varsub_info_complete");
@@ -245,8 +268,37 @@ public class VariableSubstitutionProviderImpl implements VariableSubstitutionPro
 	}
 
 	/**
-	 * Validate file is fit for substitution. It is validated whether file is a file
-	 * and whether file size is smaller than maximum size.
+	 * Create variables for resolution of file content.
+	 * 
+	 * The properties defined on the resource contained by the plugin session is
+	 * used for variable resolution.
+	 * 
+	 * @param session
+	 *            plugin session.
+	 * @param result
+	 *            execution result used to lookup the execution context.
+	 * 
+	 * @return variables for resolution.
+	 * 
+	 * @throws VariableSubstitutionException
+	 *             if creation of variables fails.
+	 */
+	Variables createVariables(Session session, ExecutionResult result) throws VariableSubstitutionException {
+
+		// execution context for operation
+		Context executionContext = executionContextRepository.get(result);
+
+		// get module and model from context
+		Module module = (Module) executionContext.get(CoreConstants.MODULE_KEY);
+		Models model = (Models) executionContext.get(CoreConstants.MODULE_MODEL_KEY);
+
+		// create variables
+		return modelVariableSubstitutor.createVariables(module, model, session.getResource());
+	}
+
+	/**
+	 * Validate file is fit for substitution. It is validated whether file is a
+	 * file. The file size is added to the execution result.
 	 * 
 	 * @throws VariableSubstitutionException
 	 *             if validation fails.
@@ -267,40 +319,69 @@ public class VariableSubstitutionProviderImpl implements VariableSubstitutionPro
 			throw new SourceFileValidationFailureException(message);
 		}
 
-		// assert file size valid
-		assertionResult = assertionHelper.assertFileSizeIsSmaller(source, DEFAULT_MAXIMUM_SIZE, messageProvider,
-				"dvpp.assert_sourcefile_size", result);
-
 		// add file size info to execution result
 		messageHeader = messageProvider.getMessage("dvpp.assert_sourcefile_size_info");
 		assertionResult.addMessage(messageHeader, Long.toString(source.length()));
+	}
+
+	/**
+	 * Create processed file. The source file is streamed through the variable
+	 * resolver into a temporary file located next to the destination file.
+	 * 
+	 * @param source
+	 *            source file.
+	 * @param destinationFile
+	 *            destination file name.
+	 * @param variables
+	 *            variables for resolution.
+	 * 
+	 * @return temporary file with processed content.
+	 * 
+	 * @throws VariableSubstitutionException
+	 *             if processing fails.
+	 */
+	File createProcessedFile(File source, File destinationFile, Variables variables)
+			throws VariableSubstitutionException {
+		File processedFile = createProcessedFileName(destinationFile);
+		Reader reader = null;
+		Writer writer = null;
 
-		// add maximum file size info to execution result
-		messageHeader = messageProvider.getMessage("dvpp.assert_sourcefile_max_size_info");
-		assertionResult.addMessage(messageHeader, Long.toString(DEFAULT_MAXIMUM_SIZE));
+		try {
+			reader = new InputStreamReader(Files.newInputStream(source.toPath()), DEFAULT_CHARSET);
+			writer = new BufferedWriter(
+					new OutputStreamWriter(Files.newOutputStream(processedFile.toPath()), DEFAULT_CHARSET));
+			variableResolver.resolve(variables, reader, writer);
+			writer.close();
+			return processedFile;
 
-		// throw exception on failure
-		if (!assertionResult.isSuccess()) {
-			Object[] arg = { DEFAULT_MAXIMUM_SIZE };
-			String message = messageProvider.getMessage("dvpp.createvarsubtempfile_sourcefile_size_failure", arg);
-			throw new SourceFileValidationFailureException(message);
+		} catch (IOException e) {
+			IOUtils.closeQuietly(writer);
+			FileUtils.deleteQuietly(processedFile);
+			Object[] args = { source.getAbsolutePath() };
+			String message = messageProvider.getMessage("dvpp.createvarsubtempfile_load_failure", args);
+			throw new VariableSubstitutionException(message, e);
+
+		} finally {
+			IOUtils.closeQuietly(reader);
 		}
 	}
 
 	/**
-	 * Save processed file.
+	 * Create unique name for temporary file with processed content. The file is
+	 * located in the same directory as the destination file.
 	 * 
 	 * @param destinationFile
 	 *            destination file name.
-	 * @param processedContent
-	 *            processed file content.
+	 * 
+	 * @return unique name for temporary file.
 	 * 
 	 * @throws VariableSubstitutionException
-	 *             if save fails.
+	 *             if creation of temporary file fails.
 	 */
-	void saveProcessedFile(File destinationFile, String processedContent) throws VariableSubstitutionException {
+	File createProcessedFileName(File destinationFile) throws VariableSubstitutionException {
 		try {
-			FileUtils.write(destinationFile, processedContent, DEFAULT_FILEENCODING_UTF_8);
+			return File.createTempFile(destinationFile.getName(), PROCESSED_FILE_SUFFIX,
+					destinationFile.getParentFile());
 
 		} catch (IOException e) {
 			Object[] args = { destinationFile.getAbsolutePath() };
@@ -310,25 +391,49 @@ public class VariableSubstitutionProviderImpl implements VariableSubstitutionPro
 	}
 
 	/**
-	 * Delete existing destination file if it exists.
+	 * Update destination file with processed file.
 	 * 
+	 * If the destination file exists with identical content then the destination
+	 * file isn't rewritten and the processed file is deleted. Otherwise the
+	 * processed file replaces the destination file.
+	 * 
+	 * @param processedFile
+	 *            temporary file with processed content.
 	 * @param destinationFile
-	 *            to be deleted.
+	 *            destination file.
+	 * @param result
+	 *            substitution result.
 	 * 
 	 * @throws VariableSubstitutionException
-	 *             if deletion fails.
+	 *             if update fails.
 	 */
-	void deletePreviousFile(File destinationFile) throws VariableSubstitutionException {
-
+	void updateDestinationFile(File processedFile, File destinationFile, ExecutionResult result)
+			throws VariableSubstitutionException {
 		try {
-			if (destinationFile.exists())
-				FileUtils.forceDelete(destinationFile);
+			if (destinationFile.exists() && FileUtils.contentEquals(processedFile, destinationFile)) {
+				FileUtils.forceDelete(processedFile);
+				Object[] args = { destinationFile.getAbsolutePath() };
+				String message = messageProvider.getMessage("dvpp.createvarsubtempfile_unchanged_info", args);
+				result.addMessage(ExecutionResult.MSG_MESSAGE, message);
+				return;
+			}
 
 		} catch (IOException e) {
+			FileUtils.deleteQuietly(processedFile);
 			Object[] args = { destinationFile.getAbsolutePath() };
 			String message = messageProvider.getMessage("dvpp.createvarsubtempfile_delete_failure", args);
 			throw new VariableSubstitutionException(message, e);
 		}
+
+		try {
+			Files.move(processedFile.toPath(), destinationFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+		} catch (IOException e) {
+			FileUtils.deleteQuietly(processedFile);
+			Object[] args = { destinationFile.getAbsolutePath() };
+			String message = messageProvider.getMessage("dvpp.createvarsubtempfile_save_failure", args);
+			throw new VariableSubstitutionException(message, e);
+		}
 	}
 
 	/**
@@ -351,26 +456,6 @@ public class VariableSubstitutionProviderImpl implements VariableSubstitutionPro
 		return destinationFile;
 	}
 
-	/**
-	 * Load source file into string with default encoding.
-	 * 
-	 * @param source
-	 *            path to source file.
-	 * 
-	 * @throws VariableSubstitutionException
-	 *             if loading fails.
-	 */
-	String loadSourceFile(File source) throws VariableSubstitutionException {
-		try {
-			return FileUtils.readFileToString(source, DEFAULT_FILEENCODING_UTF_8);
-
-		} catch (IOException e) {
-			Object[] args = { source.getAbsolutePath() };
-			String message = messageProvider.getMessage("dvpp.createvarsubtempfile_load_failure", args);
-			throw new VariableSubstitutionException(message, e);
-		}
-	}
-
 	/**
 	 * Create substitution result.
 	 * 
@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+ * Copyright (C) 2007-2012 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package com.alpha.pineapple.substitution.copy;
+
+import com.alpha.pineapple.substitution.variables.Variables;
+
+/**
+ * Factory for creation of variable substituted copies of objects.
+ * 
+ * Versus the {@linkplain com.alpha.pineapple.substitution.proxy.VariableSubstitutedProxyFactory}
+ * which substitutes variables on each access, this factory substitutes all
+ * variables once and returns a deep copy of the object graph.
+ */
+public interface VariableSubstitutedCopyFactory {
+
+	/**
+	 * Initialize factory with variable set used for variable substitution.
+	 * 
+	 * @param variables
+	 *            variable set used for variable substitution.
+	 */
+	void initialize(Variables variables);
+
+	/**
+	 * Create deep copy of target object where all strings in the object graph
+	 * are variable substituted.
+	 * 
+	 * @param targetObject
+	 *            target object
+	 * 
+	 * @return variable substituted copy of the target object.
+	 * 
+	 * @throws IllegalStateException
+	 *             if factory isn't initialized prior to usage.
+	 */
+	public <T> T createCopy(T targetObject);
+
+}
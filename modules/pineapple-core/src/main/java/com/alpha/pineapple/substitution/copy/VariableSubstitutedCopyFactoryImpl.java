@@ -0,0 +1,411 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+ * Copyright (C) 2007-2012 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package com.alpha.pineapple.substitution.copy;
+
+import static com.alpha.javautils.ArgumentUtils.notNull;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Resource;
+import javax.xml.bind.JAXBElement;
+
+import org.apache.log4j.Logger;
+import org.objenesis.ObjenesisHelper;
+
+import com.alpha.javautils.StackTraceHelper;
+import com.alpha.pineapple.i18n.MessageProvider;
+import com.alpha.pineapple.substitution.VariableResolver;
+import com.alpha.pineapple.substitution.variables.Variables;
+
+/**
+ * Implementation of the {@linkplain VariableSubstitutedCopyFactory} interface.
+ * 
+ * The object graph is walked once. Strings are substituted, collections, maps,
+ * arrays and {@linkplain JAXBElement} are copied and other objects are copied
+ * field by field. Field accessors are resolved once per class as method
+ * handles and cached for all factory instances.
+ * 
+ * Objects of JDK classes and classes whose fields can't be accessed are
+ * treated as values and are shared between the source and the copy.
+ */
+public class VariableSubstitutedCopyFactoryImpl implements VariableSubstitutedCopyFactory {
+
+	/**
+	 * Marker for classes whose objects are shared instead of copied.
+	 */
+	static final FieldAccessor[] SHARED = new FieldAccessor[0];
+
+	/**
+	 * Method type for erased getters.
+	 */
+	static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+	/**
+	 * Method type for erased setters.
+	 */
+	static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	/**
+	 * Cache of field accessors, keyed by class.
+	 */
+	static final Map<Class<?>, FieldAccessor[]> ACCESSORS = new ConcurrentHashMap<Class<?>, FieldAccessor[]>();
+
+	/**
+	 * Logger object
+	 */
+	Logger logger = Logger.getLogger(this.getClass().getName());
+
+	/**
+	 * Message provider for I18N support.
+	 */
+	@Resource
+	MessageProvider messageProvider;
+
+	/**
+	 * Variable resolver.
+	 */
+	@Resource
+	VariableResolver resolver;
+
+	/**
+	 * Variables.
+	 */
+	Variables variables;
+
+	@Override
+	public void initialize(Variables variables) {
+		notNull(variables, "variables is undefined.");
+		this.variables = variables;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T createCopy(T targetObject) {
+		validateInitialization();
+
+		try {
+			return (T) copy(targetObject, new IdentityHashMap<Object, Object>());
+
+		} catch (Throwable e) {
+			Object[] args = { e.getMessage() };
+			String message = messageProvider.getMessage("vscf.copy_error", args);
+			logger.error(message);
+			logger.error(StackTraceHelper.getStrackTrace(e));
+
+			// abort copy and return original object
+			return targetObject;
+		}
+	}
+
+	/**
+	 * Create variable substituted copy of object.
+	 * 
+	 * @param source
+	 *            source object.
+	 * @param copies
+	 *            objects copied so far, used to preserve shared references.
+	 * 
+	 * @return variable substituted copy of object.
+	 * 
+	 * @throws Throwable
+	 *             if copy fails.
+	 */
+	Object copy(Object source, Map<Object, Object> copies) throws Throwable {
+		if (source == null)
+			return null;
+
+		// substitute string
+		if (source instanceof String)
+			return resolver.resolve(variables, (String) source);
+
+		// exit if object is a value
+		Class<?> sourceClass = source.getClass();
+		if (isValueType(sourceClass))
+			return source;
+
+		// return existing copy
+		Object existingCopy = copies.get(source);
+		if (existingCopy != null)
+			return existingCopy;
+
+		if (source instanceof JAXBElement)
+			return copyJaxbElement((JAXBElement<?>) source, copies);
+		if (source instanceof List)
+			return copyCollection((Collection<?>) source, new ArrayList<Object>(((List<?>) source).size()), copies);
+		if (source instanceof Set)
+			return copyCollection((Collection<?>) source, new LinkedHashSet<Object>(), copies);
+		if (source instanceof Map)
+			return copyMap((Map<?, ?>) source, copies);
+		if (sourceClass.isArray())
+			return copyArray(source, copies);
+
+		// share object if fields can't be accessed
+		FieldAccessor[] accessors = getAccessors(sourceClass);
+		if (accessors == SHARED)
+			return source;
+
+		// copy fields
+		Object target = ObjenesisHelper.newInstance(sourceClass);
+		copies.put(source, target);
+		for (FieldAccessor accessor : accessors) {
+			Object value = accessor.getter.invokeExact(source);
+			if (!accessor.primitive)
+				value = copy(value, copies);
+			accessor.setter.invokeExact(target, value);
+		}
+		return target;
+	}
+
+	/**
+	 * Copy JAXB element.
+	 * 
+	 * @param source
+	 *            source element.
+	 * @param copies
+	 *            objects copied so far.
+	 * 
+	 * @return copied JAXB element.
+	 * 
+	 * @throws Throwable
+	 *             if copy fails.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	Object copyJaxbElement(JAXBElement<?> source, Map<Object, Object> copies) throws Throwable {
+		JAXBElement target = new JAXBElement(source.getName(), source.getDeclaredType(), source.getScope(), null);
+		copies.put(source, target);
+		target.setValue(copy(source.getValue(), copies));
+		target.setNil(source.isNil());
+		return target;
+	}
+
+	/**
+	 * Copy collection.
+	 * 
+	 * @param source
+	 *            source collection.
+	 * @param target
+	 *            empty target collection.
+	 * @param copies
+	 *            objects copied so far.
+	 * 
+	 * @return target collection.
+	 * 
+	 * @throws Throwable
+	 *             if copy fails.
+	 */
+	Object copyCollection(Collection<?> source, Collection<Object> target, Map<Object, Object> copies)
+			throws Throwable {
+		copies.put(source, target);
+		for (Object element : source) {
+			target.add(copy(element, copies));
+		}
+		return target;
+	}
+
+	/**
+	 * Copy map.
+	 * 
+	 * @param source
+	 *            source map.
+	 * @param copies
+	 *            objects copied so far.
+	 * 
+	 * @return copied map.
+	 * 
+	 * @throws Throwable
+	 *             if copy fails.
+	 */
+	Object copyMap(Map<?, ?> source, Map<Object, Object> copies) throws Throwable {
+		Map<Object, Object> target = new LinkedHashMap<Object, Object>();
+		copies.put(source, target);
+		for (Map.Entry<?, ?> entry : source.entrySet()) {
+			target.put(copy(entry.getKey(), copies), copy(entry.getValue(), copies));
+		}
+		return target;
+	}
+
+	/**
+	 * Copy array.
+	 * 
+	 * @param source
+	 *            source array.
+	 * @param copies
+	 *            objects copied so far.
+	 * 
+	 * @return copied array.
+	 * 
+	 * @throws Throwable
+	 *             if copy fails.
+	 */
+	Object copyArray(Object source, Map<Object, Object> copies) throws Throwable {
+		int length = Array.getLength(source);
+		Class<?> componentType = source.getClass().getComponentType();
+		Object target = Array.newInstance(componentType, length);
+		copies.put(source, target);
+		if (componentType.isPrimitive()) {
+			System.arraycopy(source, 0, target, 0, length);
+			return target;
+		}
+		Object[] sourceArray = (Object[]) source;
+		Object[] targetArray = (Object[]) target;
+		for (int index = 0; index < length; index++) {
+			targetArray[index] = copy(sourceArray[index], copies);
+		}
+		return target;
+	}
+
+	/**
+	 * Returns true if objects of the class are values which are shared instead
+	 * of copied.
+	 * 
+	 * @param type
+	 *            class.
+	 * 
+	 * @return true if objects of the class are values.
+	 */
+	boolean isValueType(Class<?> type) {
+		if (type.isEnum())
+			return true;
+		if (type.isArray())
+			return false;
+		if (List.class.isAssignableFrom(type))
+			return false;
+		if (Set.class.isAssignableFrom(type))
+			return false;
+		if (Map.class.isAssignableFrom(type))
+			return false;
+		if (JAXBElement.class.isAssignableFrom(type))
+			return false;
+		String name = type.getName();
+		return name.startsWith("java.") || name.startsWith("javax.");
+	}
+
+	/**
+	 * Get field accessors for class. The accessors are resolved on first
+	 * request and then cached.
+	 * 
+	 * @param type
+	 *            class.
+	 * 
+	 * @return field accessors for class. Returns {@linkplain #SHARED} if the
+	 *         fields of the class can't be accessed.
+	 */
+	FieldAccessor[] getAccessors(Class<?> type) {
+		return ACCESSORS.computeIfAbsent(type, this::createAccessors);
+	}
+
+	/**
+	 * Create field accessors for all instance fields of class and its super
+	 * classes.
+	 * 
+	 * @param type
+	 *            class.
+	 * 
+	 * @return field accessors for class. Returns {@linkplain #SHARED} if the
+	 *         fields of the class can't be accessed.
+	 */
+	FieldAccessor[] createAccessors(Class<?> type) {
+		try {
+			List<FieldAccessor> accessors = new ArrayList<FieldAccessor>();
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			for (Class<?> current = type; current != null && current != Object.class; current = current
+					.getSuperclass()) {
+				for (Field field : current.getDeclaredFields()) {
+					int modifiers = field.getModifiers();
+					if (Modifier.isStatic(modifiers))
+						continue;
+					if (field.isSynthetic())
+						continue;
+					field.setAccessible(true);
+					MethodHandle getter = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+					MethodHandle setter = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+					accessors.add(new FieldAccessor(getter, setter, field.getType().isPrimitive()));
+				}
+			}
+			return accessors.toArray(new FieldAccessor[accessors.size()]);
+
+		} catch (Exception e) {
+
+			// log debug message
+			if (logger.isDebugEnabled()) {
+				Object[] args = { type.getName(), e.getMessage() };
+				logger.debug(messageProvider.getMessage("vscf.share_object_info", args));
+			}
+
+			return SHARED;
+		}
+	}
+
+	/**
+	 * Validate factory is initialized.
+	 */
+	void validateInitialization() {
+		if (variables != null)
+			return;
+
+		// handle uninitialized case
+		String message = messageProvider.getMessage("vscf.not_initialized_error");
+		throw new IllegalStateException(message);
+	}
+
+	/**
+	 * Accessor for a single field.
+	 */
+	static class FieldAccessor {
+
+		/**
+		 * Getter with type (Object)Object.
+		 */
+		final MethodHandle getter;
+
+		/**
+		 * Setter with type (Object,Object)void.
+		 */
+		final MethodHandle setter;
+
+		/**
+		 * True if field type is primitive.
+		 */
+		final boolean primitive;
+
+		FieldAccessor(MethodHandle getter, MethodHandle setter, boolean primitive) {
+			this.getter = getter;
+			this.setter = setter;
+			this.primitive = primitive;
+		}
+	}
+}
@@ -23,6 +23,8 @@
 package com.alpha.pineapple.substitution.proxy;
 
 import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import net.sf.cglib.proxy.MethodInterceptor;
 import net.sf.cglib.proxy.MethodProxy;
@@ -35,6 +37,11 @@ import com.alpha.pineapple.substitution.variables.Variables;
 /**
  * Implementation of the CGLIB {@linkplain MethodInterceptor} interface which
  * implements variable substitution for methods returning a string.
+ * 
+ * Processed return values of methods without arguments are memoised per
+ * proxied object. The memoised value is reused as long as the proxied object
+ * returns the same (identical) value, so changes to the proxied object are
+ * still reflected by the proxy.
  */
 public class CglibVariableSubstitutionInterceptorImpl implements MethodInterceptor {
 
@@ -63,6 +70,11 @@ public class CglibVariableSubstitutionInterceptorImpl implements MethodIntercept
 	 */
 	Variables variables;
 
+	/**
+	 * Memoised return values for methods without arguments.
+	 */
+	Map<Method, MemoisedValue> memoisedValues = new ConcurrentHashMap<Method, MemoisedValue>();
+
 	/**
 	 * ProxyInterceptorImpl constructor.
 	 * 
@@ -87,6 +99,32 @@ public class CglibVariableSubstitutionInterceptorImpl implements MethodIntercept
 		if (returnValue == null)
 			return null;
 
+		// only memoise methods without arguments
+		if ((args != null) && (args.length > 0))
+			return processReturnValue(returnValue);
+
+		// return memoised value if proxied object returned the same value
+		MemoisedValue memoisedValue = memoisedValues.get(method);
+		if ((memoisedValue != null) && (memoisedValue.returnValue == returnValue))
+			return memoisedValue.processedValue;
+
+		// process and memoise
+		Object processedValue = processReturnValue(returnValue);
+		memoisedValues.put(method, new MemoisedValue(returnValue, processedValue));
+		return processedValue;
+	}
+
+	/**
+	 * Process return value. Strings are substituted and other objects are
+	 * decorated with a proxy.
+	 * 
+	 * @param returnValue
+	 *            return value from proxied object.
+	 * 
+	 * @return processed return value.
+	 */
+	Object processReturnValue(Object returnValue) {
+
 		// process string for substitution
 		if (isStringType(returnValue)) {
 			String strValue = returnValue.toString();
@@ -119,4 +157,25 @@ public class CglibVariableSubstitutionInterceptorImpl implements MethodIntercept
 		return String.class.isAssignableFrom(returnType);
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Memoised return value.
+	 */
+	static class MemoisedValue {
+
+		/**
+		 * Return value from proxied object.
+		 */
+		final Object returnValue;
+
+		/**
+		 * Processed return value.
+		 */
+		final Object processedValue;
+
+		MemoisedValue(Object returnValue, Object processedValue) {
+			this.returnValue = returnValue;
+			this.processedValue = processedValue;
+		}
+	}
+
+}
\ No newline at end of file
@@ -24,10 +24,14 @@ package com.alpha.pineapple.substitution.proxy;
 import static com.alpha.javautils.ArgumentUtils.notNull;
 import static org.apache.commons.lang3.Validate.notEmpty;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import javax.annotation.Resource;
 
 import net.sf.cglib.proxy.Callback;
 import net.sf.cglib.proxy.Enhancer;
+import net.sf.cglib.proxy.Factory;
 
 import org.apache.commons.lang3.Validate;
 import org.apache.log4j.Logger;
@@ -42,6 +46,10 @@ import com.alpha.pineapple.substitution.variables.Variables;
 
 /**
  * Implementation of the {@linkplain VariableSubstitutedProxyFactory} interface.
+ * 
+ * Generated CGLIB proxy classes are cached per target class and shared by all
+ * factory instances. Callbacks are bound to each proxy instance through the
+ * CGLIB {@linkplain Factory} interface.
  */
 public class VariableSubstitutedProxyFactoryImpl implements VariableSubstitutedProxyFactory {
 
@@ -79,6 +87,11 @@ public class VariableSubstitutedProxyFactoryImpl implements VariableSubstitutedP
 	 */
 	final Class<?>[] CALLBACK_TYPES = new Class<?>[] { CglibVariableSubstitutionInterceptorImpl.class };
 
+	/**
+	 * Cache of generated CGLIB proxy classes, keyed by target class.
+	 */
+	static final Map<Class<?>, Class<?>> PROXY_CLASSES = new ConcurrentHashMap<Class<?>, Class<?>>();
+
 	/**
 	 * Variables.
 	 */
@@ -163,14 +176,30 @@ public class VariableSubstitutedProxyFactoryImpl implements VariableSubstitutedP
 			logger.debug(message);
 		}
 
-		final Enhancer enhancer = new Enhancer();
-		enhancer.setSuperclass(targetObject.getClass());
-		enhancer.setCallbackTypes(CALLBACK_TYPES);
-		final Class<?> proxyClass = enhancer.createClass();
+		final Class<?> proxyClass = getProxyClass(targetObject.getClass());
 		final Callback[] callBacks = new Callback[] {
 				new CglibVariableSubstitutionInterceptorImpl(this, variables, resolver, targetObject) };
-		Enhancer.registerCallbacks(proxyClass, callBacks);
-		return (T) ObjenesisHelper.newInstance(proxyClass);
+		final Factory proxy = (Factory) ObjenesisHelper.newInstance(proxyClass);
+		proxy.setCallbacks(callBacks);
+		return (T) proxy;
+	}
+
+	/**
+	 * Get CGLIB proxy class for target class. The proxy class is generated on
+	 * first request and then cached.
+	 * 
+	 * @param targetClass
+	 *            target class.
+	 * 
+	 * @return CGLIB proxy class.
+	 */
+	Class<?> getProxyClass(Class<?> targetClass) {
+		return PROXY_CLASSES.computeIfAbsent(targetClass, superClass -> {
+			final Enhancer enhancer = new Enhancer();
+			enhancer.setSuperclass(superClass);
+			enhancer.setCallbackTypes(CALLBACK_TYPES);
+			return enhancer.createClass();
+		});
 	}
 
 	/**
@@ -25,6 +25,8 @@ package com.alpha.pineapple.substitution.variables;
 import java.util.Collections;
 import java.util.Map;
 
+import org.apache.commons.lang3.text.StrSubstitutor;
+
 /**
  * Default implementation of the {@linkplain Variables} interface.
  */
@@ -35,6 +37,11 @@ public class DefaultVariablesImpl implements Variables {
 	 */
 	Map<String, String> variables;
 
+	/**
+	 * Substitutor bound to the variables map.
+	 */
+	StrSubstitutor substitutor;
+
 	/**
 	 * DefaultVariablesImpl constructor.
 	 * 
@@ -43,6 +50,7 @@ public class DefaultVariablesImpl implements Variables {
 	 */
 	public DefaultVariablesImpl(Map<String, String> variables) {
 		this.variables = variables;
+		this.substitutor = new StrSubstitutor(variables);
 	}
 
 	@Override
@@ -50,4 +58,9 @@ public class DefaultVariablesImpl implements Variables {
 		return Collections.unmodifiableMap(variables);
 	}
 
+	@Override
+	public StrSubstitutor getSubstitutor() {
+		return substitutor;
+	}
+
 }
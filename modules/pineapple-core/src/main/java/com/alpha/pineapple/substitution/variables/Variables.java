@@ -24,6 +24,8 @@ package com.alpha.pineapple.substitution.variables;
 
 import java.util.Map;
 
+import org.apache.commons.lang3.text.StrSubstitutor;
+
 /**
  * Interface for set of variables intended for usage in variable substitution.
  */
@@ -35,4 +37,14 @@ public interface Variables {
 	 * @return map for variables for resolution.
 	 */
 	public Map<String, String> getMap();
+
+	/**
+	 * Get substitutor bound to the variables.
+	 * 
+	 * The substitutor is created once and reused for all resolutions with the
+	 * variables.
+	 * 
+	 * @return substitutor bound to the variables.
+	 */
+	public StrSubstitutor getSubstitutor();
 }
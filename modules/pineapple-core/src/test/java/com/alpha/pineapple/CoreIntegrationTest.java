@@ -55,6 +55,7 @@ import org.springframework.test.context.support.DirtiesContextTestExecutionListe
 
 import com.alpha.javautils.SystemUtils;
 import com.alpha.pineapple.credential.CredentialProvider;
+import com.alpha.pineapple.execution.BackPressurePolicy;
 import com.alpha.pineapple.execution.ExecutionResult;
 import com.alpha.pineapple.execution.ExecutionResultNotification;
 import com.alpha.pineapple.execution.ResultListener;
@@ -692,6 +693,37 @@ public class CoreIntegrationTest {
 		verify(mockListener2);
 	}
 
+	/**
+	 * Factory test, i.e. that core instance can be created from
+	 * {@link CoreFactory} with listeners which are notified asynchronously and
+	 * that the listeners are registered.
+	 * 
+	 * The Pineapple home system property is set to use the test directory.
+	 * 
+	 * @throws Exception if test fails.
+	 */
+	@Test
+	public void testCreateInstanceFromFactory_WithAsynchronousListener() throws Exception {
+		setPineappleHome();
+
+		// create mock listener
+		ResultListener mockListener = createMock(ResultListener.class);
+		mockListener.notify(isA(ExecutionResultNotification.class));
+		expectLastCall().anyTimes();
+		replay(mockListener);
+
+		ResultListener[] listeners = { mockListener };
+
+		// create core component
+		PineappleCore core = coreFactory.createCore(listeners, BackPressurePolicy.COALESCE);
+
+		// test
+		assertNotNull(core);
+		ResultListener[] registeredListeners = core.getListeners();
+		assertEquals(1, registeredListeners.length);
+		assertEquals(mockListener, registeredListeners[0]);
+	}
+
 	/**
 	 * Initialization test. Tests that core instance can be created with external
 	 * resources file. The file is specified by an absolute file name.
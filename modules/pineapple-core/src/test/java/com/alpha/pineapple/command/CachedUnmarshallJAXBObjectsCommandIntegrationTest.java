@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+* Copyright (C) 2007-2015 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package com.alpha.pineapple.command;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import javax.annotation.Resource;
+
+import org.apache.commons.chain.Command;
+import org.apache.commons.chain.Context;
+import org.apache.commons.chain.impl.ContextBase;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+
+import com.alpha.pineapple.execution.ExecutionResult;
+import com.alpha.pineapple.execution.ExecutionResultImpl;
+import com.alpha.pineapple.model.test.ItemType;
+import com.alpha.pineapple.model.test.ObjectFactory;
+import com.alpha.pineapple.model.test.Root;
+import com.alpha.pineapple.module.ModelCache;
+import com.alpha.springutils.DirectoryTestExecutionListener;
+import com.alpha.testutils.ObjectMotherEnvironmentConfiguration;
+
+/**
+ * integration test of the class {@link CachedUnmarshallJAXBObjectsCommand}.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@TestExecutionListeners({ DependencyInjectionTestExecutionListener.class, DirectoryTestExecutionListener.class })
+@ContextConfiguration(locations = { "/com.alpha.pineapple.core-config.xml" })
+public class CachedUnmarshallJAXBObjectsCommandIntegrationTest {
+
+	/**
+	 * Object under test.
+	 */
+	@Resource
+	Command cachedUnmarshallJAXBObjectsCommand;
+
+	/**
+	 * Model cache.
+	 */
+	@Resource
+	ModelCache modelCache;
+
+	/**
+	 * Current test directory.
+	 */
+	File testDirectory;
+
+	/**
+	 * Test file.
+	 */
+	File file;
+
+	/**
+	 * Configuration object mother
+	 */
+	ObjectMotherEnvironmentConfiguration configMother;
+
+	@Before
+	public void setUp() throws Exception {
+
+		// get the test directory
+		testDirectory = DirectoryTestExecutionListener.getCurrentTestDirectory();
+		file = new File(testDirectory, RandomStringUtils.randomAlphabetic(10) + ".xml");
+
+		// configuration object mother
+		configMother = new ObjectMotherEnvironmentConfiguration();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		modelCache.invalidate(testDirectory);
+	}
+
+	/**
+	 * Create test document with items and marshall it to the test file.
+	 * 
+	 * @param items
+	 *            number of items.
+	 */
+	void createFile(int items) {
+		ObjectFactory factory = new ObjectFactory();
+		Root root = factory.createRoot();
+		root.setContainer(factory.createContainerType());
+		for (int index = 0; index < items; index++) {
+			ItemType item = factory.createItemType();
+			item.setName("item" + index);
+			root.getContainer().getItems().add(item);
+		}
+		configMother.jaxbMarshall(root, file);
+	}
+
+	/**
+	 * Execute command.
+	 * 
+	 * @param file
+	 *            file to unmarshall.
+	 * @param executionResult
+	 *            execution result.
+	 * 
+	 * @return unmarshalled root object.
+	 */
+	@SuppressWarnings("unchecked")
+	Object execute(File file, ExecutionResult executionResult) throws Exception {
+		Context context = new ContextBase();
+		context.put(CachedUnmarshallJAXBObjectsCommand.FILE_KEY, file);
+		context.put(CachedUnmarshallJAXBObjectsCommand.PACKAGE_KEY, Root.class.getPackage());
+		context.put(CachedUnmarshallJAXBObjectsCommand.EXECUTIONRESULT_KEY, executionResult);
+		cachedUnmarshallJAXBObjectsCommand.execute(context);
+		return context.get(CachedUnmarshallJAXBObjectsCommand.UNMARSHALLING_RESULT_KEY);
+	}
+
+	/**
+	 * Test that unmodified file is loaded from the cache.
+	 */
+	@Test
+	public void testUnmodifiedFileIsLoadedFromCache() throws Exception {
+		createFile(2);
+
+		// execute twice
+		ExecutionResult executionResult = new ExecutionResultImpl(RandomStringUtils.randomAlphabetic(10));
+		Object first = execute(file, executionResult);
+		ExecutionResult executionResult2 = new ExecutionResultImpl(RandomStringUtils.randomAlphabetic(10));
+		long hits = modelCache.getHits();
+		Object second = execute(file, executionResult2);
+
+		// test
+		assertTrue(executionResult.isSuccess());
+		assertTrue(executionResult2.isSuccess());
+		assertSame(first, second);
+		assertTrue(modelCache.getHits() > hits);
+	}
+
+	/**
+	 * Test that modified file is unmarshalled again.
+	 */
+	@Test
+	public void testModifiedFileIsUnmarshalled() throws Exception {
+		createFile(2);
+		Object first = execute(file, new ExecutionResultImpl(RandomStringUtils.randomAlphabetic(10)));
+
+		// modify file
+		createFile(3);
+		ExecutionResult executionResult = new ExecutionResultImpl(RandomStringUtils.randomAlphabetic(10));
+		Root second = (Root) execute(file, executionResult);
+
+		// test
+		assertTrue(executionResult.isSuccess());
+		assertNotSame(first, second);
+		assertTrue(second.getContainer().getItems().size() == 3);
+	}
+
+	/**
+	 * Test that command fails if file doesn't exist.
+	 */
+	@Test
+	public void testCommandFailsIfFileDoesntExist() throws Exception {
+		ExecutionResult executionResult = new ExecutionResultImpl(RandomStringUtils.randomAlphabetic(10));
+		execute(file, executionResult);
+
+		// test
+		assertTrue(executionResult.isError());
+		assertNull(modelCache.get(file, Root.class.getPackage()));
+	}
+}
@@ -26,6 +26,7 @@ import static com.alpha.pineapple.CoreConstants.MSG_ENVIRONMENT;
 import static com.alpha.pineapple.CoreConstants.MSG_MODULE;
 import static com.alpha.pineapple.CoreConstants.MSG_MODULE_FILE;
 import static com.alpha.pineapple.CoreConstants.MSG_OPERATION;
+import static com.alpha.pineapple.CoreConstants.MSG_PARALLEL_EXECUTION;
 import static com.alpha.pineapple.CoreConstants.TRIGGER_WILDCARD_OPERATION;
 import static com.alpha.pineapple.CoreConstants.TRIGGER_WILDCARD_RESULT;
 import static org.junit.Assert.assertEquals;
@@ -416,6 +417,91 @@ public class InvokePluginsCommandIntegrationTest {
 		assertTrue(executionResult.isSuccess());
 	}
 
+	/**
+	 * Create resources configuration with a single environment containing two
+	 * resources for the wild card operation test plugin.
+	 * 
+	 * @param resourceId
+	 *            ID of first resource.
+	 * @param resourceId2
+	 *            ID of second resource.
+	 * 
+	 * @return resources configuration with two resources.
+	 */
+	Configuration createEnvConfigWithTwoResources(String resourceId, String resourceId2) {
+		Configuration configuration = envConfigurationMother.createEnvConfigWithSingleResource(randomEnvironment,
+				resourceId, WildcardOperationTestPluginImpl.PLUGIN_ID);
+		Configuration configuration2 = envConfigurationMother.createEnvConfigWithSingleResource(randomEnvironment,
+				resourceId2, WildcardOperationTestPluginImpl.PLUGIN_ID);
+		configuration.getEnvironments().getEnvironment().get(0).getResources().getResource()
+				.addAll(configuration2.getEnvironments().getEnvironment().get(0).getResources().getResource());
+		return configuration;
+	}
+
+	/**
+	 * Test that command can successfully execute single model in parallel on
+	 * multiple target resources.
+	 * 
+	 * @throws Exception
+	 *             If test fails.
+	 */
+	@Test
+	public void testExecuteSingleModelInParallelOnMultipleTargetResources() throws Exception {
+		String randomTargetResource2 = RandomStringUtils.randomAlphabetic(10);
+		Configuration resourcesConfiguration = createEnvConfigWithTwoResources(randomTargetResource,
+				randomTargetResource2);
+		initializePluginActivator(resourcesConfiguration);
+
+		// create arguments
+		String targetResources = "{" + randomTargetResource + "," + randomTargetResource2 + "}";
+		Models model = moduleMother.createModelObjectWithModelWithTargetResourceAttribute(targetResources);
+		model.setParallel(true);
+		Module module = moduleMother.createModuleObject();
+		ModuleInfo moduleInfo = ModuleInfoImpl.getInstance(randomId, NO_ENVIRONENTS, DESCRIPTOR_IS_DEFINED,
+				randomDirectory);
+		ExecutionInfo executionInfo = new ExecutionInfoImpl(moduleInfo, randomEnvironment, randomOperation,
+				executionResult);
+
+		executeCommand(model, module, executionInfo);
+
+		// test
+		assertTrue(executionResult.isSuccess());
+		assertTrue(executionResult.getMessages().containsKey(MSG_PARALLEL_EXECUTION));
+	}
+
+	/**
+	 * Test that parallel execution creates model results in target resource
+	 * order, i.e. the same result tree as sequential execution.
+	 * 
+	 * @throws Exception
+	 *             If test fails.
+	 */
+	@Test
+	public void testParallelExecutionCreatesModelResultsInTargetResourceOrder() throws Exception {
+		String randomTargetResource2 = RandomStringUtils.randomAlphabetic(10);
+		Configuration resourcesConfiguration = createEnvConfigWithTwoResources(randomTargetResource,
+				randomTargetResource2);
+		initializePluginActivator(resourcesConfiguration);
+
+		// create arguments
+		String targetResources = "{" + randomTargetResource + "," + randomTargetResource2 + "}";
+		Models model = moduleMother.createModelObjectWithModelWithTargetResourceAttribute(targetResources);
+		model.setParallel(true);
+		Module module = moduleMother.createModuleObject();
+		ModuleInfo moduleInfo = ModuleInfoImpl.getInstance(randomId, NO_ENVIRONENTS, DESCRIPTOR_IS_DEFINED,
+				randomDirectory);
+		ExecutionInfo executionInfo = new ExecutionInfoImpl(moduleInfo, randomEnvironment, randomOperation,
+				executionResult);
+
+		executeCommand(model, module, executionInfo);
+
+		// test
+		ExecutionResult[] children = executionResult.getChildren();
+		assertEquals(2, children.length);
+		assertTrue(children[0].getDescription().contains(randomTargetResource));
+		assertTrue(children[1].getDescription().contains(randomTargetResource2));
+	}
+
 	/**
 	 * Test that the continue-on-failure policy is activated by default if it isn't
 	 * defined in the model.
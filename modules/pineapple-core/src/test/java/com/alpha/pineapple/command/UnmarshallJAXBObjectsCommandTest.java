@@ -41,6 +41,8 @@ import com.alpha.easymockutils.MessageProviderAnswerImpl;
 import com.alpha.pineapple.command.initialization.CommandInitializationFailedException;
 import com.alpha.pineapple.execution.ExecutionResult;
 import com.alpha.pineapple.i18n.MessageProvider;
+import com.alpha.pineapple.model.JAXBContextRegistry;
+import com.alpha.pineapple.model.JAXBContextRegistryImpl;
 import com.alpha.springutils.DirectoryTestExecutionListener;
 import com.alpha.testutils.ObjectMotherEnvironmentConfiguration;
 
@@ -104,6 +106,10 @@ public class UnmarshallJAXBObjectsCommandTest {
 		// inject message source
 		ReflectionTestUtils.setField(command, "messageProvider", messageProvider, MessageProvider.class);
 
+		// inject JAXB context registry
+		ReflectionTestUtils.setField(command, "jaxbContextRegistry", new JAXBContextRegistryImpl(),
+				JAXBContextRegistry.class);
+
 		// complete mock source initialization
 		IAnswer<String> answer = new MessageProviderAnswerImpl();
 
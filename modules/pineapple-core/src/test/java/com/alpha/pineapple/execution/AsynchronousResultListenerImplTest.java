@@ -0,0 +1,372 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+* Copyright (C) 2007-2015 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package com.alpha.pineapple.execution;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.RandomStringUtils;
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alpha.easymockutils.MessageProviderAnswerImpl;
+import com.alpha.pineapple.execution.ExecutionResult.ExecutionState;
+import com.alpha.pineapple.i18n.MessageProvider;
+
+/**
+ * Unit test for the {@link AsynchronousResultListenerImpl} class.
+ */
+public class AsynchronousResultListenerImplTest {
+
+	/**
+	 * Object under test.
+	 */
+	AsynchronousResultListenerImpl asyncListener;
+
+	/**
+	 * Mock message provider.
+	 */
+	MessageProvider messageProvider;
+
+	/**
+	 * Notifications received by the registered listener.
+	 */
+	List<ExecutionResultNotification> received;
+
+	/**
+	 * Registered listener.
+	 */
+	ResultListener listener;
+
+	/**
+	 * Dispatch tasks which are executed manually.
+	 */
+	List<Runnable> tasks;
+
+	/**
+	 * Random description.
+	 */
+	String randomDescription;
+
+	@Before
+	public void setUp() throws Exception {
+		randomDescription = RandomStringUtils.randomAlphabetic(10) + "-desc";
+		received = new CopyOnWriteArrayList<ExecutionResultNotification>();
+		listener = notification -> received.add(notification);
+		tasks = new ArrayList<Runnable>();
+
+		// create mock provider
+		messageProvider = EasyMock.createMock(MessageProvider.class);
+		IAnswer<String> answer = new MessageProviderAnswerImpl();
+		EasyMock.expect(messageProvider.getMessage((String) EasyMock.isA(String.class),
+				(Object[]) EasyMock.isA(Object[].class)));
+		EasyMock.expectLastCall().andAnswer(answer).anyTimes();
+		EasyMock.replay(messageProvider);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		asyncListener = null;
+	}
+
+	/**
+	 * Create listener where dispatch tasks are executed manually.
+	 * 
+	 * @param policy
+	 *            back-pressure policy.
+	 * @param capacity
+	 *            queue capacity.
+	 */
+	void createListener(BackPressurePolicy policy, int capacity) {
+		asyncListener = new AsynchronousResultListenerImpl(listener, policy, capacity, 2, tasks::add,
+				messageProvider);
+	}
+
+	/**
+	 * Run scheduled dispatch tasks.
+	 */
+	void runTasks() {
+		List<Runnable> scheduled = new ArrayList<Runnable>(tasks);
+		tasks.clear();
+		for (Runnable task : scheduled) {
+			task.run();
+		}
+	}
+
+	/**
+	 * Create notification.
+	 * 
+	 * @param result
+	 *            execution result.
+	 * @param state
+	 *            execution state.
+	 * 
+	 * @return notification.
+	 */
+	ExecutionResultNotification createNotification(ExecutionResult result, ExecutionState state) {
+		return ExecutionResultNotificationImpl.getInstance(result, state);
+	}
+
+	/**
+	 * Test that notifications are queued until the dispatch task is executed.
+	 */
+	@Test
+	public void testNotificationsAreQueuedUntilDispatched() {
+		createListener(BackPressurePolicy.BLOCK, 10);
+		ExecutionResult result = new ExecutionResultImpl(randomDescription);
+		asyncListener.notify(createNotification(result, ExecutionState.EXECUTING));
+		asyncListener.notify(createNotification(result, ExecutionState.SUCCESS));
+
+		// test
+		assertEquals(0, received.size());
+		assertEquals(2, asyncListener.getQueueDepth());
+		assertEquals(1, tasks.size());
+
+		runTasks();
+		assertEquals(2, received.size());
+		assertEquals(0, asyncListener.getQueueDepth());
+		assertEquals(2, asyncListener.getDeliveredNotifications());
+		assertEquals(ExecutionState.EXECUTING, received.get(0).getState());
+		assertEquals(ExecutionState.SUCCESS, received.get(1).getState());
+	}
+
+	/**
+	 * Test that a single dispatch task delivers all queued notifications in
+	 * batches.
+	 */
+	@Test
+	public void testQueuedNotificationsAreDeliveredInBatchesByOneTask() {
+		createListener(BackPressurePolicy.BLOCK, 10);
+		for (int i = 0; i < 5; i++) {
+			asyncListener.notify(createNotification(new ExecutionResultImpl(randomDescription + i),
+					ExecutionState.EXECUTING));
+		}
+
+		// test
+		assertEquals(1, tasks.size());
+		runTasks();
+		assertEquals(5, received.size());
+		for (int i = 0; i < 5; i++) {
+			assertEquals(randomDescription + i, received.get(i).getResult().getDescription());
+		}
+	}
+
+	/**
+	 * Test that a new dispatch task is scheduled after the queue is drained.
+	 */
+	@Test
+	public void testDispatchTaskIsScheduledAfterQueueIsDrained() {
+		createListener(BackPressurePolicy.BLOCK, 10);
+		ExecutionResult result = new ExecutionResultImpl(randomDescription);
+		asyncListener.notify(createNotification(result, ExecutionState.EXECUTING));
+		runTasks();
+		asyncListener.notify(createNotification(result, ExecutionState.SUCCESS));
+
+		// test
+		assertEquals(1, tasks.size());
+		runTasks();
+		assertEquals(2, received.size());
+	}
+
+	/**
+	 * Test that the oldest notification is dropped when the queue is full.
+	 */
+	@Test
+	public void testOldestNotificationIsDroppedWhenQueueIsFull() {
+		createListener(BackPressurePolicy.DROP_OLDEST, 2);
+		for (int i = 0; i < 3; i++) {
+			asyncListener.notify(createNotification(new ExecutionResultImpl(randomDescription + i),
+					ExecutionState.EXECUTING));
+		}
+
+		// test
+		assertEquals(2, asyncListener.getQueueDepth());
+		assertEquals(1, asyncListener.getDroppedNotifications());
+		runTasks();
+		assertEquals(2, received.size());
+		assertEquals(randomDescription + 1, received.get(0).getResult().getDescription());
+		assertEquals(randomDescription + 2, received.get(1).getResult().getDescription());
+	}
+
+	/**
+	 * Test that the queued notification for the same result is replaced when
+	 * the queue is full.
+	 */
+	@Test
+	public void testNotificationIsCoalescedWhenQueueIsFull() {
+		createListener(BackPressurePolicy.COALESCE, 2);
+		ExecutionResult result = new ExecutionResultImpl(randomDescription);
+		ExecutionResult result2 = new ExecutionResultImpl(randomDescription);
+		asyncListener.notify(createNotification(result, ExecutionState.EXECUTING));
+		asyncListener.notify(createNotification(result2, ExecutionState.EXECUTING));
+		asyncListener.notify(createNotification(result, ExecutionState.SUCCESS));
+
+		// test
+		assertEquals(2, asyncListener.getQueueDepth());
+		assertEquals(1, asyncListener.getCoalescedNotifications());
+		runTasks();
+		assertSame(result, received.get(0).getResult());
+		assertEquals(ExecutionState.SUCCESS, received.get(0).getState());
+		assertSame(result2, received.get(1).getResult());
+	}
+
+	/**
+	 * Test that the notifying thread is blocked when the queue is full.
+	 */
+	@Test
+	public void testNotifyingThreadIsBlockedWhenQueueIsFull() throws Exception {
+		createListener(BackPressurePolicy.BLOCK, 1);
+		ExecutionResult result = new ExecutionResultImpl(randomDescription);
+		asyncListener.notify(createNotification(result, ExecutionState.EXECUTING));
+
+		// notify from other thread
+		CountDownLatch notified = new CountDownLatch(1);
+		Thread thread = new Thread(() -> {
+			asyncListener.notify(createNotification(result, ExecutionState.SUCCESS));
+			notified.countDown();
+		});
+		thread.start();
+
+		// test
+		assertFalse(notified.await(200, TimeUnit.MILLISECONDS));
+		runTasks();
+		assertTrue(notified.await(5, TimeUnit.SECONDS));
+		runTasks();
+		assertEquals(2, received.size());
+		assertEquals(ExecutionState.SUCCESS, received.get(1).getState());
+	}
+
+	/**
+	 * Test that a failing listener doesn't stop the delivery of the remaining
+	 * notifications.
+	 */
+	@Test
+	public void testFailingListenerDoesntStopDelivery() {
+		listener = notification -> {
+			received.add(notification);
+			throw new IllegalStateException("failed");
+		};
+		createListener(BackPressurePolicy.BLOCK, 10);
+		ExecutionResult result = new ExecutionResultImpl(randomDescription);
+		asyncListener.notify(createNotification(result, ExecutionState.EXECUTING));
+		asyncListener.notify(createNotification(result, ExecutionState.SUCCESS));
+		runTasks();
+
+		// test
+		assertEquals(2, received.size());
+		assertEquals(2, asyncListener.getDeliveredNotifications());
+	}
+
+	/**
+	 * Test that notifications are delivered synchronously if the executor
+	 * rejects the dispatch task, and that later notifications are dispatched by
+	 * the executor when it accepts tasks again.
+	 */
+	@Test
+	public void testNotificationsAreDeliveredIfExecutorRejectsDispatch() {
+		List<Boolean> rejecting = new ArrayList<Boolean>();
+		rejecting.add(Boolean.TRUE);
+		asyncListener = new AsynchronousResultListenerImpl(listener, BackPressurePolicy.BLOCK, 10, 2, task -> {
+			if (rejecting.get(0))
+				throw new RejectedExecutionException("rejected");
+			tasks.add(task);
+		}, messageProvider);
+		ExecutionResult result = new ExecutionResultImpl(randomDescription);
+		asyncListener.notify(createNotification(result, ExecutionState.EXECUTING));
+
+		// test
+		assertEquals(1, received.size());
+		assertEquals(0, asyncListener.getQueueDepth());
+
+		rejecting.set(0, Boolean.FALSE);
+		asyncListener.notify(createNotification(result, ExecutionState.SUCCESS));
+		assertEquals(1, tasks.size());
+		runTasks();
+		assertEquals(2, received.size());
+		assertEquals(ExecutionState.SUCCESS, received.get(1).getState());
+	}
+
+	/**
+	 * Test that notifications are delivered by a thread pool in the order they
+	 * are posted.
+	 */
+	@Test
+	public void testNotificationsAreDeliveredInOrderByThreadPool() throws Exception {
+		int notifications = 1000;
+		CountDownLatch delivered = new CountDownLatch(notifications);
+		listener = notification -> {
+			received.add(notification);
+			delivered.countDown();
+		};
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			asyncListener = new AsynchronousResultListenerImpl(listener, BackPressurePolicy.BLOCK, 16, 4,
+					executor, messageProvider);
+			for (int i = 0; i < notifications; i++) {
+				asyncListener.notify(createNotification(new ExecutionResultImpl(Integer.toString(i)),
+						ExecutionState.EXECUTING));
+			}
+
+			// test
+			assertTrue(delivered.await(10, TimeUnit.SECONDS));
+			for (int i = 0; i < notifications; i++) {
+				assertEquals(Integer.toString(i), received.get(i).getResult().getDescription());
+			}
+			assertTrue(asyncListener.getMaximumDispatchLag() >= asyncListener.getDispatchLag());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Test that undefined policy is rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectsUndefinedPolicy() {
+		new AsynchronousResultListenerImpl(listener, null, 10, 2, tasks::add, messageProvider);
+	}
+
+	/**
+	 * Test that zero capacity is rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectsZeroCapacity() {
+		new AsynchronousResultListenerImpl(listener, BackPressurePolicy.BLOCK, 0, 2, tasks::add, messageProvider);
+	}
+
+}
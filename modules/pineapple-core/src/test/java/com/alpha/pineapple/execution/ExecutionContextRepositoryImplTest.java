@@ -0,0 +1,253 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+* Copyright (C) 2007-2015 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package com.alpha.pineapple.execution;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.apache.commons.chain.Context;
+import org.apache.commons.chain.impl.ContextBase;
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.alpha.easymockutils.MessageProviderAnswerImpl;
+import com.alpha.pineapple.i18n.MessageProvider;
+
+/**
+ * Unit test for the {@link ExecutionContextRepositoryImpl} class.
+ */
+public class ExecutionContextRepositoryImplTest {
+
+	/**
+	 * Object under test.
+	 */
+	ExecutionContextRepositoryImpl repository;
+
+	/**
+	 * Mock message provider.
+	 */
+	MessageProvider messageProvider;
+
+	/**
+	 * Root execution result.
+	 */
+	ExecutionResult rootResult;
+
+	/**
+	 * Execution info for root result.
+	 */
+	ExecutionInfo info;
+
+	/**
+	 * Execution context.
+	 */
+	Context context;
+
+	@Before
+	public void setUp() throws Exception {
+
+		// create repository
+		repository = new ExecutionContextRepositoryImpl();
+
+		// create mock provider
+		messageProvider = EasyMock.createMock(MessageProvider.class);
+
+		// inject message provider
+		ReflectionTestUtils.setField(repository, "messageProvider", messageProvider, MessageProvider.class);
+
+		// complete mock source initialization
+		IAnswer<String> answer = new MessageProviderAnswerImpl();
+		EasyMock.expect(messageProvider.getMessage((String) EasyMock.isA(String.class)));
+		EasyMock.expectLastCall().andAnswer(answer).anyTimes();
+		EasyMock.expect(messageProvider.getMessage((String) EasyMock.isA(String.class),
+				(Object[]) EasyMock.isA(Object[].class)));
+		EasyMock.expectLastCall().andAnswer(answer).anyTimes();
+		EasyMock.replay(messageProvider);
+
+		// create results and context
+		rootResult = new ExecutionResultImpl("root");
+		info = createInfo(rootResult);
+		context = new ContextBase();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		repository = null;
+		rootResult = null;
+		info = null;
+		context = null;
+	}
+
+	/**
+	 * Create mock execution info.
+	 * 
+	 * @param result
+	 *            result returned by info.
+	 * 
+	 * @return mock execution info.
+	 */
+	ExecutionInfo createInfo(ExecutionResult result) {
+		ExecutionInfo info = EasyMock.createMock(ExecutionInfo.class);
+		EasyMock.expect(info.getResult()).andReturn(result).anyTimes();
+		EasyMock.replay(info);
+		return info;
+	}
+
+	/**
+	 * Test that repository is initially empty.
+	 */
+	@Test
+	public void testRepositoryIsInitiallyEmpty() {
+		assertEquals(0, repository.getNumberOfContexts());
+		assertEquals(0, repository.getNumberOfLookups());
+		assertNull(repository.get(info));
+		assertNull(repository.get(rootResult));
+	}
+
+	/**
+	 * Test that registered context can be resolved.
+	 */
+	@Test
+	public void testCanGetRegisteredContext() {
+		repository.register(info, context);
+		assertEquals(1, repository.getNumberOfContexts());
+		assertSame(context, repository.get(info));
+		assertSame(context, repository.get(rootResult));
+	}
+
+	/**
+	 * Test that unregistered context is removed.
+	 */
+	@Test
+	public void testUnregisterRemovesContext() {
+		repository.register(info, context);
+		repository.unregister(context);
+		assertEquals(0, repository.getNumberOfContexts());
+		assertEquals(0, repository.getNumberOfLookups());
+		assertNull(repository.get(info));
+		assertNull(repository.get(rootResult));
+	}
+
+	/**
+	 * Test that unregister of unknown context is ignored.
+	 */
+	@Test
+	public void testUnregisterOfUnknownContextIsIgnored() {
+		repository.register(info, context);
+		repository.unregister(new ContextBase());
+		assertEquals(1, repository.getNumberOfContexts());
+		assertSame(context, repository.get(info));
+	}
+
+	/**
+	 * Test that context is unregistered by identity, since contexts are maps
+	 * which are equal if they have the same content.
+	 */
+	@Test
+	public void testUnregisterComparesContextsByIdentity() {
+		ExecutionResult rootResult2 = new ExecutionResultImpl("root2");
+		Context context2 = new ContextBase();
+		repository.register(info, context);
+		repository.register(createInfo(rootResult2), context2);
+		repository.unregister(context2);
+		assertEquals(1, repository.getNumberOfContexts());
+		assertSame(context, repository.get(rootResult));
+		assertNull(repository.get(rootResult2));
+	}
+
+	/**
+	 * Test that context is resolved for descendant result.
+	 */
+	@Test
+	public void testCanGetContextForDescendant() {
+		ExecutionResult child = rootResult.addChild("child");
+		ExecutionResult grandChild = child.addChild("grand child");
+		repository.register(info, context);
+		assertSame(context, repository.get(grandChild));
+		assertSame(context, repository.get(child));
+	}
+
+	/**
+	 * Test that resolved context is cached for descendant and its ancestors.
+	 */
+	@Test
+	public void testContextIsCachedForDescendantAndAncestors() {
+		ExecutionResult child = rootResult.addChild("child");
+		ExecutionResult grandChild = child.addChild("grand child");
+		repository.register(info, context);
+		repository.get(grandChild);
+		assertEquals(3, repository.getNumberOfLookups());
+	}
+
+	/**
+	 * Test that unregister removes cached lookups for descendants.
+	 */
+	@Test
+	public void testUnregisterRemovesCachedLookups() {
+		ExecutionResult child = rootResult.addChild("child");
+		ExecutionResult grandChild = child.addChild("grand child");
+		repository.register(info, context);
+		repository.get(grandChild);
+		repository.unregister(context);
+		assertEquals(0, repository.getNumberOfLookups());
+		assertNull(repository.get(grandChild));
+	}
+
+	/**
+	 * Test that context is resolved for the nearest registered ancestor.
+	 */
+	@Test
+	public void testGetResolvesNearestRegisteredAncestor() {
+		ExecutionResult child = rootResult.addChild("child");
+		ExecutionResult grandChild = child.addChild("grand child");
+		Context childContext = new ContextBase();
+		repository.register(info, context);
+		repository.register(createInfo(child), childContext);
+		assertSame(childContext, repository.get(grandChild));
+		assertSame(context, repository.get(rootResult));
+	}
+
+	/**
+	 * Test that repository doesn't retain contexts for completed executions.
+	 */
+	@Test
+	public void testRepositoryDoesntRetainContextsForCompletedExecutions() {
+		for (int i = 0; i < 100; i++) {
+			ExecutionResult result = new ExecutionResultImpl("root" + i);
+			ExecutionResult child = result.addChild("child");
+			Context executionContext = new ContextBase();
+			repository.register(createInfo(result), executionContext);
+			repository.get(child);
+			repository.unregister(executionContext);
+		}
+		assertEquals(0, repository.getNumberOfContexts());
+		assertEquals(0, repository.getNumberOfLookups());
+	}
+
+}
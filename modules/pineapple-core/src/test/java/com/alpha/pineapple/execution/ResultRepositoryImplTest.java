@@ -23,10 +23,15 @@
 package com.alpha.pineapple.execution;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.commons.lang3.RandomStringUtils;
 import org.easymock.EasyMock;
@@ -35,6 +40,7 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestExecutionListeners;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
@@ -43,6 +49,7 @@ import org.springframework.test.util.ReflectionTestUtils;
 import com.alpha.easymockutils.MessageProviderAnswerImpl;
 import com.alpha.pineapple.execution.ExecutionResult.ExecutionState;
 import com.alpha.pineapple.i18n.MessageProvider;
+import com.alpha.pineapple.module.ModuleInfo;
 import com.alpha.springutils.DirectoryTestExecutionListener;
 
 /**
@@ -157,7 +164,7 @@ public class ResultRepositoryImplTest {
 		// create mock execution result
 		ExecutionResult result = EasyMock.createMock(ExecutionResult.class);
 		EasyMock.expect(result.getState()).andReturn(ExecutionState.EXECUTING).times(2);
-		EasyMock.expect(result.getDescription()).andReturn(randomDescription);
+		EasyMock.expect(result.getDescription()).andReturn(randomDescription).times(2);
 		EasyMock.expect(result.getRootResult()).andReturn(result);
 		EasyMock.replay(result);
 
@@ -180,7 +187,7 @@ public class ResultRepositoryImplTest {
 		// create mock execution result
 		ExecutionResult result = EasyMock.createMock(ExecutionResult.class);
 		EasyMock.expect(result.getState()).andReturn(ExecutionState.EXECUTING).times(2);
-		EasyMock.expect(result.getDescription()).andReturn(randomDescription);
+		EasyMock.expect(result.getDescription()).andReturn(randomDescription).times(2);
 		EasyMock.expect(result.getRootResult()).andReturn(result);
 		EasyMock.replay(result);
 
@@ -209,7 +216,7 @@ public class ResultRepositoryImplTest {
 		// create mock execution result
 		ExecutionResult result = EasyMock.createMock(ExecutionResult.class);
 		EasyMock.expect(result.getState()).andReturn(ExecutionState.EXECUTING).times(2);
-		EasyMock.expect(result.getDescription()).andReturn(randomDescription);
+		EasyMock.expect(result.getDescription()).andReturn(randomDescription).times(2);
 		EasyMock.expect(result.getRootResult()).andReturn(result);
 		EasyMock.replay(result);
 
@@ -464,4 +471,231 @@ public class ResultRepositoryImplTest {
 		EasyMock.verify(result);
 	}
 
+	/**
+	 * Test that an asynchronous listener is notified by the dispatch executor.
+	 */
+	@Test
+	public void testAsynchronousListenerIsNotifiedByDispatchExecutor() {
+		List<Runnable> tasks = new ArrayList<Runnable>();
+		ReflectionTestUtils.setField(repository, "resultDispatchExecutor", (TaskExecutor) tasks::add);
+		repository.addListener(listenerOne, BackPressurePolicy.BLOCK);
+
+		// create mock execution result
+		ExecutionResult result = EasyMock.createMock(ExecutionResult.class);
+		EasyMock.expect(result.getState()).andReturn(ExecutionState.EXECUTING).times(2);
+		EasyMock.expect(result.getDescription()).andReturn(randomDescription).times(2);
+		EasyMock.expect(result.getRootResult()).andReturn(result);
+		EasyMock.replay(result);
+
+		// setup mock listener
+		listenerOne.notify(EasyMock.isA(ExecutionResultNotification.class));
+		EasyMock.replay(listenerOne);
+
+		// notify
+		repository.notifyOfResultStateChange(result);
+		assertEquals(1, tasks.size());
+		tasks.get(0).run();
+
+		// verify mock objects
+		EasyMock.verify(listenerOne);
+		EasyMock.verify(result);
+	}
+
+	/**
+	 * Test that an asynchronous listener is returned unwrapped and can be
+	 * unregistered.
+	 */
+	@Test
+	public void testCanUnregisterAsynchronousListener() {
+		ReflectionTestUtils.setField(repository, "resultDispatchExecutor", (TaskExecutor) Runnable::run);
+		repository.addListener(listenerOne, BackPressurePolicy.DROP_OLDEST);
+		repository.addListener(listenerOne);
+
+		// test
+		assertEquals(1, repository.getListeners().length);
+		assertSame(listenerOne, repository.getListeners()[0]);
+		repository.removeListener(listenerOne);
+		assertEquals(0, repository.getListeners().length);
+	}
+
+	/**
+	 * Test that executions are assigned stable ID's in the order they are
+	 * started.
+	 */
+	@Test
+	public void testExecutionsAreAssignedStableIds() {
+		ExecutionResult result = new ExecutionResultImpl(repository, randomDescription);
+		ExecutionResult result2 = new ExecutionResultImpl(repository, randomDescription);
+		result.setState(ExecutionState.SUCCESS);
+
+		// test
+		assertEquals(1, repository.executions.get(result).id);
+		assertEquals(2, repository.executions.get(result2).id);
+	}
+
+	/**
+	 * Test that the execution ID is exposed through the execution info, and
+	 * that composite executions share the ID of the execution they are part
+	 * of.
+	 */
+	@Test
+	public void testExecutionIdIsExposedThroughExecutionInfo() {
+		ModuleInfo moduleInfo = EasyMock.createMock(ModuleInfo.class);
+		EasyMock.expect(moduleInfo.getId()).andReturn(randomDescription).anyTimes();
+		EasyMock.replay(moduleInfo);
+
+		ExecutionInfo info = repository.startExecution(moduleInfo, randomDescription, randomDescription);
+		ExecutionInfo info2 = repository.startExecution(moduleInfo, randomDescription, randomDescription);
+		ExecutionInfo compositeInfo = repository.startCompositeExecution(moduleInfo, randomDescription,
+				randomDescription, randomDescription, info2.getResult());
+
+		// test
+		assertEquals(1, info.getExecutionId());
+		assertEquals(2, info2.getExecutionId());
+		assertEquals(2, compositeInfo.getExecutionId());
+	}
+
+	/**
+	 * Test that the execution ID is undefined for execution info which isn't
+	 * created by the repository.
+	 */
+	@Test
+	public void testExecutionIdIsUndefinedForUnregisteredExecution() {
+		ExecutionResult result = new ExecutionResultImpl(randomDescription);
+		ExecutionInfo info = new ExecutionInfoImpl(null, randomDescription, randomDescription, result);
+		assertEquals(ExecutionInfo.UNDEFINED_EXECUTION_ID, info.getExecutionId());
+		assertEquals(ExecutionInfo.UNDEFINED_EXECUTION_ID, repository.getExecutionId(result));
+	}
+
+	/**
+	 * Get estimated number of bytes retained by an execution with a single
+	 * result without messages.
+	 * 
+	 * @return estimated number of bytes retained by the execution.
+	 */
+	long getExecutionSize() {
+		return (ResultRepositoryImpl.NOTIFICATION_OVERHEAD * 2) + ResultRepositoryImpl.RESULT_OVERHEAD
+				+ ResultRepositoryImpl.STRING_OVERHEAD
+				+ (randomDescription.length() * ResultRepositoryImpl.CHARACTER_SIZE);
+	}
+
+	/**
+	 * Test that the retained bytes are estimated from the description and
+	 * messages of the captured results.
+	 */
+	@Test
+	public void testRetainedBytesAreEstimatedFromResults() {
+		String message = RandomStringUtils.randomAlphabetic(1000);
+		ExecutionResult result = new ExecutionResultImpl(repository, randomDescription);
+		result.addMessage(ExecutionResult.MSG_MESSAGE, message);
+		result.setState(ExecutionState.SUCCESS);
+
+		// test
+		long messageSize = ResultRepositoryImpl.MESSAGE_OVERHEAD + ResultRepositoryImpl.STRING_OVERHEAD
+				+ (ExecutionResult.MSG_MESSAGE.length() * ResultRepositoryImpl.CHARACTER_SIZE)
+				+ ResultRepositoryImpl.STRING_OVERHEAD + (message.length() * ResultRepositoryImpl.CHARACTER_SIZE);
+		assertEquals(getExecutionSize() + messageSize, repository.retainedBytes.get());
+		assertEquals(getExecutionSize() + messageSize, repository.executions.get(result).getRetainedBytes());
+	}
+
+	/**
+	 * Test that the result sequence contains the captured notifications in the
+	 * order they were captured.
+	 */
+	@Test
+	public void testResultSequenceContainsCapturedNotifications() {
+		ExecutionResult result = new ExecutionResultImpl(repository, randomDescription);
+		result.setState(ExecutionState.SUCCESS);
+
+		// create execution info mock
+		ExecutionInfo info = EasyMock.createMock(ExecutionInfo.class);
+		EasyMock.expect(info.getResult()).andReturn(result).times(2);
+		EasyMock.replay(info);
+
+		// query repository
+		int index = repository.getCurrentResultIndex(info);
+		ExecutionResultNotification[] sequence = repository.getResultSequence(info, 0, index);
+
+		// test
+		assertEquals(2, index);
+		assertEquals(2, sequence.length);
+		assertSame(result, sequence[0].getResult());
+		assertEquals(ExecutionState.EXECUTING, sequence[0].getState());
+		assertEquals(ExecutionState.SUCCESS, sequence[1].getState());
+		EasyMock.verify(info);
+	}
+
+	/**
+	 * Test that the oldest completed execution is evicted when the maximum
+	 * number of retained bytes is exceeded.
+	 */
+	@Test
+	public void testCompletedExecutionIsEvictedWhenRetainedBytesIsExceeded() {
+		repository.setMaximumRetainedBytes((getExecutionSize() * 3) / 2);
+		repository.setEvictionGracePeriod(0);
+
+		ExecutionResult result = new ExecutionResultImpl(repository, randomDescription);
+		result.setState(ExecutionState.SUCCESS);
+		ExecutionResult result2 = new ExecutionResultImpl(repository, randomDescription);
+		result2.setState(ExecutionState.SUCCESS);
+
+		// test
+		assertFalse(repository.executions.containsKey(result));
+		assertTrue(repository.executions.containsKey(result2));
+		assertEquals(getExecutionSize(), repository.retainedBytes.get());
+	}
+
+	/**
+	 * Test that an execution which completed within the grace period isn't
+	 * evicted when the maximum number of retained bytes is exceeded.
+	 */
+	@Test
+	public void testRecentlyCompletedExecutionIsntEvictedWhenRetainedBytesIsExceeded() {
+		repository.setMaximumRetainedBytes((getExecutionSize() * 3) / 2);
+
+		ExecutionResult result = new ExecutionResultImpl(repository, randomDescription);
+		result.setState(ExecutionState.SUCCESS);
+		ExecutionResult result2 = new ExecutionResultImpl(repository, randomDescription);
+		result2.setState(ExecutionState.SUCCESS);
+
+		// test
+		assertTrue(repository.executions.containsKey(result));
+		assertTrue(repository.executions.containsKey(result2));
+		assertTrue(repository.executions.get(result).getCompletionTime() > 0);
+	}
+
+	/**
+	 * Test that running executions aren't evicted when the maximum number of
+	 * retained bytes is exceeded.
+	 */
+	@Test
+	public void testRunningExecutionsArentEvictedWhenRetainedBytesIsExceeded() {
+		repository.setMaximumRetainedBytes(ResultRepositoryImpl.NOTIFICATION_OVERHEAD);
+
+		ExecutionResult result = new ExecutionResultImpl(repository, randomDescription);
+		ExecutionResult result2 = new ExecutionResultImpl(repository, randomDescription);
+
+		// test
+		assertTrue(repository.executions.containsKey(result));
+		assertTrue(repository.executions.containsKey(result2));
+	}
+
+	/**
+	 * Test that the oldest completed execution is evicted when the capacity is
+	 * exceeded.
+	 */
+	@Test
+	public void testCompletedExecutionIsEvictedWhenCapacityIsExceeded() {
+		repository.setCapacity(1);
+
+		ExecutionResult result = new ExecutionResultImpl(repository, randomDescription);
+		result.setState(ExecutionState.SUCCESS);
+		ExecutionResult result2 = new ExecutionResultImpl(repository, randomDescription);
+
+		// test
+		assertFalse(repository.executions.containsKey(result));
+		assertTrue(repository.executions.containsKey(result2));
+		assertEquals(1, repository.executionOrder.size());
+	}
+
 }
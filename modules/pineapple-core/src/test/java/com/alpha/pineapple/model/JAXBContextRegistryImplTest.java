@@ -0,0 +1,280 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+* Copyright (C) 2007-2015 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package com.alpha.pineapple.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alpha.pineapple.model.configuration.Configuration;
+import com.alpha.pineapple.model.test.ItemType;
+import com.alpha.pineapple.model.test.Root;
+
+/**
+ * Unit test of the class {@linkplain JAXBContextRegistryImpl}.
+ */
+public class JAXBContextRegistryImplTest {
+
+	/**
+	 * Number of concurrent context requests.
+	 */
+	static final int CONCURRENT_REQUESTS = 16;
+
+	/**
+	 * Context path for test model.
+	 */
+	static final String TEST_PATH = Root.class.getPackage().getName();
+
+	/**
+	 * Context path for configuration model.
+	 */
+	static final String CONFIGURATION_PATH = Configuration.class.getPackage().getName();
+
+	/**
+	 * Object under test.
+	 */
+	JAXBContextRegistryImpl registry;
+
+	@Before
+	public void setUp() throws Exception {
+		registry = new JAXBContextRegistryImpl();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		registry = null;
+	}
+
+	/**
+	 * Test that shared instance is defined.
+	 */
+	@Test
+	public void testSharedInstanceIsDefined() {
+		assertNotNull(JAXBContextRegistryImpl.getSharedInstance());
+		assertSame(JAXBContextRegistryImpl.getSharedInstance(), JAXBContextRegistryImpl.getSharedInstance());
+	}
+
+	/**
+	 * Test that context is created once for context path.
+	 */
+	@Test
+	public void testContextIsCreatedOnceForContextPath() throws Exception {
+		JAXBContext context = registry.getContext(TEST_PATH);
+		assertNotNull(context);
+		assertSame(context, registry.getContext(TEST_PATH));
+		assertSame(context, registry.getContext(TEST_PATH));
+		assertEquals(1, registry.getNumberOfCreatedContexts());
+		assertEquals(2, registry.getNumberOfCacheHits());
+	}
+
+	/**
+	 * Test that different contexts are created for different context paths.
+	 */
+	@Test
+	public void testContextsAreCreatedForDifferentContextPaths() throws Exception {
+		JAXBContext context = registry.getContext(TEST_PATH);
+		JAXBContext context2 = registry.getContext(CONFIGURATION_PATH);
+		assertNotSame(context, context2);
+		assertEquals(2, registry.getNumberOfCreatedContexts());
+	}
+
+	/**
+	 * Test that context for class set is independent of the class order.
+	 */
+	@Test
+	public void testContextForClassSetIsIndependentOfClassOrder() throws Exception {
+		JAXBContext context = registry.getContext(Root.class, ItemType.class);
+		assertSame(context, registry.getContext(ItemType.class, Root.class));
+		assertEquals(1, registry.getNumberOfCreatedContexts());
+	}
+
+	/**
+	 * Test that creation time is registered for created context.
+	 */
+	@Test
+	public void testCreationTimeIsRegistered() throws Exception {
+		assertEquals(-1, registry.getContextCreationTime(TEST_PATH));
+		registry.getContext(TEST_PATH);
+		assertTrue(registry.getContextCreationTime(TEST_PATH) >= 0);
+		assertTrue(registry.getContextCreationTime() >= registry.getContextCreationTime(TEST_PATH));
+	}
+
+	/**
+	 * Test that context creation failure is reported and that nothing is
+	 * registered.
+	 */
+	@Test
+	public void testFailsToCreateContextForUnknownPackage() {
+		try {
+			registry.getContext("com.alpha.pineapple.model.unknown");
+			fail();
+		} catch (JAXBException e) {
+			// expected
+		}
+		assertEquals(0, registry.getNumberOfCreatedContexts());
+		assertEquals(-1, registry.getContextCreationTime("com.alpha.pineapple.model.unknown"));
+	}
+
+	/**
+	 * Test that undefined context path is rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectsUndefinedContextPath() throws Exception {
+		registry.getContext((String) null);
+	}
+
+	/**
+	 * Test that undefined class set is rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectsEmptyClassSet() throws Exception {
+		registry.getContext(new Class<?>[0]);
+	}
+
+	/**
+	 * Test that marshaller and unmarshaller are cached for the calling thread.
+	 */
+	@Test
+	public void testMarshallersAreCachedForCallingThread() throws Exception {
+		Marshaller marshaller = registry.getMarshaller(TEST_PATH);
+		Unmarshaller unmarshaller = registry.getUnmarshaller(TEST_PATH);
+		assertSame(marshaller, registry.getMarshaller(TEST_PATH));
+		assertSame(unmarshaller, registry.getUnmarshaller(TEST_PATH));
+		assertNotSame(marshaller, registry.getMarshaller(CONFIGURATION_PATH));
+	}
+
+	/**
+	 * Test that the properties of a cached marshaller are reset when it is
+	 * returned again.
+	 */
+	@Test
+	public void testMarshallerPropertiesAreResetOnCheckout() throws Exception {
+		Marshaller marshaller = registry.getMarshaller(TEST_PATH);
+		marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+		marshaller.setProperty(Marshaller.JAXB_ENCODING, "US-ASCII");
+		marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+
+		// test
+		assertSame(marshaller, registry.getMarshaller(TEST_PATH));
+		assertEquals(Boolean.FALSE, marshaller.getProperty(Marshaller.JAXB_FORMATTED_OUTPUT));
+		assertEquals(JAXBContextRegistryImpl.DEFAULT_ENCODING, marshaller.getProperty(Marshaller.JAXB_ENCODING));
+		assertEquals(Boolean.FALSE, marshaller.getProperty(Marshaller.JAXB_FRAGMENT));
+	}
+
+	/**
+	 * Test that clear removes the contexts and the caches of all threads.
+	 */
+	@Test
+	public void testClearRemovesCachesOfAllThreads() throws Exception {
+		Marshaller marshaller = registry.getMarshaller(TEST_PATH);
+		Thread thread = new Thread(() -> {
+			try {
+				registry.getMarshaller(TEST_PATH);
+				registry.getUnmarshaller(TEST_PATH);
+			} catch (JAXBException e) {
+				// leave caches empty to fail test
+			}
+		});
+		thread.start();
+		thread.join();
+		assertFalse(registry.threadMarshallers.get(thread).isEmpty());
+		assertFalse(registry.threadUnmarshallers.get(thread).isEmpty());
+
+		registry.clear();
+
+		// test
+		assertTrue(registry.contexts.isEmpty());
+		assertTrue(registry.threadMarshallers.get(thread).isEmpty());
+		assertTrue(registry.threadUnmarshallers.get(thread).isEmpty());
+		assertNotSame(marshaller, registry.getMarshaller(TEST_PATH));
+	}
+
+	/**
+	 * Test that marshallers aren't shared between threads.
+	 */
+	@Test
+	public void testMarshallersArentSharedBetweenThreads() throws Exception {
+		Marshaller marshaller = registry.getMarshaller(TEST_PATH);
+		AtomicReference<Marshaller> otherMarshaller = new AtomicReference<Marshaller>();
+		Thread thread = new Thread(() -> {
+			try {
+				otherMarshaller.set(registry.getMarshaller(TEST_PATH));
+			} catch (JAXBException e) {
+				// leave undefined to fail test
+			}
+		});
+		thread.start();
+		thread.join();
+		assertNotNull(otherMarshaller.get());
+		assertNotSame(marshaller, otherMarshaller.get());
+		assertEquals(1, registry.getNumberOfCreatedContexts());
+	}
+
+	/**
+	 * Test that concurrent requests for the same context path creates a single
+	 * context.
+	 */
+	@Test
+	public void testConcurrentRequestsCreatesSingleContext() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_REQUESTS);
+		try {
+			List<Callable<JAXBContext>> tasks = new ArrayList<Callable<JAXBContext>>();
+			for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+				tasks.add(() -> registry.getContext(CONFIGURATION_PATH));
+			}
+			List<Future<JAXBContext>> futures = executor.invokeAll(tasks);
+			JAXBContext context = futures.get(0).get();
+			for (Future<JAXBContext> future : futures) {
+				assertSame(context, future.get());
+			}
+			assertEquals(1, registry.getNumberOfCreatedContexts());
+		} finally {
+			executor.shutdown();
+			executor.awaitTermination(10, TimeUnit.SECONDS);
+		}
+	}
+
+}
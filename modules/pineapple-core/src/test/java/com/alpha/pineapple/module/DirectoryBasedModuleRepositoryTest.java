@@ -92,6 +92,11 @@ public class DirectoryBasedModuleRepositoryTest {
 	 */
 	RuntimeDirectoryProvider runtimeDirectoryProvider;
 
+	/**
+	 * Mock model cache.
+	 */
+	ModelCache modelCache;
+
 	/**
 	 * Object mother for module.
 	 */
@@ -170,6 +175,10 @@ public class DirectoryBasedModuleRepositoryTest {
 		EasyMock.expectLastCall().andAnswer(answer).anyTimes();
 		EasyMock.replay(messageProvider);
 
+		// create and inject mock model cache
+		modelCache = EasyMock.createNiceMock(ModelCache.class);
+		EasyMock.replay(modelCache);
+		ReflectionTestUtils.setField(repository, "modelCache", modelCache, ModelCache.class);
 	}
 
 	@After
@@ -1395,4 +1404,39 @@ public class DirectoryBasedModuleRepositoryTest {
 		EasyMock.verify(runtimeDirectoryProvider);
 	}
 
+	/**
+	 * Test that saved model is removed from the model cache.
+	 */
+	@Test
+	public void testSaveModelInvalidatesModelCache() {
+
+		// complete mock provider setup with custom directory
+		File repositoryDirectory = createModulesDirectory();
+		completeProviderMockSetupWithCustomDirectory(repositoryDirectory);
+
+		// create module
+		moduleMother.createModuleWithSingleEmptyModel(repositoryDirectory, randomModuleId, randomEnvironment);
+
+		// initialize repository
+		repository.initialize();
+
+		// get module info and model file
+		ModuleInfo info = repository.get(randomModuleId);
+		File modelsDirectory = new File(info.getDirectory(), "models");
+		File modelFile = new File(modelsDirectory, randomEnvironment + ".xml");
+
+		// complete mock model cache setup
+		modelCache = EasyMock.createMock(ModelCache.class);
+		modelCache.invalidate(modelFile);
+		EasyMock.replay(modelCache);
+		ReflectionTestUtils.setField(repository, "modelCache", modelCache, ModelCache.class);
+
+		// save model
+		repository.saveModel(info, randomEnvironment, randomModelContent);
+
+		// test
+		EasyMock.verify(modelCache);
+		EasyMock.verify(runtimeDirectoryProvider);
+	}
+
 }
@@ -0,0 +1,318 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+* Copyright (C) 2007-2015 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package com.alpha.pineapple.module;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.oxm.Unmarshaller;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import com.alpha.pineapple.i18n.MessageProvider;
+import com.alpha.pineapple.model.module.Module;
+import com.alpha.pineapple.model.module.model.AggregatedModel;
+import com.alpha.pineapple.model.module.model.Content;
+import com.alpha.pineapple.model.module.model.Models;
+import com.alpha.pineapple.model.module.model.ObjectFactory;
+import com.alpha.springutils.DirectoryTestExecutionListener;
+
+/**
+ * Unit test of the class {@link ModelCacheImpl}.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@TestExecutionListeners(DirectoryTestExecutionListener.class)
+@ContextConfiguration(locations = { "/com.alpha.pineapple.core-config.xml" })
+public class ModelCacheImplTest {
+
+	/**
+	 * Object under test.
+	 */
+	ModelCacheImpl cache;
+
+	/**
+	 * Current test directory.
+	 */
+	File testDirectory;
+
+	/**
+	 * Model file.
+	 */
+	File modelFile;
+
+	/**
+	 * Mock unmarshaller.
+	 */
+	Unmarshaller unmarshaller;
+
+	/**
+	 * Model package.
+	 */
+	Package modelPackage = Models.class.getPackage();
+
+	@Before
+	public void setUp() throws Exception {
+		testDirectory = DirectoryTestExecutionListener.getCurrentTestDirectory();
+		modelFile = new File(testDirectory, RandomStringUtils.randomAlphabetic(10) + ".xml");
+		FileUtils.write(modelFile, RandomStringUtils.randomAlphabetic(10));
+
+		// create cache
+		cache = new ModelCacheImpl();
+		MessageProvider messageProvider = createNiceMock(MessageProvider.class);
+		replay(messageProvider);
+		cache.messageProvider = messageProvider;
+
+		unmarshaller = createNiceMock(Unmarshaller.class);
+		replay(unmarshaller);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * Create module model with single content element.
+	 * 
+	 * @param element
+	 *            content element.
+	 * 
+	 * @return module model.
+	 */
+	Models createModels(Element element) {
+		ObjectFactory factory = new ObjectFactory();
+		Content content = factory.createContent();
+		content.getAny().add(element);
+		AggregatedModel model = factory.createAggregatedModel();
+		model.setContent(content);
+		Models models = factory.createModels();
+		models.getModel().add(model);
+		return models;
+	}
+
+	/**
+	 * Create DOM element.
+	 * 
+	 * @return DOM element.
+	 */
+	Element createElement() throws Exception {
+		Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+		return document.createElement(RandomStringUtils.randomAlphabetic(10));
+	}
+
+	/**
+	 * Test that lookup of uncached file returns null.
+	 */
+	@Test
+	public void testGetUncachedFileReturnsNull() {
+		assertNull(cache.get(modelFile, modelPackage));
+		assertEquals(0, cache.getHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	/**
+	 * Test that cached file is returned.
+	 */
+	@Test
+	public void testGetCachedFile() {
+		Models models = new Models();
+		cache.put(modelFile, modelPackage, models);
+
+		// test
+		assertSame(models, cache.get(modelFile, modelPackage));
+		assertEquals(1, cache.getHits());
+		assertEquals(0, cache.getMisses());
+		assertEquals(0, cache.getContentHits());
+		assertEquals(0, cache.getContentMisses());
+	}
+
+	/**
+	 * Test that file is cached per package.
+	 */
+	@Test
+	public void testFileIsCachedPerPackage() {
+		cache.put(modelFile, modelPackage, new Models());
+
+		// test
+		assertNull(cache.get(modelFile, Module.class.getPackage()));
+	}
+
+	/**
+	 * Test that modified file isn't returned.
+	 */
+	@Test
+	public void testGetModifiedFileReturnsNull() throws Exception {
+		cache.put(modelFile, modelPackage, new Models());
+
+		// modify file
+		FileUtils.write(modelFile, RandomStringUtils.randomAlphabetic(20));
+
+		// test
+		assertNull(cache.get(modelFile, modelPackage));
+		assertEquals(1, cache.getMisses());
+	}
+
+	/**
+	 * Test that deleted file isn't returned.
+	 */
+	@Test
+	public void testGetDeletedFileReturnsNull() throws Exception {
+		cache.put(modelFile, modelPackage, new Models());
+
+		// delete file
+		FileUtils.forceDelete(modelFile);
+
+		// test
+		assertNull(cache.get(modelFile, modelPackage));
+	}
+
+	/**
+	 * Test that invalidated file isn't returned.
+	 */
+	@Test
+	public void testInvalidateFile() {
+		cache.put(modelFile, modelPackage, new Models());
+		cache.invalidate(modelFile);
+
+		// test
+		assertNull(cache.get(modelFile, modelPackage));
+	}
+
+	/**
+	 * Test that files in invalidated directory aren't returned.
+	 */
+	@Test
+	public void testInvalidateDirectory() {
+		cache.put(modelFile, modelPackage, new Models());
+		cache.invalidate(testDirectory);
+
+		// test
+		assertNull(cache.get(modelFile, modelPackage));
+	}
+
+	/**
+	 * Test that files outside invalidated directory are returned.
+	 */
+	@Test
+	public void testInvalidateDirectoryKeepsOtherFiles() {
+		Models models = new Models();
+		cache.put(modelFile, modelPackage, models);
+		cache.invalidate(new File(testDirectory, RandomStringUtils.randomAlphabetic(10)));
+
+		// test
+		assertSame(models, cache.get(modelFile, modelPackage));
+	}
+
+	/**
+	 * Test that cached content is returned.
+	 */
+	@Test
+	public void testGetCachedContent() throws Exception {
+		Element element = createElement();
+		Object content = new Object();
+		cache.putContent(element, unmarshaller, content);
+
+		// test
+		assertSame(content, cache.getContent(element, unmarshaller));
+		assertNull(cache.getContent(createElement(), unmarshaller));
+		assertEquals(1, cache.getContentHits());
+		assertEquals(1, cache.getContentMisses());
+		assertEquals(0, cache.getHits());
+		assertEquals(0, cache.getMisses());
+	}
+
+	/**
+	 * Test that content is cached per unmarshaller.
+	 */
+	@Test
+	public void testContentIsCachedPerUnmarshaller() throws Exception {
+		Element element = createElement();
+		cache.putContent(element, unmarshaller, new Object());
+
+		// create other unmarshaller
+		Unmarshaller otherUnmarshaller = createNiceMock(Unmarshaller.class);
+		replay(otherUnmarshaller);
+
+		// test
+		assertNull(cache.getContent(element, otherUnmarshaller));
+	}
+
+	/**
+	 * Test that content of invalidated model isn't returned.
+	 */
+	@Test
+	public void testInvalidateFileRemovesContent() throws Exception {
+		Element element = createElement();
+		cache.put(modelFile, modelPackage, createModels(element));
+		cache.putContent(element, unmarshaller, new Object());
+		cache.invalidate(modelFile);
+
+		// test
+		assertNull(cache.getContent(element, unmarshaller));
+	}
+
+	/**
+	 * Test that content of replaced model isn't returned.
+	 */
+	@Test
+	public void testPutFileRemovesContentOfReplacedModel() throws Exception {
+		Element element = createElement();
+		cache.put(modelFile, modelPackage, createModels(element));
+		cache.putContent(element, unmarshaller, new Object());
+		cache.put(modelFile, modelPackage, new Models());
+
+		// test
+		assertNull(cache.getContent(element, unmarshaller));
+	}
+
+	/**
+	 * Test that all files and content are removed.
+	 */
+	@Test
+	public void testInvalidateAll() throws Exception {
+		Element element = createElement();
+		cache.put(modelFile, modelPackage, new Models());
+		cache.putContent(element, unmarshaller, new Object());
+		cache.invalidateAll();
+
+		// test
+		assertNull(cache.get(modelFile, modelPackage));
+		assertNull(cache.getContent(element, unmarshaller));
+	}
+}
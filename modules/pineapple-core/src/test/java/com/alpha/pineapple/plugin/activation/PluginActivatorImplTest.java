@@ -596,7 +596,8 @@ public class PluginActivatorImplTest {
 		replay(sessionHandler);
 
 		// complete initialization of mock factory
-		expect(retrySessionHandlerFactory.getInstance(resource, credential, operation)).andReturn(sessionHandler);
+		expect(retrySessionHandlerFactory.getInstance(environment, resource, credential, operation))
+				.andReturn(sessionHandler);
 		replay(retrySessionHandlerFactory);
 
 		// initialize
@@ -672,7 +673,8 @@ public class PluginActivatorImplTest {
 		replay(sessionHandler);
 
 		// complete initialization of mock factory
-		expect(retrySessionHandlerFactory.getInstance(resource, NULL_CREDENTIAL, operation)).andReturn(sessionHandler);
+		expect(retrySessionHandlerFactory.getInstance(environment, resource, NULL_CREDENTIAL, operation))
+				.andReturn(sessionHandler);
 		replay(retrySessionHandlerFactory);
 
 		// initialize
@@ -22,12 +22,14 @@
 
 package com.alpha.pineapple.plugin.repository;
 
+import static com.alpha.pineapple.plugin.PluginIndexProcessor.PLUGIN_INDEX_FILE;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 import javax.annotation.Resource;
 
+import org.apache.commons.lang3.StringUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -37,6 +39,7 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 import com.alpha.testutils.TestUtilsTestConstants;
+import com.alpha.testutils.testplugins.nooperations.NoOperationsPluginImpl;
 
 /**
  * Integration test of the class {@link PluginCandidateScannerImpl }.
@@ -131,4 +134,61 @@ public class PluginCandidateScannerIntegrationTest {
 		assertFalse(result.containsBean("plugin:" + NONEXISTING_PLUGINID));
 	}
 
+	/**
+	 * Test that scanner registers plugin from the plugin index written when the
+	 * plugin is compiled.
+	 * 
+	 * @throws Exception
+	 *             If test fails.
+	 */
+	@Test
+	public void testCanRegisterPluginFromPluginIndex() throws Exception {
+		String pluginId = NoOperationsPluginImpl.class.getPackage().getName();
+		String indexName = StringUtils.replaceChars(pluginId, '.', '/') + "/" + PLUGIN_INDEX_FILE;
+		assertNotNull(getClass().getClassLoader().getResource(indexName));
+
+		String[] pluginIds = { pluginId };
+		ApplicationContext result = pluginCandidateScanner.scanForPlugins(pluginIds);
+
+		// test
+		assertTrue(result.containsBean("plugin:" + pluginId));
+		assertTrue(result.getBean("plugin:" + pluginId) instanceof NoOperationsPluginImpl);
+	}
+
+	/**
+	 * Test that scanner can register plugins with and without a plugin index.
+	 * 
+	 * @throws Exception
+	 *             If test fails.
+	 */
+	@Test
+	public void testCanScanWithIndexedAndUnindexedPlugins() throws Exception {
+		String pluginId = NoOperationsPluginImpl.class.getPackage().getName();
+		String[] pluginIds = { pluginId, TestUtilsTestConstants.pluginIdHelloWorld };
+		ApplicationContext result = pluginCandidateScanner.scanForPlugins(pluginIds);
+
+		// test
+		assertTrue(result.containsBean("plugin:" + pluginId));
+		assertTrue(result.containsBean("plugin:" + TestUtilsTestConstants.pluginIdHelloWorld));
+	}
+
+	/**
+	 * Test that scanner ignores plugin index which refers to a class which
+	 * doesn't exist.
+	 * 
+	 * @throws Exception
+	 *             If test fails.
+	 */
+	@Test
+	public void testIgnoresInvalidPluginIndex() throws Exception {
+		final String INVALID_INDEX_PLUGINID = "com.alpha.testutils.testplugins.invalidindex";
+
+		String[] pluginIds = { INVALID_INDEX_PLUGINID };
+		ApplicationContext result = pluginCandidateScanner.scanForPlugins(pluginIds);
+
+		// test
+		assertNotNull(result);
+		assertFalse(result.containsBean("plugin:" + INVALID_INDEX_PLUGINID));
+	}
+
 }
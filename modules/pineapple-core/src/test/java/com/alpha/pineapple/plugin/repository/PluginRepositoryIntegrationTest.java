@@ -25,9 +25,15 @@ package com.alpha.pineapple.plugin.repository;
 import static com.alpha.testutils.TestUtilsTestConstants.helloWorldOperation;
 import static com.alpha.testutils.TestUtilsTestConstants.pluginIdHelloWorld;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
 import javax.annotation.Resource;
 
 import org.apache.commons.lang3.RandomStringUtils;
@@ -205,6 +211,53 @@ public class PluginRepositoryIntegrationTest {
 		validateOnePluginWasSuccessfullyInitialized(repositoryResult, pluginIdHelloWorld);
 	}
 
+	/**
+	 * Test that repository can initialize multiple plugins concurrently. The
+	 * plugin results are created in the order of the plugin candidates and
+	 * contains the scan and initialization times.
+	 * 
+	 * @throws Exception
+	 *             If test fails.
+	 */
+	@Test
+	public void testCanInitializeMultiplePluginsConcurrently() throws Exception {
+		String[] pluginIds = { pluginIdHelloWorld, NoOperationsPluginImpl.PLUGIN_ID,
+				WildcardOperationTestPluginImpl.PLUGIN_ID };
+		pluginRepository.initialize(result, pluginIds);
+
+		// test execution results
+		ExecutionResult repositoryResult = validateSuccessfulRepositoryResult();
+		ExecutionResult[] pluginResults = repositoryResult.getChildren();
+		assertEquals(pluginIds.length, pluginResults.length);
+		for (int index = 0; index < pluginIds.length; index++) {
+			assertTrue(pluginResults[index].getDescription().contains(pluginIds[index]));
+			assertTrue(pluginResults[index].isSuccess());
+			assertTrue(pluginResults[index].getMessages().containsKey("Plugin Scan Time (ms)"));
+			assertTrue(pluginResults[index].getMessages().containsKey("Plugin Initialization Time (ms)"));
+			assertNotNull(pluginRepository.getPluginInfo(pluginIds[index]));
+		}
+	}
+
+	/**
+	 * Test that pending plugin initializations are cancelled and that completed
+	 * initializations aren't affected.
+	 */
+	@Test
+	public void testCancelCancelsPendingInitializations() {
+		FutureTask<Object> completed = new FutureTask<Object>(() -> null);
+		completed.run();
+		FutureTask<Object> pending = new FutureTask<Object>(() -> null);
+		List<Future<?>> initializations = new ArrayList<Future<?>>();
+		initializations.add(completed);
+		initializations.add(pending);
+
+		new PluginRepositoryImpl().cancel(initializations);
+
+		// test
+		assertFalse(completed.isCancelled());
+		assertTrue(pending.isCancelled());
+	}
+
 	/**
 	 * Test that repository can be initialized with plugin id which doesn't exist on
 	 * the class path.
@@ -30,6 +30,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -54,8 +55,14 @@ public class RetrySessionHandlerFactoryIntegrationTest {
 	@javax.annotation.Resource
 	SessionHandlerFactory retrySessionHandlerFactory;
 
+	/**
+	 * Random environment.
+	 */
+	String randomEnvironment;
+
 	@Before
 	public void setUp() throws Exception {
+		randomEnvironment = RandomStringUtils.randomAlphabetic(10);
 	}
 
 	@After
@@ -90,7 +97,7 @@ public class RetrySessionHandlerFactoryIntegrationTest {
 		replay(operation);
 
 		// create
-		Operation sessionHandler = retrySessionHandlerFactory.getInstance(resource, credential, operation);
+		Operation sessionHandler = retrySessionHandlerFactory.getInstance(randomEnvironment, resource, credential, operation);
 
 		// test
 		assertNotNull(sessionHandler);
@@ -98,6 +105,7 @@ public class RetrySessionHandlerFactoryIntegrationTest {
 
 		// type cast
 		RetrySessionHandlerImpl sessionHandlerImpl = (RetrySessionHandlerImpl) sessionHandler;
+		assertEquals(randomEnvironment, sessionHandlerImpl.environment);
 		assertEquals(resource, sessionHandlerImpl.resource);
 		assertEquals(credential, sessionHandlerImpl.credential);
 		assertEquals(operation, sessionHandlerImpl.operation);
@@ -122,7 +130,7 @@ public class RetrySessionHandlerFactoryIntegrationTest {
 		replay(operation);
 
 		// create
-		Operation sessionHandler = retrySessionHandlerFactory.getInstance(resource, null, operation);
+		Operation sessionHandler = retrySessionHandlerFactory.getInstance(randomEnvironment, resource, null, operation);
 
 		// test
 		assertNotNull(sessionHandler);
@@ -156,7 +164,29 @@ public class RetrySessionHandlerFactoryIntegrationTest {
 		replay(operation);
 
 		// create
-		retrySessionHandlerFactory.getInstance(null, credential, operation);
+		retrySessionHandlerFactory.getInstance(randomEnvironment, null, credential, operation);
+	}
+
+	/**
+	 * Test that creation fails if environment is null.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testCreationFailsWithNullEnvironment() {
+
+		// complete initialization of mock resource
+		Resource resource = createMock(Resource.class);
+		replay(resource);
+
+		// complete initialization of mock credential
+		Credential credential = createMock(Credential.class);
+		replay(credential);
+
+		// complete initialization of mock operation
+		Operation operation = createMock(Operation.class);
+		replay(operation);
+
+		// create
+		retrySessionHandlerFactory.getInstance(null, resource, credential, operation);
 	}
 
 	/**
@@ -174,7 +204,7 @@ public class RetrySessionHandlerFactoryIntegrationTest {
 		replay(credential);
 
 		// create
-		retrySessionHandlerFactory.getInstance(resource, credential, null);
+		retrySessionHandlerFactory.getInstance(randomEnvironment, resource, credential, null);
 	}
 
 	/**
@@ -196,8 +226,8 @@ public class RetrySessionHandlerFactoryIntegrationTest {
 		replay(operation);
 
 		// create
-		Operation sessionHandler = retrySessionHandlerFactory.getInstance(resource, credential, operation);
-		Operation sessionHandler2 = retrySessionHandlerFactory.getInstance(resource, credential, operation);
+		Operation sessionHandler = retrySessionHandlerFactory.getInstance(randomEnvironment, resource, credential, operation);
+		Operation sessionHandler2 = retrySessionHandlerFactory.getInstance(randomEnvironment, resource, credential, operation);
 
 		// test
 		assertFalse(sessionHandler.equals(sessionHandler2));
@@ -47,6 +47,8 @@ import com.alpha.pineapple.model.configuration.Credential;
 import com.alpha.pineapple.model.configuration.Resource;
 import com.alpha.pineapple.plugin.Operation;
 import com.alpha.pineapple.plugin.PluginExecutionFailedException;
+import com.alpha.pineapple.plugin.session.pool.SessionPool;
+import com.alpha.pineapple.session.PoolableSession;
 import com.alpha.pineapple.session.Session;
 import com.alpha.pineapple.session.SessionConnectException;
 import com.alpha.pineapple.session.SessionDisconnectException;
@@ -75,6 +77,12 @@ public class RetrySessionHandlerImplIntegrationTest {
 	@javax.annotation.Resource
 	ExecutionResultFactory executionResultFactory;
 
+	/**
+	 * Session pool.
+	 */
+	@javax.annotation.Resource
+	SessionPool sessionPool;
+
 	/**
 	 * Execution result.
 	 */
@@ -90,6 +98,11 @@ public class RetrySessionHandlerImplIntegrationTest {
 	 */
 	String randomId;
 
+	/**
+	 * Random environment.
+	 */
+	String randomEnvironment;
+
 	/**
 	 * Mock resource.
 	 */
@@ -112,6 +125,7 @@ public class RetrySessionHandlerImplIntegrationTest {
 	public void setUp() throws Exception {
 		randomDescription = RandomStringUtils.randomAlphabetic(10);
 		randomId = RandomStringUtils.randomAlphabetic(10);
+		randomEnvironment = RandomStringUtils.randomAlphabetic(10);
 		result = executionResultFactory.startExecution(randomDescription);
 
 		// complete initialization of mock credential
@@ -121,6 +135,7 @@ public class RetrySessionHandlerImplIntegrationTest {
 
 	@After
 	public void tearDown() throws Exception {
+		sessionPool.evictEnvironment(randomEnvironment);
 	}
 
 	/**
@@ -154,7 +169,7 @@ public class RetrySessionHandlerImplIntegrationTest {
 		replay(operation);
 
 		// create and execute
-		sessionHandler = retrySessionHandlerFactory.getInstance(resource, credential, operation);
+		sessionHandler = retrySessionHandlerFactory.getInstance(randomEnvironment, resource, credential, operation);
 		sessionHandler.execute(content, session, result);
 
 		// test
@@ -196,7 +211,7 @@ public class RetrySessionHandlerImplIntegrationTest {
 		replay(operation);
 
 		// create and execute
-		sessionHandler = retrySessionHandlerFactory.getInstance(resource, credential, operation);
+		sessionHandler = retrySessionHandlerFactory.getInstance(randomEnvironment, resource, credential, operation);
 		sessionHandler.execute(content, session, result);
 
 		// test
@@ -235,7 +250,7 @@ public class RetrySessionHandlerImplIntegrationTest {
 		replay(operation);
 
 		// create and execute
-		sessionHandler = retrySessionHandlerFactory.getInstance(resource, credential, operation);
+		sessionHandler = retrySessionHandlerFactory.getInstance(randomEnvironment, resource, credential, operation);
 		sessionHandler.execute(content, null, result);
 
 		// test
@@ -272,7 +287,7 @@ public class RetrySessionHandlerImplIntegrationTest {
 		replay(operation);
 
 		// create and execute
-		sessionHandler = retrySessionHandlerFactory.getInstance(resource, credential, operation);
+		sessionHandler = retrySessionHandlerFactory.getInstance(randomEnvironment, resource, credential, operation);
 		sessionHandler.execute(null, session, result);
 
 		// test
@@ -315,7 +330,7 @@ public class RetrySessionHandlerImplIntegrationTest {
 		replay(operation);
 
 		// create and execute
-		sessionHandler = retrySessionHandlerFactory.getInstance(resource, credential, operation);
+		sessionHandler = retrySessionHandlerFactory.getInstance(randomEnvironment, resource, credential, operation);
 		sessionHandler.execute(content, session, null);
 
 		// test
@@ -359,7 +374,7 @@ public class RetrySessionHandlerImplIntegrationTest {
 		replay(operation);
 
 		// create and execute
-		sessionHandler = retrySessionHandlerFactory.getInstance(resource, credential, operation);
+		sessionHandler = retrySessionHandlerFactory.getInstance(randomEnvironment, resource, credential, operation);
 
 		try {
 			sessionHandler.execute(content, session, result);
@@ -413,7 +428,7 @@ public class RetrySessionHandlerImplIntegrationTest {
 		replay(operation);
 
 		// create and execute
-		sessionHandler = retrySessionHandlerFactory.getInstance(resource, credential, operation);
+		sessionHandler = retrySessionHandlerFactory.getInstance(randomEnvironment, resource, credential, operation);
 
 		try {
 			sessionHandler.execute(content, session, result);
@@ -465,7 +480,7 @@ public class RetrySessionHandlerImplIntegrationTest {
 		replay(operation);
 
 		// create and execute
-		sessionHandler = retrySessionHandlerFactory.getInstance(resource, credential, operation);
+		sessionHandler = retrySessionHandlerFactory.getInstance(randomEnvironment, resource, credential, operation);
 
 		try {
 			sessionHandler.execute(content, session, result);
@@ -517,7 +532,7 @@ public class RetrySessionHandlerImplIntegrationTest {
 		replay(operation);
 
 		// create and execute
-		sessionHandler = retrySessionHandlerFactory.getInstance(resource, credential, operation);
+		sessionHandler = retrySessionHandlerFactory.getInstance(randomEnvironment, resource, credential, operation);
 
 		try {
 			sessionHandler.execute(content, session, result);
@@ -569,7 +584,7 @@ public class RetrySessionHandlerImplIntegrationTest {
 		replay(operation);
 
 		// create and execute
-		sessionHandler = retrySessionHandlerFactory.getInstance(resource, credential, operation);
+		sessionHandler = retrySessionHandlerFactory.getInstance(randomEnvironment, resource, credential, operation);
 		try {
 			sessionHandler.execute(content, session, result);
 			fail("No exception was thrown as expected");
@@ -623,7 +638,7 @@ public class RetrySessionHandlerImplIntegrationTest {
 		replay(operation);
 
 		// create and execute
-		sessionHandler = retrySessionHandlerFactory.getInstance(resource, credential, operation);
+		sessionHandler = retrySessionHandlerFactory.getInstance(randomEnvironment, resource, credential, operation);
 		try {
 			sessionHandler.execute(content, session, result);
 			fail("No exception was thrown as expected");
@@ -644,6 +659,58 @@ public class RetrySessionHandlerImplIntegrationTest {
 		verify(content);
 	}
 
+	/**
+	 * Test that session disconnect is invoked and the exception is rethrown if
+	 * the operation throws an unexpected runtime exception.
+	 * 
+	 * @throws Exception
+	 *             if test fails.
+	 */
+	@Test
+	public void testDisconnectIsInvokedIfRuntimeExceptionIsThrown() throws Exception {
+
+		// complete initialization of mock resource
+		resource = createMock(Resource.class);
+		expect(resource.getId()).andReturn(randomId).times(2);
+		replay(resource);
+
+		// complete initialization of mock content
+		Object content = createMock(Object.class);
+		replay(content);
+
+		// complete initialization of mock session
+		Session session = createMock(Session.class);
+		session.connect(resource, credential);
+		session.disconnect();
+		replay(session);
+
+		// complete initialization of mock operation
+		operation = createMock(Operation.class);
+		operation.execute(content, session, result);
+		IllegalStateException exception = new IllegalStateException(randomDescription);
+		expectLastCall().andThrow(exception);
+		replay(operation);
+
+		// create and execute
+		sessionHandler = retrySessionHandlerFactory.getInstance(randomEnvironment, resource, credential, operation);
+		try {
+			sessionHandler.execute(content, session, result);
+			fail("No exception was thrown as expected");
+
+		} catch (IllegalStateException e) {
+
+			// test rethrown exception
+			assertEquals(exception, e);
+		}
+
+		// test
+		verify(resource);
+		verify(credential);
+		verify(operation);
+		verify(session);
+		verify(content);
+	}
+
 	/**
 	 * Test that session disconnect is NOT invoked if
 	 * {@link SessionConnectException} is thrown 4x times so that session
@@ -676,7 +743,7 @@ public class RetrySessionHandlerImplIntegrationTest {
 		replay(operation);
 
 		// create and execute
-		sessionHandler = retrySessionHandlerFactory.getInstance(resource, credential, operation);
+		sessionHandler = retrySessionHandlerFactory.getInstance(randomEnvironment, resource, credential, operation);
 		try {
 			sessionHandler.execute(content, session, result);
 			fail("No exception was thrown as expected");
@@ -732,7 +799,7 @@ public class RetrySessionHandlerImplIntegrationTest {
 		replay(operation);
 
 		// create and execute
-		sessionHandler = retrySessionHandlerFactory.getInstance(resource, credential, operation);
+		sessionHandler = retrySessionHandlerFactory.getInstance(randomEnvironment, resource, credential, operation);
 		try {
 			sessionHandler.execute(content, session, result);
 			fail("No exception was thrown as expected");
@@ -753,4 +820,107 @@ public class RetrySessionHandlerImplIntegrationTest {
 		verify(content);
 	}
 
+	/**
+	 * Test that poolable session is released into the session pool instead of
+	 * being disconnected.
+	 * 
+	 * @throws Exception
+	 *             if test fails.
+	 */
+	@Test
+	public void testPoolableSessionIsReleasedIntoPool() throws Exception {
+		Credential realCredential = new Credential();
+		realCredential.setId(randomId);
+
+		// complete initialization of mock resource
+		resource = createMock(Resource.class);
+		expect(resource.getId()).andReturn(randomId).anyTimes();
+		replay(resource);
+
+		// complete initialization of mock content
+		Object content = createMock(Object.class);
+		replay(content);
+
+		// complete initialization of mock session
+		PoolableSession session = createMock(PoolableSession.class);
+		session.connect(resource, realCredential);
+		expect(session.isConnected()).andReturn(true);
+		session.disconnect();
+		replay(session);
+
+		// complete initialization of mock operation
+		operation = createMock(Operation.class);
+		operation.execute(content, session, result);
+		replay(operation);
+
+		// create and execute
+		sessionHandler = retrySessionHandlerFactory.getInstance(randomEnvironment, resource, realCredential,
+				operation);
+		sessionHandler.execute(content, session, result);
+
+		// evict pooled session
+		sessionPool.evictEnvironment(randomEnvironment);
+
+		// test
+		verify(resource);
+		verify(operation);
+		verify(session);
+		verify(content);
+	}
+
+	/**
+	 * Test that pooled session is reused by subsequent execution on the same
+	 * resource.
+	 * 
+	 * @throws Exception
+	 *             if test fails.
+	 */
+	@Test
+	public void testPooledSessionIsReused() throws Exception {
+		Credential realCredential = new Credential();
+		realCredential.setId(randomId);
+
+		// complete initialization of mock resource
+		resource = createMock(Resource.class);
+		expect(resource.getId()).andReturn(randomId).anyTimes();
+		replay(resource);
+
+		// complete initialization of mock content
+		Object content = createMock(Object.class);
+		replay(content);
+
+		// complete initialization of mock sessions
+		PoolableSession session = createMock(PoolableSession.class);
+		session.connect(resource, realCredential);
+		expect(session.isConnected()).andReturn(true).times(3);
+		session.disconnect();
+		replay(session);
+		PoolableSession session2 = createMock(PoolableSession.class);
+		replay(session2);
+
+		// complete initialization of mock operation
+		operation = createMock(Operation.class);
+		operation.execute(content, session, result);
+		expectLastCall().times(2);
+		replay(operation);
+
+		// create and execute twice
+		sessionHandler = retrySessionHandlerFactory.getInstance(randomEnvironment, resource, realCredential,
+				operation);
+		sessionHandler.execute(content, session, result);
+		Operation sessionHandler2 = retrySessionHandlerFactory.getInstance(randomEnvironment, resource,
+				realCredential, operation);
+		sessionHandler2.execute(content, session2, result);
+
+		// evict pooled session
+		sessionPool.evictEnvironment(randomEnvironment);
+
+		// test
+		verify(resource);
+		verify(operation);
+		verify(session);
+		verify(session2);
+		verify(content);
+	}
+
 }
@@ -0,0 +1,330 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+* Copyright (C) 2007-2015 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package com.alpha.pineapple.plugin.session.pool;
+
+import static com.alpha.pineapple.CoreConstants.WILDCARD_ENVIRONMENT_ID;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alpha.pineapple.i18n.MessageProvider;
+import com.alpha.pineapple.model.configuration.Credential;
+import com.alpha.pineapple.model.configuration.Resource;
+import com.alpha.pineapple.session.PoolableSession;
+import com.alpha.pineapple.session.SessionDisconnectException;
+
+/**
+ * Unit test of the class {@link SessionPoolImpl}.
+ */
+public class SessionPoolImplTest {
+
+	/**
+	 * Object under test.
+	 */
+	SessionPoolImpl pool;
+
+	/**
+	 * Mock message provider.
+	 */
+	MessageProvider messageProvider;
+
+	/**
+	 * Random environment.
+	 */
+	String randomEnvironment;
+
+	/**
+	 * Resource.
+	 */
+	Resource resource;
+
+	/**
+	 * Credential.
+	 */
+	Credential credential;
+
+	@Before
+	public void setUp() throws Exception {
+		randomEnvironment = RandomStringUtils.randomAlphabetic(10);
+
+		resource = new Resource();
+		resource.setId(RandomStringUtils.randomAlphabetic(10));
+		credential = new Credential();
+		credential.setId(RandomStringUtils.randomAlphabetic(10));
+
+		// create pool
+		pool = new SessionPoolImpl();
+		messageProvider = createNiceMock(MessageProvider.class);
+		replay(messageProvider);
+		pool.messageProvider = messageProvider;
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * Create mock session which reports itself as connected.
+	 * 
+	 * @param disconnects
+	 *            expected number of disconnects.
+	 * 
+	 * @return mock session.
+	 */
+	PoolableSession createConnectedSession(int disconnects) throws Exception {
+		PoolableSession session = createMock(PoolableSession.class);
+		expect(session.isConnected()).andReturn(true).anyTimes();
+		if (disconnects > 0) {
+			session.disconnect();
+			expectLastCall().times(disconnects);
+		}
+		replay(session);
+		return session;
+	}
+
+	/**
+	 * Test that acquire from empty pool returns null.
+	 */
+	@Test
+	public void testAcquireFromEmptyPoolReturnsNull() {
+		assertNull(pool.acquire(randomEnvironment, resource, credential, PoolableSession.class));
+		assertEquals(0, pool.getHits());
+		assertEquals(1, pool.getMisses());
+	}
+
+	/**
+	 * Test that released session is acquired.
+	 */
+	@Test
+	public void testReleasedSessionIsAcquired() throws Exception {
+		PoolableSession session = createConnectedSession(0);
+
+		assertTrue(pool.release(randomEnvironment, resource, credential, session, pool.getGeneration()));
+		assertEquals(1, pool.getNumberOfIdleSessions());
+		PoolableSession acquired = pool.acquire(randomEnvironment, resource, credential, session.getClass());
+
+		// test
+		assertSame(session, acquired);
+		assertEquals(0, pool.getNumberOfIdleSessions());
+		assertEquals(1, pool.getHits());
+		assertEquals(0, pool.getMisses());
+		verify(session);
+	}
+
+	/**
+	 * Test that session isn't acquired for another credential.
+	 */
+	@Test
+	public void testSessionIsntAcquiredForOtherCredential() throws Exception {
+		PoolableSession session = createConnectedSession(0);
+		Credential otherCredential = new Credential();
+		otherCredential.setId(RandomStringUtils.randomAlphabetic(10));
+
+		pool.release(randomEnvironment, resource, credential, session, pool.getGeneration());
+
+		// test
+		assertNull(pool.acquire(randomEnvironment, resource, otherCredential, session.getClass()));
+		assertNull(pool.acquire(RandomStringUtils.randomAlphabetic(10), resource, credential, session.getClass()));
+		assertEquals(1, pool.getNumberOfIdleSessions());
+		verify(session);
+	}
+
+	/**
+	 * Test that disconnected session isn't released into the pool.
+	 */
+	@Test
+	public void testDisconnectedSessionIsntReleased() throws Exception {
+		PoolableSession session = createMock(PoolableSession.class);
+		expect(session.isConnected()).andReturn(false);
+		replay(session);
+
+		// test
+		assertFalse(pool.release(randomEnvironment, resource, credential, session, pool.getGeneration()));
+		assertEquals(0, pool.getNumberOfIdleSessions());
+		verify(session);
+	}
+
+	/**
+	 * Test that stale session is disconnected and discarded on acquire.
+	 */
+	@Test
+	public void testStaleSessionIsDiscardedOnAcquire() throws Exception {
+		PoolableSession session = createMock(PoolableSession.class);
+		expect(session.isConnected()).andReturn(true);
+		expect(session.isConnected()).andReturn(false);
+		session.disconnect();
+		replay(session);
+
+		pool.release(randomEnvironment, resource, credential, session, pool.getGeneration());
+
+		// test
+		assertNull(pool.acquire(randomEnvironment, resource, credential, session.getClass()));
+		assertEquals(0, pool.getNumberOfIdleSessions());
+		assertEquals(1, pool.getMisses());
+		verify(session);
+	}
+
+	/**
+	 * Test that pool rejects sessions exceeding the maximum number of idle
+	 * sessions per resource.
+	 */
+	@Test
+	public void testPoolRejectsSessionsExceedingMaximum() throws Exception {
+		pool.setMaxIdleSessionsPerResource(1);
+		PoolableSession session = createConnectedSession(0);
+		PoolableSession session2 = createConnectedSession(0);
+
+		// test
+		assertTrue(pool.release(randomEnvironment, resource, credential, session, pool.getGeneration()));
+		assertFalse(pool.release(randomEnvironment, resource, credential, session2, pool.getGeneration()));
+		assertEquals(1, pool.getNumberOfIdleSessions());
+		verify(session);
+		verify(session2);
+	}
+
+	/**
+	 * Test that resource eviction disconnects pooled sessions.
+	 */
+	@Test
+	public void testEvictResourceDisconnectsSessions() throws Exception {
+		PoolableSession session = createConnectedSession(1);
+		pool.release(randomEnvironment, resource, credential, session, pool.getGeneration());
+
+		pool.evictResource(randomEnvironment, resource.getId());
+
+		// test
+		assertEquals(0, pool.getNumberOfIdleSessions());
+		verify(session);
+	}
+
+	/**
+	 * Test that session acquired or connected prior to an eviction isn't
+	 * released into the pool.
+	 */
+	@Test
+	public void testSessionFromPriorGenerationIsntReleased() throws Exception {
+		PoolableSession session = createConnectedSession(0);
+		long generation = pool.getGeneration();
+
+		pool.evictResource(randomEnvironment, resource.getId());
+
+		// test
+		assertFalse(pool.release(randomEnvironment, resource, credential, session, generation));
+		assertEquals(0, pool.getNumberOfIdleSessions());
+		verify(session);
+	}
+
+	/**
+	 * Test that credential eviction disconnects pooled sessions.
+	 */
+	@Test
+	public void testEvictCredentialDisconnectsSessions() throws Exception {
+		PoolableSession session = createConnectedSession(1);
+		pool.release(randomEnvironment, resource, credential, session, pool.getGeneration());
+
+		pool.evictCredential(randomEnvironment, credential.getId());
+
+		// test
+		assertEquals(0, pool.getNumberOfIdleSessions());
+		verify(session);
+	}
+
+	/**
+	 * Test that eviction of resource in wild card environment disconnects
+	 * pooled sessions in all environments.
+	 */
+	@Test
+	public void testEvictWildcardResourceDisconnectsSessionsInAllEnvironments() throws Exception {
+		PoolableSession session = createConnectedSession(1);
+		pool.release(randomEnvironment, resource, credential, session, pool.getGeneration());
+
+		pool.evictResource(WILDCARD_ENVIRONMENT_ID, resource.getId());
+
+		// test
+		assertEquals(0, pool.getNumberOfIdleSessions());
+		verify(session);
+	}
+
+	/**
+	 * Test that eviction of another environment doesn't disconnect sessions.
+	 */
+	@Test
+	public void testEvictOtherEnvironmentKeepsSessions() throws Exception {
+		PoolableSession session = createConnectedSession(0);
+		pool.release(randomEnvironment, resource, credential, session, pool.getGeneration());
+
+		pool.evictEnvironment(RandomStringUtils.randomAlphabetic(10));
+
+		// test
+		assertEquals(1, pool.getNumberOfIdleSessions());
+		verify(session);
+	}
+
+	/**
+	 * Test that idle sessions are evicted after the idle timeout.
+	 */
+	@Test
+	public void testEvictIdleSessions() throws Exception {
+		pool.setIdleTimeout(-1);
+		PoolableSession session = createConnectedSession(1);
+		pool.release(randomEnvironment, resource, credential, session, pool.getGeneration());
+
+		pool.evictIdleSessions();
+
+		// test
+		assertEquals(0, pool.getNumberOfIdleSessions());
+		verify(session);
+	}
+
+	/**
+	 * Test that failed disconnect during eviction is tolerated.
+	 */
+	@Test
+	public void testEvictionToleratesFailedDisconnect() throws Exception {
+		PoolableSession session = createMock(PoolableSession.class);
+		expect(session.isConnected()).andReturn(true);
+		session.disconnect();
+		expectLastCall().andThrow(new SessionDisconnectException(RandomStringUtils.randomAlphabetic(10)));
+		replay(session);
+		pool.release(randomEnvironment, resource, credential, session, pool.getGeneration());
+
+		pool.evictAll();
+
+		// test
+		assertEquals(0, pool.getNumberOfIdleSessions());
+		verify(session);
+	}
+}
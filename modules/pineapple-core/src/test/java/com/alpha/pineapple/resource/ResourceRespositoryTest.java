@@ -24,6 +24,7 @@ package com.alpha.pineapple.resource;
 
 import static com.alpha.pineapple.CoreConstants.WILDCARD_ENVIRONMENT_ID;
 import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createNiceMock;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.expectLastCall;
 import static org.easymock.EasyMock.replay;
@@ -42,6 +43,7 @@ import org.springframework.test.util.ReflectionTestUtils;
 import com.alpha.easymockutils.MessageProviderAnswerImpl;
 import com.alpha.pineapple.i18n.MessageProvider;
 import com.alpha.pineapple.model.configuration.Configuration;
+import com.alpha.pineapple.plugin.session.pool.SessionPool;
 import com.alpha.testutils.ObjectMotherEnvironmentConfiguration;
 
 /**
@@ -73,6 +75,11 @@ public class ResourceRespositoryTest {
 	 */
 	MessageProvider messageProvider;
 
+	/**
+	 * Mock session pool.
+	 */
+	SessionPool sessionPool;
+
 	/**
 	 * Mock resource configuration marshaller.
 	 */
@@ -128,6 +135,11 @@ public class ResourceRespositoryTest {
 		resourceConfigurationMarshaller = createMock(ResourceConfigurationMarshaller.class);
 		ReflectionTestUtils.setField(repository, "resourceConfigurationMarshaller", resourceConfigurationMarshaller);
 
+		// create session pool and inject
+		sessionPool = createNiceMock(SessionPool.class);
+		ReflectionTestUtils.setField(repository, "sessionPool", sessionPool);
+		replay(sessionPool);
+
 		// create mock provider an inject
 		messageProvider = createMock(MessageProvider.class);
 		ReflectionTestUtils.setField(repository, "messageProvider", messageProvider, MessageProvider.class);
@@ -24,6 +24,9 @@ package com.alpha.pineapple.substitution;
 
 import static org.junit.Assert.assertEquals;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -336,4 +339,140 @@ public class DefaultVariableResolverTest {
 		assertEquals(EMPTY_STRING, actual);
 	}
 
+
+	/**
+	 * Resolve source through streaming resolution.
+	 * 
+	 * @param variables
+	 *            variables for resolution.
+	 * @param source
+	 *            source string.
+	 * 
+	 * @return resolved string.
+	 * 
+	 * @throws IOException
+	 *             if resolution fails.
+	 */
+	String resolveStream(Variables variables, String source) throws IOException {
+		StringWriter writer = new StringWriter();
+		resolver.resolve(variables, new StringReader(source), writer);
+		return writer.toString();
+	}
+
+	/**
+	 * Test that empty stream can be processed.
+	 */
+	@Test
+	public void testSubstituteEmptyStream() throws Exception {
+		// create map
+		Map<String, String> varMap = new HashMap<String, String>();
+		varMap.put(randomVarName, randomVarValue);
+
+		// create variables and resolve
+		Variables variables = new DefaultVariablesImpl(varMap);
+		String actual = resolveStream(variables, EMPTY_STRING);
+
+		// test
+		assertEquals(EMPTY_STRING, actual);
+	}
+
+	/**
+	 * Test that variables in stream can be processed.
+	 */
+	@Test
+	public void testSubstituteTwoVariablesInStream() throws Exception {
+		String source = new StringBuilder().append("a").append(createRandomVariablefromVarNameOne()).append("b")
+				.append(createRandomVariablefromVarNameTwo()).append("c").toString();
+
+		// create map
+		Map<String, String> varMap = new HashMap<String, String>();
+		varMap.put(randomVarName, randomVarValue);
+		varMap.put(randomVarName2, randomVarValue2);
+
+		// create variables and resolve
+		Variables variables = new DefaultVariablesImpl(varMap);
+		String actual = resolveStream(variables, source);
+
+		// test
+		String expected = new StringBuilder().append("a").append(randomVarValue).append("b").append(randomVarValue2)
+				.append("c").toString();
+		assertEquals(expected, actual);
+	}
+
+	/**
+	 * Test that stream is resolved identical to strings for escaped,
+	 * unterminated and undefined variables.
+	 */
+	@Test
+	public void testSubstituteStreamIsIdenticalToString() throws Exception {
+		String variable = createRandomVariablefromVarNameOne();
+		String[] sources = { "$", "$$", "a$b", "$$$", "$" + variable, "$$" + variable, "$$$" + variable,
+				variable + "$", "${", "${" + randomVarName, "${undefined}", "x${}y", "${${" + randomVarName + "}}",
+				"$$${undefined}$" };
+
+		// create map
+		Map<String, String> varMap = new HashMap<String, String>();
+		varMap.put(randomVarName, randomVarValue);
+
+		// create variables
+		Variables variables = new DefaultVariablesImpl(varMap);
+
+		// test
+		for (String source : sources) {
+			assertEquals(resolver.resolve(variables, source), resolveStream(variables, source));
+		}
+	}
+
+	/**
+	 * Test that variable split across chunk boundaries in stream is processed.
+	 */
+	@Test
+	public void testSubstituteVariableSplitAcrossChunksInStream() throws Exception {
+		String variable = createRandomVariablefromVarNameOne();
+
+		// create map
+		Map<String, String> varMap = new HashMap<String, String>();
+		varMap.put(randomVarName, randomVarValue);
+
+		// create variables
+		Variables variables = new DefaultVariablesImpl(varMap);
+
+		// test variable at every offset around chunk boundary
+		int bufferSize = DefaultVariableResolverImpl.BUFFER_SIZE;
+		for (int offset = bufferSize - variable.length() - 2; offset <= bufferSize + 1; offset++) {
+			String filler = StringUtils.repeat("x", offset);
+			String actual = resolveStream(variables, filler + variable + variable);
+			assertEquals(filler + randomVarValue + randomVarValue, actual);
+
+			// test escaped variable at every offset around chunk boundary
+			String source = filler + "$" + variable + "$$" + variable;
+			assertEquals(resolver.resolve(variables, source), resolveStream(variables, source));
+		}
+	}
+
+	/**
+	 * Test that variable token longer than the maximum token length isn't
+	 * substituted.
+	 */
+	@Test
+	public void testVariableLongerThanMaximumTokenLengthIsntSubstitutedInStream() throws Exception {
+		String longVarName = StringUtils.repeat("x", DefaultVariableResolverImpl.MAXIMUM_TOKEN_LENGTH);
+		String source = new StringBuilder().append("${").append(longVarName).append("}")
+				.append(createRandomVariablefromVarNameOne()).toString();
+
+		// create map
+		Map<String, String> varMap = new HashMap<String, String>();
+		varMap.put(longVarName, randomVarValue);
+		varMap.put(randomVarName, randomVarValue);
+
+		// create variables and resolve
+		Variables variables = new DefaultVariablesImpl(varMap);
+		String actual = resolveStream(variables, source);
+
+		// test
+		String expected = new StringBuilder().append("${").append(longVarName).append("}").append(randomVarValue)
+				.toString();
+		assertEquals(expected, actual);
+	}
+
 }
@@ -28,6 +28,7 @@ import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -42,6 +43,7 @@ import org.junit.runner.RunWith;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import com.alpha.javautils.SystemUtils;
 import com.alpha.pineapple.model.configuration.Property;
 import com.alpha.pineapple.model.module.Module;
 import com.alpha.pineapple.model.module.model.Models;
@@ -235,6 +237,44 @@ public class ModelVariableSubstitutorImplIntegrationTest {
 		verify(sessionResource);
 	}
 
+	/**
+	 * Test that variable defined in session resource is substituted into a
+	 * plain copy of the target object if eager substitution is enabled.
+	 * 
+	 * @throws Exception
+	 *             if test fails.
+	 */
+	@Test
+	public void testCanSubstituteValueWithEagerSubstitution() throws Exception {
+		List<Property> propertyList = createPropertyListWithSingleProperty(randomVarName, randomVariableValue);
+		completeResourceMockSetup(propertyList);
+
+		// create string for substitution
+		String subStr = new StringBuilder().append("${").append(randomVarName).append("}").toString();
+
+		// create models
+		Models model = moduleMother.createModelObjectWithEmptyVariables();
+		Module module = moduleMother.createModuleObjectWithEmptyVariables();
+		Root targetObject = createTargetModel(subStr);
+
+		// create object
+		Root substitutedObject;
+		System.setProperty(SystemUtils.PINEAPPLE_EAGER_SUBSTITUTION, "true");
+		try {
+			substitutedObject = modelVariableSubstitutor.createObjectWithSubstitution(module, model,
+					sessionResource, targetObject);
+		} finally {
+			System.clearProperty(SystemUtils.PINEAPPLE_EAGER_SUBSTITUTION);
+		}
+
+		// test
+		assertNotNull(substitutedObject);
+		assertSame(Root.class, substitutedObject.getClass());
+		assertEquals(randomVariableValue, substitutedObject.getContainer().getItems().get(0).getName());
+		assertEquals(subStr, targetObject.getContainer().getItems().get(0).getName());
+		verify(sessionResource);
+	}
+
 	/**
 	 * Test that variable can be substituted with resource variable defined in
 	 * session resource.
@@ -32,7 +32,6 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.File;
-import java.io.RandomAccessFile;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -42,6 +41,7 @@ import org.apache.commons.chain.Context;
 import org.apache.commons.chain.impl.ContextBase;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.RandomStringUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.easymock.EasyMock;
 import org.junit.After;
 import org.junit.Before;
@@ -95,6 +95,11 @@ public class VariableSubstitutionProviderIntegrationTest {
 	 */
 	static final int FIRST_INDEX = 0;
 
+	/**
+	 * Second Index.
+	 */
+	static final int SECOND_INDEX = 1;
+
 	/**
 	 * Current test directory.
 	 */
@@ -472,11 +477,11 @@ public class VariableSubstitutionProviderIntegrationTest {
 		assertTrue(result.getChildren()[FIRST_INDEX].isSuccess()); // substitution
 		// result is
 		// successful
-		assertEquals(2, result.getChildren()[FIRST_INDEX].getChildren().length); // substitution
+		assertEquals(1, result.getChildren()[FIRST_INDEX].getChildren().length); // substitution
 		// result
 		// has
-		// two
-		// children
+		// one
+		// child
 
 		verify(session);
 		verify(sessionResource);
@@ -514,11 +519,11 @@ public class VariableSubstitutionProviderIntegrationTest {
 		assertTrue(result.getChildren()[FIRST_INDEX].isSuccess()); // substitution
 		// result is
 		// successful
-		assertEquals(2, result.getChildren()[FIRST_INDEX].getChildren().length); // substitution
+		assertEquals(1, result.getChildren()[FIRST_INDEX].getChildren().length); // substitution
 		// result
 		// has
-		// two
-		// children
+		// one
+		// child
 		verify(session);
 		verify(sessionResource);
 	}
@@ -592,85 +597,116 @@ public class VariableSubstitutionProviderIntegrationTest {
 	}
 
 	/**
-	 * Test that variable defined in a file as a resource property can be
-	 * substituted. With session included.
+	 * Test that variables defined in a file larger than 1 MB can be substituted.
+	 * With session included.
 	 * 
 	 * @throws Exception
 	 *             if test fails.
 	 */
-	@Test(expected = SourceFileValidationFailureException.class)
-	public void testCreateSubstitutedFileFailsIfFileIsToLarge() throws Exception {
+	@Test
+	public void testCreateSubstitutedFileLargerThanOneMegabyte_WithSession() throws Exception {
+		String variable = createRandomVariablefromVarNameOne();
+		String variableValue = RandomStringUtils.randomAlphabetic(10);
+		List<Property> propertyList = createPropertyListWithSingleProperty(variableValue);
+
+		// create source string with variables at the start and end
+		String filler = StringUtils.repeat("x", 2 * (1024 * 1024));
+		String source = new StringBuilder().append(variable).append(filler).append(variable).toString();
 
 		// create local test file
 		File localFile = new File(testDirectory, randomFileName);
+		FileUtils.write(localFile, source);
 
-		// create file bigger then the maximum size
-		RandomAccessFile f = new RandomAccessFile(localFile, "rw");
-		f.setLength(VariableSubstitutionProviderImpl.DEFAULT_MAXIMUM_SIZE + 100);
-		f.close();
-
-		// complete mock setup
-		replay(sessionResource);
-		EasyMock.expect(session.getResource()).andReturn(sessionResource);
-		replay(session);
+		completeSessionMockSetupWithPropertyDefined(propertyList);
 
 		// invoke
 		File actualfile = variableSubstitutionProvider.createSubstitutedFile(localFile, session, result);
 
 		// load file
-		FileUtils.readFileToString(actualfile);
+		String actual = FileUtils.readFileToString(actualfile);
 
 		// test
+		String expected = new StringBuilder().append(variableValue).append(filler).append(variableValue).toString();
+		assertEquals(expected, actual);
+		assertTrue(result.isExecuting()); // parent result is still executing
+		assertEquals(1, result.getChildren().length); // one substitution result
+		// is defined
+		assertTrue(result.getChildren()[FIRST_INDEX].isSuccess()); // substitution
+		// result is
+		// successful
 		verify(session);
 		verify(sessionResource);
-
 	}
 
 	/**
-	 * Test that variable defined in a file as a resource property can be
-	 * substituted. With session included.
+	 * Test that substituted file isn't rewritten if the content is unchanged
+	 * since the previous substitution. With session included.
 	 * 
 	 * @throws Exception
 	 *             if test fails.
 	 */
 	@Test
-	public void testValidationResultReflectsFailedSubstitutedFileFailsIfFileIsToLarge() throws Exception {
+	public void testCreateSubstitutedFileIsntRewrittenIfUnchanged_WithSession() throws Exception {
+		String variable = createRandomVariablefromVarNameOne();
+		String variableValue = RandomStringUtils.randomAlphabetic(10);
+		List<Property> propertyList = createPropertyListWithSingleProperty(variableValue);
 
 		// create local test file
 		File localFile = new File(testDirectory, randomFileName);
+		FileUtils.write(localFile, variable);
 
-		// create file bigger then the maximum size
-		RandomAccessFile f = new RandomAccessFile(localFile, "rw");
-		f.setLength(VariableSubstitutionProviderImpl.DEFAULT_MAXIMUM_SIZE + 100);
-		f.close();
+		completeSessionMockSetupWithPropertyDefined(propertyList);
 
-		// complete mock setup
-		replay(sessionResource);
-		replay(session);
+		// invoke and mark substituted file
+		File firstFile = variableSubstitutionProvider.createSubstitutedFile(localFile, session, result);
+		long timestamp = firstFile.lastModified() - 10000;
+		assertTrue(firstFile.setLastModified(timestamp));
 
-		// invoke and capture exception
-		try {
-			variableSubstitutionProvider.createSubstitutedFile(localFile, session, result);
+		// invoke again
+		File secondFile = variableSubstitutionProvider.createSubstitutedFile(localFile, session, result);
 
-			// fail if no exception is thrown
-			fail();
-		} catch (Exception e) {
-			// pass through
-		}
+		// test
+		assertEquals(firstFile, secondFile);
+		assertEquals(timestamp, secondFile.lastModified());
+		assertEquals(variableValue, FileUtils.readFileToString(secondFile));
+		assertEquals(2, result.getChildren().length); // two substitution results
+		assertTrue(result.getChildren()[FIRST_INDEX].isSuccess());
+		assertTrue(result.getChildren()[SECOND_INDEX].isSuccess());
+		verify(session);
+		verify(sessionResource);
+	}
+
+	/**
+	 * Test that substituted file is rewritten if the content is changed since
+	 * the previous substitution. With session included.
+	 * 
+	 * @throws Exception
+	 *             if test fails.
+	 */
+	@Test
+	public void testCreateSubstitutedFileIsRewrittenIfChanged_WithSession() throws Exception {
+		String variable = createRandomVariablefromVarNameOne();
+		String variableValue = RandomStringUtils.randomAlphabetic(10);
+		List<Property> propertyList = createPropertyListWithSingleProperty(variableValue);
+
+		// create local test file
+		File localFile = new File(testDirectory, randomFileName);
+		FileUtils.write(localFile, variable);
+
+		completeSessionMockSetupWithPropertyDefined(propertyList);
+
+		// invoke
+		variableSubstitutionProvider.createSubstitutedFile(localFile, session, result);
+
+		// update local test file and invoke again
+		String text = RandomStringUtils.randomAlphabetic(10);
+		FileUtils.write(localFile, text + variable);
+		File actualfile = variableSubstitutionProvider.createSubstitutedFile(localFile, session, result);
 
 		// test
-		assertTrue(result.isExecuting()); // parent result is still executing
-		assertEquals(1, result.getChildren().length); // one substitution result
-		// is defined
-		assertEquals(ExecutionState.ERROR, result.getChildren()[FIRST_INDEX].getState()); // substitution
-		// result
-		// is
-		// successful
-		assertEquals(2, result.getChildren()[FIRST_INDEX].getChildren().length); // substitution
-		// result
-		// has
-		// two
-		// children
+		assertEquals(text + variableValue, FileUtils.readFileToString(actualfile));
+		assertEquals(2, result.getChildren().length); // two substitution results
+		assertTrue(result.getChildren()[SECOND_INDEX].isSuccess());
 		verify(session);
 		verify(sessionResource);
 	}
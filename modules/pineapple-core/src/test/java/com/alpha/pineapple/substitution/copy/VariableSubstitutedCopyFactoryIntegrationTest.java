@@ -0,0 +1,354 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+ * Copyright (C) 2007-2012 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package com.alpha.pineapple.substitution.copy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+
+import javax.annotation.Resource;
+import javax.xml.bind.JAXBElement;
+import javax.xml.namespace.QName;
+
+import org.apache.commons.lang3.RandomStringUtils;
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import com.alpha.pineapple.model.configuration.Configuration;
+import com.alpha.pineapple.model.configuration.Environment;
+import com.alpha.pineapple.model.configuration.Environments;
+import com.alpha.pineapple.substitution.proxy.VariableSubstitutedProxyFactory;
+import com.alpha.pineapple.substitution.variables.DefaultVariablesImpl;
+import com.alpha.pineapple.substitution.variables.Variables;
+
+/**
+ * Integration test of the class {@linkplain VariableSubstitutedCopyFactoryImpl}.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = { "/com.alpha.pineapple.core-config.xml" })
+public class VariableSubstitutedCopyFactoryIntegrationTest {
+
+	/**
+	 * Number of environments in the model used to compare with the proxy.
+	 */
+	static final int COMPARISON_ENVIRONMENTS = 200;
+
+	/**
+	 * Number of times the model is read when compared with the proxy.
+	 */
+	static final int COMPARISON_READS = 50;
+
+	/**
+	 * Logger object.
+	 */
+	Logger logger = Logger.getLogger(this.getClass().getName());
+
+	/**
+	 * Variable substituted proxy factory Factory.
+	 */
+	@Resource
+	ObjectFactory<VariableSubstitutedProxyFactory> variableSubstitutedProxyFactoryFactory;
+
+	/**
+	 * Variable substituted copy factory Factory.
+	 */
+	@Resource
+	ObjectFactory<VariableSubstitutedCopyFactory> variableSubstitutedCopyFactoryFactory;
+
+	/**
+	 * Subject under test.
+	 */
+	VariableSubstitutedCopyFactory variableSubstitutedCopyFactory;
+
+	/**
+	 * Random key.
+	 */
+	String randomKey;
+
+	/**
+	 * Random value.
+	 */
+	String randomValue;
+
+	/**
+	 * Random ID.
+	 */
+	String randomId;
+
+	@Before
+	public void setUp() throws Exception {
+		randomKey = RandomStringUtils.randomAlphabetic(10);
+		randomValue = RandomStringUtils.randomAlphabetic(10);
+		randomId = RandomStringUtils.randomAlphabetic(10);
+
+		// factory
+		variableSubstitutedCopyFactory = variableSubstitutedCopyFactoryFactory.getObject();
+		assertNotNull(variableSubstitutedCopyFactory);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * Create variables and initialize factory.
+	 */
+	void createVariablesAndInitializeFactory() {
+		HashMap<String, String> varMap = new HashMap<String, String>();
+		varMap.put(randomKey, randomValue);
+		Variables variables = new DefaultVariablesImpl(varMap);
+		variableSubstitutedCopyFactory.initialize(variables);
+	}
+
+	/**
+	 * Create string for substitution.
+	 * 
+	 * @return string for substitution.
+	 */
+	String createSubstitutionString() {
+		return new StringBuilder().append("${").append(randomKey).append("}").toString();
+	}
+
+	/**
+	 * Test that each factory is a Spring prototype.
+	 */
+	@Test
+	public void testFactoryIsPrototype() {
+		assertNotSame(variableSubstitutedCopyFactory, variableSubstitutedCopyFactoryFactory.getObject());
+	}
+
+	/**
+	 * Test factory throws exception if it is initialized with null variables.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testFactoryThrowsExceptionIfInitializedWithNullVariables() {
+		variableSubstitutedCopyFactory.initialize(null);
+	}
+
+	/**
+	 * Test factory throws exception if it isn't initialized with variables.
+	 */
+	@Test(expected = IllegalStateException.class)
+	public void testFactoryThrowsExceptionIfNotInitializedWithVariables() {
+		variableSubstitutedCopyFactory.createCopy(new Environment());
+	}
+
+	/**
+	 * Test factory returns null when invoked with null.
+	 */
+	@Test
+	public void testFactoryReturnsNullforNullObject() {
+		createVariablesAndInitializeFactory();
+		assertNull(variableSubstitutedCopyFactory.createCopy(null));
+	}
+
+	/**
+	 * Test that string is substituted.
+	 */
+	@Test
+	public void testStringIsSubstituted() {
+		createVariablesAndInitializeFactory();
+		assertEquals(randomValue, variableSubstitutedCopyFactory.createCopy(createSubstitutionString()));
+	}
+
+	/**
+	 * Test that object graph is copied and substituted.
+	 */
+	@Test
+	public void testObjectGraphIsCopiedAndSubstituted() {
+		Environment environment = new Environment();
+		environment.setId(randomId);
+		environment.setDescription(createSubstitutionString());
+		Configuration configuration = new Configuration();
+		configuration.setEnvironments(new Environments());
+		configuration.getEnvironments().getEnvironment().add(environment);
+
+		createVariablesAndInitializeFactory();
+		Configuration copy = variableSubstitutedCopyFactory.createCopy(configuration);
+
+		// test
+		assertNotSame(configuration, copy);
+		assertSame(Configuration.class, copy.getClass());
+		List<Environment> environments = copy.getEnvironments().getEnvironment();
+		assertEquals(1, environments.size());
+		assertNotSame(environment, environments.get(0));
+		assertEquals(randomId, environments.get(0).getId());
+		assertEquals(randomValue, environments.get(0).getDescription());
+		assertEquals(createSubstitutionString(), environment.getDescription());
+	}
+
+	/**
+	 * Test that shared references in the object graph are preserved in the
+	 * copy.
+	 */
+	@Test
+	public void testSharedReferencesArePreserved() {
+		Environment environment = new Environment();
+		environment.setDescription(createSubstitutionString());
+		Environments environments = new Environments();
+		environments.getEnvironment().add(environment);
+		environments.getEnvironment().add(environment);
+
+		createVariablesAndInitializeFactory();
+		Environments copy = variableSubstitutedCopyFactory.createCopy(environments);
+
+		// test
+		assertSame(copy.getEnvironment().get(0), copy.getEnvironment().get(1));
+		assertEquals(randomValue, copy.getEnvironment().get(0).getDescription());
+	}
+
+	/**
+	 * Test that JAXB element is copied and substituted.
+	 */
+	@Test
+	public void testJaxbElementIsCopiedAndSubstituted() {
+		QName name = new QName(randomId);
+		JAXBElement<String> element = new JAXBElement<String>(name, String.class, createSubstitutionString());
+
+		createVariablesAndInitializeFactory();
+		JAXBElement<String> copy = variableSubstitutedCopyFactory.createCopy(element);
+
+		// test
+		assertNotSame(element, copy);
+		assertEquals(name, copy.getName());
+		assertEquals(randomValue, copy.getValue());
+		assertEquals(createSubstitutionString(), element.getValue());
+	}
+
+	/**
+	 * Compare the substituted copy with the substituted proxy for a model which
+	 * is read repeatedly. Both must return the same values. The time spent by
+	 * each is logged, and the copy mustn't be slower since it substitutes each
+	 * string once while the proxy substitutes on every read.
+	 */
+	@Test
+	public void testCopyIsntSlowerThanProxyForRepeatedReads() {
+		Configuration configuration = new Configuration();
+		configuration.setEnvironments(new Environments());
+		for (int i = 0; i < COMPARISON_ENVIRONMENTS; i++) {
+			Environment environment = new Environment();
+			environment.setId(randomId + i);
+			environment.setDescription(createSubstitutionString() + i);
+			configuration.getEnvironments().getEnvironment().add(environment);
+		}
+
+		// warm up
+		readModel(createProxy(configuration));
+		readModel(createCopy(configuration));
+
+		// measure
+		long start = System.nanoTime();
+		StringBuilder proxyValues = new StringBuilder();
+		Configuration proxy = createProxy(configuration);
+		for (int i = 0; i < COMPARISON_READS; i++)
+			proxyValues.append(readModel(proxy));
+		long proxyTime = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		StringBuilder copyValues = new StringBuilder();
+		Configuration copy = createCopy(configuration);
+		for (int i = 0; i < COMPARISON_READS; i++)
+			copyValues.append(readModel(copy));
+		long copyTime = System.nanoTime() - start;
+
+		// log time
+		StringBuilder message = new StringBuilder();
+		message.append("Read model with <");
+		message.append(COMPARISON_ENVIRONMENTS);
+		message.append("> environments <");
+		message.append(COMPARISON_READS);
+		message.append("> times, proxy: <");
+		message.append(proxyTime / 1000);
+		message.append("> us, copy: <");
+		message.append(copyTime / 1000);
+		message.append("> us.");
+		logger.info(message.toString());
+
+		// test
+		assertEquals(proxyValues.toString(), copyValues.toString());
+		assertTrue(copyValues.indexOf(randomValue + "0") != -1);
+		assertTrue(message.toString(), copyTime <= proxyTime);
+	}
+
+	/**
+	 * Create substituted proxy of model.
+	 * 
+	 * @param configuration
+	 *            model.
+	 * 
+	 * @return substituted proxy of model.
+	 */
+	Configuration createProxy(Configuration configuration) {
+		HashMap<String, String> varMap = new HashMap<String, String>();
+		varMap.put(randomKey, randomValue);
+		VariableSubstitutedProxyFactory proxyFactory = variableSubstitutedProxyFactoryFactory.getObject();
+		proxyFactory.initialize(new DefaultVariablesImpl(varMap));
+		return proxyFactory.decorateWithProxy(configuration);
+	}
+
+	/**
+	 * Create substituted copy of model.
+	 * 
+	 * @param configuration
+	 *            model.
+	 * 
+	 * @return substituted copy of model.
+	 */
+	Configuration createCopy(Configuration configuration) {
+		VariableSubstitutedCopyFactory copyFactory = variableSubstitutedCopyFactoryFactory.getObject();
+		HashMap<String, String> varMap = new HashMap<String, String>();
+		varMap.put(randomKey, randomValue);
+		copyFactory.initialize(new DefaultVariablesImpl(varMap));
+		return copyFactory.createCopy(configuration);
+	}
+
+	/**
+	 * Read all environments of model.
+	 * 
+	 * @param configuration
+	 *            model.
+	 * 
+	 * @return the read values.
+	 */
+	String readModel(Configuration configuration) {
+		StringBuilder values = new StringBuilder();
+		for (Environment environment : configuration.getEnvironments().getEnvironment()) {
+			values.append(environment.getId());
+			values.append(environment.getDescription());
+		}
+		return values.toString();
+	}
+
+}
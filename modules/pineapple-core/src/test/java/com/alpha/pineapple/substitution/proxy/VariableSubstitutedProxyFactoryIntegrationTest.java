@@ -26,6 +26,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.HashMap;
@@ -701,4 +702,59 @@ public class VariableSubstitutedProxyFactoryIntegrationTest {
 		assertTrue(proxiedObject instanceof TestClassWithPublicNoArgConstructor);
 	}
 
+	/**
+	 * Test that proxies for objects of the same class share the generated proxy
+	 * class and are bound to their own target object.
+	 */
+	@Test
+	public void testProxiesForSameClassShareProxyClass() {
+		Environment environment = new Environment();
+		environment.setId(randomId);
+		Environment environment2 = new Environment();
+		environment2.setId(randomDescription);
+
+		createVariablesAndInitializeFactory();
+		Environment proxiedObject = variableSubstitutedProxyFactory.decorateWithProxy(environment);
+		Environment proxiedObject2 = variableSubstitutedProxyFactory.decorateWithProxy(environment2);
+
+		// test
+		assertSame(proxiedObject.getClass(), proxiedObject2.getClass());
+		assertEquals(randomId, proxiedObject.getId());
+		assertEquals(randomDescription, proxiedObject2.getId());
+	}
+
+	/**
+	 * Test that decorated child object is reused by subsequent invocations.
+	 */
+	@Test
+	public void testDecoratedChildObjectIsMemoised() {
+		Configuration configuration = envConfigMother.createEmptyEnvironmentConfiguration();
+		configuration.setEnvironments(new Environments());
+
+		createVariablesAndInitializeFactory();
+		Configuration proxiedObject = variableSubstitutedProxyFactory.decorateWithProxy(configuration);
+
+		// test
+		assertNotNull(proxiedObject.getEnvironments());
+		assertSame(proxiedObject.getEnvironments(), proxiedObject.getEnvironments());
+	}
+
+	/**
+	 * Test that memoised string reflects changes to the proxied object.
+	 */
+	@Test
+	public void testMemoisedStringReflectsChangesToProxiedObject() {
+		Environment environment = new Environment();
+		environment.setDescription(new StringBuilder().append("${").append(randomKey).append("}").toString());
+
+		createVariablesAndInitializeFactory();
+		Environment proxiedObject = variableSubstitutedProxyFactory.decorateWithProxy(environment);
+
+		// test
+		assertEquals(randomValue, proxiedObject.getDescription());
+		assertEquals(randomValue, proxiedObject.getDescription());
+		environment.setDescription(randomDescription);
+		assertEquals(randomDescription, proxiedObject.getDescription());
+	}
+
 }
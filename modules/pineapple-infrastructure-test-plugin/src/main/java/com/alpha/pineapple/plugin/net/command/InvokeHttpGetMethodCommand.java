@@ -23,30 +23,27 @@
 package com.alpha.pineapple.plugin.net.command;
 
 import java.io.IOException;
-import java.security.KeyStoreException;
-import java.security.NoSuchAlgorithmException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.HashMap;
+import java.util.Map;
 
 import javax.annotation.Resource;
-import javax.net.ssl.X509TrustManager;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 
 import org.apache.commons.beanutils.PropertyUtils;
 import org.apache.commons.chain.Command;
 import org.apache.commons.chain.Context;
-import org.apache.commons.httpclient.HostConfiguration;
 import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.httpclient.HttpException;
 import org.apache.commons.httpclient.HttpMethod;
+import org.apache.commons.httpclient.HttpMethodBase;
 import org.apache.commons.httpclient.HttpState;
-import org.apache.commons.httpclient.ProxyHost;
-import org.apache.commons.httpclient.contrib.ssl.EasySSLProtocolSocketFactory;
-import org.apache.commons.httpclient.cookie.CookiePolicy;
 import org.apache.commons.httpclient.methods.GetMethod;
-import org.apache.commons.httpclient.protocol.Protocol;
-import org.apache.commons.httpclient.protocol.ProtocolSocketFactory;
 import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
 import org.apache.log4j.Logger;
 import org.htmlcleaner.CleanerProperties;
@@ -63,6 +60,8 @@ import com.alpha.pineapple.command.initialization.ValidateValue;
 import com.alpha.pineapple.command.initialization.ValidationPolicy;
 import com.alpha.pineapple.execution.ExecutionResult;
 import com.alpha.pineapple.i18n.MessageProvider;
+import com.alpha.pineapple.plugin.net.http.HttpClientFactory;
+import com.alpha.pineapple.plugin.net.http.HttpClientFactoryImpl;
 import com.alpha.pineapple.plugin.net.http.HttpConfiguration;
 import com.alpha.pineapple.plugin.net.http.HttpInvocationResult;
 import com.alpha.pineapple.plugin.net.http.HttpInvocationResultImpl;
@@ -72,7 +71,6 @@ import com.alpha.pineapple.plugin.net.http.HttpInvocationsSet;
 import com.alpha.pineapple.plugin.net.http.HttpInvocationsSetImpl;
 import com.alpha.pineapple.plugin.net.http.ResponsePropertyInfo;
 import com.alpha.pineapple.plugin.net.http.ResponsePropertyInfoSet;
-import com.alpha.pineapple.plugin.net.ssl.AcceptingSSLTrustManager;
 
 /**
  * <p>
@@ -136,14 +134,28 @@ import com.alpha.pineapple.plugin.net.ssl.AcceptingSSLTrustManager;
  * 
  * <p>
  * The command uses the <A HREF="http://hc.apache.org/httpclient-3.x/"> Apache
- * HTTP CLient</A> as HTTP client. The HTTPClient is configured to used a
+ * HTTP CLient</A> as HTTP client. The HTTPClient is created by the
+ * {@link HttpClientFactoryImpl} which registers a
  * <code>SecureProtocolSocketFactory</code> implementation which accepts all SSL
- * certificates. The used implementation is {@link EasySSLProtocolSocketFactory}
- * configured with the trust manager {@link AcceptingSSLTrustManager} which
- * accepts all certificate chains. The consequence is that certificate
- * validation is disabled for SSL and all certificates are accepted.
+ * certificates. The consequence is that certificate validation is disabled for
+ * SSL and all certificates are accepted.
  * </p>
  * 
+ * <B>Connection reuse</B>
+ * 
+ * <p>
+ * The HTTP clients share pooled keep-alive connections. If the HTTP session is
+ * reset after each sequence invocation then the client continues with a new
+ * and empty HTTP state, e.g. without cookies, but reuses the pooled
+ * connections.
+ * </p>
+ * 
+ * <p>
+ * The response body is only read and parsed if a response property is
+ * extracted from the body. The body is parsed directly from the response
+ * stream and the XPath expressions for the body properties are compiled once
+ * for each execution of the command.
+ * </p>
  */
 public class InvokeHttpGetMethodCommand implements Command {
 
@@ -198,9 +210,16 @@ public class InvokeHttpGetMethodCommand implements Command {
 	Logger logger = Logger.getLogger(this.getClass().getName());
 
 	/**
-	 * XPath object.
+	 * Compiled XPath expressions for the response body properties, keyed by the
+	 * XPath of the property.
+	 */
+	Map<String, XPathExpression> bodyExpressions;
+
+	/**
+	 * Defines if the response body must be buffered to support extraction of
+	 * the response body from the HTTP method object.
 	 */
-	XPath xpath = XPathFactory.newInstance().newXPath();
+	boolean bufferResponseBody;
 
 	/**
 	 * Defines execution result object.
@@ -250,6 +269,12 @@ public class InvokeHttpGetMethodCommand implements Command {
 	@Resource
 	MessageProvider messageProvider;
 
+	/**
+	 * HTTP client factory.
+	 */
+	@Resource
+	HttpClientFactory httpClientFactory;
+
 	@SuppressWarnings("unchecked")
 	public boolean execute(Context context) throws Exception {
 
@@ -266,8 +291,12 @@ public class InvokeHttpGetMethodCommand implements Command {
 		HttpInvocationsSet result = new HttpInvocationsSetImpl(urls, requests, reset, httpConfiguration.getProxyHost(),
 				httpConfiguration.getProxyPort());
 
+		// prepare extraction of response properties
+		compileBodyExpressions();
+		bufferResponseBody = isResponseBodyBufferingRequired();
+
 		// create HTTP client
-		HttpClient client = createHttpClient();
+		HttpClient client = httpClientFactory.createHttpClient(httpConfiguration);
 
 		// execute the URL sequences
 		for (int i = 0; i < this.requests; i++) {
@@ -281,9 +310,9 @@ public class InvokeHttpGetMethodCommand implements Command {
 			// store sequence
 			result.appendResult(sequence);
 
-			// if reset flag is enabled, then create new HTTP client for next sequence
+			// if reset flag is enabled, then reset HTTP state for next sequence
 			if (this.reset) {
-				client = createHttpClient();
+				client.setState(new HttpState());
 			}
 		}
 
@@ -442,61 +471,6 @@ public class InvokeHttpGetMethodCommand implements Command {
 		}
 	}
 
-	/**
-	 * Create HTTP client object.
-	 * 
-	 * @return HTTP client object.
-	 * @throws Exception
-	 *             If SSL initialization fails.
-	 */
-	HttpClient createHttpClient() throws NoSuchAlgorithmException, Exception {
-		// setup SSL
-		initializeSSL();
-
-		// create HTTP client
-		HttpClient client = new HttpClient();
-
-		// set time out
-		client.getHttpConnectionManager().getParams().setConnectionTimeout(httpConfiguration.getTcpSocketTimeout());
-
-		// set cookie policy
-		client.getParams().setCookiePolicy(CookiePolicy.BROWSER_COMPATIBILITY);
-
-		// set strict adherence to HTTP protocol specification
-		client.getParams().makeStrict();
-
-		// set proxy settings
-		if (isProxyDefined()) {
-			HostConfiguration hostConfig = client.getHostConfiguration();
-			ProxyHost proxy = new ProxyHost(httpConfiguration.getProxyHost(), httpConfiguration.getProxyPort());
-			hostConfig.setProxyHost(proxy);
-		}
-
-		return client;
-	}
-
-	/**
-	 * Initialize the SSL layer.
-	 * 
-	 * @throws KeyStoreException
-	 *             If SSL initialization fails.
-	 * @throws NoSuchAlgorithmException
-	 *             If SSL initialization fails.
-	 */
-	void initializeSSL() throws NoSuchAlgorithmException, KeyStoreException {
-		// initialize trust manager
-		X509TrustManager manager;
-		manager = new AcceptingSSLTrustManager();
-
-		// initialize socket factory
-		ProtocolSocketFactory sslFactory;
-		sslFactory = new EasySSLProtocolSocketFactory(manager);
-
-		// register with protocol
-		Protocol easyhttps = new Protocol("https", sslFactory, 443);
-		Protocol.registerProtocol("https", easyhttps);
-	}
-
 	/**
 	 * Execute HTTP Get method.
 	 * 
@@ -540,15 +514,18 @@ public class InvokeHttpGetMethodCommand implements Command {
 		HttpInvocationResult invocationResult = new HttpInvocationResultImpl();
 
 		// declare response
-		String response = null;
 		Document responseAsXml = null;
 
 		try {
-			// get response
-			response = method.getResponseBodyAsString();
+			// buffer response for extraction from HTTP method object
+			if (bufferResponseBody) {
+				method.getResponseBody();
+			}
 
-			// attempt to parse response as XML
-			responseAsXml = parseResponseAsXml(response);
+			// attempt to parse response as XML, if body properties are extracted
+			if (!bodyExpressions.isEmpty()) {
+				responseAsXml = parseResponseAsXml(method);
+			}
 
 		} catch (Exception e) {
 
@@ -594,16 +571,21 @@ public class InvokeHttpGetMethodCommand implements Command {
 	}
 
 	/**
-	 * Parse the response as XML.
+	 * Parse the response as XML. The response is parsed directly from the
+	 * response stream.
 	 * 
-	 * @param response
-	 *            The HTTP response.
+	 * @param method
+	 *            HTTP get method object.
 	 * 
 	 * @return XML document if response could be parsed as XML, otherwise null is
 	 *         returned.
 	 */
-	Document parseResponseAsXml(String response) {
+	Document parseResponseAsXml(HttpMethod method) {
 		try {
+			// get response stream
+			InputStream response = method.getResponseBodyAsStream();
+			if (response == null)
+				return null;
 
 			// log debug message
 			if (logger.isDebugEnabled()) {
@@ -612,7 +594,7 @@ public class InvokeHttpGetMethodCommand implements Command {
 
 			HtmlCleaner cleaner = new HtmlCleaner();
 			CleanerProperties props = cleaner.getProperties();
-			TagNode cleanedHtml = cleaner.clean(response);
+			TagNode cleanedHtml = cleaner.clean(new InputStreamReader(response, getResponseCharSet(method)));
 			DomSerializer serializer = new DomSerializer(props);
 			Document doc = serializer.createDOM(cleanedHtml);
 
@@ -635,6 +617,68 @@ public class InvokeHttpGetMethodCommand implements Command {
 		}
 	}
 
+	/**
+	 * Get character set of the response.
+	 * 
+	 * @param method
+	 *            HTTP get method object.
+	 * 
+	 * @return character set of the response.
+	 */
+	String getResponseCharSet(HttpMethod method) {
+		if (method instanceof HttpMethodBase)
+			return ((HttpMethodBase) method).getResponseCharSet();
+		return "ISO-8859-1";
+	}
+
+	/**
+	 * Compile the XPath expressions of the response properties whose target is
+	 * the response body. Properties whose expression fails to compile are
+	 * skipped and extracted as 'null'.
+	 */
+	void compileBodyExpressions() {
+		bodyExpressions = new HashMap<String, XPathExpression>();
+		XPath xpath = XPathFactory.newInstance().newXPath();
+
+		for (ResponsePropertyInfo property : propertyInfoSet.getProperties()) {
+			if (!isBodyXPathTarget(property))
+				continue;
+			if (bodyExpressions.containsKey(property.getXPath()))
+				continue;
+
+			// get XPath except the body prefix
+			String modifiedXPath = property.getXPath().substring("body".length());
+
+			try {
+				bodyExpressions.put(property.getXPath(), xpath.compile(modifiedXPath));
+
+			} catch (XPathExpressionException e) {
+				bodyExpressions.put(property.getXPath(), null);
+
+				// log debug message
+				if (logger.isDebugEnabled()) {
+					Object[] args = { property.getXPath(), e.toString() };
+					logger.debug(messageProvider.getMessage("ihgc.compile_xpath_error", args));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns true if a response property is extracted from the response body
+	 * through the HTTP method object. The body must then be buffered before it
+	 * is parsed.
+	 * 
+	 * @return true if the response body must be buffered.
+	 */
+	boolean isResponseBodyBufferingRequired() {
+		for (ResponsePropertyInfo property : propertyInfoSet.getProperties()) {
+			if (property.getXPath().startsWith("method/responseBody"))
+				return true;
+		}
+		return false;
+	}
+
 	/**
 	 * Return true if proxy parameters are defined.
 	 * 
@@ -696,8 +740,8 @@ public class InvokeHttpGetMethodCommand implements Command {
 	 */
 	Object getPropertyFromBody(Document document, ResponsePropertyInfo propertyInfo) {
 
-		// get XPath except the body prefix
-		String modifiedXPath = propertyInfo.getXPath().substring("body".length());
+		// get compiled XPath expression
+		XPathExpression expression = bodyExpressions.get(propertyInfo.getXPath());
 
 		// create debug message
 		if (logger.isDebugEnabled()) {
@@ -710,15 +754,15 @@ public class InvokeHttpGetMethodCommand implements Command {
 
 		try {
 
-			// skip if doc is undefined
-			if (document == null) {
+			// skip if doc or expression is undefined
+			if ((document == null) || (expression == null)) {
 
 				// create debug message
 				if (logger.isDebugEnabled()) {
 					StringBuilder message = new StringBuilder();
 					message.append("Skipping getting property < ");
 					message.append(propertyInfo.getXPath());
-					message.append("> from response, as XML document is null. Will return 'null'.");
+					message.append("> from response, as XML document or XPath expression is null. Will return 'null'.");
 					logger.debug(message.toString());
 				}
 
@@ -726,7 +770,7 @@ public class InvokeHttpGetMethodCommand implements Command {
 			}
 
 			// run query
-			String propertyValue = (String) xpath.evaluate(modifiedXPath, document, XPathConstants.STRING);
+			String propertyValue = (String) expression.evaluate(document, XPathConstants.STRING);
 
 			if (propertyValue != null) {
 
@@ -24,12 +24,18 @@ package com.alpha.pineapple.plugin.net.command;
 
 import static com.alpha.pineapple.test.matchers.PineappleMatchers.isArrayEmpty;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
 import javax.annotation.Resource;
 
 import org.apache.commons.chain.Command;
 import org.apache.commons.chain.Context;
 import org.apache.log4j.Logger;
 import org.hamcrest.Matcher;
+import org.springframework.core.task.AsyncTaskExecutor;
 
 import com.alpha.pineapple.command.initialization.CommandInitializer;
 import com.alpha.pineapple.command.initialization.CommandInitializerImpl;
@@ -68,6 +74,8 @@ import com.alpha.pineapple.test.matchers.InfrastructureMatchers;
  * Postcondition after execution of the command is:
  * 
  * <ul>
+ * <li>The ports are probed concurrently, but the assertions of the ports are
+ * added to the <code>ExecutionResult</code> in the order of the ports.</li>
  * <li>The the state of the supplied <code>ExecutionResult</code> is updated
  * with <code>ExecutionState.SUCCESS</code> if the test succeeded. If the test
  * failed then the <code>ExecutionState.FAILURE</code> is returned.</li>
@@ -85,6 +93,11 @@ public class TestTcpConnectionCommand implements Command {
 	 */
 	static final int SOCKET_TIMEOUT = 1000;
 
+	/**
+	 * Maximum number of ports probed concurrently on the host.
+	 */
+	static final int MAX_CONCURRENT_PROBES = 8;
+
 	/**
 	 * Key used to identify property in context: Name of the host.
 	 */
@@ -138,6 +151,12 @@ public class TestTcpConnectionCommand implements Command {
 	@Resource
 	MessageProvider messageProvider;
 
+	/**
+	 * Executor which probes TCP ports.
+	 */
+	@Resource
+	AsyncTaskExecutor tcpProbeExecutor;
+
 	public boolean execute(Context context) throws Exception {
 		// log debug message
 		if (logger.isDebugEnabled()) {
@@ -172,7 +191,7 @@ public class TestTcpConnectionCommand implements Command {
 	 *             If test execution fails.
 	 */
 	@SuppressWarnings("unchecked")
-	void doTest(Context context) {
+	void doTest(Context context) throws Exception {
 		// create matcher
 		Matcher hostIsResolvableMatcher = InfrastructureMatchers.isHostResolvableToIpAddress();
 
@@ -196,6 +215,9 @@ public class TestTcpConnectionCommand implements Command {
 		// create matchers
 		Matcher tcpConnectionMatcher = InfrastructureMatchers.tcpHostListensOnPort(host);
 
+		// probe ports concurrently, the matcher records the outcome
+		probePorts(tcpConnectionMatcher);
+
 		// assert ports
 		for (int port : this.ports) {
 
@@ -210,4 +232,50 @@ public class TestTcpConnectionCommand implements Command {
 		// compute result
 		executionResult.completeAsComputed(messageProvider, "ttcc.succeed", null, "ttcc.failed", null);
 	}
+
+	/**
+	 * Probe ports concurrently using the matcher. The number of concurrent probes
+	 * is bounded by {@link #MAX_CONCURRENT_PROBES}. Returns when all ports have
+	 * been probed.
+	 * 
+	 * @param tcpConnectionMatcher
+	 *            matcher which probes and records the outcome for each port.
+	 * 
+	 * @throws Exception
+	 *             if the probing is interrupted.
+	 */
+	void probePorts(Matcher<?> tcpConnectionMatcher) throws Exception {
+
+		// log debug message
+		if (logger.isDebugEnabled()) {
+			Object[] args = { host, Integer.toString(ports.length) };
+			logger.debug(messageProvider.getMessage("ttcc.probe_ports_info", args));
+		}
+
+		Semaphore probePermits = new Semaphore(MAX_CONCURRENT_PROBES);
+		List<Future<?>> probes = new ArrayList<Future<?>>(ports.length);
+		try {
+			for (int port : this.ports) {
+				probePermits.acquire();
+				try {
+					probes.add(tcpProbeExecutor.submit(() -> {
+						try {
+							tcpConnectionMatcher.matches(Integer.valueOf(port));
+						} finally {
+							probePermits.release();
+						}
+					}));
+				} catch (RuntimeException e) {
+					probePermits.release();
+					throw e;
+				}
+			}
+		} finally {
+
+			// wait for submitted probes
+			for (Future<?> probe : probes) {
+				probe.get();
+			}
+		}
+	}
 }
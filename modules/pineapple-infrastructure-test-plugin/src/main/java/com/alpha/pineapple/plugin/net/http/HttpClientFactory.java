@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+ * Copyright (C) 2007-2013 Allan Thrane Andersen..
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package com.alpha.pineapple.plugin.net.http;
+
+import org.apache.commons.httpclient.HttpClient;
+
+/**
+ * Factory for creation of HTTP clients which share pooled connections.
+ */
+public interface HttpClientFactory {
+
+	/**
+	 * Create HTTP client configured from a HTTP configuration. The client is
+	 * created with a new and empty HTTP state but reuses pooled keep-alive
+	 * connections with the other clients created with the same TCP socket time
+	 * out.
+	 * 
+	 * @param configuration
+	 *            The HTTP configuration.
+	 * 
+	 * @return HTTP client.
+	 */
+	HttpClient createHttpClient(HttpConfiguration configuration);
+
+	/**
+	 * Close all pooled connections.
+	 */
+	void shutdown();
+
+}
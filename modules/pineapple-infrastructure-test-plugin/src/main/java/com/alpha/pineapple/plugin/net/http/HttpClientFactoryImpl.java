@@ -0,0 +1,227 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+ * Copyright (C) 2007-2013 Allan Thrane Andersen..
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package com.alpha.pineapple.plugin.net.http;
+
+import static com.alpha.javautils.ArgumentUtils.notNull;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Resource;
+import javax.net.ssl.X509TrustManager;
+
+import org.apache.commons.httpclient.HostConfiguration;
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.ProxyHost;
+import org.apache.commons.httpclient.contrib.ssl.EasySSLProtocolSocketFactory;
+import org.apache.commons.httpclient.cookie.CookiePolicy;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.apache.commons.httpclient.protocol.Protocol;
+import org.apache.commons.httpclient.protocol.ProtocolSocketFactory;
+import org.apache.log4j.Logger;
+
+import com.alpha.pineapple.i18n.MessageProvider;
+import com.alpha.pineapple.plugin.net.ssl.AcceptingSSLTrustManager;
+
+/**
+ * <p>
+ * Implementation of the {@link HttpClientFactory} interface which creates HTTP
+ * clients on top of pooled connection managers.
+ * </p>
+ * 
+ * <p>
+ * A connection manager is created for each distinct TCP socket time out, since
+ * the connect time out is a parameter of the connections in the pool. The
+ * HTTPS protocol is registered once when the first connection manager is
+ * created.
+ * </p>
+ * 
+ * <p>
+ * The time a client waits for a connection from the pool is bounded by the TCP
+ * socket time out, so a test case fails instead of waiting forever if the pool
+ * is exhausted.
+ * </p>
+ */
+public class HttpClientFactoryImpl implements HttpClientFactory {
+
+	/**
+	 * Logger object.
+	 */
+	Logger logger = Logger.getLogger(this.getClass().getName());
+
+	/**
+	 * Message provider for I18N support.
+	 */
+	@Resource
+	MessageProvider messageProvider;
+
+	/**
+	 * Connection managers, keyed by TCP socket time out.
+	 */
+	ConcurrentMap<Integer, MultiThreadedHttpConnectionManager> connectionManagers = new ConcurrentHashMap<Integer, MultiThreadedHttpConnectionManager>();
+
+	/**
+	 * Maximum number of pooled connections per host.
+	 */
+	int maxConnectionsPerHost = 8;
+
+	/**
+	 * Maximum number of pooled connections in total.
+	 */
+	int maxTotalConnections = 64;
+
+	/**
+	 * Defines if the HTTPS protocol is registered.
+	 */
+	volatile boolean sslInitialized = false;
+
+	/**
+	 * Set maximum number of pooled connections per host.
+	 * 
+	 * @param maxConnectionsPerHost
+	 *            Maximum number of pooled connections per host.
+	 */
+	public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+		this.maxConnectionsPerHost = maxConnectionsPerHost;
+	}
+
+	/**
+	 * Set maximum number of pooled connections in total.
+	 * 
+	 * @param maxTotalConnections
+	 *            Maximum number of pooled connections in total.
+	 */
+	public void setMaxTotalConnections(int maxTotalConnections) {
+		this.maxTotalConnections = maxTotalConnections;
+	}
+
+	public HttpClient createHttpClient(HttpConfiguration configuration) {
+		notNull(configuration, "configuration is undefined.");
+
+		// create HTTP client with pooled connections
+		HttpClient client = new HttpClient(getConnectionManager(configuration.getTcpSocketTimeout()));
+
+		// bound wait for a pooled connection
+		client.getParams().setConnectionManagerTimeout(configuration.getTcpSocketTimeout());
+
+		// set cookie policy
+		client.getParams().setCookiePolicy(CookiePolicy.BROWSER_COMPATIBILITY);
+
+		// set strict adherence to HTTP protocol specification
+		client.getParams().makeStrict();
+
+		// set proxy settings
+		if (isProxyDefined(configuration)) {
+			HostConfiguration hostConfig = client.getHostConfiguration();
+			ProxyHost proxy = new ProxyHost(configuration.getProxyHost(), configuration.getProxyPort());
+			hostConfig.setProxyHost(proxy);
+		}
+
+		return client;
+	}
+
+	public void shutdown() {
+		for (MultiThreadedHttpConnectionManager manager : connectionManagers.values()) {
+			manager.shutdown();
+		}
+		connectionManagers.clear();
+	}
+
+	/**
+	 * Get connection manager for TCP socket time out. The connection manager is
+	 * created if it doesn't exist.
+	 * 
+	 * @param timeout
+	 *            TCP socket time out in milliseconds.
+	 * 
+	 * @return connection manager for TCP socket time out.
+	 */
+	MultiThreadedHttpConnectionManager getConnectionManager(int timeout) {
+		MultiThreadedHttpConnectionManager manager = connectionManagers.get(timeout);
+		if (manager != null)
+			return manager;
+
+		// setup SSL
+		initializeSSL();
+
+		// create connection manager
+		manager = new MultiThreadedHttpConnectionManager();
+		HttpConnectionManagerParams params = manager.getParams();
+		params.setConnectionTimeout(timeout);
+		params.setDefaultMaxConnectionsPerHost(maxConnectionsPerHost);
+		params.setMaxTotalConnections(maxTotalConnections);
+
+		// register connection manager, discard it if another thread won
+		MultiThreadedHttpConnectionManager existing = connectionManagers.putIfAbsent(timeout, manager);
+		if (existing != null) {
+			manager.shutdown();
+			return existing;
+		}
+
+		// log debug message
+		if (logger.isDebugEnabled()) {
+			Object[] args = { timeout, maxConnectionsPerHost, maxTotalConnections };
+			logger.debug(messageProvider.getMessage("hcf.create_connection_manager_info", args));
+		}
+
+		return manager;
+	}
+
+	/**
+	 * Initialize the SSL layer by registration of the HTTPS protocol with a
+	 * socket factory which accepts all certificates.
+	 */
+	synchronized void initializeSSL() {
+		if (sslInitialized)
+			return;
+
+		// initialize trust manager
+		X509TrustManager manager = new AcceptingSSLTrustManager();
+
+		// initialize socket factory
+		ProtocolSocketFactory sslFactory = new EasySSLProtocolSocketFactory(manager);
+
+		// register with protocol
+		Protocol easyhttps = new Protocol("https", sslFactory, 443);
+		Protocol.registerProtocol("https", easyhttps);
+		sslInitialized = true;
+	}
+
+	/**
+	 * Return true if proxy parameters are defined.
+	 * 
+	 * @param configuration
+	 *            The HTTP configuration.
+	 * 
+	 * @return true if proxy parameters are defined.
+	 */
+	boolean isProxyDefined(HttpConfiguration configuration) {
+		if (configuration.getProxyHost() == null)
+			return false;
+		if (configuration.getProxyHost().length() == 0)
+			return false;
+		return true;
+	}
+
+}
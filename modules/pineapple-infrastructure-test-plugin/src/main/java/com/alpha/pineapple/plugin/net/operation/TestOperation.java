@@ -24,19 +24,30 @@ package com.alpha.pineapple.plugin.net.operation;
 
 import static com.alpha.javautils.ArgumentUtils.notNull;
 
+import java.net.URI;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
 
 import javax.annotation.Resource;
 
 import org.apache.commons.chain.Command;
 import org.apache.commons.chain.Context;
 import org.apache.log4j.Logger;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.core.task.AsyncTaskExecutor;
 
 import com.alpha.javautils.StackTraceHelper;
 import com.alpha.pineapple.OperationNames;
 import com.alpha.pineapple.command.CommandException;
 import com.alpha.pineapple.command.execution.CommandRunner;
 import com.alpha.pineapple.execution.ExecutionResult;
+import com.alpha.pineapple.execution.ExecutionResult.ExecutionState;
 import com.alpha.pineapple.i18n.MessageProvider;
 import com.alpha.pineapple.plugin.Operation;
 import com.alpha.pineapple.plugin.PluginExecutionFailedException;
@@ -55,6 +66,7 @@ import com.alpha.pineapple.plugin.infrastructure.model.Infrastructure;
 import com.alpha.pineapple.plugin.infrastructure.model.LoadBalancingTest;
 import com.alpha.pineapple.plugin.infrastructure.model.SessionStickynessTest;
 import com.alpha.pineapple.plugin.infrastructure.model.TcpConnectionTest;
+import com.alpha.pineapple.plugin.net.command.TestHttpCommand;
 import com.alpha.pineapple.plugin.net.model.Mapper;
 import com.alpha.pineapple.session.Session;
 
@@ -71,40 +83,40 @@ public class TestOperation implements Operation {
 	Logger logger = Logger.getLogger(this.getClass().getName());
 
 	/**
-	 * DNS resolution test command.
+	 * DNS resolution test command factory.
 	 */
 	@Resource
-	Command testDnsResolutionCommand;
+	ObjectFactory<Command> testDnsResolutionCommandFactory;
 
 	/**
-	 * DNS forward resolution test command.
+	 * DNS forward resolution test command factory.
 	 */
 	@Resource
-	Command testDnsForwardResolutionCommand;
+	ObjectFactory<Command> testDnsForwardResolutionCommandFactory;
 
 	/**
-	 * DNS reverse resolution test command.
+	 * DNS reverse resolution test command factory.
 	 */
 	@Resource
-	Command testDnsReverseResolutionCommand;
+	ObjectFactory<Command> testDnsReverseResolutionCommandFactory;
 
 	/**
-	 * UNC path test command.
+	 * UNC path test command factory.
 	 */
 	@Resource
-	Command testUncPathCommand;
+	ObjectFactory<Command> testUncPathCommandFactory;
 
 	/**
-	 * TCP connection test command.
+	 * TCP connection test command factory.
 	 */
 	@Resource
-	Command testTcpConnectionCommand;
+	ObjectFactory<Command> testTcpConnectionCommandFactory;
 
 	/**
-	 * HTTP test command.
+	 * HTTP test command factory.
 	 */
 	@Resource
-	Command testHttpCommand;
+	ObjectFactory<Command> testHttpCommandFactory;
 
 	/**
 	 * Command runner
@@ -112,6 +124,19 @@ public class TestOperation implements Operation {
 	@Resource
 	CommandRunner commandRunner;
 
+	/**
+	 * Command runner factory. The command runner registers the state of the last
+	 * execution, so each concurrently running test case gets its own runner.
+	 */
+	@Resource
+	ObjectFactory<CommandRunner> commandRunnerFactory;
+
+	/**
+	 * Executor which runs test cases.
+	 */
+	@Resource
+	AsyncTaskExecutor testCaseExecutor;
+
 	/**
 	 * Model mapper object.
 	 */
@@ -137,9 +162,6 @@ public class TestOperation implements Operation {
 			throw new PluginExecutionFailedException(message);
 		}
 
-		// configure command runner with execution result
-		commandRunner.setExecutionResult(executionResult);
-
 		try {
 			// type cast to infrastructure model object
 			Infrastructure model = (Infrastructure) content;
@@ -150,21 +172,26 @@ public class TestOperation implements Operation {
 				httpConfigMap.put(config.getId(), config);
 			}
 
-			// run tests
-			runTcpConnectionTests(model);
-			runForwardDnsResolutionTests(model);
-			runReverseDnsResolutionTests(model);
-			runDnsResolutionTests(model);
-			runHttpTests(model, httpConfigMap);
-			runStickynessTests(model, httpConfigMap);
-			runLoadBalancingTests(model, httpConfigMap);
-			runHttpStatusCodeTests(model, httpConfigMap);
-			runHttpRedirectTests(model, httpConfigMap);
-			runHttpHeaderTests(model, httpConfigMap);
+			// create test cases
+			List<TestCase> testCases = new ArrayList<TestCase>();
+			createTcpConnectionTests(model, executionResult, testCases);
+			createForwardDnsResolutionTests(model, executionResult, testCases);
+			createReverseDnsResolutionTests(model, executionResult, testCases);
+			createDnsResolutionTests(model, executionResult, testCases);
+			createHttpTests(model, httpConfigMap, executionResult, testCases);
+			createStickynessTests(model, httpConfigMap, executionResult, testCases);
+			createLoadBalancingTests(model, httpConfigMap, executionResult, testCases);
+			createHttpStatusCodeTests(model, httpConfigMap, executionResult, testCases);
+			createHttpRedirectTests(model, httpConfigMap, executionResult, testCases);
+			createHttpHeaderTests(model, httpConfigMap, executionResult, testCases);
 			runFtpServerActiveTests(model);
 			runFtpServerContainsDirectoryTests(model);
 			runFtpServerCreateDirectoryTests(model);
-			runAccessUncPathTests(model);
+			createAccessUncPathTests(model, executionResult, testCases);
+
+			// run tests
+			runTestCases(testCases, model.getMaxConcurrentTests(), model.getMaxConcurrentTestsPerHost(),
+					executionResult);
 
 			// compute execution state from children
 			executionResult.completeAsComputed(messageProvider, "to.completed", null, "to.failed", null);
@@ -175,7 +202,164 @@ public class TestOperation implements Operation {
 		}
 	}
 
-	void runHttpTests(Infrastructure model, HashMap<String, HttpConfiguration> httpConfigMap) throws CommandException {
+	/**
+	 * Run test cases concurrently. Test cases are started in the order they are
+	 * created, except that a test case is passed over while the maximum number of
+	 * test cases is running against its host. The continuation policy is enforced
+	 * before a test case is started. If it signals that execution should stop
+	 * then the remaining test cases are skipped. Returns when all started test
+	 * cases have completed.
+	 * 
+	 * @param testCases
+	 *            test cases.
+	 * @param maxConcurrentTests
+	 *            maximum number of concurrently running test cases.
+	 * @param maxConcurrentTestsPerHost
+	 *            maximum number of concurrently running test cases per host.
+	 * @param executionResult
+	 *            operation execution result.
+	 * 
+	 * @throws Exception
+	 *             if the waiting for a test case is interrupted.
+	 */
+	void runTestCases(List<TestCase> testCases, int maxConcurrentTests, int maxConcurrentTestsPerHost,
+			ExecutionResult executionResult) throws Exception {
+
+		// exit if there is nothing to run
+		if (testCases.isEmpty())
+			return;
+
+		// log debug message
+		if (logger.isDebugEnabled()) {
+			Object[] args = { testCases.size(), maxConcurrentTests, maxConcurrentTestsPerHost };
+			logger.debug(messageProvider.getMessage("to.run_test_cases_info", args));
+		}
+
+		CompletionService<TestCase> completionService = new ExecutorCompletionService<TestCase>(testCaseExecutor);
+		LinkedList<TestCase> pendingTestCases = new LinkedList<TestCase>(testCases);
+		Map<String, Integer> runningPerHost = new HashMap<String, Integer>();
+		int maxRunning = Math.max(1, maxConcurrentTests);
+		int maxRunningPerHost = Math.max(1, maxConcurrentTestsPerHost);
+		int running = 0;
+
+		while (!pendingTestCases.isEmpty() || running > 0) {
+
+			// start test cases in order, passing over test cases for busy hosts
+			Iterator<TestCase> iterator = pendingTestCases.iterator();
+			while ((running < maxRunning) && iterator.hasNext()) {
+				TestCase testCase = iterator.next();
+				int runningOnHost = runningPerHost.getOrDefault(testCase.host, 0);
+				if (runningOnHost >= maxRunningPerHost)
+					continue;
+
+				// enforce continuation policy
+				if (!executionResult.getContinuationPolicy().continueExecution()) {
+					skipTestCases(pendingTestCases, executionResult);
+					break;
+				}
+
+				iterator.remove();
+				runningPerHost.put(testCase.host, runningOnHost + 1);
+				completionService.submit(() -> runTestCase(testCase), testCase);
+				running++;
+			}
+
+			// exit if all test cases were skipped
+			if (running == 0)
+				return;
+
+			// wait for completion of a test case
+			TestCase completedTestCase = completionService.take().get();
+			runningPerHost.merge(completedTestCase.host, -1, Integer::sum);
+			running--;
+		}
+	}
+
+	/**
+	 * Run test case. The test case result is completed as an error if the test
+	 * command can't be created.
+	 * 
+	 * @param testCase
+	 *            test case.
+	 */
+	void runTestCase(TestCase testCase) {
+		try {
+			Command command = testCase.commandFactory.getObject();
+			CommandRunner runner = commandRunnerFactory.getObject();
+			runner.run(command, testCase.result, testCase.context);
+		} catch (Exception e) {
+			testCase.result.completeAsError(e);
+		}
+	}
+
+	/**
+	 * Skip pending test cases due to enforcement of the continuation policy. The
+	 * results of the skipped test cases are completed as interrupted.
+	 * 
+	 * @param pendingTestCases
+	 *            pending test cases which are skipped.
+	 * @param executionResult
+	 *            operation execution result.
+	 */
+	void skipTestCases(List<TestCase> pendingTestCases, ExecutionResult executionResult) {
+		String message = messageProvider.getMessage("to.contination_policy_enforcement_info");
+		executionResult.addMessage(ExecutionResult.MSG_MESSAGE, message);
+		for (TestCase testCase : pendingTestCases) {
+			testCase.result.addMessage(ExecutionResult.MSG_MESSAGE, message);
+			testCase.result.setState(ExecutionState.INTERRUPTED);
+		}
+		pendingTestCases.clear();
+	}
+
+	/**
+	 * Create test case and add it to the list of test cases. The execution result
+	 * for the test case is added to the operation result when the test case is
+	 * created, to keep the order of the results independent of the order of
+	 * completion.
+	 * 
+	 * @param host
+	 *            host targeted by the test case.
+	 * @param commandFactory
+	 *            factory for the test command.
+	 * @param description
+	 *            description of the test case.
+	 * @param context
+	 *            command context.
+	 * @param executionResult
+	 *            operation execution result.
+	 * @param testCases
+	 *            test cases.
+	 */
+	void addTestCase(String host, ObjectFactory<Command> commandFactory, String description, Context context,
+			ExecutionResult executionResult, List<TestCase> testCases) {
+		ExecutionResult result = executionResult.addChild(description);
+		testCases.add(new TestCase(String.valueOf(host), commandFactory, context, result));
+	}
+
+	/**
+	 * Get host targeted by a HTTP test case. The host is resolved from the first
+	 * URL mapped to the context. If the URL can't be parsed then the URL is used.
+	 * 
+	 * @param context
+	 *            command context.
+	 * 
+	 * @return host targeted by a HTTP test case.
+	 */
+	String getHttpHost(Context context) {
+		String[] urls = (String[]) context.get(TestHttpCommand.URLS_KEY);
+		if (urls == null || urls.length == 0 || urls[0] == null)
+			return null;
+
+		try {
+			String host = URI.create(urls[0].trim()).getHost();
+			return (host != null) ? host : urls[0];
+		} catch (IllegalArgumentException e) {
+			return urls[0];
+		}
+	}
+
+	void createHttpTests(Infrastructure model, HashMap<String, HttpConfiguration> httpConfigMap,
+			ExecutionResult executionResult, List<TestCase> testCases) throws CommandException {
 		for (HttpTest test : model.getHttpTest()) {
 			// create description
 			Object[] args = { test.getDescription() };
@@ -187,13 +371,13 @@ public class TestOperation implements Operation {
 			// map model content to context
 			mapper.mapHttpTest(test, context, httpConfigMap);
 
-			// run test
-			commandRunner.run(testHttpCommand, message, context);
+			// add test case
+			addTestCase(getHttpHost(context), testHttpCommandFactory, message, context, executionResult, testCases);
 		}
 	}
 
-	void runStickynessTests(Infrastructure model, HashMap<String, HttpConfiguration> httpConfigMap)
-			throws CommandException {
+	void createStickynessTests(Infrastructure model, HashMap<String, HttpConfiguration> httpConfigMap,
+			ExecutionResult executionResult, List<TestCase> testCases) throws CommandException {
 		for (SessionStickynessTest test : model.getSessionStickynessTest()) {
 			// create description
 			Object[] args = { test.getDescription() };
@@ -205,13 +389,13 @@ public class TestOperation implements Operation {
 			// map model content to context
 			mapper.mapStickynessTest(test, context, httpConfigMap);
 
-			// run test
-			commandRunner.run(testHttpCommand, message, context);
+			// add test case
+			addTestCase(getHttpHost(context), testHttpCommandFactory, message, context, executionResult, testCases);
 		}
 	}
 
-	void runLoadBalancingTests(Infrastructure model, HashMap<String, HttpConfiguration> httpConfigMap)
-			throws CommandException {
+	void createLoadBalancingTests(Infrastructure model, HashMap<String, HttpConfiguration> httpConfigMap,
+			ExecutionResult executionResult, List<TestCase> testCases) throws CommandException {
 		for (LoadBalancingTest test : model.getLoadBalancingTest()) {
 			// create description
 			Object[] args = { test.getDescription() };
@@ -223,13 +407,13 @@ public class TestOperation implements Operation {
 			// map model content to context
 			mapper.mapLoadBalancingTest(test, context, httpConfigMap);
 
-			// run test
-			commandRunner.run(testHttpCommand, message, context);
+			// add test case
+			addTestCase(getHttpHost(context), testHttpCommandFactory, message, context, executionResult, testCases);
 		}
 	}
 
-	void runHttpStatusCodeTests(Infrastructure model, HashMap<String, HttpConfiguration> httpConfigMap)
-			throws CommandException {
+	void createHttpStatusCodeTests(Infrastructure model, HashMap<String, HttpConfiguration> httpConfigMap,
+			ExecutionResult executionResult, List<TestCase> testCases) throws CommandException {
 		for (HttpStatusCodeTest test : model.getHttpStatuscodeTest()) {
 			// create description
 			Object[] args = { test.getDescription() };
@@ -241,13 +425,13 @@ public class TestOperation implements Operation {
 			// map model content to context
 			mapper.mapHttpStatusCodeTest(test, context, httpConfigMap);
 
-			// run test
-			commandRunner.run(testHttpCommand, message, context);
+			// add test case
+			addTestCase(getHttpHost(context), testHttpCommandFactory, message, context, executionResult, testCases);
 		}
 	}
 
-	void runHttpRedirectTests(Infrastructure model, HashMap<String, HttpConfiguration> httpConfigMap)
-			throws CommandException {
+	void createHttpRedirectTests(Infrastructure model, HashMap<String, HttpConfiguration> httpConfigMap,
+			ExecutionResult executionResult, List<TestCase> testCases) throws CommandException {
 		for (HttpRedirectTest test : model.getHttpRedirectTest()) {
 			// create description
 			Object[] args = { test.getDescription() };
@@ -259,13 +443,13 @@ public class TestOperation implements Operation {
 			// map model content to context
 			mapper.mapHttpRedirectTest(test, context, httpConfigMap);
 
-			// run test
-			commandRunner.run(testHttpCommand, message, context);
+			// add test case
+			addTestCase(getHttpHost(context), testHttpCommandFactory, message, context, executionResult, testCases);
 		}
 	}
 
-	void runHttpHeaderTests(Infrastructure model, HashMap<String, HttpConfiguration> httpConfigMap)
-			throws CommandException {
+	void createHttpHeaderTests(Infrastructure model, HashMap<String, HttpConfiguration> httpConfigMap,
+			ExecutionResult executionResult, List<TestCase> testCases) throws CommandException {
 
 		for (HttpHeaderTest test : model.getHttpHeaderTest()) {
 			// create description
@@ -278,12 +462,13 @@ public class TestOperation implements Operation {
 			// map model content to context
 			mapper.mapHttpHeaderTest(test, context, httpConfigMap);
 
-			// run test
-			commandRunner.run(testHttpCommand, message, context);
+			// add test case
+			addTestCase(getHttpHost(context), testHttpCommandFactory, message, context, executionResult, testCases);
 		}
 	}
 
-	void runDnsResolutionTests(Infrastructure model) throws CommandException {
+	void createDnsResolutionTests(Infrastructure model, ExecutionResult executionResult, List<TestCase> testCases)
+			throws CommandException {
 		for (DnsResolutionTest test : model.getDnsResolutionTest()) {
 			// create description
 			Object[] args = { test.getDescription() };
@@ -295,12 +480,13 @@ public class TestOperation implements Operation {
 			// map model content to context
 			mapper.mapDnsResolutionTest(test, context);
 
-			// run test
-			commandRunner.run(testDnsResolutionCommand, message, context);
+			// add test case
+			addTestCase(test.getHost(), testDnsResolutionCommandFactory, message, context, executionResult, testCases);
 		}
 	}
 
-	void runForwardDnsResolutionTests(Infrastructure model) throws CommandException {
+	void createForwardDnsResolutionTests(Infrastructure model, ExecutionResult executionResult,
+			List<TestCase> testCases) throws CommandException {
 		for (DnsResolutionTest test : model.getDnsForwardResolutionTest()) {
 			// create description
 			Object[] args = { test.getDescription() };
@@ -312,12 +498,14 @@ public class TestOperation implements Operation {
 			// map model content to context
 			mapper.mapDnsForwardResolutionTest(test, context);
 
-			// run test
-			commandRunner.run(testDnsForwardResolutionCommand, message, context);
+			// add test case
+			addTestCase(test.getHost(), testDnsForwardResolutionCommandFactory, message, context, executionResult,
+					testCases);
 		}
 	}
 
-	void runReverseDnsResolutionTests(Infrastructure model) throws CommandException {
+	void createReverseDnsResolutionTests(Infrastructure model, ExecutionResult executionResult,
+			List<TestCase> testCases) throws CommandException {
 		for (DnsResolutionTest test : model.getDnsReverseResolutionTest()) {
 			// create description
 			Object[] args = { test.getDescription() };
@@ -329,12 +517,14 @@ public class TestOperation implements Operation {
 			// map model content to context
 			mapper.mapDnsReverseResolutionTest(test, context);
 
-			// run test
-			commandRunner.run(testDnsReverseResolutionCommand, message, context);
+			// add test case
+			addTestCase(test.getHost(), testDnsReverseResolutionCommandFactory, message, context, executionResult,
+					testCases);
 		}
 	}
 
-	void runAccessUncPathTests(Infrastructure model) throws CommandException {
+	void createAccessUncPathTests(Infrastructure model, ExecutionResult executionResult, List<TestCase> testCases)
+			throws CommandException {
 
 		for (AccessUncPathTest test : model.getAccessUncPathTest()) {
 			// create description
@@ -349,8 +539,9 @@ public class TestOperation implements Operation {
 			// map model content to context
 			mapper.mapAccessUncPathTest(test, context);
 
-			// run test
-			commandRunner.run(testUncPathCommand, description.toString(), context);
+			// add test case
+			addTestCase(test.getHost(), testUncPathCommandFactory, description.toString(), context, executionResult,
+					testCases);
 		}
 	}
 
@@ -417,7 +608,8 @@ public class TestOperation implements Operation {
 		}
 	}
 
-	void runTcpConnectionTests(Infrastructure model) throws CommandException {
+	void createTcpConnectionTests(Infrastructure model, ExecutionResult executionResult, List<TestCase> testCases)
+			throws CommandException {
 		for (TcpConnectionTest test : model.getTcpConnectionTest()) {
 			// create description
 			Object[] args = { test.getDescription() };
@@ -429,8 +621,54 @@ public class TestOperation implements Operation {
 			// map model content to context
 			mapper.mapTcpConnectionTest(test, context);
 
-			// run test
-			commandRunner.run(testTcpConnectionCommand, message, context);
+			// add test case
+			addTestCase(test.getHost(), testTcpConnectionCommandFactory, message, context, executionResult,
+					testCases);
+		}
+	}
+
+	/**
+	 * Test case which is scheduled for execution.
+	 */
+	static class TestCase {
+
+		/**
+		 * Host targeted by the test case.
+		 */
+		final String host;
+
+		/**
+		 * Factory for the test command.
+		 */
+		final ObjectFactory<Command> commandFactory;
+
+		/**
+		 * Command context.
+		 */
+		final Context context;
+
+		/**
+		 * Execution result for the test case.
+		 */
+		final ExecutionResult result;
+
+		/**
+		 * TestCase constructor.
+		 * 
+		 * @param host
+		 *            host targeted by the test case.
+		 * @param commandFactory
+		 *            factory for the test command.
+		 * @param context
+		 *            command context.
+		 * @param result
+		 *            execution result for the test case.
+		 */
+		TestCase(String host, ObjectFactory<Command> commandFactory, Context context, ExecutionResult result) {
+			this.host = host;
+			this.commandFactory = commandFactory;
+			this.context = context;
+			this.result = result;
 		}
 	}
 
@@ -26,6 +26,9 @@ import java.io.IOException;
 import java.net.ConnectException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.hamcrest.Description;
 import org.hamcrest.Factory;
@@ -34,6 +37,10 @@ import org.hamcrest.TypeSafeMatcher;
 
 /**
  * Matches if a TCP host listens on a specific port.
+ * 
+ * The outcome of each probed port is recorded, i.e. a port is only probed once
+ * by a matcher instance. This allows the ports to be probed concurrently prior
+ * to assertion of the ports.
  */
 public class IsTcpHostListeningOnPort extends TypeSafeMatcher<Integer> {
 
@@ -48,14 +55,15 @@ public class IsTcpHostListeningOnPort extends TypeSafeMatcher<Integer> {
 	String host;
 
 	/**
-	 * Last recorded exception.
+	 * Outcome of probed ports. A port is mapped to the exception which caused the
+	 * connection to fail or to an empty optional if the connection succeeded.
 	 */
-	Exception lastException;
+	final ConcurrentMap<Integer, Optional<Exception>> probedPorts = new ConcurrentHashMap<Integer, Optional<Exception>>();
 
 	/**
 	 * Last recorded port.
 	 */
-	Integer lastPort;
+	volatile Integer lastPort;
 
 	/**
 	 * IsTcpHostListeningOnPort constructor.
@@ -72,6 +80,29 @@ public class IsTcpHostListeningOnPort extends TypeSafeMatcher<Integer> {
 		// store port
 		lastPort = port;
 
+		// probe port if it isn't probed already
+		Optional<Exception> outcome = probedPorts.get(port);
+		if (outcome == null) {
+			outcome = probe(port);
+			Optional<Exception> previousOutcome = probedPorts.putIfAbsent(port, outcome);
+			if (previousOutcome != null)
+				outcome = previousOutcome;
+		}
+
+		return !outcome.isPresent();
+	}
+
+	/**
+	 * Probe port by connecting to it.
+	 * 
+	 * @param port
+	 *            port to probe.
+	 * 
+	 * @return the exception which caused the connection to fail or an empty
+	 *         optional if the connection succeeded.
+	 */
+	Optional<Exception> probe(Integer port) {
+
 		// declare socket
 		Socket socket = null;
 
@@ -86,20 +117,17 @@ public class IsTcpHostListeningOnPort extends TypeSafeMatcher<Integer> {
 			socket.connect(endpoint, SOCKET_TIMEOUT);
 
 			// assert
-			return (socket.isConnected());
+			if (socket.isConnected())
+				return Optional.empty();
+			return Optional.of(new ConnectException("Not connected"));
 		} catch (ConnectException e) {
 
-			// record exception
-			this.lastException = e;
-
 			// fail test
-			return false;
+			return Optional.of(e);
 		} catch (Exception e) {
-			// record exception
-			this.lastException = e;
 
 			// fail test
-			return false;
+			return Optional.of(e);
 		} finally {
 
 			if (socket != null) {
@@ -110,11 +138,7 @@ public class IsTcpHostListeningOnPort extends TypeSafeMatcher<Integer> {
 
 				} catch (IOException e) {
 
-					// record exception
-					this.lastException = e;
-
-					// fail test
-					return false;
+					// ignore failure to close socket
 				}
 			}
 		}
@@ -135,9 +159,10 @@ public class IsTcpHostListeningOnPort extends TypeSafeMatcher<Integer> {
 		mismatchDescription.appendText("failed to connect on port ");
 		mismatchDescription.appendValue(item.intValue());
 
-		if (lastException != null) {
+		Optional<Exception> outcome = probedPorts.get(item);
+		if (outcome != null && outcome.isPresent()) {
 			mismatchDescription.appendText(" due to exception ");
-			mismatchDescription.appendValue(lastException.toString());
+			mismatchDescription.appendValue(outcome.get().toString());
 		}
 
 	}
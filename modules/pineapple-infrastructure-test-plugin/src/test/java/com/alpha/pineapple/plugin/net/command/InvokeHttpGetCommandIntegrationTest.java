@@ -23,6 +23,7 @@
 package com.alpha.pineapple.plugin.net.command;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
@@ -35,6 +36,13 @@ import org.apache.commons.chain.Context;
 import org.apache.commons.chain.impl.ContextBase;
 import org.apache.commons.httpclient.Cookie;
 import org.apache.commons.httpclient.Header;
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpState;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.SimpleHttpConnectionManager;
+import org.apache.commons.httpclient.cookie.CookiePolicy;
+import org.apache.commons.httpclient.methods.GetMethod;
+import org.apache.log4j.Logger;
 import org.easymock.EasyMock;
 import org.hamcrest.CoreMatchers;
 import org.hamcrest.Matcher;
@@ -50,6 +58,7 @@ import com.alpha.pineapple.execution.ExecutionResult;
 import com.alpha.pineapple.execution.ExecutionResultImpl;
 import com.alpha.pineapple.execution.ResultRepository;
 import com.alpha.pineapple.execution.ExecutionResult.ExecutionState;
+import com.alpha.pineapple.plugin.net.http.HttpClientFactory;
 import com.alpha.pineapple.plugin.net.http.HttpConfiguration;
 import com.alpha.pineapple.plugin.net.http.HttpConfigurationImpl;
 import com.alpha.pineapple.plugin.net.http.HttpInvocationResult;
@@ -103,12 +112,34 @@ public class InvokeHttpGetCommandIntegrationTest {
 	 */
 	static final ResponsePropertyInfoSet EMPTY_SET = new ResponsePropertyInfoSetImpl();
 
+	/**
+	 * TCP socket time out used by the connection reuse tests to get a connection
+	 * pool of their own.
+	 */
+	static final int POOL_TEST_TIMEOUT = 3001;
+
+	/**
+	 * Number of sequences invoked by the throughput test.
+	 */
+	static final int THROUGHPUT_REQUESTS = 500;
+
+	/**
+	 * Logger object.
+	 */
+	Logger logger = Logger.getLogger(this.getClass().getName());
+
 	/**
 	 * Object under test.
 	 */
 	@Resource(name = "invokeHttpGetMethodCommand")
 	Command command;
 
+	/**
+	 * HTTP client factory.
+	 */
+	@Resource
+	HttpClientFactory httpClientFactory;
+
 	/**
 	 * Chain context.
 	 */
@@ -597,4 +628,256 @@ public class InvokeHttpGetCommandIntegrationTest {
 		}
 	}
 
+	/**
+	 * Test that sequences with reset HTTP session reuse the pooled connection.
+	 */
+	@Test
+	public void testResetSequencesReusePooledConnection() throws Exception {
+		// configure HTTP configuration
+		httpConfig.setHttpFollowRedirects(true);
+		httpConfig.setTcpSocketTimeout(POOL_TEST_TIMEOUT);
+
+		// setup parameters
+		context.put(InvokeHttpGetMethodCommand.EXECUTIONRESULT_KEY, executionResult);
+		context.put(InvokeHttpGetMethodCommand.URLS_KEY, HTTP_REMOTE_HOST);
+		context.put(InvokeHttpGetMethodCommand.REQUESTS_KEY, 10);
+		context.put(InvokeHttpGetMethodCommand.RESET_KEY, true);
+		context.put(InvokeHttpGetMethodCommand.RESPONSEPROPERTIES_SET_KEY, EMPTY_SET);
+		context.put(InvokeHttpGetMethodCommand.HTTPCONFIGURATION_KEY, httpConfig);
+
+		// execute command
+		command.execute(context);
+
+		// test
+		MultiThreadedHttpConnectionManager manager = (MultiThreadedHttpConnectionManager) httpClientFactory
+				.createHttpClient(httpConfig).getHttpConnectionManager();
+		assertEquals(1, manager.getConnectionsInPool());
+	}
+
+	/**
+	 * Test that the wait for a pooled connection is bounded by the TCP socket
+	 * time out.
+	 */
+	@Test
+	public void testWaitForPooledConnectionIsBoundedByTcpTimeout() throws Exception {
+		httpConfig.setTcpSocketTimeout(POOL_TEST_TIMEOUT);
+		HttpClient client = httpClientFactory.createHttpClient(httpConfig);
+		assertEquals(POOL_TEST_TIMEOUT, client.getParams().getConnectionManagerTimeout());
+	}
+
+	/**
+	 * Test that sequences with reset HTTP session don't share cookies.
+	 */
+	@Test
+	public void testResetSequencesHaveIsolatedCookies() throws Exception {
+		// configure HTTP configuration
+		httpConfig.setHttpFollowRedirects(true);
+
+		// create response properties
+		ResponsePropertyInfoSet set = new ResponsePropertyInfoSetImpl();
+		Matcher<Object> matcher = CoreMatchers.anything();
+		set.addProperty("some-property", "state/cookies", matcher, matcher);
+
+		// setup parameters
+		context.put(InvokeHttpGetMethodCommand.EXECUTIONRESULT_KEY, executionResult);
+		context.put(InvokeHttpGetMethodCommand.URLS_KEY, HTTP_REMOTE_HOST);
+		context.put(InvokeHttpGetMethodCommand.REQUESTS_KEY, 2);
+		context.put(InvokeHttpGetMethodCommand.RESET_KEY, true);
+		context.put(InvokeHttpGetMethodCommand.RESPONSEPROPERTIES_SET_KEY, set);
+		context.put(InvokeHttpGetMethodCommand.HTTPCONFIGURATION_KEY, httpConfig);
+
+		// execute command
+		command.execute(context);
+
+		// get sequences
+		HttpInvocationsSet result = (HttpInvocationsSet) context.get(InvokeHttpGetMethodCommand.RESULTS_KEY);
+		HttpInvocationSequence[] sequences = result.getSequences();
+		Cookie[] firstCookies = (Cookie[]) sequences[0].getSequence()[FIRST_INDEX].getProperty("some-property");
+		Cookie[] secondCookies = (Cookie[]) sequences[1].getSequence()[FIRST_INDEX].getProperty("some-property");
+
+		// test
+		assertEquals(1, firstCookies.length);
+		assertEquals(1, secondCookies.length);
+		assertFalse(firstCookies[0].getValue().equals(secondCookies[0].getValue()));
+	}
+
+	/**
+	 * Test that properties can be extracted from both the parsed response body
+	 * and the buffered response body in the HTTP method object.
+	 */
+	@Test
+	public void testCanExtractBodyPropertyAndResponseBody() throws Exception {
+		// configure HTTP configuration
+		httpConfig.setHttpFollowRedirects(true);
+
+		// create response properties
+		ResponsePropertyInfoSet set = new ResponsePropertyInfoSetImpl();
+		Matcher<Object> matcher = CoreMatchers.anything();
+		set.addProperty("heading", "body/html/body/h1", matcher, matcher);
+		set.addProperty("body", "method/responseBodyAsString", matcher, matcher);
+
+		// setup parameters
+		context.put(InvokeHttpGetMethodCommand.EXECUTIONRESULT_KEY, executionResult);
+		context.put(InvokeHttpGetMethodCommand.URLS_KEY, HTTP_REMOTE_HOST);
+		context.put(InvokeHttpGetMethodCommand.REQUESTS_KEY, 1);
+		context.put(InvokeHttpGetMethodCommand.RESET_KEY, false);
+		context.put(InvokeHttpGetMethodCommand.RESPONSEPROPERTIES_SET_KEY, set);
+		context.put(InvokeHttpGetMethodCommand.HTTPCONFIGURATION_KEY, httpConfig);
+
+		// execute command
+		command.execute(context);
+
+		// get invocation result
+		HttpInvocationsSet result = (HttpInvocationsSet) context.get(InvokeHttpGetMethodCommand.RESULTS_KEY);
+		HttpInvocationResult firstResult = result.getSequences()[FIRST_INDEX].getSequence()[FIRST_INDEX];
+
+		// test
+		assertEquals("Welcome to some Pineapple test application", firstResult.getProperty("heading"));
+		assertTrue(((String) firstResult.getProperty("body")).contains("<system-properties>"));
+	}
+
+	/**
+	 * Benchmark throughput of sequences with reset HTTP session against the
+	 * embedded HTTP server. The throughput is logged.
+	 */
+	@Test
+	public void testThroughputOfResetSequences() throws Exception {
+		// configure HTTP configuration
+		httpConfig.setHttpFollowRedirects(true);
+
+		// create response properties
+		ResponsePropertyInfoSet set = new ResponsePropertyInfoSetImpl();
+		Matcher<Object> matcher = CoreMatchers.anything();
+		set.addProperty("some-property", "method/statusCode", matcher, matcher);
+
+		// setup parameters
+		context.put(InvokeHttpGetMethodCommand.EXECUTIONRESULT_KEY, executionResult);
+		context.put(InvokeHttpGetMethodCommand.URLS_KEY, HTTP_REMOTE_HOST);
+		context.put(InvokeHttpGetMethodCommand.REQUESTS_KEY, THROUGHPUT_REQUESTS);
+		context.put(InvokeHttpGetMethodCommand.RESET_KEY, true);
+		context.put(InvokeHttpGetMethodCommand.RESPONSEPROPERTIES_SET_KEY, set);
+		context.put(InvokeHttpGetMethodCommand.HTTPCONFIGURATION_KEY, httpConfig);
+
+		// execute command
+		long start = System.nanoTime();
+		command.execute(context);
+		long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1000000);
+
+		// log throughput
+		StringBuilder message = new StringBuilder();
+		message.append("Invoked <");
+		message.append(THROUGHPUT_REQUESTS);
+		message.append("> sequences in <");
+		message.append(elapsedMs);
+		message.append("> ms, <");
+		message.append((THROUGHPUT_REQUESTS * 1000L) / elapsedMs);
+		message.append("> requests/s.");
+		logger.info(message.toString());
+
+		// test
+		HttpInvocationsSet result = (HttpInvocationsSet) context.get(InvokeHttpGetMethodCommand.RESULTS_KEY);
+		HttpInvocationSequence[] sequences = result.getSequences();
+		assertEquals(THROUGHPUT_REQUESTS, sequences.length);
+		for (HttpInvocationSequence sequence : sequences) {
+			assertEquals(200, sequence.getSequence()[FIRST_INDEX].getProperty("some-property"));
+		}
+	}
+
+	/**
+	 * Benchmark reset sequences with a pooled client against the baseline where
+	 * a new client with its own connection is created for each sequence. The
+	 * throughput of both is logged for comparison. The timings aren't asserted
+	 * since they depend on the load of the build machine.
+	 */
+	@Test
+	public void testLogThroughputOfPooledClientAndNewClientPerSequence() throws Exception {
+		String url = HTTP_REMOTE_HOST[FIRST_INDEX];
+
+		// warm up
+		invokeWithNewClients(url, THROUGHPUT_REQUESTS / 10);
+		invokeWithPooledClient(url, THROUGHPUT_REQUESTS / 10);
+
+		// measure
+		long baselineMs = invokeWithNewClients(url, THROUGHPUT_REQUESTS);
+		long pooledMs = invokeWithPooledClient(url, THROUGHPUT_REQUESTS);
+
+		// log throughput
+		StringBuilder message = new StringBuilder();
+		message.append("Invoked <");
+		message.append(THROUGHPUT_REQUESTS);
+		message.append("> reset sequences, new client per sequence: <");
+		message.append((THROUGHPUT_REQUESTS * 1000L) / baselineMs);
+		message.append("> requests/s, pooled client: <");
+		message.append((THROUGHPUT_REQUESTS * 1000L) / pooledMs);
+		message.append("> requests/s.");
+		logger.info(message.toString());
+	}
+
+	/**
+	 * Invoke GET requests where a new client is created for each request, which
+	 * was the behaviour of reset sequences before the clients were pooled.
+	 * 
+	 * @param url
+	 *            URL.
+	 * @param requests
+	 *            number of requests.
+	 * 
+	 * @return elapsed time in ms.
+	 */
+	long invokeWithNewClients(String url, int requests) throws Exception {
+		long start = System.nanoTime();
+		for (int i = 0; i < requests; i++) {
+			SimpleHttpConnectionManager connectionManager = new SimpleHttpConnectionManager();
+			try {
+				HttpClient client = new HttpClient(connectionManager);
+				connectionManager.getParams().setConnectionTimeout(httpConfig.getTcpSocketTimeout());
+				client.getParams().setCookiePolicy(CookiePolicy.BROWSER_COMPATIBILITY);
+				client.getParams().makeStrict();
+				invoke(client, url);
+			} finally {
+				connectionManager.shutdown();
+			}
+		}
+		return Math.max(1, (System.nanoTime() - start) / 1000000);
+	}
+
+	/**
+	 * Invoke GET requests with a pooled client where the HTTP state is reset for
+	 * each request.
+	 * 
+	 * @param url
+	 *            URL.
+	 * @param requests
+	 *            number of requests.
+	 * 
+	 * @return elapsed time in ms.
+	 */
+	long invokeWithPooledClient(String url, int requests) throws Exception {
+		long start = System.nanoTime();
+		HttpClient client = httpClientFactory.createHttpClient(httpConfig);
+		for (int i = 0; i < requests; i++) {
+			client.setState(new HttpState());
+			invoke(client, url);
+		}
+		return Math.max(1, (System.nanoTime() - start) / 1000000);
+	}
+
+	/**
+	 * Invoke GET request and read the response.
+	 * 
+	 * @param client
+	 *            HTTP client.
+	 * @param url
+	 *            URL.
+	 */
+	void invoke(HttpClient client, String url) throws Exception {
+		GetMethod method = new GetMethod(url);
+		try {
+			assertEquals(200, client.executeMethod(method));
+			method.getResponseBodyAsString();
+		} finally {
+			method.releaseConnection();
+		}
+	}
+
 }
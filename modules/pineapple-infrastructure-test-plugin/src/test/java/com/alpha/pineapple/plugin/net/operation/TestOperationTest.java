@@ -22,18 +22,33 @@
 
 package com.alpha.pineapple.plugin.net.operation;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.chain.Command;
+import org.apache.commons.chain.Context;
 import org.easymock.EasyMock;
 import org.easymock.IAnswer;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import com.alpha.easymockutils.MessageProviderAnswerImpl;
 import com.alpha.pineapple.command.execution.CommandRunner;
+import com.alpha.pineapple.command.execution.CommandRunnerImpl;
 import com.alpha.pineapple.execution.ExecutionResult;
+import com.alpha.pineapple.execution.ExecutionResult.ExecutionState;
+import com.alpha.pineapple.execution.ExecutionResultImpl;
 import com.alpha.pineapple.i18n.MessageProvider;
 import com.alpha.pineapple.plugin.PluginExecutionFailedException;
+import com.alpha.pineapple.plugin.infrastructure.model.Infrastructure;
+import com.alpha.pineapple.plugin.infrastructure.model.TcpConnectionTest;
 import com.alpha.pineapple.plugin.net.model.Mapper;
 import com.alpha.pineapple.session.Session;
 import com.alpha.testutils.ObjectMotherContent;
@@ -78,6 +93,26 @@ public class TestOperationTest {
 	 */
 	MessageProvider messageProvider;
 
+	/**
+	 * Test case executor.
+	 */
+	ThreadPoolTaskExecutor executor;
+
+	/**
+	 * Number of running test commands.
+	 */
+	AtomicInteger running;
+
+	/**
+	 * Maximum number of observed concurrently running test commands.
+	 */
+	AtomicInteger maxRunning;
+
+	/**
+	 * Defines whether the recording test command cancels the execution.
+	 */
+	volatile boolean cancelling;
+
 	@Before
 	public void setUp() throws Exception {
 
@@ -120,6 +155,15 @@ public class TestOperationTest {
 
 		EasyMock.replay(messageProvider);
 
+		// create executor
+		executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(8);
+		executor.setMaxPoolSize(8);
+		executor.initialize();
+
+		// create counters
+		running = new AtomicInteger();
+		maxRunning = new AtomicInteger();
 	}
 
 	@After
@@ -131,6 +175,70 @@ public class TestOperationTest {
 		runner = null;
 		mapper = null;
 		executionResult = null;
+		executor.shutdown();
+		executor = null;
+	}
+
+	/**
+	 * Create model with TCP connection tests.
+	 * 
+	 * @param hosts
+	 *            host for each test.
+	 * 
+	 * @return model with TCP connection tests.
+	 */
+	Infrastructure createModelWithTcpTests(String... hosts) {
+		Infrastructure model = new Infrastructure();
+		for (int i = 0; i < hosts.length; i++) {
+			TcpConnectionTest test = new TcpConnectionTest();
+			test.setHost(hosts[i]);
+			test.setDescription("test#" + i);
+			model.getTcpConnectionTest().add(test);
+		}
+		return model;
+	}
+
+	/**
+	 * Inject real command runner, executor and a test command which records the
+	 * number of concurrently running test commands into the operation.
+	 */
+	@SuppressWarnings("unchecked")
+	void injectRecordingTestCommand() {
+		ReflectionTestUtils.setField(operation, "commandRunner", new CommandRunnerImpl(), CommandRunner.class);
+		ObjectFactory<CommandRunner> runnerFactory = () -> new CommandRunnerImpl();
+		ReflectionTestUtils.setField(operation, "commandRunnerFactory", runnerFactory);
+		ReflectionTestUtils.setField(operation, "testCaseExecutor", executor);
+
+		// create message provider which returns key and arguments
+		messageProvider = EasyMock.createMock(MessageProvider.class);
+		EasyMock.expect(messageProvider.getMessage((String) EasyMock.isA(String.class), EasyMock.anyObject()));
+		EasyMock.expectLastCall().andAnswer(() -> {
+			Object[] args = EasyMock.getCurrentArguments();
+			return args[0] + " " + Arrays.toString((Object[]) args[1]);
+		}).anyTimes();
+		EasyMock.expect(messageProvider.getMessage((String) EasyMock.isA(String.class)));
+		EasyMock.expectLastCall().andAnswer(() -> (String) EasyMock.getCurrentArguments()[0]).anyTimes();
+		EasyMock.replay(messageProvider);
+		ReflectionTestUtils.setField(operation, "messageProvider", messageProvider, MessageProvider.class);
+
+		// complete mapper initialization
+		mapper.mapTcpConnectionTest(EasyMock.isA(TcpConnectionTest.class), EasyMock.isA(Context.class));
+		EasyMock.expectLastCall().anyTimes();
+		EasyMock.replay(mapper);
+
+		// create test command
+		Command command = context -> {
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			Thread.sleep(100);
+			running.decrementAndGet();
+			ExecutionResult result = (ExecutionResult) context.get("execution-result");
+			if (cancelling)
+				result.setCancelled();
+			result.setState(ExecutionState.SUCCESS);
+			return Command.CONTINUE_PROCESSING;
+		};
+		ObjectFactory<Command> commandFactory = () -> command;
+		ReflectionTestUtils.setField(operation, "testTcpConnectionCommandFactory", commandFactory);
 	}
 
 	/**
@@ -213,4 +321,117 @@ public class TestOperationTest {
 		operation.execute(content, session, null);
 	}
 
+	/**
+	 * Test that the test results are added in the order of the model.
+	 */
+	@Test
+	public void testAddsTestResultsInModelOrder() throws Exception {
+		injectRecordingTestCommand();
+
+		// create content and result
+		Infrastructure content = createModelWithTcpTests("host1", "host2", "host1", "host3", "host2");
+		ExecutionResult result = new ExecutionResultImpl("Root result");
+
+		// invoke operation
+		operation.execute(content, session, result);
+
+		// test
+		ExecutionResult[] children = result.getChildren();
+		assertEquals(5, children.length);
+		for (int i = 0; i < children.length; i++) {
+			assertTrue(children[i].getDescription().endsWith("[test#" + i + "]"));
+			assertEquals(ExecutionState.SUCCESS, children[i].getState());
+		}
+		assertEquals(ExecutionState.SUCCESS, result.getState());
+	}
+
+	/**
+	 * Test that the number of concurrently running test cases is bounded.
+	 */
+	@Test
+	public void testLimitsNumberOfConcurrentTests() throws Exception {
+		injectRecordingTestCommand();
+
+		// create content and result
+		Infrastructure content = createModelWithTcpTests("host1", "host2", "host3", "host4", "host5", "host6");
+		content.setMaxConcurrentTests(3);
+		ExecutionResult result = new ExecutionResultImpl("Root result");
+
+		// invoke operation
+		operation.execute(content, session, result);
+
+		// test
+		assertEquals(6, result.getChildren().length);
+		assertTrue(maxRunning.get() <= 3);
+		assertEquals(ExecutionState.SUCCESS, result.getState());
+	}
+
+	/**
+	 * Test that the number of concurrently running test cases per host is
+	 * bounded.
+	 */
+	@Test
+	public void testLimitsNumberOfConcurrentTestsPerHost() throws Exception {
+		injectRecordingTestCommand();
+
+		// create content and result
+		Infrastructure content = createModelWithTcpTests("host1", "host1", "host1", "host1", "host1");
+		content.setMaxConcurrentTestsPerHost(2);
+		ExecutionResult result = new ExecutionResultImpl("Root result");
+
+		// invoke operation
+		operation.execute(content, session, result);
+
+		// test
+		assertEquals(5, result.getChildren().length);
+		assertTrue(maxRunning.get() <= 2);
+		assertEquals(ExecutionState.SUCCESS, result.getState());
+	}
+
+	/**
+	 * Test that the remaining test cases are skipped if the continuation policy
+	 * signals that execution should stop.
+	 */
+	@Test
+	public void testSkipsRemainingTestsIfContinuationPolicyStopsExecution() throws Exception {
+		injectRecordingTestCommand();
+		cancelling = true;
+
+		// create content and result
+		Infrastructure content = createModelWithTcpTests("host1", "host2", "host3");
+		content.setMaxConcurrentTests(1);
+		ExecutionResult result = new ExecutionResultImpl("Root result");
+
+		// invoke operation
+		operation.execute(content, session, result);
+
+		// test
+		ExecutionResult[] children = result.getChildren();
+		assertEquals(3, children.length);
+		assertEquals(ExecutionState.SUCCESS, children[0].getState());
+		assertEquals(ExecutionState.INTERRUPTED, children[1].getState());
+		assertEquals(ExecutionState.INTERRUPTED, children[2].getState());
+	}
+
+	/**
+	 * Test that test cases are executed in sequence if the maximum number of
+	 * concurrent test cases is one.
+	 */
+	@Test
+	public void testExecutesTestsInSequence() throws Exception {
+		injectRecordingTestCommand();
+
+		// create content and result
+		Infrastructure content = createModelWithTcpTests("host1", "host2", "host3");
+		content.setMaxConcurrentTests(1);
+		ExecutionResult result = new ExecutionResultImpl("Root result");
+
+		// invoke operation
+		operation.execute(content, session, result);
+
+		// test
+		assertEquals(1, maxRunning.get());
+		assertEquals(ExecutionState.SUCCESS, result.getState());
+	}
+
 }
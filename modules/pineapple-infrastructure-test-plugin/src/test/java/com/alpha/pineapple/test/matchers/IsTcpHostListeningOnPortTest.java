@@ -22,6 +22,9 @@
 
 package com.alpha.pineapple.test.matchers;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
 import org.easymock.EasyMock;
 import org.hamcrest.Description;
 import org.hamcrest.Matcher;
@@ -126,4 +129,26 @@ public class IsTcpHostListeningOnPortTest {
 		EasyMock.verify(description);
 	}
 
+	/**
+	 * Test that matcher records the outcome of a probed port and reuses it.
+	 */
+	@Test
+	public void testRecordsOutcomeOfProbedPort() {
+
+		String host = "localhost";
+		Integer port = new Integer(7);
+
+		// initialize matcher
+		IsTcpHostListeningOnPort tcpMatcher = new IsTcpHostListeningOnPort(host);
+
+		// invoke matcher twice
+		boolean firstOutcome = tcpMatcher.matches(port);
+		boolean secondOutcome = tcpMatcher.matches(port);
+
+		// test
+		assertFalse(firstOutcome);
+		assertEquals(firstOutcome, secondOutcome);
+		assertEquals(1, tcpMatcher.probedPorts.size());
+	}
+
 }
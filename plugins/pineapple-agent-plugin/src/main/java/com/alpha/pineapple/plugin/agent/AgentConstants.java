@@ -99,8 +99,37 @@ public interface AgentConstants {
 	 */
 	public static final String CONTENT_TYPE_KEY = "Content-Type";
 
+	/**
+	 * Server-sent events content type.
+	 */
+	public static final String CONTENT_TYPE_TEXT_EVENT_STREAM = "text/event-stream";
+
+	/**
+	 * Header used to resume a stream of server-sent events.
+	 */
+	public static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+	/**
+	 * Path which is appended to the operation status location to stream the
+	 * status of the operation.
+	 */
+	public static final String EXECUTE_STATUS_STREAM_PATH = "/stream";
+
+	/**
+	 * Delay in milli seconds before the status stream is reopened, if the stream
+	 * was closed by the agent without sending any events.
+	 */
+	public static final int OPERATION_STATUS_STREAM_RECONNECT_DELAY = 1000;
+
+	/**
+	 * Maximum number of consecutive status streams which are closed by the agent
+	 * without sending any events, before the status is polled instead.
+	 */
+	public static final int OPERATION_STATUS_STREAM_MAX_EMPTY_STREAMS = 3;
+
 	/**
 	 * Polling delay between getting status updates from agents in milli seconds.
+	 * Only used for agents which don't support streaming of the operation status.
 	 */
 	public static final int OPERATION_STATUS_POLLING_DELAY = 50;
 
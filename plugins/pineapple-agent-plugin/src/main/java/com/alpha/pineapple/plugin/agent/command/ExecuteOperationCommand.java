@@ -33,6 +33,7 @@ import javax.annotation.Resource;
 import org.apache.commons.chain.Command;
 import org.apache.commons.chain.Context;
 import org.apache.log4j.Logger;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.util.UriComponents;
 import org.springframework.web.util.UriComponentsBuilder;
 
@@ -50,6 +51,7 @@ import com.alpha.pineapple.model.execution.ResultSequence;
 import com.alpha.pineapple.model.execution.Results;
 import com.alpha.pineapple.plugin.agent.AgentConstants;
 import com.alpha.pineapple.plugin.agent.session.AgentSession;
+import com.alpha.pineapple.plugin.agent.session.EventStreamHandler;
 import com.alpha.pineapple.plugin.agent.utils.RestResponseException;
 
 /**
@@ -228,22 +230,8 @@ public class ExecuteOperationCommand implements Command {
 			// create execution index map and register root result
 			Map<Integer, ExecutionResult> executionResultMap = resultMapper.createExecutionResultMap(executionResult);
 
-			// get initial results
-			Results modelResults = getRemoteExecutionResult(location);
-
-			// map results
-			resultMapper.mapModelToResults(modelResults, executionResultMap);
-
-			// get mapped model root result
-			ExecutionResult mappedRootResult = getMappedRootExecutionResult(executionResultMap, modelResults, location);
-
-			while (isOperationExecuting(mappedRootResult)) {
-				ConcurrencyUtils.waitSomeMilliseconds(AgentConstants.OPERATION_STATUS_POLLING_DELAY);
-				modelResults = getRemoteExecutionResult(location);
-
-				// map model
-				resultMapper.mapModelToResults(modelResults, executionResultMap);
-			}
+			// receive results
+			streamRemoteExecutionResults(location, executionResultMap);
 
 			// delete operation status
 			session.httpDelete(location.toASCIIString());
@@ -263,6 +251,112 @@ public class ExecuteOperationCommand implements Command {
 
 	}
 
+	/**
+	 * Receive remote execution results from the event stream of the agent until
+	 * the operation is completed. If the stream is closed while the operation is
+	 * executing then the stream is resumed after the last received event. If the
+	 * agent doesn't support streaming, or if the stream is repeatedly closed
+	 * without any events, then the status is polled.
+	 * 
+	 * @param location
+	 *            URI of the executing operation.
+	 * @param executionResultMap
+	 *            execution result map used to map received results.
+	 * 
+	 * @throws Exception
+	 *             if receiving results fails.
+	 */
+	void streamRemoteExecutionResults(URI location, Map<Integer, ExecutionResult> executionResultMap)
+			throws Exception {
+		String streamPath = location.toASCIIString() + AgentConstants.EXECUTE_STATUS_STREAM_PATH;
+		ResultsStreamHandler handler = new ResultsStreamHandler(executionResultMap);
+		ExecutionResult mappedRootResult = null;
+		int emptyStreamCount = 0;
+
+		while (true) {
+			int previousEventCount = handler.eventCount;
+
+			// receive events until stream is closed
+			try {
+				session.httpGetForEventStream(streamPath, handler.lastEventId, Results.class, handler);
+			} catch (RestResponseException e) {
+				if ((handler.firstResults != null) || (e.getStatusCode() != HttpStatus.NOT_FOUND))
+					throw e;
+
+				// poll agent which doesn't support streaming
+				Object[] args = { session.createServiceUrl(streamPath) };
+				logger.info(messageProvider.getMessage("eoc.stream_unsupported_info", args));
+				pollRemoteExecutionResults(location, executionResultMap);
+				return;
+			}
+
+			// get mapped model root result
+			if ((mappedRootResult == null) && (handler.firstResults != null))
+				mappedRootResult = getMappedRootExecutionResult(executionResultMap, handler.firstResults, location);
+
+			// exit if operation is completed
+			if ((mappedRootResult != null) && (!isOperationExecuting(mappedRootResult)))
+				return;
+
+			// count consecutive streams closed without any events
+			if (handler.eventCount == previousEventCount)
+				emptyStreamCount++;
+			else
+				emptyStreamCount = 0;
+
+			// poll agent if streams are repeatedly closed without any events
+			if (emptyStreamCount >= AgentConstants.OPERATION_STATUS_STREAM_MAX_EMPTY_STREAMS) {
+				Object[] args = { session.createServiceUrl(streamPath), emptyStreamCount };
+				logger.info(messageProvider.getMessage("eoc.stream_empty_info", args));
+				pollRemoteExecutionResults(location, executionResultMap);
+				return;
+			}
+
+			// delay reconnect if stream was closed without any events
+			if (emptyStreamCount > 0)
+				ConcurrencyUtils.waitSomeMilliseconds(AgentConstants.OPERATION_STATUS_STREAM_RECONNECT_DELAY);
+
+			// log debug message
+			if (logger.isDebugEnabled()) {
+				Object[] args = { session.createServiceUrl(streamPath), handler.lastEventId };
+				logger.debug(messageProvider.getMessage("eoc.stream_reconnect_info", args));
+			}
+		}
+	}
+
+	/**
+	 * Poll remote execution results from server until the operation is
+	 * completed.
+	 * 
+	 * @param location
+	 *            URI to query for status update.
+	 * @param executionResultMap
+	 *            execution result map used to map received results.
+	 * 
+	 * @throws Exception
+	 *             if polling fails.
+	 */
+	void pollRemoteExecutionResults(URI location, Map<Integer, ExecutionResult> executionResultMap)
+			throws Exception {
+
+		// get initial results
+		Results modelResults = getRemoteExecutionResult(location);
+
+		// map results
+		resultMapper.mapModelToResults(modelResults, executionResultMap);
+
+		// get mapped model root result
+		ExecutionResult mappedRootResult = getMappedRootExecutionResult(executionResultMap, modelResults, location);
+
+		while (isOperationExecuting(mappedRootResult)) {
+			ConcurrencyUtils.waitSomeMilliseconds(AgentConstants.OPERATION_STATUS_POLLING_DELAY);
+			modelResults = getRemoteExecutionResult(location);
+
+			// map model
+			resultMapper.mapModelToResults(modelResults, executionResultMap);
+		}
+	}
+
 	/**
 	 * Get remote execution result from server.
 	 * 
@@ -371,4 +465,50 @@ public class ExecuteOperationCommand implements Command {
 		return;
 	}
 
+	/**
+	 * Event stream handler which maps the received results.
+	 */
+	class ResultsStreamHandler implements EventStreamHandler<Results> {
+
+		/**
+		 * Execution result map used to map received results.
+		 */
+		final Map<Integer, ExecutionResult> executionResultMap;
+
+		/**
+		 * First received results, which contains the root result.
+		 */
+		Results firstResults;
+
+		/**
+		 * ID of the last received event.
+		 */
+		String lastEventId;
+
+		/**
+		 * Number of received events.
+		 */
+		int eventCount;
+
+		/**
+		 * ResultsStreamHandler constructor.
+		 * 
+		 * @param executionResultMap
+		 *            execution result map used to map received results.
+		 */
+		ResultsStreamHandler(Map<Integer, ExecutionResult> executionResultMap) {
+			this.executionResultMap = executionResultMap;
+		}
+
+		@Override
+		public void onEvent(String id, Results event) {
+			resultMapper.mapModelToResults(event, executionResultMap);
+			if (firstResults == null)
+				firstResults = event;
+			if (id != null)
+				lastEventId = id;
+			eventCount++;
+		}
+	}
+
 }
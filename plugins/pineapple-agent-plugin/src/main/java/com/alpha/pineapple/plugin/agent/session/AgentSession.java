@@ -77,6 +77,26 @@ public interface AgentSession extends Session {
 	 */
 	public <T> T httpGetForObject(String urlPath, Class<T> responseType);
 
+	/**
+	 * Invoke HTTP GET operation on a service which streams server-sent events.
+	 * Each received event is converted to the event type and passed to the
+	 * handler. The method returns when the service closes the stream.
+	 * 
+	 * @param <T>
+	 * 
+	 * @param urlPath
+	 *            URL path for service.
+	 * @param lastEventId
+	 *            ID of the last received event, used to resume the stream. If
+	 *            null then the stream is started from the beginning.
+	 * @param eventType
+	 *            Type that the data of each event is converted to.
+	 * @param handler
+	 *            Handler which is invoked for each received event.
+	 */
+	public <T> void httpGetForEventStream(String urlPath, String lastEventId, Class<T> eventType,
+			EventStreamHandler<T> handler);
+
 	/**
 	 * Invoke HTTP POST operation.
 	 * 
@@ -24,7 +24,14 @@ package com.alpha.pineapple.plugin.agent.session;
 
 import static com.alpha.javautils.ArgumentUtils.notNull;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -32,8 +39,16 @@ import javax.annotation.Resource;
 
 import org.apache.log4j.Logger;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseExtractor;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
 import com.alpha.pineapple.execution.ExecutionResult;
@@ -57,6 +72,16 @@ public class AgentSessionImpl implements AgentSession {
 	 */
 	final static Object NULL_REQUEST = null;
 
+	/**
+	 * Server-sent event ID field.
+	 */
+	final static String EVENT_ID_FIELD = "id";
+
+	/**
+	 * Server-sent event data field.
+	 */
+	final static String EVENT_DATA_FIELD = "data";
+
 	/**
 	 * Logger object.
 	 */
@@ -218,6 +243,134 @@ public class AgentSessionImpl implements AgentSession {
 		return restTemplate.getForObject(serviceUrl, responseType);
 	}
 
+	@Override
+	public <T> void httpGetForEventStream(String urlPath, final String lastEventId, final Class<T> eventType,
+			final EventStreamHandler<T> handler) {
+		notNull(eventType, "eventType is undefined.");
+		notNull(handler, "handler is undefined.");
+		String serviceUrl = createServiceUrl(urlPath);
+
+		// log debug message
+		if (logger.isDebugEnabled()) {
+			Object[] args = { serviceUrl, lastEventId };
+			String message = messageProvider.getMessage("as.get_eventstream_serviceurl_info", args);
+			logger.debug(message);
+		}
+
+		// request stream, resumed after the last received event
+		RequestCallback requestCallback = request -> {
+			HttpHeaders headers = request.getHeaders();
+			headers.setAccept(Collections.singletonList(MediaType.valueOf(AgentConstants.CONTENT_TYPE_TEXT_EVENT_STREAM)));
+			if (lastEventId != null)
+				headers.set(AgentConstants.LAST_EVENT_ID_HEADER, lastEventId);
+		};
+
+		// read events until the stream is closed
+		ResponseExtractor<Void> responseExtractor = response -> {
+			readEventStream(response.getBody(), eventType, handler);
+			return null;
+		};
+
+		// invoke get
+		restTemplate.execute(serviceUrl, HttpMethod.GET, requestCallback, responseExtractor);
+	}
+
+	/**
+	 * Read server-sent events from stream until the stream is closed. Each event
+	 * is converted and passed to the handler when the blank line which
+	 * terminates the event is read. Comments and unknown fields are ignored.
+	 * 
+	 * @param stream
+	 *            stream of server-sent events.
+	 * @param eventType
+	 *            Type that the data of each event is converted to.
+	 * @param handler
+	 *            Handler which is invoked for each received event.
+	 * 
+	 * @throws IOException
+	 *             if reading from stream fails.
+	 */
+	<T> void readEventStream(InputStream stream, Class<T> eventType, EventStreamHandler<T> handler)
+			throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+		String id = null;
+		StringBuilder data = null;
+		String line;
+		while ((line = reader.readLine()) != null) {
+
+			// dispatch event at end of event
+			if (line.isEmpty()) {
+				if (data != null)
+					handler.onEvent(id, convertEvent(data.toString(), eventType));
+				id = null;
+				data = null;
+				continue;
+			}
+
+			// skip comment
+			if (line.startsWith(":"))
+				continue;
+
+			// parse field
+			int separatorIndex = line.indexOf(':');
+			String field = (separatorIndex == -1) ? line : line.substring(0, separatorIndex);
+			String value = (separatorIndex == -1) ? "" : line.substring(separatorIndex + 1);
+			if (value.startsWith(" "))
+				value = value.substring(1);
+
+			if (field.equals(EVENT_ID_FIELD)) {
+				id = value;
+			} else if (field.equals(EVENT_DATA_FIELD)) {
+				if (data == null)
+					data = new StringBuilder(value);
+				else
+					data.append('\n').append(value);
+			}
+		}
+	}
+
+	/**
+	 * Convert data of server-sent event using the message converters of the
+	 * REST template. The data is converted as XML.
+	 * 
+	 * @param data
+	 *            data of event.
+	 * @param eventType
+	 *            Type that the data is converted to.
+	 * 
+	 * @return converted event.
+	 * 
+	 * @throws IOException
+	 *             if conversion fails.
+	 */
+	@SuppressWarnings("unchecked")
+	<T> T convertEvent(String data, Class<T> eventType) throws IOException {
+		final byte[] body = data.getBytes(StandardCharsets.UTF_8);
+		HttpInputMessage inputMessage = new HttpInputMessage() {
+
+			@Override
+			public HttpHeaders getHeaders() {
+				HttpHeaders headers = new HttpHeaders();
+				headers.setContentType(MediaType.APPLICATION_XML);
+				return headers;
+			}
+
+			@Override
+			public InputStream getBody() throws IOException {
+				return new ByteArrayInputStream(body);
+			}
+		};
+
+		for (HttpMessageConverter<?> converter : restTemplate.getMessageConverters()) {
+			if (converter.canRead(eventType, MediaType.APPLICATION_XML))
+				return ((HttpMessageConverter<T>) converter).read(eventType, inputMessage);
+		}
+
+		Object[] args = { eventType.getName() };
+		String message = messageProvider.getMessage("as.event_conversion_failure", args);
+		throw new RestClientException(message);
+	}
+
 	@Override
 	public void httpPost(String urlPath, MultiValueMap<String, Object> vars) {
 		String serviceUrl = createServiceUrl(urlPath);
@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+ * Copyright (C) 2007-2015 Allan Thrane Andersen..
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package com.alpha.pineapple.plugin.agent.session;
+
+/**
+ * Handler for events received from a REST service which streams server-sent
+ * events.
+ * 
+ * @param <T>
+ *            Type that the data of each event is converted to.
+ */
+public interface EventStreamHandler<T> {
+
+	/**
+	 * Handle event received from the stream.
+	 * 
+	 * @param id
+	 *            ID of the event. Is null if the event has no ID.
+	 * @param event
+	 *            data of the event, converted to the event type.
+	 */
+	void onEvent(String id, T event);
+
+}
@@ -38,6 +38,8 @@ import org.easymock.IAnswer;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.util.UriComponentsBuilder;
 
@@ -53,6 +55,8 @@ import com.alpha.pineapple.model.execution.Result;
 import com.alpha.pineapple.model.execution.Results;
 import com.alpha.pineapple.plugin.agent.AgentConstants;
 import com.alpha.pineapple.plugin.agent.session.AgentSession;
+import com.alpha.pineapple.plugin.agent.session.EventStreamHandler;
+import com.alpha.pineapple.plugin.agent.utils.RestResponseException;
 
 /**
  * Unit test of the class {@linkplain ExecuteOperationCommand}.
@@ -200,6 +204,44 @@ public class ExecuteOperationCommandTest {
 		return resultsMap;
 	}
 
+	/**
+	 * Create model results with single root result.
+	 * 
+	 * @return model results with single root result.
+	 */
+	Results createModelResults() {
+		Result rootModelResult = resultModelObjectFactory.createResult();
+		rootModelResult.setState(ExecutionState.SUCCESS.name());
+		rootModelResult.setCorrelationId(randomCorrelationId);
+		Results modelResults = resultModelObjectFactory.createResults();
+		modelResults.setResultSequence(resultModelObjectFactory.createResultSequence());
+		modelResults.getResultSequence().getResult().add(rootModelResult);
+		return modelResults;
+	}
+
+	/**
+	 * Create answer which passes events to the event stream handler.
+	 * 
+	 * @param id
+	 *            ID of event.
+	 * @param event
+	 *            event passed to handler.
+	 * 
+	 * @return answer which passes events to the event stream handler.
+	 */
+	IAnswer<Object> createEventStreamAnswer(final String id, final Results event) {
+		return new IAnswer<Object>() {
+
+			@SuppressWarnings("unchecked")
+			@Override
+			public Object answer() throws Throwable {
+				EventStreamHandler<Results> handler = (EventStreamHandler<Results>) EasyMock.getCurrentArguments()[3];
+				handler.onEvent(id, event);
+				return null;
+			}
+		};
+	}
+
 	/**
 	 * Test that command fails if context is undefined.
 	 */
@@ -350,7 +392,9 @@ public class ExecuteOperationCommandTest {
 		EasyMock.expect(session.httpPostForLocation(serviceUrl, AgentConstants.CONTENT_TYPE_TEXT_HTML))
 				.andReturn(location);
 		EasyMock.expect(session.createServiceUrl(location.toASCIIString())).andReturn(serviceUrl);
-		EasyMock.expect(session.httpGetForObject(location.toASCIIString(), Results.class)).andReturn(modelResults);
+		session.httpGetForEventStream(EasyMock.eq(location.toASCIIString() + AgentConstants.EXECUTE_STATUS_STREAM_PATH),
+				EasyMock.isNull(String.class), EasyMock.eq(Results.class), EasyMock.isA(EventStreamHandler.class));
+		EasyMock.expectLastCall().andAnswer(createEventStreamAnswer("1", modelResults));
 		session.httpDelete(location.toASCIIString());
 		EasyMock.replay(session);
 
@@ -376,4 +420,205 @@ public class ExecuteOperationCommandTest {
 		EasyMock.verify(childResult);
 	}
 
+	/**
+	 * Test that command resumes event stream after the last received event if the
+	 * stream is closed while the operation is executing.
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testCommandResumesEventStreamIfOperationIsExecuting() throws Exception {
+		URI location = UriComponentsBuilder.fromUriString(RandomStringUtils.randomAlphanumeric(10)).build().toUri();
+		String uriString = UriComponentsBuilder.fromUriString(EXECUTE_MODULE_URI).build()
+				.expand(randomModule, randomOperation, randomEnvironment).encode().toUriString();
+		String serviceUrl = new StringBuilder().append(randomHost).append("/").append(uriString).toString();
+		String streamPath = location.toASCIIString() + AgentConstants.EXECUTE_STATUS_STREAM_PATH;
+		Results modelResults = createModelResults();
+		Results modelResults2 = createModelResults();
+
+		// complete mock child execution result setup
+		ExecutionResult childResult = EasyMock.createMock(ExecutionResult.class);
+		EasyMock.expect(childResult.isExecuting()).andReturn(true);
+		EasyMock.expect(childResult.isExecuting()).andReturn(false);
+		EasyMock.replay(childResult);
+
+		// complete mock execution result setup
+		executionResult.addMessage("eoc.agent_communication_info_key", "eoc.location_info");
+		executionResult.completeAsComputed(messageProvider, "eoc.completed", null, "eoc.failed", null);
+		EasyMock.replay(executionResult);
+
+		// create result with execution results
+		Map<Integer, ExecutionResult> resultMap = createResultMap(executionResult);
+		resultMap.put(randomCorrelationId, childResult);
+
+		EasyMock.expect(session.createServiceUrl(uriString)).andReturn(serviceUrl);
+		session.addServiceUrlMessage(serviceUrl, executionResult);
+		EasyMock.expect(session.httpPostForLocation(serviceUrl, AgentConstants.CONTENT_TYPE_TEXT_HTML))
+				.andReturn(location);
+		EasyMock.expect(session.createServiceUrl(location.toASCIIString())).andReturn(serviceUrl);
+		EasyMock.expect(session.createServiceUrl(streamPath)).andReturn(serviceUrl).anyTimes();
+		session.httpGetForEventStream(EasyMock.eq(streamPath), EasyMock.isNull(String.class),
+				EasyMock.eq(Results.class), EasyMock.isA(EventStreamHandler.class));
+		EasyMock.expectLastCall().andAnswer(createEventStreamAnswer("1", modelResults));
+		session.httpGetForEventStream(EasyMock.eq(streamPath), EasyMock.eq("1"), EasyMock.eq(Results.class),
+				EasyMock.isA(EventStreamHandler.class));
+		EasyMock.expectLastCall().andAnswer(createEventStreamAnswer("2", modelResults2));
+		session.httpDelete(location.toASCIIString());
+		EasyMock.replay(session);
+
+		// complete mapper setup
+		EasyMock.expect(resultMapper.createExecutionResultMap(executionResult)).andReturn(resultMap);
+		resultMapper.mapModelToResults(modelResults, resultMap);
+		resultMapper.mapModelToResults(modelResults2, resultMap);
+		EasyMock.replay(resultMapper);
+
+		// setup context
+		context.put(ExecuteOperationCommand.EXECUTIONRESULT_KEY, executionResult);
+		context.put(ExecuteOperationCommand.MODULE_KEY, randomModule);
+		context.put(ExecuteOperationCommand.ENVIRONMENT_KEY, randomEnvironment);
+		context.put(ExecuteOperationCommand.OPERATION_KEY, randomOperation);
+		context.put(ExecuteOperationCommand.SESSION_KEY, session);
+
+		// execute command
+		command.execute(context);
+
+		// Verify mocks
+		EasyMock.verify(executionResult);
+		EasyMock.verify(session);
+		EasyMock.verify(resultMapper);
+		EasyMock.verify(childResult);
+	}
+
+	/**
+	 * Test that command polls operation status if the agent doesn't support
+	 * event streams.
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testCommandPollsStatusIfEventStreamIsUnsupported() throws Exception {
+		URI location = UriComponentsBuilder.fromUriString(RandomStringUtils.randomAlphanumeric(10)).build().toUri();
+		String uriString = UriComponentsBuilder.fromUriString(EXECUTE_MODULE_URI).build()
+				.expand(randomModule, randomOperation, randomEnvironment).encode().toUriString();
+		String serviceUrl = new StringBuilder().append(randomHost).append("/").append(uriString).toString();
+		String streamPath = location.toASCIIString() + AgentConstants.EXECUTE_STATUS_STREAM_PATH;
+		Results modelResults = createModelResults();
+
+		// complete mock child execution result setup
+		ExecutionResult childResult = EasyMock.createMock(ExecutionResult.class);
+		EasyMock.expect(childResult.isExecuting()).andReturn(false);
+		EasyMock.replay(childResult);
+
+		// complete mock execution result setup
+		executionResult.addMessage("eoc.agent_communication_info_key", "eoc.location_info");
+		executionResult.completeAsComputed(messageProvider, "eoc.completed", null, "eoc.failed", null);
+		EasyMock.replay(executionResult);
+
+		// create result with execution results
+		Map<Integer, ExecutionResult> resultMap = createResultMap(executionResult);
+		resultMap.put(randomCorrelationId, childResult);
+
+		EasyMock.expect(session.createServiceUrl(uriString)).andReturn(serviceUrl);
+		session.addServiceUrlMessage(serviceUrl, executionResult);
+		EasyMock.expect(session.httpPostForLocation(serviceUrl, AgentConstants.CONTENT_TYPE_TEXT_HTML))
+				.andReturn(location);
+		EasyMock.expect(session.createServiceUrl(location.toASCIIString())).andReturn(serviceUrl);
+		EasyMock.expect(session.createServiceUrl(streamPath)).andReturn(serviceUrl);
+		session.httpGetForEventStream(EasyMock.eq(streamPath), EasyMock.isNull(String.class),
+				EasyMock.eq(Results.class), EasyMock.isA(EventStreamHandler.class));
+		EasyMock.expectLastCall().andThrow(new RestResponseException(HttpStatus.NOT_FOUND, "", new HttpHeaders()));
+		EasyMock.expect(session.httpGetForObject(location.toASCIIString(), Results.class)).andReturn(modelResults);
+		session.httpDelete(location.toASCIIString());
+		EasyMock.replay(session);
+
+		// complete mapper setup
+		EasyMock.expect(resultMapper.createExecutionResultMap(executionResult)).andReturn(resultMap);
+		resultMapper.mapModelToResults(modelResults, resultMap);
+		EasyMock.replay(resultMapper);
+
+		// setup context
+		context.put(ExecuteOperationCommand.EXECUTIONRESULT_KEY, executionResult);
+		context.put(ExecuteOperationCommand.MODULE_KEY, randomModule);
+		context.put(ExecuteOperationCommand.ENVIRONMENT_KEY, randomEnvironment);
+		context.put(ExecuteOperationCommand.OPERATION_KEY, randomOperation);
+		context.put(ExecuteOperationCommand.SESSION_KEY, session);
+
+		// execute command
+		command.execute(context);
+
+		// Verify mocks
+		EasyMock.verify(executionResult);
+		EasyMock.verify(session);
+		EasyMock.verify(resultMapper);
+		EasyMock.verify(childResult);
+	}
+
+	/**
+	 * Test that command polls operation status if the event stream is repeatedly
+	 * closed without any events while the operation is executing.
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testCommandPollsStatusIfEventStreamIsRepeatedlyEmpty() throws Exception {
+		URI location = UriComponentsBuilder.fromUriString(RandomStringUtils.randomAlphanumeric(10)).build().toUri();
+		String uriString = UriComponentsBuilder.fromUriString(EXECUTE_MODULE_URI).build()
+				.expand(randomModule, randomOperation, randomEnvironment).encode().toUriString();
+		String serviceUrl = new StringBuilder().append(randomHost).append("/").append(uriString).toString();
+		String streamPath = location.toASCIIString() + AgentConstants.EXECUTE_STATUS_STREAM_PATH;
+		Results modelResults = createModelResults();
+		Results modelResults2 = createModelResults();
+		int maxEmptyStreams = AgentConstants.OPERATION_STATUS_STREAM_MAX_EMPTY_STREAMS;
+
+		// complete mock child execution result setup
+		ExecutionResult childResult = EasyMock.createMock(ExecutionResult.class);
+		EasyMock.expect(childResult.isExecuting()).andReturn(true).times(maxEmptyStreams + 1);
+		EasyMock.expect(childResult.isExecuting()).andReturn(false);
+		EasyMock.replay(childResult);
+
+		// complete mock execution result setup
+		executionResult.addMessage("eoc.agent_communication_info_key", "eoc.location_info");
+		executionResult.completeAsComputed(messageProvider, "eoc.completed", null, "eoc.failed", null);
+		EasyMock.replay(executionResult);
+
+		// create result with execution results
+		Map<Integer, ExecutionResult> resultMap = createResultMap(executionResult);
+		resultMap.put(randomCorrelationId, childResult);
+
+		EasyMock.expect(session.createServiceUrl(uriString)).andReturn(serviceUrl);
+		session.addServiceUrlMessage(serviceUrl, executionResult);
+		EasyMock.expect(session.httpPostForLocation(serviceUrl, AgentConstants.CONTENT_TYPE_TEXT_HTML))
+				.andReturn(location);
+		EasyMock.expect(session.createServiceUrl(location.toASCIIString())).andReturn(serviceUrl);
+		EasyMock.expect(session.createServiceUrl(streamPath)).andReturn(serviceUrl).anyTimes();
+		session.httpGetForEventStream(EasyMock.eq(streamPath), EasyMock.isNull(String.class),
+				EasyMock.eq(Results.class), EasyMock.isA(EventStreamHandler.class));
+		EasyMock.expectLastCall().andAnswer(createEventStreamAnswer("1", modelResults));
+		session.httpGetForEventStream(EasyMock.eq(streamPath), EasyMock.eq("1"), EasyMock.eq(Results.class),
+				EasyMock.isA(EventStreamHandler.class));
+		EasyMock.expectLastCall().times(maxEmptyStreams);
+		EasyMock.expect(session.httpGetForObject(location.toASCIIString(), Results.class)).andReturn(modelResults2);
+		session.httpDelete(location.toASCIIString());
+		EasyMock.replay(session);
+
+		// complete mapper setup
+		EasyMock.expect(resultMapper.createExecutionResultMap(executionResult)).andReturn(resultMap);
+		resultMapper.mapModelToResults(modelResults, resultMap);
+		resultMapper.mapModelToResults(modelResults2, resultMap);
+		EasyMock.replay(resultMapper);
+
+		// setup context
+		context.put(ExecuteOperationCommand.EXECUTIONRESULT_KEY, executionResult);
+		context.put(ExecuteOperationCommand.MODULE_KEY, randomModule);
+		context.put(ExecuteOperationCommand.ENVIRONMENT_KEY, randomEnvironment);
+		context.put(ExecuteOperationCommand.OPERATION_KEY, randomOperation);
+		context.put(ExecuteOperationCommand.SESSION_KEY, session);
+
+		// execute command
+		command.execute(context);
+
+		// Verify mocks
+		EasyMock.verify(executionResult);
+		EasyMock.verify(session);
+		EasyMock.verify(resultMapper);
+		EasyMock.verify(childResult);
+	}
+
 }
@@ -36,9 +36,14 @@ public interface DockerConstants {
 	public static final Class<?>[] LEGAL_CONTENT_TYPES = { Docker.class };
 
 	/**
-	 * File name for TAR archive.
+	 * File name prefix for TAR archives.
 	 */
-	public static final String TAR_ARCHIVE = DeployConfiguration.class.getCanonicalName() + ".tar";
+	public static final String TAR_ARCHIVE_PREFIX = DeployConfiguration.class.getCanonicalName() + "-";
+
+	/**
+	 * File name suffix for TAR archives.
+	 */
+	public static final String TAR_ARCHIVE_SUFFIX = ".tar";
 
 	/**
 	 * Package name for generated JAXB classes from Docker plugn schema.
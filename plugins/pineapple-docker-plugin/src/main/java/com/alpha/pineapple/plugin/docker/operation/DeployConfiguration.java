@@ -24,20 +24,36 @@ package com.alpha.pineapple.plugin.docker.operation;
 
 import static com.alpha.javautils.ArgumentUtils.notNull;
 import static com.alpha.pineapple.plugin.docker.DockerConstants.LEGAL_CONTENT_TYPES;
-import static com.alpha.pineapple.plugin.docker.DockerConstants.TAR_ARCHIVE;
+import static com.alpha.pineapple.plugin.docker.DockerConstants.TAR_ARCHIVE_PREFIX;
+import static com.alpha.pineapple.plugin.docker.DockerConstants.TAR_ARCHIVE_SUFFIX;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
 
 import javax.annotation.Resource;
 
+import org.springframework.core.task.AsyncTaskExecutor;
+
 import com.alpha.javautils.OperationUtils;
 import com.alpha.pineapple.OperationNames;
 import com.alpha.pineapple.docker.DockerClient;
 import com.alpha.pineapple.docker.model.ContainerInfo;
 import com.alpha.pineapple.docker.model.ImageInfo;
 import com.alpha.pineapple.docker.session.DockerSession;
+import com.alpha.pineapple.docker.session.DockerStateCache;
 import com.alpha.pineapple.execution.ExecutionResult;
 import com.alpha.pineapple.i18n.MessageProvider;
 import com.alpha.pineapple.io.file.RuntimeDirectoryProvider;
@@ -46,8 +62,10 @@ import com.alpha.pineapple.plugin.PluginExecutionFailedException;
 import com.alpha.pineapple.plugin.PluginOperation;
 import com.alpha.pineapple.plugin.docker.model.Container;
 import com.alpha.pineapple.plugin.docker.model.ContainerConfiguration;
+import com.alpha.pineapple.plugin.docker.model.ContainerConfigurationHostConfig;
 import com.alpha.pineapple.plugin.docker.model.Docker;
 import com.alpha.pineapple.plugin.docker.model.DockerCommand;
+import com.alpha.pineapple.plugin.docker.model.EmbeddedContainerConfiguration;
 import com.alpha.pineapple.plugin.docker.model.Image;
 import com.alpha.pineapple.plugin.docker.model.ImageFromDockerfile;
 import com.alpha.pineapple.plugin.docker.model.Mapper;
@@ -58,6 +76,10 @@ import com.alpha.pineapple.session.Session;
  * Implements the deploy-configuration operation.
  * 
  * Creates a set of of Docker images and tagged images defined in the model.
+ * 
+ * If the model is parallel then the commands are executed concurrently in the
+ * order defined by the dependencies between the commands, e.g. images are
+ * created before the containers which use them.
  */
 @PluginOperation(OperationNames.DEPLOY_CONFIGURATION)
 public class DeployConfiguration implements Operation {
@@ -92,6 +114,13 @@ public class DeployConfiguration implements Operation {
 	@Resource
 	RuntimeDirectoryProvider coreRuntimeDirectoryProvider;
 
+	/**
+	 * Executor used to execute commands concurrently. The executor is shared by
+	 * all sessions, so its pool size caps the number of concurrent commands.
+	 */
+	@Resource
+	AsyncTaskExecutor dockerCommandExecutor;
+
 	public void execute(Object content, Session session, ExecutionResult result) throws PluginExecutionFailedException {
 		notNull(content, "content is undefined.");
 		notNull(session, "session is undefined.");
@@ -108,9 +137,19 @@ public class DeployConfiguration implements Operation {
 			// type cast session
 			DockerSession dockerSession = (DockerSession) session;
 
+			// get state cache statistics
+			DockerStateCache stateCache = dockerSession.getStateCache();
+			long hits = stateCache.getHitCount();
+			long misses = stateCache.getMissCount();
+
 			// process model
 			processModel(pluginModel, dockerSession, result);
 
+			// report saved round-trips to Docker
+			Object[] args = { stateCache.getHitCount() - hits, stateCache.getMissCount() - misses };
+			String message = messageProvider.getMessage("dc.state_cache_info", args);
+			result.addMessage(ExecutionResult.MSG_MESSAGE, message);
+
 			// compute execution state from children
 			result.completeAsComputed(messageProvider, "dc.completed", null, "dc.failed", null);
 		} catch (Exception e) {
@@ -123,18 +162,31 @@ public class DeployConfiguration implements Operation {
 	/**
 	 * Process model commands.
 	 * 
+	 * If the model is parallel then independent commands are executed
+	 * concurrently, otherwise the commands are executed one at a time.
+	 * 
 	 * @param dockerModel
 	 *            plugin model.
 	 * @param session
 	 *            Docker session.
 	 * @param result
 	 *            execution result.
+	 * 
+	 * @throws Exception
+	 *             if parallel execution fails.
 	 */
-	void processModel(Docker dockerModel, DockerSession session, ExecutionResult result) {
+	void processModel(Docker dockerModel, DockerSession session, ExecutionResult result) throws Exception {
 
 		Map<String, ContainerConfiguration> containerConfigs = mapper.extractContainerDefinitions(dockerModel);
 
 		List<DockerCommand> agentCommands = dockerModel.getCommands();
+
+		// execute commands concurrently
+		if (dockerModel.isParallel()) {
+			processModelInParallel(agentCommands, session, containerConfigs, result);
+			return;
+		}
+
 		for (DockerCommand command : agentCommands) {
 
 			// enforce continuation policy
@@ -144,27 +196,347 @@ public class DeployConfiguration implements Operation {
 				return;
 			}
 
+			executeCommand(session, command, containerConfigs, result);
+		}
+	}
+
+	/**
+	 * Execute commands concurrently. A command is executed when the commands it
+	 * depends on have completed. The number of concurrent commands is bounded by
+	 * the maximum number of concurrent commands defined by the session and by the
+	 * pool size of the shared command executor. Commands submitted beyond the pool
+	 * size are queued by the executor. Ready commands are executed in the order
+	 * they are defined in the model. Returns when all started commands have
+	 * completed.
+	 * 
+	 * @param commands
+	 *            model commands.
+	 * @param session
+	 *            Docker session.
+	 * @param containerConfigs
+	 *            container configurations.
+	 * @param result
+	 *            execution result.
+	 * 
+	 * @throws Exception
+	 *             if execution of a command fails.
+	 */
+	void processModelInParallel(List<DockerCommand> commands, DockerSession session,
+			Map<String, ContainerConfiguration> containerConfigs, ExecutionResult result) throws Exception {
+
+		// create command graph
+		List<CommandNode> nodes = createCommandGraph(commands, containerConfigs);
+		PriorityQueue<CommandNode> readyNodes = new PriorityQueue<CommandNode>(
+				Math.max(1, nodes.size()), Comparator.comparingInt(node -> node.index));
+		for (CommandNode node : nodes) {
+			if (node.pendingDependencies == 0)
+				readyNodes.add(node);
+		}
+
+		CompletionService<CommandNode> completionService = new ExecutorCompletionService<CommandNode>(
+				dockerCommandExecutor);
+		int maxConcurrentCommands = Math.max(1, session.getMaxConcurrentCommands());
+		List<CommandNode> completedNodes = new ArrayList<CommandNode>(nodes.size());
+		ExecutionException failure = null;
+		boolean halted = false;
+		int running = 0;
+		long startTime = System.currentTimeMillis();
+
+		while (true) {
+
+			// submit ready commands
+			while (!halted && (running < maxConcurrentCommands) && !readyNodes.isEmpty()) {
+
+				// enforce continuation policy
+				if (!result.getContinuationPolicy().continueExecution()) {
+					String message = messageProvider.getMessage("dc.contination_policy_enforcement_info");
+					result.addMessage(ExecutionResult.MSG_MESSAGE, message);
+					halted = true;
+					break;
+				}
+
+				CommandNode node = readyNodes.poll();
+				completionService.submit(() -> {
+					node.startTime = System.currentTimeMillis();
+					try {
+						executeCommand(session, node.command, containerConfigs, result);
+					} finally {
+						node.finishTime = System.currentTimeMillis();
+					}
+					return node;
+				});
+				running++;
+			}
+
+			// exit if all started commands have completed
+			if (running == 0)
+				break;
+
+			// wait for completion of a command
+			Future<CommandNode> future = completionService.take();
+			running--;
+			try {
+				CommandNode node = future.get();
+				completedNodes.add(node);
+
+				// release dependent commands
+				for (CommandNode dependent : node.dependents) {
+					dependent.pendingDependencies--;
+					if (dependent.pendingDependencies == 0)
+						readyNodes.add(dependent);
+				}
+
+			} catch (ExecutionException e) {
+				// stop submission of commands and wait for running commands
+				if (failure == null)
+					failure = e;
+				halted = true;
+			}
+		}
+
+		// handle failure
+		if (failure != null) {
+			Object[] args = { failure.getCause().getMessage() };
+			String message = messageProvider.getMessage("dc.execute_command_error", args);
+			throw new PluginExecutionFailedException(message, failure.getCause());
+		}
+
+		addCriticalPathInfo(completedNodes, System.currentTimeMillis() - startTime, result);
+	}
+
+	/**
+	 * Create command graph from the model commands. An edge is added from a
+	 * command to each command defined before it in the model which it depends on:
+	 * 
+	 * <ul>
+	 * <li>A tagged image depends on the command which creates its source image.
+	 * <li>An image built from a Dockerfile depends on all image commands defined
+	 * before it, since the image used by the Dockerfile is unknown.
+	 * <li>A container depends on the command which creates its image, on
+	 * containers with the same name and on the containers it references through
+	 * links or volumes-from.
+	 * </ul>
+	 * 
+	 * Commands which create the same image depend on each other.
+	 * 
+	 * @param commands
+	 *            model commands.
+	 * @param containerConfigs
+	 *            container configurations.
+	 * 
+	 * @return command graph nodes in the order of the model commands.
+	 */
+	List<CommandNode> createCommandGraph(List<DockerCommand> commands,
+			Map<String, ContainerConfiguration> containerConfigs) {
+		List<CommandNode> nodes = new ArrayList<CommandNode>(commands.size());
+		List<CommandNode> imageNodes = new ArrayList<CommandNode>();
+		Map<String, CommandNode> imageProducers = new HashMap<String, CommandNode>();
+		Map<String, CommandNode> containerProducers = new HashMap<String, CommandNode>();
+
+		for (DockerCommand command : commands) {
+			CommandNode node = new CommandNode(nodes.size(), command);
+			nodes.add(node);
+
 			if (command instanceof Image) {
-				createImage(session, (Image) command, result);
+				String image = mapper.mapImageForCreation((Image) command).getFullyQualifiedName();
+				node.label = "image [" + image + "]";
+				node.addDependency(imageProducers.get(image));
+				imageProducers.put(image, node);
+				imageNodes.add(node);
 				continue;
 			}
 
 			if (command instanceof TaggedImage) {
-				createTaggedImage(session, (TaggedImage) command, result);
+				TaggedImage taggedImage = (TaggedImage) command;
+				String sourceImage = mapper.mapTaggedSourceImageForCreation(taggedImage).getFullyQualifiedName();
+				String targetImage = mapper.mapTaggedTargetImageImageForCreation(taggedImage).getFullyQualifiedName();
+				node.label = "tagged-image [" + targetImage + "]";
+				node.addDependency(imageProducers.get(sourceImage));
+				node.addDependency(imageProducers.get(targetImage));
+				imageProducers.put(targetImage, node);
+				imageNodes.add(node);
 				continue;
 			}
 
 			if (command instanceof ImageFromDockerfile) {
-				buildImageFromDockerfile(session, (ImageFromDockerfile) command, result);
+				ImageFromDockerfile imageFromDockerfile = (ImageFromDockerfile) command;
+				String targetImage = mapper.mapImageFromDockerfileForCreation(imageFromDockerfile)
+						.getFullyQualifiedName();
+				node.label = "image-from-dockerfile [" + targetImage + "]";
+				for (CommandNode imageNode : imageNodes) {
+					node.addDependency(imageNode);
+				}
+				imageProducers.put(targetImage, node);
+				imageNodes.add(node);
 				continue;
 			}
 
 			if (command instanceof Container) {
-				createContainer(session, (Container) command, containerConfigs, result);
-				controlContainer(session, (Container) command, result);
+				Container container = (Container) command;
+				ContainerInfo info = mapper.mapContainerForCreation(container, containerConfigs);
+				node.label = "container [" + container.getName() + "]";
+				node.addDependency(imageProducers.get(info.getImageInfo().getFullyQualifiedName()));
+				node.addDependency(containerProducers.get(container.getName()));
+				for (String referencedContainer : getReferencedContainers(container, containerConfigs)) {
+					node.addDependency(containerProducers.get(referencedContainer));
+				}
+				containerProducers.put(container.getName(), node);
 				continue;
 			}
+		}
+
+		return nodes;
+	}
+
+	/**
+	 * Get names of the containers referenced by a container through links and
+	 * volumes-from in its host configuration.
+	 * 
+	 * The references are read from the model instead of the mapped container info,
+	 * to avoid that the info is initialized with empty lists which are sent to
+	 * Docker. References from the referenced container configuration are used if
+	 * no references are defined on the container. This may add a dependency which
+	 * isn't needed, but never omits one.
+	 * 
+	 * @param container
+	 *            container command.
+	 * @param containerConfigs
+	 *            container configurations.
+	 * 
+	 * @return names of the referenced containers.
+	 */
+	Set<String> getReferencedContainers(Container container, Map<String, ContainerConfiguration> containerConfigs) {
+		Set<String> names = new HashSet<String>();
+		EmbeddedContainerConfiguration config = container.getConfiguration();
+		if (config == null)
+			return names;
+		ContainerConfigurationHostConfig hostConfig = config.getHostConfig();
+		if (hostConfig == null)
+			return names;
+
+		// resolve referenced host configuration
+		ContainerConfigurationHostConfig refHostConfig = null;
+		ContainerConfiguration referencedConfig = null;
+		if (config.getRef() != null)
+			referencedConfig = containerConfigs.get(config.getRef());
+		if (referencedConfig != null)
+			refHostConfig = referencedConfig.getHostConfig();
+
+		// links are defined as "name:alias"
+		List<String> links = hostConfig.getLinks();
+		if (((links == null) || links.isEmpty()) && (refHostConfig != null))
+			links = refHostConfig.getLinks();
+		if (links != null)
+			for (String link : links) {
+				names.add(getContainerName(link));
+			}
 
+		// volumes-from are defined as "name:mode"
+		List<String> volumesFrom = hostConfig.getVolumesFrom();
+		if (((volumesFrom == null) || volumesFrom.isEmpty()) && (refHostConfig != null))
+			volumesFrom = refHostConfig.getVolumesFrom();
+		if (volumesFrom != null)
+			for (String reference : volumesFrom) {
+				names.add(getContainerName(reference));
+			}
+		return names;
+	}
+
+	/**
+	 * Get container name from container reference on the form "/name:suffix".
+	 * 
+	 * @param reference
+	 *            container reference.
+	 * 
+	 * @return container name.
+	 */
+	String getContainerName(String reference) {
+		String name = reference;
+		int separatorIndex = name.indexOf(':');
+		if (separatorIndex != -1)
+			name = name.substring(0, separatorIndex);
+		if (name.startsWith("/"))
+			name = name.substring(1);
+		return name;
+	}
+
+	/**
+	 * Add info about the critical path of the executed commands to the execution
+	 * result. The critical path is the chain of dependent commands with the
+	 * longest total execution time.
+	 * 
+	 * @param completedNodes
+	 *            nodes of completed commands, in the order of completion.
+	 * @param elapsedTime
+	 *            elapsed time of the concurrent execution.
+	 * @param result
+	 *            execution result.
+	 */
+	void addCriticalPathInfo(List<CommandNode> completedNodes, long elapsedTime, ExecutionResult result) {
+
+		// compute path times, dependencies completes before their dependents
+		CommandNode lastNode = null;
+		for (CommandNode node : completedNodes) {
+			long duration = node.finishTime - node.startTime;
+			node.pathTime = duration;
+			for (CommandNode dependency : node.dependencies) {
+				if (dependency.pathTime + duration > node.pathTime) {
+					node.pathTime = dependency.pathTime + duration;
+					node.pathPredecessor = dependency;
+				}
+			}
+			if ((lastNode == null) || (node.pathTime > lastNode.pathTime))
+				lastNode = node;
+		}
+
+		if (lastNode == null)
+			return;
+
+		// collect critical path
+		LinkedList<String> labels = new LinkedList<String>();
+		for (CommandNode node = lastNode; node != null; node = node.pathPredecessor) {
+			labels.addFirst(node.label);
+		}
+
+		Object[] args = { completedNodes.size(), elapsedTime, lastNode.pathTime, String.join(" -> ", labels) };
+		String message = messageProvider.getMessage("dc.critical_path_info", args);
+		result.addMessage(ExecutionResult.MSG_MESSAGE, message);
+	}
+
+	/**
+	 * Execute model command.
+	 * 
+	 * @param session
+	 *            Docker session.
+	 * @param command
+	 *            model command.
+	 * @param containerConfigs
+	 *            container configurations.
+	 * @param result
+	 *            execution result.
+	 */
+	void executeCommand(DockerSession session, DockerCommand command,
+			Map<String, ContainerConfiguration> containerConfigs, ExecutionResult result) {
+
+		if (command instanceof Image) {
+			createImage(session, (Image) command, result);
+			return;
+		}
+
+		if (command instanceof TaggedImage) {
+			createTaggedImage(session, (TaggedImage) command, result);
+			return;
+		}
+
+		if (command instanceof ImageFromDockerfile) {
+			buildImageFromDockerfile(session, (ImageFromDockerfile) command, result);
+			return;
+		}
+
+		if (command instanceof Container) {
+			createContainer(session, (Container) command, containerConfigs, result);
+			controlContainer(session, (Container) command, result);
+			return;
 		}
 	}
 
@@ -221,24 +593,31 @@ public class DeployConfiguration implements Operation {
 		File sourceDirectory = coreRuntimeDirectoryProvider.resolveModelPath(command.getSourceDirectory(), result);
 		command.setSourceDirectory(sourceDirectory.getAbsolutePath());
 
-		// create path to TAR archive
+		// create unique path to TAR archive, to support concurrent builds
 		File tempDirectory = coreRuntimeDirectoryProvider.getTempDirectory();
-		File tarArhive = new File(tempDirectory, TAR_ARCHIVE);
+		File tarArhive = new File(tempDirectory, TAR_ARCHIVE_PREFIX + UUID.randomUUID() + TAR_ARCHIVE_SUFFIX);
 
-		// create archive
-		dockerClient.createTarArchive(sourceDirectory, tarArhive, compositeResult);
+		try {
+			// create archive
+			dockerClient.createTarArchive(sourceDirectory, tarArhive, compositeResult);
+
+			// fail if archive creation failed
+			ExecutionResult tarArchiveResult = compositeResult.getFirstChild();
+			if (!tarArchiveResult.isSuccess()) {
+				// complete composite result
+				compositeResult.completeAsFailure(messageProvider, "dc.build_image_create_tar_failed");
+				return;
+			}
 
-		// fail if archive creation failed
-		ExecutionResult tarArchiveResult = compositeResult.getFirstChild();
-		if (!tarArchiveResult.isSuccess()) {
-			// complete composite result
-			compositeResult.completeAsFailure(messageProvider, "dc.build_image_create_tar_failed");
-			return;
-		}
+			// build image
+			ImageInfo imageInfo = mapper.mapImageFromDockerfileForCreation(command);
+			dockerClient.buildImage(session, imageInfo, tarArhive, mapper.getPullImageBehavior(command),
+					compositeResult);
 
-		// build image
-		ImageInfo imageInfo = mapper.mapImageFromDockerfileForCreation(command);
-		dockerClient.buildImage(session, imageInfo, tarArhive, mapper.getPullImageBehavior(command), compositeResult);
+		} finally {
+			// delete archive
+			tarArhive.delete();
+		}
 
 		// complete composite result
 		compositeResult.completeAsComputed(messageProvider, "dc.build_image_completed", null, "dc.build_image_failed",
@@ -308,4 +687,89 @@ public class DeployConfiguration implements Operation {
 	boolean isStateDirectiveDefined(Container command) {
 		return (command.getState() != null);
 	}
+
+	/**
+	 * Node in command graph.
+	 */
+	static class CommandNode {
+
+		/**
+		 * Index of the command in the model.
+		 */
+		final int index;
+
+		/**
+		 * Model command.
+		 */
+		final DockerCommand command;
+
+		/**
+		 * Commands which the command depends on.
+		 */
+		final Set<CommandNode> dependencies = new HashSet<CommandNode>();
+
+		/**
+		 * Commands which depends on the command.
+		 */
+		final List<CommandNode> dependents = new ArrayList<CommandNode>();
+
+		/**
+		 * Number of dependencies which haven't completed.
+		 */
+		int pendingDependencies;
+
+		/**
+		 * Label used to describe the command.
+		 */
+		String label;
+
+		/**
+		 * Start time of command execution.
+		 */
+		long startTime;
+
+		/**
+		 * Finish time of command execution.
+		 */
+		long finishTime;
+
+		/**
+		 * Total execution time of the longest chain of commands ending with the
+		 * command.
+		 */
+		long pathTime;
+
+		/**
+		 * Predecessor of the command on the longest chain of commands.
+		 */
+		CommandNode pathPredecessor;
+
+		/**
+		 * CommandNode constructor.
+		 * 
+		 * @param index
+		 *            index of the command in the model.
+		 * @param command
+		 *            model command.
+		 */
+		CommandNode(int index, DockerCommand command) {
+			this.index = index;
+			this.command = command;
+		}
+
+		/**
+		 * Add dependency. Undefined dependencies are ignored.
+		 * 
+		 * @param dependency
+		 *            command which the command depends on. Can be null.
+		 */
+		void addDependency(CommandNode dependency) {
+			if (dependency == null)
+				return;
+			if (!dependencies.add(dependency))
+				return;
+			dependency.dependents.add(this);
+			pendingDependencies++;
+		}
+	}
 }
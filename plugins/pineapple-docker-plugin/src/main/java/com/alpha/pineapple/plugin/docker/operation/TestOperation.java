@@ -34,6 +34,7 @@ import com.alpha.pineapple.docker.DockerClient;
 import com.alpha.pineapple.docker.model.ContainerInfo;
 import com.alpha.pineapple.docker.model.ContainerState;
 import com.alpha.pineapple.docker.session.DockerSession;
+import com.alpha.pineapple.docker.session.DockerStateCache;
 import com.alpha.pineapple.execution.ExecutionResult;
 import com.alpha.pineapple.i18n.MessageProvider;
 import com.alpha.pineapple.plugin.Operation;
@@ -99,9 +100,19 @@ public class TestOperation implements Operation {
 			// type cast session
 			DockerSession dockerSession = (DockerSession) session;
 
+			// get state cache statistics
+			DockerStateCache stateCache = dockerSession.getStateCache();
+			long hits = stateCache.getHitCount();
+			long misses = stateCache.getMissCount();
+
 			// process model
 			processModel(pluginModel, dockerSession, result);
 
+			// report saved round-trips to Docker
+			Object[] args = { stateCache.getHitCount() - hits, stateCache.getMissCount() - misses };
+			String message = messageProvider.getMessage("t.state_cache_info", args);
+			result.addMessage(ExecutionResult.MSG_MESSAGE, message);
+
 			// compute execution state from children
 			result.completeAsComputed(messageProvider, "t.completed", null, "t.failed", null);
 		} catch (Exception e) {
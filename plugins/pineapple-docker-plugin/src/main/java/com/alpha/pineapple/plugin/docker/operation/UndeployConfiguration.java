@@ -33,6 +33,7 @@ import com.alpha.pineapple.docker.DockerClient;
 import com.alpha.pineapple.docker.model.ContainerInfo;
 import com.alpha.pineapple.docker.model.ImageInfo;
 import com.alpha.pineapple.docker.session.DockerSession;
+import com.alpha.pineapple.docker.session.DockerStateCache;
 import com.alpha.pineapple.execution.ExecutionResult;
 import com.alpha.pineapple.i18n.MessageProvider;
 import com.alpha.pineapple.plugin.Operation;
@@ -96,9 +97,19 @@ public class UndeployConfiguration implements Operation {
 			// type cast session
 			DockerSession dockerSession = (DockerSession) session;
 
+			// get state cache statistics
+			DockerStateCache stateCache = dockerSession.getStateCache();
+			long hits = stateCache.getHitCount();
+			long misses = stateCache.getMissCount();
+
 			// process model
 			processModel(pluginModel, dockerSession, result);
 
+			// report saved round-trips to Docker
+			Object[] args = { stateCache.getHitCount() - hits, stateCache.getMissCount() - misses };
+			String message = messageProvider.getMessage("uc.state_cache_info", args);
+			result.addMessage(ExecutionResult.MSG_MESSAGE, message);
+
 			// compute execution state from children
 			result.completeAsComputed(messageProvider, "uc.completed", null, "uc.failed", null);
 		} catch (Exception e) {
@@ -33,10 +33,12 @@ import static org.easymock.EasyMock.contains;
 import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
 import static org.easymock.EasyMock.isA;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.reset;
 import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -45,6 +47,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import javax.annotation.Resource;
 
@@ -53,7 +56,6 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.springframework.http.HttpEntity;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestExecutionListeners;
@@ -66,12 +68,16 @@ import com.alpha.pineapple.docker.model.rest.ContainerConfiguration;
 import com.alpha.pineapple.docker.model.rest.CreatedContainer;
 import com.alpha.pineapple.docker.model.rest.JsonMessage;
 import com.alpha.pineapple.docker.session.DockerSession;
+import com.alpha.pineapple.docker.session.DockerStateCacheImpl;
 import com.alpha.pineapple.execution.ExecutionResult;
 import com.alpha.pineapple.execution.ExecutionResultImpl;
 import com.alpha.pineapple.io.file.RuntimeDirectoryProvider;
 import com.alpha.pineapple.plugin.PluginExecutionFailedException;
+import com.alpha.pineapple.plugin.docker.model.Container;
 import com.alpha.pineapple.plugin.docker.model.Docker;
+import com.alpha.pineapple.plugin.docker.model.DockerCommand;
 import com.alpha.pineapple.plugin.docker.model.Image;
+import com.alpha.pineapple.plugin.docker.operation.DeployConfiguration.CommandNode;
 import com.alpha.springutils.DirectoryTestExecutionListener;
 import com.alpha.testutils.DockerTestHelper;
 import com.alpha.testutils.ObjectMotherContent;
@@ -204,6 +210,9 @@ public class DeployConfigurationIntegrationTest {
 		// create mock session
 		session = createMock(DockerSession.class);
 
+		// disable state cache of mock session
+		expect(session.getStateCache()).andStubReturn(new DockerStateCacheImpl(0));
+
 		// create execution result
 		result = new ExecutionResultImpl("Root result");
 
@@ -367,10 +376,9 @@ public class DeployConfigurationIntegrationTest {
 		replay(coreRuntimeDirectoryProvider);
 
 		// complete session initialization
-		JsonMessage[] JsonMessageInfos = {};
-		expect(session.httpPostForObjectWithMultipleRootElements(eq(BUILD_IMAGE_URI), isA(Map.class),
-				isA(HttpEntity.class), isA(JsonMessage[].class.getClass()), eq(CONTENT_TYPE_TAR)))
-						.andReturn(JsonMessageInfos);
+		session.httpPostForStreamedObjects(eq(BUILD_IMAGE_URI), isA(Map.class), isA(File.class),
+				eq(JsonMessage.class), eq(CONTENT_TYPE_TAR), isA(Consumer.class));
+		expectLastCall();
 		replay(session);
 
 		// create content
@@ -436,4 +444,131 @@ public class DeployConfigurationIntegrationTest {
 		deployOperation.execute(content, session, result);
 	}
 
+	/**
+	 * Test that the operation can execute with a parallel model with image
+	 * command.
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testCanExecuteWithParallelModelWithImageCommand() throws Exception {
+
+		// complete session initialization
+		JsonMessage[] JsonMessageInfos = {};
+		expect(session.getMaxConcurrentCommands()).andReturn(2);
+		expect(session.httpPostForObjectWithMultipleRootElements(eq(CREATE_TAGGED_IMAGE_URI), isA(Map.class),
+				isA(JsonMessage[].class.getClass()))).andReturn(JsonMessageInfos);
+		replay(session);
+
+		// create content
+		Docker content = contentMother.createDockerModelWithImageCommand(randomRepo, randomTag);
+		content.setParallel(true);
+
+		// invoke operation
+		deployOperation.execute(content, session, result);
+
+		// test
+		assertTrue(result.isSuccess());
+		verify(session);
+	}
+
+	/**
+	 * Test that the command graph orders a container after the image it uses and
+	 * that an independent container doesn't have any dependencies.
+	 */
+	@Test
+	public void testCommandGraphOrdersContainerAfterImage() throws Exception {
+
+		// create content
+		Docker content = contentMother.createDockerModelWithImageCommand(randomRepo, randomTag);
+		List<DockerCommand> commands = content.getCommands();
+		commands.add(contentMother.createContainerCommand(randomModelContaineID, randomRepo, randomTag));
+		commands.add(contentMother.createContainerCommand(randomKey, randomRepo2, randomTag2));
+
+		// create graph
+		List<CommandNode> nodes = deployOperation.createCommandGraph(commands, new HashMap<>());
+
+		// test
+		assertEquals(3, nodes.size());
+		assertEquals(0, nodes.get(0).pendingDependencies);
+		assertEquals(1, nodes.get(1).pendingDependencies);
+		assertTrue(nodes.get(1).dependencies.contains(nodes.get(0)));
+		assertEquals(0, nodes.get(2).pendingDependencies);
+	}
+
+	/**
+	 * Test that the command graph orders an image built from a Dockerfile after
+	 * the preceding images.
+	 */
+	@Test
+	public void testCommandGraphOrdersImageFromDockerfileAfterPrecedingImages() throws Exception {
+
+		// create content
+		Docker content = contentMother.createDockerModelWithImageCommand(randomRepo, randomTag);
+		List<DockerCommand> commands = content.getCommands();
+		commands.add(contentMother.createImageCommand(randomRepo2, randomTag2));
+		commands.add(contentMother.createImageFromDockerfileCommand(randomRepo, randomTag2,
+				randomSourceDirectoryName, false));
+
+		// create graph
+		List<CommandNode> nodes = deployOperation.createCommandGraph(commands, new HashMap<>());
+
+		// test
+		assertEquals(0, nodes.get(0).pendingDependencies);
+		assertEquals(0, nodes.get(1).pendingDependencies);
+		assertEquals(2, nodes.get(2).pendingDependencies);
+	}
+
+	/**
+	 * Test that the command graph orders a container after a container with the
+	 * same name.
+	 */
+	@Test
+	public void testCommandGraphOrdersContainersWithSameName() throws Exception {
+
+		// create content
+		Docker content = contentMother.createDockerModelWithContainerCommand(randomModelContaineID, randomRepo,
+				randomTag);
+		List<DockerCommand> commands = content.getCommands();
+		commands.add(contentMother.createContainerCommand(randomModelContaineID, randomRepo2, randomTag2));
+
+		// create graph
+		List<CommandNode> nodes = deployOperation.createCommandGraph(commands, new HashMap<>());
+
+		// test
+		assertEquals(0, nodes.get(0).pendingDependencies);
+		assertEquals(1, nodes.get(1).pendingDependencies);
+	}
+
+	/**
+	 * Test that the command graph orders a container after the containers it
+	 * references through links and volumes-from, including references defined by
+	 * a referenced container configuration.
+	 */
+	@Test
+	public void testCommandGraphOrdersContainerAfterReferencedContainers() throws Exception {
+
+		// create content
+		Docker content = contentMother.createDockerModelWithContainerCommand(randomModelContaineID, randomRepo,
+				randomTag);
+		List<DockerCommand> commands = content.getCommands();
+		commands.add(contentMother.createContainerCommand(randomKey, randomRepo, randomTag));
+		Container container = contentMother.createContainerCommandWithReferencedContainerConfig(randomEnvironment,
+				randomRepo2, randomTag2, randomModule);
+		container.getConfiguration().getHostConfig().getLinks().add("/" + randomModelContaineID + ":alias");
+		commands.add(container);
+		com.alpha.pineapple.plugin.docker.model.ContainerConfiguration referencedConfig = contentMother
+				.ReferencedContainerConfiguration(randomModule);
+		referencedConfig.getHostConfig().getVolumesFrom().add(randomKey + ":ro");
+		Map<String, com.alpha.pineapple.plugin.docker.model.ContainerConfiguration> containerConfigs = new HashMap<>();
+		containerConfigs.put(randomModule, referencedConfig);
+
+		// create graph
+		List<CommandNode> nodes = deployOperation.createCommandGraph(commands, containerConfigs);
+
+		// test
+		assertEquals(2, nodes.get(2).pendingDependencies);
+		assertTrue(nodes.get(2).dependencies.contains(nodes.get(0)));
+		assertTrue(nodes.get(2).dependencies.contains(nodes.get(1)));
+	}
+
 }
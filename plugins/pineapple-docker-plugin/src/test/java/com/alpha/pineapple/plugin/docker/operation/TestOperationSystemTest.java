@@ -41,6 +41,7 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
 
 import com.alpha.pineapple.docker.session.DockerSession;
+import com.alpha.pineapple.docker.session.DockerStateCacheImpl;
 import com.alpha.pineapple.execution.ExecutionResult;
 import com.alpha.pineapple.execution.ExecutionResultImpl;
 import com.alpha.springutils.DirectoryTestExecutionListener;
@@ -118,6 +119,9 @@ public class TestOperationSystemTest {
 		// create mock session
 		session = EasyMock.createMock(DockerSession.class);
 
+		// disable state cache of mock session
+		EasyMock.expect(session.getStateCache()).andStubReturn(new DockerStateCacheImpl(0));
+
 		// create execution result
 		result = new ExecutionResultImpl("Root result");
 
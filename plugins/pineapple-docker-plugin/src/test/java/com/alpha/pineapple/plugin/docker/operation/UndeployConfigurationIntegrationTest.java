@@ -45,6 +45,7 @@ import org.springframework.test.context.support.DependencyInjectionTestExecution
 
 import com.alpha.pineapple.docker.DockerConstants;
 import com.alpha.pineapple.docker.session.DockerSession;
+import com.alpha.pineapple.docker.session.DockerStateCacheImpl;
 import com.alpha.pineapple.execution.ExecutionResult;
 import com.alpha.pineapple.execution.ExecutionResultImpl;
 import com.alpha.pineapple.plugin.PluginExecutionFailedException;
@@ -124,6 +125,9 @@ public class UndeployConfigurationIntegrationTest {
 		// create mock session
 		session = EasyMock.createMock(DockerSession.class);
 
+		// disable state cache of mock session
+		EasyMock.expect(session.getStateCache()).andStubReturn(new DockerStateCacheImpl(0));
+
 		// create execution result
 		result = new ExecutionResultImpl("Root result");
 
@@ -50,9 +50,37 @@ public interface SshConstants {
 	public static final String DEFAULT_STRICT_HOSTKEY_CHECKING = "no";
 
 	/**
-	 * Default pause (in ms) to while waiting for remote operate to generate output.
+	 * Default maximum number of bytes captured from each output stream of a
+	 * remote command.
 	 */
-	public static final int EXECUTION_PAUSE = 100;
+	public static final String DEFAULT_OUTPUT_CAPTURE_SIZE = "1048576";
+
+	/**
+	 * Minimum interval (in ms) between updates of the execution result with the
+	 * output from a running remote command.
+	 */
+	public static final long OUTPUT_PUBLISH_INTERVAL = 1000;
+
+	/**
+	 * Interval (in ms) between checks for closure of the channel while waiting
+	 * for a remote command to complete.
+	 */
+	public static final long COMPLETION_CHECK_INTERVAL = 1000;
+
+	/**
+	 * Default maximum number of channels used concurrently on a SSH session.
+	 */
+	public static final String DEFAULT_MAX_CHANNELS = "8";
+
+	/**
+	 * Suffix of remote file used for uploads in progress.
+	 */
+	public static final String PARTIAL_FILE_SUFFIX = ".part";
+
+	/**
+	 * Suffix of remote file moved aside while it is replaced by an upload.
+	 */
+	public static final String BACKUP_FILE_SUFFIX = ".bak";
 
 	/**
 	 * Value which defines when chmod is disabled.
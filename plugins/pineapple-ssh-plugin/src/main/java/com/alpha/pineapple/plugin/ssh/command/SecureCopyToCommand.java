@@ -22,7 +22,9 @@
 
 package com.alpha.pineapple.plugin.ssh.command;
 
+import static com.alpha.pineapple.plugin.ssh.SshConstants.BACKUP_FILE_SUFFIX;
 import static com.alpha.pineapple.plugin.ssh.SshConstants.DISABLE_CHMOD;
+import static com.alpha.pineapple.plugin.ssh.SshConstants.PARTIAL_FILE_SUFFIX;
 
 import java.io.File;
 
@@ -39,12 +41,15 @@ import com.alpha.pineapple.command.initialization.ValidateValue;
 import com.alpha.pineapple.command.initialization.ValidationPolicy;
 import com.alpha.pineapple.execution.ExecutionResult;
 import com.alpha.pineapple.i18n.MessageProvider;
+import com.alpha.pineapple.plugin.ssh.model.CompareType;
 import com.alpha.pineapple.plugin.ssh.session.SshSession;
 import com.alpha.pineapple.plugin.ssh.utils.SshHelper;
 import com.alpha.pineapple.substitution.VariableSubstitutionException;
 import com.alpha.pineapple.substitution.VariableSubstitutionProvider;
 import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.SftpATTRS;
 import com.jcraft.jsch.SftpException;
+import com.jcraft.jsch.SftpProgressMonitor;
 
 /**
  * <p>
@@ -60,7 +65,8 @@ import com.jcraft.jsch.SftpException;
  * The type is <code>java.lang.String</code>.</li>
  * 
  * <li><code>remote-file</code> defines the path name to the remote file. The
- * type is <code>java.lang.String</code>.</li>
+ * type is <code>java.lang.String</code>. If the remote file is a directory then
+ * the file is copied into the directory with the name of the local file.</li>
  *
  * <li><code>file-permissions</code> defines the file permissions for the remote
  * file. The type is <code>java.lang.Integer</code>. The parameter is optional.
@@ -79,6 +85,14 @@ import com.jcraft.jsch.SftpException;
  * source file will processed for variable substitution. The type is
  * <code>java.lang.Boolean</code>.</li>
  * 
+ * <li><code>compare</code> defines how the local and remote file is compared
+ * to decide whether the upload can be skipped. The type is
+ * <code>com.alpha.pineapple.plugin.ssh.model.CompareType</code>. The parameter
+ * is optional. If the parameter is undefined then the size and modification
+ * time of the files are compared. This comparison doesn't detect a remote file
+ * whose content differs from the local file if the size and modification time
+ * are identical. The checksum comparison detects such files.</li>
+ * 
  * <li><code>session</code> defines the agent session used communicate with an
  * agent. The type is
  * <code>com.alpha.pineapple.plugin.ssh.session.SshSession</code>.</li>
@@ -96,6 +110,8 @@ import com.jcraft.jsch.SftpException;
  * <li>The the state of the supplied <code>ExecutionResult</code> is updated
  * with <code>ExecutionState.SUCCESS</code> if the test succeeded. If the test
  * failed then the <code>ExecutionState.FAILURE</code> is returned.</li>
+ * <li>The number of transferred and skipped bytes is added as a message to the
+ * <code>ExecutionResult</code>.</li>
  * <li>If the test fails due to an exception then the exception isn't caught,
  * but passed on the the invoker whose responsibility it is to catch it and
  * update the <code>ExecutionResult</code> with the state
@@ -135,6 +151,11 @@ public class SecureCopyToCommand implements Command {
 	 */
 	public static final String SUBSTITUTE_VARIABLES_KEY = "substitute-variables";
 
+	/**
+	 * Key used to identify property in context: File comparison.
+	 */
+	public static final String COMPARE_KEY = "compare";
+
 	/**
 	 * Key used to identify property in context: plugin session object.
 	 */
@@ -192,6 +213,12 @@ public class SecureCopyToCommand implements Command {
 	@ValidateValue(ValidationPolicy.NOT_NULL)
 	Boolean substituteVariables;
 
+	/**
+	 * File comparison. Optional.
+	 */
+	@Initialize(COMPARE_KEY)
+	CompareType compare;
+
 	/**
 	 * Plugin session.
 	 */
@@ -229,9 +256,10 @@ public class SecureCopyToCommand implements Command {
 		CommandInitializer initializer = new CommandInitializerImpl();
 		initializer.initialize(context, this);
 
+		ChannelSftp sftpChannel = null;
 		try {
 			// get SFTP channel
-			ChannelSftp sftpChannel = session.getSftpChannel();
+			sftpChannel = session.getSftpChannel();
 
 			// resolve module path
 			localFile = sshHelper.resolveModulePath(executionResult, localFile);
@@ -246,27 +274,366 @@ public class SecureCopyToCommand implements Command {
 			// do value substitution
 			File processedFile = doVariableSubstitution(localFileObject);
 
-			// upload file
-			sftpChannel.put(processedFile.getAbsolutePath(), remoteFile, ChannelSftp.OVERWRITE);
+			// resolve remote file in directory
+			SftpATTRS remoteAttributes = resolveRemoteFile(sftpChannel, localFileObject);
+			if (remoteAttributes != null && remoteAttributes.isDir()) {
+				Object[] args = { remoteFile };
+				executionResult.completeAsFailure(messageProvider, "scct.securecopy_remotefile_isdir_failure", args);
+				return Command.CONTINUE_PROCESSING;
+			}
+
+			// upload file if changed
+			long transferred = 0;
+			if (isUnchanged(processedFile, remoteAttributes)) {
+				executionResult.addMessage("Upload", messageProvider.getMessage("scct.securecopy_unchanged_info"));
+			} else {
+				transferred = upload(sftpChannel, processedFile, remoteAttributes);
+			}
+
+			// report transfer
+			Object[] args = { transferred, processedFile.length() - transferred };
+			String message = messageProvider.getMessage("scct.securecopy_transfer_info", args);
+			executionResult.addMessage("Bytes Transferred", message);
 
 			// set permissions
 			setFilePermissions(sftpChannel);
 			setUserOwnership(sftpChannel);
 			setGroupOwnership(sftpChannel);
 
-			// disconnect
-			sftpChannel.disconnect();
-
 			// complete result
 			executionResult.completeAsSuccessful(messageProvider, "scct.securecopy_completed");
 
 		} catch (Exception e) {
 			executionResult.completeAsError(messageProvider, "scct.securecopy_error", e);
+		} finally {
+			// disconnect
+			session.closeChannel(sftpChannel);
 		}
 
 		return Command.CONTINUE_PROCESSING;
 	}
 
+	/**
+	 * Resolve the remote file. If the remote file is a directory then the file
+	 * is copied into the directory with the name of the local file, and the
+	 * remote file is updated to the file in the directory.
+	 * 
+	 * @param sftpChannel
+	 *            SFTP channel.
+	 * @param localFile
+	 *            local file.
+	 * 
+	 * @return attributes of the resolved remote file. Null if the remote file
+	 *         doesn't exist.
+	 * 
+	 * @throws SftpException
+	 *             if operation fails.
+	 */
+	SftpATTRS resolveRemoteFile(ChannelSftp sftpChannel, File localFile) throws SftpException {
+		SftpATTRS remoteAttributes = stat(sftpChannel, remoteFile);
+		if (remoteAttributes == null || !remoteAttributes.isDir())
+			return remoteAttributes;
+
+		String directory = remoteFile.endsWith("/") ? remoteFile : remoteFile + "/";
+		remoteFile = directory + localFile.getName();
+		return stat(sftpChannel, remoteFile);
+	}
+
+	/**
+	 * Returns true if the remote file is identical to the local file, determined
+	 * by the file comparison.
+	 * 
+	 * @param localFile
+	 *            local file.
+	 * @param remoteAttributes
+	 *            attributes of remote file. Null if the remote file doesn't exist.
+	 * 
+	 * @return true if the remote file is identical to the local file.
+	 * 
+	 * @throws Exception
+	 *             if the comparison fails.
+	 */
+	boolean isUnchanged(File localFile, SftpATTRS remoteAttributes) throws Exception {
+		if (remoteAttributes == null)
+			return false;
+		if (remoteAttributes.getSize() != localFile.length())
+			return false;
+
+		// compare
+		CompareType comparison = (compare == null) ? CompareType.SIZE_AND_TIME : compare;
+		switch (comparison) {
+		case NONE:
+			return false;
+		case CHECKSUM:
+			String localChecksum = sshHelper.getChecksum(localFile);
+			return localChecksum.equals(sshHelper.getRemoteChecksum(session, remoteFile));
+		default:
+			return (remoteAttributes.getMTime() == getModificationTime(localFile));
+		}
+	}
+
+	/**
+	 * Upload file to a partial file next to the remote file and replace the
+	 * remote file with the partial file when the upload completes. If a partial
+	 * file exists from an interrupted upload of the same local file then the
+	 * upload is resumed. A partial file is only resumed if its checksum matches
+	 * the checksum of the same number of bytes of the local file. The
+	 * modification time of the remote file is set to the modification time of
+	 * the local file.
+	 * 
+	 * If the remote file is a symbolic link then the link target is replaced.
+	 * The permissions and ownership of a replaced file are copied to the
+	 * partial file before it replaces the file. If the upload fails then the
+	 * partial file is deleted, unless the connection is lost in which case it is
+	 * kept and the upload is resumed by the next execution.
+	 * 
+	 * @param sftpChannel
+	 *            SFTP channel.
+	 * @param localFile
+	 *            local file.
+	 * @param remoteAttributes
+	 *            attributes of remote file. Null if the remote file doesn't exist.
+	 * 
+	 * @return number of transferred bytes.
+	 * 
+	 * @throws SftpException
+	 *             if upload fails.
+	 */
+	long upload(ChannelSftp sftpChannel, File localFile, SftpATTRS remoteAttributes) throws SftpException {
+		String targetFile = resolveTargetFile(sftpChannel, remoteAttributes);
+		String partialFile = targetFile + PARTIAL_FILE_SUFFIX;
+		int modificationTime = getModificationTime(localFile);
+
+		// resume if partial file was written after the local file was modified
+		int mode = ChannelSftp.OVERWRITE;
+		long resumed = 0;
+		SftpATTRS partialAttributes = stat(sftpChannel, partialFile);
+		if (partialAttributes != null && partialAttributes.getSize() < localFile.length()
+				&& partialAttributes.getMTime() >= modificationTime
+				&& isPartialFileResumable(localFile, partialFile, partialAttributes.getSize())) {
+			mode = ChannelSftp.RESUME;
+			resumed = partialAttributes.getSize();
+			Object[] args = { partialAttributes.getSize() };
+			String message = messageProvider.getMessage("scct.securecopy_resume_info", args);
+			executionResult.addMessage("Upload", message);
+		}
+
+		// upload
+		TransferCounter counter = new TransferCounter();
+		try {
+			sftpChannel.put(localFile.getAbsolutePath(), partialFile, counter, mode);
+			sftpChannel.setMtime(partialFile, modificationTime);
+
+			// replace remote file
+			if (remoteAttributes == null) {
+				sftpChannel.rename(partialFile, targetFile);
+			} else {
+				copyAttributes(sftpChannel, remoteAttributes, partialFile);
+				replace(sftpChannel, partialFile, targetFile);
+			}
+
+		} catch (SftpException e) {
+			deleteQuietly(sftpChannel, partialFile);
+			throw e;
+		}
+
+		// on resume the progress monitor is initially notified with the size of
+		// the partial file
+		return counter.getTransferred() - resumed;
+	}
+
+	/**
+	 * Returns true if the partial file contains the first bytes of the local
+	 * file, determined by comparing checksums. If the checksums differ or the
+	 * remote checksum can't be calculated then the partial file isn't resumed.
+	 * 
+	 * @param localFile
+	 *            local file.
+	 * @param partialFile
+	 *            partial file.
+	 * @param size
+	 *            size of the partial file.
+	 * 
+	 * @return true if the partial file contains the first bytes of the local
+	 *         file.
+	 */
+	boolean isPartialFileResumable(File localFile, String partialFile, long size) {
+		try {
+			String remoteChecksum = sshHelper.getRemoteChecksum(session, partialFile);
+			if (remoteChecksum != null && remoteChecksum.equals(sshHelper.getChecksum(localFile, size)))
+				return true;
+
+			executionResult.addMessage("Upload", messageProvider.getMessage("scct.securecopy_partial_discarded_info"));
+			return false;
+
+		} catch (Exception e) {
+
+			// log debug message
+			if (logger.isDebugEnabled()) {
+				Object[] args = { partialFile, e.getMessage() };
+				logger.debug(messageProvider.getMessage("scct.securecopy_partial_checksum_failure", args));
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Resolve the file replaced by the upload. If the remote file is a symbolic
+	 * link then the link target is resolved to keep the link.
+	 * 
+	 * @param sftpChannel
+	 *            SFTP channel.
+	 * @param remoteAttributes
+	 *            attributes of remote file. Null if the remote file doesn't exist.
+	 * 
+	 * @return path of the file replaced by the upload.
+	 * 
+	 * @throws SftpException
+	 *             if operation fails.
+	 */
+	String resolveTargetFile(ChannelSftp sftpChannel, SftpATTRS remoteAttributes) throws SftpException {
+		if (remoteAttributes == null)
+			return remoteFile;
+		if (!sftpChannel.lstat(remoteFile).isLink())
+			return remoteFile;
+		return sftpChannel.realpath(remoteFile);
+	}
+
+	/**
+	 * Copy permissions and ownership of the replaced remote file to the partial
+	 * file. If the ownership can't be changed due to insufficient privileges
+	 * then it is reported to the execution result.
+	 * 
+	 * @param sftpChannel
+	 *            SFTP channel.
+	 * @param remoteAttributes
+	 *            attributes of the replaced remote file.
+	 * @param partialFile
+	 *            partial file.
+	 * 
+	 * @throws SftpException
+	 *             if operation fails.
+	 */
+	void copyAttributes(ChannelSftp sftpChannel, SftpATTRS remoteAttributes, String partialFile)
+			throws SftpException {
+		int flags = remoteAttributes.getFlags();
+		if ((flags & SftpATTRS.SSH_FILEXFER_ATTR_PERMISSIONS) != 0)
+			sftpChannel.chmod(remoteAttributes.getPermissions() & 07777, partialFile);
+		if ((flags & SftpATTRS.SSH_FILEXFER_ATTR_UIDGID) == 0)
+			return;
+
+		try {
+			sftpChannel.chown(remoteAttributes.getUId(), partialFile);
+			sftpChannel.chgrp(remoteAttributes.getGId(), partialFile);
+		} catch (SftpException e) {
+			if (e.id != ChannelSftp.SSH_FX_PERMISSION_DENIED)
+				throw e;
+			Object[] args = { remoteAttributes.getUId(), remoteAttributes.getGId() };
+			String message = messageProvider.getMessage("scct.securecopy_ownership_not_preserved_info", args);
+			executionResult.addMessage("Upload", message);
+		}
+	}
+
+	/**
+	 * Replace remote file with the partial file.
+	 * 
+	 * The partial file is first renamed to the remote file, which replaces it
+	 * atomically on servers where SFTP rename overwrites an existing file. SFTP
+	 * version 3 servers refuse to rename onto an existing file, in which case the
+	 * remote file is moved to a backup file while the partial file is renamed.
+	 * The backup file is restored if the rename fails.
+	 * 
+	 * @param sftpChannel
+	 *            SFTP channel.
+	 * @param partialFile
+	 *            partial file.
+	 * @param targetFile
+	 *            replaced remote file.
+	 * 
+	 * @throws SftpException
+	 *             if operation fails.
+	 */
+	void replace(ChannelSftp sftpChannel, String partialFile, String targetFile) throws SftpException {
+		try {
+			sftpChannel.rename(partialFile, targetFile);
+			return;
+		} catch (SftpException e) {
+			if (e.id != ChannelSftp.SSH_FX_FAILURE)
+				throw e;
+		}
+
+		// move remote file aside, a backup file left by an earlier execution is
+		// stale since the remote file exists
+		String backupFile = targetFile + BACKUP_FILE_SUFFIX;
+		deleteQuietly(sftpChannel, backupFile);
+		sftpChannel.rename(targetFile, backupFile);
+		try {
+			sftpChannel.rename(partialFile, targetFile);
+		} catch (SftpException e) {
+			sftpChannel.rename(backupFile, targetFile);
+			throw e;
+		}
+		sftpChannel.rm(backupFile);
+	}
+
+	/**
+	 * Delete remote file and ignore any errors, e.g. if the file doesn't exist
+	 * or the connection is lost.
+	 * 
+	 * @param sftpChannel
+	 *            SFTP channel.
+	 * @param file
+	 *            remote file.
+	 */
+	void deleteQuietly(ChannelSftp sftpChannel, String file) {
+		try {
+			sftpChannel.rm(file);
+		} catch (SftpException e) {
+
+			// log debug message
+			if (logger.isDebugEnabled()) {
+				Object[] args = { file, e.getMessage() };
+				logger.debug(messageProvider.getMessage("scct.securecopy_delete_failure", args));
+			}
+		}
+	}
+
+	/**
+	 * Get attributes of remote file.
+	 * 
+	 * @param sftpChannel
+	 *            SFTP channel.
+	 * @param file
+	 *            remote file.
+	 * 
+	 * @return attributes of remote file. Returns null if the file doesn't exist.
+	 * 
+	 * @throws SftpException
+	 *             if operation fails.
+	 */
+	SftpATTRS stat(ChannelSftp sftpChannel, String file) throws SftpException {
+		try {
+			return sftpChannel.stat(file);
+		} catch (SftpException e) {
+			if (e.id == ChannelSftp.SSH_FX_NO_SUCH_FILE)
+				return null;
+			throw e;
+		}
+	}
+
+	/**
+	 * Get modification time of local file in seconds, which is the resolution of
+	 * SFTP modification times.
+	 * 
+	 * @param localFile
+	 *            local file.
+	 * 
+	 * @return modification time of local file in seconds.
+	 */
+	int getModificationTime(File localFile) {
+		return (int) (localFile.lastModified() / 1000);
+	}
+
 	/**
 	 * Set file permissions.
 	 * 
@@ -384,4 +751,37 @@ public class SecureCopyToCommand implements Command {
 		return coreVariableSubstitutionProvider.createSubstitutedFile(source, session, executionResult);
 	}
 
+	/**
+	 * SFTP progress monitor which counts the number of transferred bytes.
+	 */
+	static class TransferCounter implements SftpProgressMonitor {
+
+		/**
+		 * Number of transferred bytes.
+		 */
+		long transferred = 0;
+
+		public void init(int op, String src, String dest, long max) {
+			// no initialization required
+		}
+
+		public boolean count(long count) {
+			transferred += count;
+			return true;
+		}
+
+		public void end() {
+			// no clean up required
+		}
+
+		/**
+		 * Get number of transferred bytes.
+		 * 
+		 * @return number of transferred bytes.
+		 */
+		long getTransferred() {
+			return transferred;
+		}
+	}
+
 }
@@ -61,6 +61,7 @@ public class MapperImpl implements Mapper {
 		context.put(SecureCopyToCommand.GROUP_OWNERSHIP_KEY, new Integer(chgrpValue));
 
 		context.put(SecureCopyToCommand.SUBSTITUTE_VARIABLES_KEY, new Boolean(command.isSubstituteVariables()));
+		context.put(SecureCopyToCommand.COMPARE_KEY, command.getCompare());
 		context.put(SecureCopyToCommand.SESSION_KEY, session);
 	}
 
@@ -22,22 +22,22 @@
 
 package com.alpha.pineapple.plugin.ssh.operation;
 import static com.alpha.javautils.ArgumentUtils.notNull;
-import static com.alpha.pineapple.plugin.ssh.SshConstants.EXECUTION_PAUSE;
+import static com.alpha.pineapple.plugin.ssh.SshConstants.OUTPUT_PUBLISH_INTERVAL;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 import javax.annotation.Resource;
 
 import org.apache.commons.chain.Command;
 import org.apache.commons.chain.Context;
-import org.apache.commons.io.IOUtils;
 import org.apache.log4j.Logger;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
-import com.alpha.javautils.ConcurrencyUtils;
 import com.alpha.javautils.OperationUtils;
 import com.alpha.pineapple.OperationNames;
 import com.alpha.pineapple.command.execution.CommandRunner;
@@ -49,23 +49,29 @@ import com.alpha.pineapple.plugin.PluginOperation;
 import com.alpha.pineapple.plugin.ssh.SshConstants;
 import com.alpha.pineapple.plugin.ssh.model.AssertContains;
 import com.alpha.pineapple.plugin.ssh.model.AssertEquals;
+import com.alpha.pineapple.plugin.ssh.model.Barrier;
 import com.alpha.pineapple.plugin.ssh.model.Execute;
 import com.alpha.pineapple.plugin.ssh.model.Mapper;
 import com.alpha.pineapple.plugin.ssh.model.SecureCopy;
 import com.alpha.pineapple.plugin.ssh.model.Ssh;
 import com.alpha.pineapple.plugin.ssh.model.SshCommand;
 import com.alpha.pineapple.plugin.ssh.session.SshSession;
+import com.alpha.pineapple.plugin.ssh.utils.CommandOutputCapture;
 import com.alpha.pineapple.plugin.ssh.utils.SshHelper;
 import com.alpha.pineapple.session.Session;
-import com.jcraft.jsch.ChannelExec;
 
 @PluginOperation(OperationNames.WILDCARD_OPERATION)
 public class DefaultOperation implements Operation {
 
 	/**
-	 * Command output buffer size.
+	 * Message ID for standard out from remote command.
 	 */
-	static final int BUFFER_SIZE = 1024;
+	static final String STANDARD_OUT = "Standard Out";
+
+	/**
+	 * Message ID for error out from remote command.
+	 */
+	static final String ERROR_OUT = "Error Out";
 
 	/**
 	 * Logger object.
@@ -79,10 +85,16 @@ public class DefaultOperation implements Operation {
 	MessageProvider messageProvider;
 
 	/**
-	 * Secure copy-to command.
+	 * Secure copy-to command factory.
+	 */
+	@Resource
+	ObjectFactory<Command> secureCopyToCommandFactory;
+
+	/**
+	 * Executor used to execute commands concurrently.
 	 */
 	@Resource
-	Command secureCopyToCommand;
+	ThreadPoolTaskExecutor sshChannelExecutor;
 
 	/**
 	 * Command runner
@@ -141,38 +153,177 @@ public class DefaultOperation implements Operation {
 	/**
 	 * Process model commands.
 	 * 
+	 * If the model is parallel then the commands between barriers are executed
+	 * concurrently, otherwise the commands are executed one at a time.
+	 * 
 	 * @param sshModel
 	 *            SSH model.
 	 * @param session
 	 *            SSH session.
 	 * @param result
 	 *            execution result.
+	 * 
+	 * @throws Exception
+	 *             if parallel execution fails.
 	 */
-	void processModel(Ssh sshModel, SshSession session, ExecutionResult result) {
-
+	void processModel(Ssh sshModel, SshSession session, ExecutionResult result) throws Exception {
 		List<SshCommand> commands = sshModel.getCommands();
-		for (SshCommand command : commands) {
 
-			// execute command
-			if (command instanceof SecureCopy) {
-				executeSecureCopy(session, (SecureCopy) command, result);
-				continue;
+		// execute commands one at a time
+		if (!sshModel.isParallel()) {
+			for (SshCommand command : commands) {
+				if (command instanceof Barrier)
+					continue;
+				executeCommand(session, command, addCommandResult(command, result));
 			}
+			return;
+		}
 
-			if (command instanceof Execute) {
-				executeExecute(session, (Execute) command, result);
+		// execute phases separated by barriers
+		List<SshCommand> phase = new ArrayList<SshCommand>();
+		for (SshCommand command : commands) {
+			if (command instanceof Barrier) {
+				executePhase(session, phase, result);
+				phase.clear();
 				continue;
 			}
+			phase.add(command);
+		}
+		executePhase(session, phase, result);
+	}
 
-			if (command instanceof AssertEquals) {
-				executeAssertEquals(session, (AssertEquals) command, result);
-				continue;
+	/**
+	 * Execute commands concurrently on separate channels of the SSH session. The
+	 * number of concurrent commands is bounded by the maximum number of channels
+	 * defined by the session, by submitting at most that number of commands to
+	 * the executor at a time. The executor is shared by all sessions and is sized
+	 * by its configuration. The results of the commands are added in model order
+	 * before the commands are submitted. Returns when all commands have
+	 * completed. If a command fails then the remaining commands are cancelled.
+	 * 
+	 * @param session
+	 *            SSH session.
+	 * @param phase
+	 *            commands to execute.
+	 * @param result
+	 *            execution result.
+	 * 
+	 * @throws Exception
+	 *             if execution of a command fails.
+	 */
+	void executePhase(SshSession session, List<SshCommand> phase, ExecutionResult result) throws Exception {
+		Semaphore slots = new Semaphore(session.getMaxChannels());
+		List<Future<?>> futures = new ArrayList<Future<?>>(phase.size());
+
+		try {
+			// submit commands
+			for (SshCommand command : phase) {
+				ExecutionResult commandResult = addCommandResult(command, result);
+				slots.acquire();
+				futures.add(sshChannelExecutor.submit(() -> {
+					try {
+						executeCommand(session, command, commandResult);
+					} finally {
+						slots.release();
+					}
+				}));
 			}
 
-			if (command instanceof AssertContains) {
-				executeAssertContains(session, (AssertContains) command, result);
-				continue;
+			// wait for completion
+			for (Future<?> future : futures) {
+				future.get();
 			}
+
+		} catch (ExecutionException e) {
+			cancel(futures);
+			Object[] args = { e.getCause().getMessage() };
+			String message = messageProvider.getMessage("do.execute_phase_error", args);
+			throw new PluginExecutionFailedException(message, e.getCause());
+
+		} catch (InterruptedException e) {
+			cancel(futures);
+			throw e;
+		}
+	}
+
+	/**
+	 * Cancel submitted commands.
+	 * 
+	 * @param futures
+	 *            futures of the submitted commands.
+	 */
+	void cancel(List<Future<?>> futures) {
+		for (Future<?> future : futures) {
+			future.cancel(true);
+		}
+	}
+
+	/**
+	 * Add execution result for model command.
+	 * 
+	 * @param command
+	 *            model command.
+	 * @param result
+	 *            operation result.
+	 * 
+	 * @return execution result for model command.
+	 */
+	ExecutionResult addCommandResult(SshCommand command, ExecutionResult result) {
+		if (command instanceof SecureCopy) {
+			SecureCopy secureCopy = (SecureCopy) command;
+			Object[] args = { secureCopy.getSource(), secureCopy.getDestination() };
+			return result.addChild(messageProvider.getMessage("do.securecopy_info", args));
+		}
+
+		if (command instanceof Execute) {
+			Object[] args = { ((Execute) command).getCommand() };
+			return result.addChild(messageProvider.getMessage("do.execute_info", args));
+		}
+
+		if (command instanceof AssertEquals) {
+			Object[] args = { ((AssertEquals) command).getExpectedValue() };
+			return result.addChild(messageProvider.getMessage("do.execute_assert_equals_info", args));
+		}
+
+		if (command instanceof AssertContains) {
+			Object[] args = { ((AssertContains) command).getExpectedValue() };
+			return result.addChild(messageProvider.getMessage("do.execute_assert_contains_info", args));
+		}
+
+		return null;
+	}
+
+	/**
+	 * Execute model command.
+	 * 
+	 * @param session
+	 *            SSH session.
+	 * @param command
+	 *            model command.
+	 * @param commandResult
+	 *            execution result of the command.
+	 */
+	void executeCommand(SshSession session, SshCommand command, ExecutionResult commandResult) {
+
+		// execute command
+		if (command instanceof SecureCopy) {
+			executeSecureCopy(session, (SecureCopy) command, commandResult);
+			return;
+		}
+
+		if (command instanceof Execute) {
+			executeExecute(session, (Execute) command, commandResult);
+			return;
+		}
+
+		if (command instanceof AssertEquals) {
+			executeAssertEquals(session, (AssertEquals) command, commandResult);
+			return;
+		}
+
+		if (command instanceof AssertContains) {
+			executeAssertContains(session, (AssertContains) command, commandResult);
+			return;
 		}
 	}
 
@@ -183,22 +334,17 @@ public class DefaultOperation implements Operation {
 	 *            SSH session.
 	 * @param command
 	 *            secure copy command.
-	 * @param result
-	 *            operation result.
+	 * @param commandResult
+	 *            execution result of the command.
 	 */
-	void executeSecureCopy(SshSession session, SecureCopy command, ExecutionResult result) {
-
-		// create description
-		Object[] args = { command.getSource(), command.getDestination() };
-		String message = messageProvider.getMessage("do.securecopy_info", args);
+	void executeSecureCopy(SshSession session, SecureCopy command, ExecutionResult commandResult) {
 
 		// map model content to context
 		Context context = commandRunner.createContext();
 		mapper.mapSecureCopy(command, context, session);
 
 		// run command
-		commandRunner.setExecutionResult(result);
-		commandRunner.run(secureCopyToCommand, message, context);
+		commandRunner.run(secureCopyToCommandFactory.getObject(), commandResult, context);
 	}
 
 	/**
@@ -208,56 +354,21 @@ public class DefaultOperation implements Operation {
 	 *            SSH session.
 	 * @param command
 	 *            remote execute command.
-	 * @param result
-	 *            operation result.
+	 * @param commandResult
+	 *            execution result of the command.
 	 */
-	void executeExecute(SshSession session, Execute command, ExecutionResult result) {
-		ExecutionResult commandResult = null;
-		ChannelExec execChannel = null;
-		int status = -1;
-
+	void executeExecute(SshSession session, Execute command, ExecutionResult commandResult) {
 		try {
 			// get data
 			String cmdAsString = command.getCommand();
 
-			// create result
-			Object[] args = { cmdAsString };
-			String scpDescription = messageProvider.getMessage("do.execute_info", args);
-			commandResult = result.addChild(scpDescription);
-
-			// get EXEC channel and set command
-			execChannel = session.getExecuteChannel();
-			execChannel.setCommand(cmdAsString);
-
-			// Allocate stream buffers
-			ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-			ByteArrayOutputStream byteArrayErrorStream = new ByteArrayOutputStream();
-
-			// set streams
-			execChannel.setInputStream(null);
-			execChannel.setOutputStream(byteArrayOutputStream);
-			execChannel.setExtOutputStream(byteArrayOutputStream);
-			execChannel.setErrStream(byteArrayErrorStream);
-
-			// connect to invoke
-			execChannel.connect();
-
-			// collect output
-			while (true) {
-
-				// handle channel closure
-				if (execChannel.isClosed()) {
-					status = execChannel.getExitStatus();
-					addStatusCodeToResult(commandResult, status);
-					addCommandOutputToResult(commandResult, "Standard Out",
-							new ByteArrayInputStream(byteArrayOutputStream.toByteArray()));
-					addCommandOutputToResult(commandResult, "Error Out",
-							new ByteArrayInputStream(byteArrayErrorStream.toByteArray()));
-					break;
-				}
-
-				ConcurrencyUtils.waitSomeMilliseconds(EXECUTION_PAUSE);
-			}
+			// run command
+			CommandOutputCapture stdout = createOutputCapture(session, commandResult, STANDARD_OUT);
+			CommandOutputCapture stderr = createOutputCapture(session, commandResult, ERROR_OUT);
+			int status = sshHelper.executeCommand(session, cmdAsString, stdout, stderr);
+			addStatusCodeToResult(commandResult, status);
+			addCommandOutputToResult(commandResult, STANDARD_OUT, stdout);
+			addCommandOutputToResult(commandResult, ERROR_OUT, stderr);
 
 			// handle exit code signals error
 			if (status != 0) {
@@ -272,12 +383,6 @@ public class DefaultOperation implements Operation {
 
 		} catch (Exception e) {
 			commandResult.completeAsError(messageProvider, "do.execute_error", e);
-
-		} finally {
-			if (execChannel != null) {
-				if (execChannel.isConnected())
-					execChannel.disconnect();
-			}
 		}
 	}
 
@@ -288,55 +393,22 @@ public class DefaultOperation implements Operation {
 	 *            SSH session.
 	 * @param command
 	 *            assert equals command.
-	 * @param result
-	 *            operation result.
+	 * @param commandResult
+	 *            execution result of the command.
 	 */
-	void executeAssertEquals(SshSession session, AssertEquals command, ExecutionResult result) {
-		ExecutionResult commandResult = null;
-		ChannelExec execChannel = null;
-		int status = -1;
-		String errorOutMessage = null;
-		String stdOutMessage = null;
-
+	void executeAssertEquals(SshSession session, AssertEquals command, ExecutionResult commandResult) {
 		try {
 			// get data
 			String cmdAsString = command.getCommand();
 			String cmdExpectedValue = command.getExpectedValue();
 
-			// create result
-			Object[] args = { cmdExpectedValue };
-			String scpDescription = messageProvider.getMessage("do.execute_assert_equals_info", args);
-			commandResult = result.addChild(scpDescription);
-
-			// get EXEC channel and set command
-			execChannel = session.getExecuteChannel();
-			execChannel.setCommand(cmdAsString);
-
-			// set streams
-			execChannel.setInputStream(null);
-			execChannel.setOutputStream(System.out);
-			execChannel.setExtOutputStream(System.out);
-			execChannel.setErrStream(System.err);
-			InputStream stdout = execChannel.getInputStream();
-			InputStream stderr = execChannel.getErrStream();
-
-			// connect to invoke
-			execChannel.connect();
-
-			// collect output
-			while (true) {
-
-				// handle channel closure
-				if (execChannel.isClosed()) {
-					status = execChannel.getExitStatus();
-					addStatusCodeToResult(commandResult, status);
-					stdOutMessage = addCommandOutputToResult(commandResult, "Standard Out", stdout);
-					errorOutMessage = addCommandOutputToResult(commandResult, "Error Out", stderr);
-					break;
-				}
-
-				ConcurrencyUtils.waitSomeMilliseconds(EXECUTION_PAUSE);
-			}
+			// run command
+			CommandOutputCapture stdout = createOutputCapture(session, commandResult, STANDARD_OUT);
+			CommandOutputCapture stderr = createOutputCapture(session, commandResult, ERROR_OUT);
+			int status = sshHelper.executeCommand(session, cmdAsString, stdout, stderr);
+			addStatusCodeToResult(commandResult, status);
+			String stdOutMessage = addCommandOutputToResult(commandResult, STANDARD_OUT, stdout);
+			addCommandOutputToResult(commandResult, ERROR_OUT, stderr);
 
 			// handle exit code signals error
 			if (status != 0) {
@@ -357,12 +429,6 @@ public class DefaultOperation implements Operation {
 
 		} catch (Exception e) {
 			commandResult.completeAsError(messageProvider, "do.execute_assert_equals_error", e);
-
-		} finally {
-			if (execChannel != null) {
-				if (execChannel.isConnected())
-					execChannel.disconnect();
-			}
 		}
 	}
 
@@ -373,55 +439,22 @@ public class DefaultOperation implements Operation {
 	 *            SSH session.
 	 * @param command
 	 *            assert equals command.
-	 * @param result
-	 *            operation result.
+	 * @param commandResult
+	 *            execution result of the command.
 	 */
-	void executeAssertContains(SshSession session, AssertContains command, ExecutionResult result) {
-		ExecutionResult commandResult = null;
-		ChannelExec execChannel = null;
-		int status = -1;
-		String errorOutMessage = null;
-		String stdOutMessage = null;
-
+	void executeAssertContains(SshSession session, AssertContains command, ExecutionResult commandResult) {
 		try {
 			// get data
 			String cmdAsString = command.getCommand();
 			String cmdExpectedValue = command.getExpectedValue();
 
-			// create result
-			Object[] args = { cmdExpectedValue };
-			String scpDescription = messageProvider.getMessage("do.execute_assert_contains_info", args);
-			commandResult = result.addChild(scpDescription);
-
-			// get EXEC channel and set command
-			execChannel = session.getExecuteChannel();
-			execChannel.setCommand(cmdAsString);
-
-			// set streams
-			execChannel.setInputStream(null);
-			execChannel.setOutputStream(System.out);
-			execChannel.setExtOutputStream(System.out);
-			execChannel.setErrStream(System.err);
-			InputStream stdout = execChannel.getInputStream();
-			InputStream stderr = execChannel.getErrStream();
-
-			// connect to invoke
-			execChannel.connect();
-
-			// collect output
-			while (true) {
-
-				// handle channel closure
-				if (execChannel.isClosed()) {
-					status = execChannel.getExitStatus();
-					addStatusCodeToResult(commandResult, status);
-					stdOutMessage = addCommandOutputToResult(commandResult, "Standard Out", stdout);
-					errorOutMessage = addCommandOutputToResult(commandResult, "Error Out", stderr);
-					break;
-				}
-
-				ConcurrencyUtils.waitSomeMilliseconds(EXECUTION_PAUSE);
-			}
+			// run command
+			CommandOutputCapture stdout = createOutputCapture(session, commandResult, STANDARD_OUT);
+			CommandOutputCapture stderr = createOutputCapture(session, commandResult, ERROR_OUT);
+			int status = sshHelper.executeCommand(session, cmdAsString, stdout, stderr);
+			addStatusCodeToResult(commandResult, status);
+			String stdOutMessage = addCommandOutputToResult(commandResult, STANDARD_OUT, stdout);
+			addCommandOutputToResult(commandResult, ERROR_OUT, stderr);
 
 			// handle exit code signals error
 			if (status != 0) {
@@ -442,12 +475,6 @@ public class DefaultOperation implements Operation {
 
 		} catch (Exception e) {
 			commandResult.completeAsError(messageProvider, "do.execute_assert_contains_error", e);
-
-		} finally {
-			if (execChannel != null) {
-				if (execChannel.isConnected())
-					execChannel.disconnect();
-			}
 		}
 	}
 
@@ -485,22 +512,39 @@ public class DefaultOperation implements Operation {
 		return (message.contains(cmdExpectedValue));
 	}
 
+	/**
+	 * Create capture for output from remote command. The captured output is
+	 * published to the execution result while the command runs.
+	 * 
+	 * @param session
+	 *            SSH session.
+	 * @param result
+	 *            execution result where the output is published.
+	 * @param messageId
+	 *            message ID used for the output in the execution result.
+	 * 
+	 * @return capture for output from remote command.
+	 */
+	CommandOutputCapture createOutputCapture(SshSession session, ExecutionResult result, String messageId) {
+		return new CommandOutputCapture(session.getOutputCaptureSize(), OUTPUT_PUBLISH_INTERVAL,
+				capture -> result.addOrReplaceMessage(messageId, capture.getContent()), messageProvider);
+	}
+
 	/**
 	 * Add remote command output to execution result.
 	 * 
 	 * @param result
 	 *            execution result.
-	 * @param in
-	 *            input stream where is read from.
+	 * @param messageId
+	 *            message ID used for the output in the execution result.
+	 * @param capture
+	 *            captured output.
 	 * 
 	 * @return command output
-	 * 
-	 * @throws Exception
-	 *             If addition fails.
 	 */
-	String addCommandOutputToResult(ExecutionResult result, String messageKey, InputStream in) throws Exception {
-		String message = IOUtils.toString(in, StandardCharsets.UTF_8);
-		result.addMessage(messageKey, message);
+	String addCommandOutputToResult(ExecutionResult result, String messageId, CommandOutputCapture capture) {
+		String message = capture.getContent();
+		result.addOrReplaceMessage(messageId, message);
 		return message;
 	}
 
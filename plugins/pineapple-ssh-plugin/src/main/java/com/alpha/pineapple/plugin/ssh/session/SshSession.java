@@ -22,16 +22,20 @@
 
 package com.alpha.pineapple.plugin.ssh.session;
 
-import com.alpha.pineapple.session.Session;
+import com.alpha.pineapple.session.PoolableSession;
 import com.alpha.pineapple.session.SessionConnectException;
 import com.alpha.pineapple.session.SessionException;
+import com.jcraft.jsch.Channel;
 import com.jcraft.jsch.ChannelExec;
 import com.jcraft.jsch.ChannelSftp;
 
 /**
  * Session which provides access to a SSH session.
+ * 
+ * The session is poolable, i.e. the core component reuses a connected session
+ * for subsequent operations on the same resource.
  */
-public interface SshSession extends Session {
+public interface SshSession extends PoolableSession {
 
 	/**
 	 * Connect to host using SSH and password authentication.
@@ -82,7 +86,11 @@ public interface SshSession extends Session {
 	public boolean isConnected();
 
 	/**
-	 * Get SFTP channel.
+	 * Get SFTP channel. The channel must be closed with
+	 * {@linkplain #closeChannel(Channel)}.
+	 * 
+	 * Waits until the number of commands using channels concurrently on the
+	 * session is below the maximum number of channels.
 	 * 
 	 * @return SFTP channel.
 	 * 
@@ -92,7 +100,11 @@ public interface SshSession extends Session {
 	ChannelSftp getSftpChannel() throws SessionException;
 
 	/**
-	 * Get EXEC channel.
+	 * Get EXEC channel. The channel must be closed with
+	 * {@linkplain #closeChannel(Channel)}.
+	 * 
+	 * Waits until the number of commands using channels concurrently on the
+	 * session is below the maximum number of channels.
 	 * 
 	 * @return EXEC channel.
 	 * 
@@ -101,4 +113,30 @@ public interface SshSession extends Session {
 	 */
 	ChannelExec getExecuteChannel() throws SessionException;
 
+	/**
+	 * Disconnect channel created by the session and release it for use by other
+	 * commands.
+	 * 
+	 * @param channel
+	 *            channel created by the session. Null is ignored.
+	 */
+	void closeChannel(Channel channel);
+
+	/**
+	 * Get maximum number of bytes captured from each output stream of a remote
+	 * command.
+	 * 
+	 * @return maximum number of bytes captured from each output stream of a
+	 *         remote command.
+	 */
+	int getOutputCaptureSize();
+
+	/**
+	 * Get maximum number of commands using channels concurrently on the SSH
+	 * session. The limit is shared by all operations using the session.
+	 * 
+	 * @return maximum number of channels used concurrently on the SSH session.
+	 */
+	int getMaxChannels();
+
 }
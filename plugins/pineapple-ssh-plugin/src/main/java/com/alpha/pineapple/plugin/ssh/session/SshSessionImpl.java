@@ -24,6 +24,10 @@ package com.alpha.pineapple.plugin.ssh.session;
 import static com.alpha.javautils.ArgumentUtils.notNull;
 import static org.apache.commons.lang3.Validate.notEmpty;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
 import javax.annotation.Resource;
 
 import org.apache.log4j.Logger;
@@ -38,6 +42,7 @@ import com.alpha.pineapple.resource.ResourcePropertyGetter;
 import com.alpha.pineapple.session.SessionConnectException;
 import com.alpha.pineapple.session.SessionDisconnectException;
 import com.alpha.pineapple.session.SessionException;
+import com.jcraft.jsch.Channel;
 import com.jcraft.jsch.ChannelExec;
 import com.jcraft.jsch.ChannelSftp;
 import com.jcraft.jsch.JSch;
@@ -109,14 +114,33 @@ public class SshSessionImpl implements SshSession {
 	Session sshSession;
 
 	/**
-	 * SFTP channel.
+	 * Channels opened on the SSH session, mapped to the thread which opened the
+	 * channel. The channels are multiplexed over the SSH session and can be used
+	 * concurrently.
+	 */
+	Map<Channel, Thread> channels = new ConcurrentHashMap<Channel, Thread>();
+
+	/**
+	 * Maximum number of bytes captured from each output stream of a remote
+	 * command.
 	 */
-	ChannelSftp sftpChannel;
+	int outputCaptureSize = Integer.parseInt(SshConstants.DEFAULT_OUTPUT_CAPTURE_SIZE);
 
 	/**
-	 * EXEC channel.
+	 * Maximum number of channels used concurrently on the SSH session.
 	 */
-	ChannelExec execChannel;
+	int maxChannels = Integer.parseInt(SshConstants.DEFAULT_MAX_CHANNELS);
+
+	/**
+	 * Permits for using channels on the SSH session. A thread acquires a permit
+	 * when it opens its first channel and releases it when its last channel is
+	 * closed. The permits are shared by all operations using the pooled session.
+	 * A thread which opens a nested channel, e.g. an EXEC channel to compute a
+	 * checksum while it holds a SFTP channel, doesn't acquire another permit and
+	 * can't deadlock. The permits are created once by the first connect, since
+	 * threads might hold permits while the session is reconnected.
+	 */
+	Semaphore channelPermits;
 
 	/**
 	 * SshSessionImpl no-arg constructor.
@@ -162,6 +186,15 @@ public class SshSessionImpl implements SshSession {
 			int connectTimeOut = Integer.parseInt(getter.getProperty("timeout", SshConstants.DEFAULT_TIMEOUT));
 			String strictHostKeyChecking = getter.getProperty("strict-host-key-checking",
 					SshConstants.DEFAULT_STRICT_HOSTKEY_CHECKING);
+			outputCaptureSize = Integer.parseInt(
+					getter.getProperty("output-capture-size", SshConstants.DEFAULT_OUTPUT_CAPTURE_SIZE));
+			synchronized (channels) {
+				if (channelPermits == null) {
+					maxChannels = Integer
+							.parseInt(getter.getProperty("max-channels", SshConstants.DEFAULT_MAX_CHANNELS));
+					channelPermits = new Semaphore(maxChannels);
+				}
+			}
 
 			// get credential attributes
 			String user = credential.getUser();
@@ -227,7 +260,7 @@ public class SshSessionImpl implements SshSession {
 
 			// clear session
 			sshSession = null;
-			sftpChannel = null;
+			closeChannels();
 
 			Object[] args = { host, port, user, e };
 			String message = messageProvider.getMessage("ss.connect_failure2", args);
@@ -285,7 +318,7 @@ public class SshSessionImpl implements SshSession {
 
 			// clear session
 			sshSession = null;
-			sftpChannel = null;
+			closeChannels();
 
 			Object[] args = { host, port, user, e };
 			String message = messageProvider.getMessage("ss.connect_failure2", args);
@@ -303,24 +336,13 @@ public class SshSessionImpl implements SshSession {
 	public void disconnect() throws SessionDisconnectException {
 
 		// exit if not connected.
-		if (!isConnected()) {
+		if (sshSession == null) {
 			logger.error(messageProvider.getMessage("ss.disconnect_notconnected"));
 			return;
 		}
 
-		// disconnect and clear SFTP channel
-		if (sftpChannel != null) {
-			if (sftpChannel.isConnected())
-				sftpChannel.disconnect();
-			sftpChannel = null;
-		}
-
-		// disconnect and clear EXEC channel
-		if (execChannel != null) {
-			if (execChannel.isConnected())
-				execChannel.disconnect();
-			execChannel = null;
-		}
+		// disconnect and clear channels
+		closeChannels();
 
 		// disconnect and clear session
 		sshSession.disconnect();
@@ -336,7 +358,9 @@ public class SshSessionImpl implements SshSession {
 	}
 
 	public boolean isConnected() {
-		return (sshSession != null);
+		if (sshSession == null)
+			return false;
+		return sshSession.isConnected();
 	}
 
 	@Override
@@ -348,8 +372,9 @@ public class SshSessionImpl implements SshSession {
 			throw new SessionException(message);
 		}
 
+		ChannelSftp sftpChannel = null;
 		try {
-			sftpChannel = (ChannelSftp) sshSession.openChannel(SFTP_CHANNEL_ID);
+			sftpChannel = (ChannelSftp) openChannel(SFTP_CHANNEL_ID);
 			sftpChannel.connect();
 
 			// log debug message
@@ -362,6 +387,7 @@ public class SshSessionImpl implements SshSession {
 			return sftpChannel;
 
 		} catch (Exception e) {
+			closeChannel(sftpChannel);
 			Object[] args = { SFTP_CHANNEL_ID, e };
 			String message = messageProvider.getMessage("ss.sftp_connect_failure", args);
 			throw new SessionException(message, e);
@@ -379,7 +405,7 @@ public class SshSessionImpl implements SshSession {
 		}
 
 		try {
-			execChannel = (ChannelExec) sshSession.openChannel(EXEC_CHANNEL_ID);
+			ChannelExec execChannel = (ChannelExec) openChannel(EXEC_CHANNEL_ID);
 
 			// versus the sftp channel then exec channel the connect isn't
 			// invoked on a create channel. The command needs to be set first
@@ -402,6 +428,75 @@ public class SshSessionImpl implements SshSession {
 		}
 	}
 
+	@Override
+	public int getOutputCaptureSize() {
+		return outputCaptureSize;
+	}
+
+	@Override
+	public int getMaxChannels() {
+		return maxChannels;
+	}
+
+	@Override
+	public void closeChannel(Channel channel) {
+		if (channel == null)
+			return;
+		if (channel.isConnected())
+			channel.disconnect();
+
+		// release permit when the last channel of the thread is closed
+		synchronized (channels) {
+			Thread thread = channels.remove(channel);
+			if (thread == null)
+				return;
+			if (!channels.containsValue(thread))
+				channelPermits.release();
+		}
+	}
+
+	/**
+	 * Close all registered channels and release their permits.
+	 */
+	void closeChannels() {
+		for (Channel channel : channels.keySet()) {
+			closeChannel(channel);
+		}
+	}
+
+	/**
+	 * Open and register channel on the SSH session. Waits for a permit if the
+	 * current thread hasn't any open channels and the maximum number of threads
+	 * are using channels.
+	 * 
+	 * @param type
+	 *            channel type.
+	 * 
+	 * @return channel opened on the SSH session.
+	 * 
+	 * @throws Exception
+	 *             if channel creation fails.
+	 */
+	Channel openChannel(String type) throws Exception {
+		Thread thread = Thread.currentThread();
+		boolean permitAcquired = false;
+		if (!channels.containsValue(thread)) {
+			channelPermits.acquire();
+			permitAcquired = true;
+		}
+
+		try {
+			Channel channel = sshSession.openChannel(type);
+			channels.put(channel, thread);
+			return channel;
+
+		} catch (Exception e) {
+			if (permitAcquired)
+				channelPermits.release();
+			throw e;
+		}
+	}
+
 	/**
 	 * Return true if string ins't empty.
 	 * 
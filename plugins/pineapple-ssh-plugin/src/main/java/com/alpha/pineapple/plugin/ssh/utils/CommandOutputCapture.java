@@ -0,0 +1,417 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+* Copyright (C) 2007-2015 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package com.alpha.pineapple.plugin.ssh.utils;
+
+import static com.alpha.javautils.ArgumentUtils.notNull;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import com.alpha.pineapple.i18n.MessageProvider;
+
+/**
+ * Output stream which captures the output from a remote command while it is
+ * written by the SSH channel.
+ * 
+ * The capture is bounded: The first half of the capture size is retained as
+ * the head of the output and the second half is retained as a ring buffer
+ * containing the tail of the output. Output written between the head and tail
+ * is counted but discarded.
+ * 
+ * The listener is notified with the capture when a line of output is completed,
+ * but at most once per publish interval. The listener is invoked by the thread
+ * which writes to the stream.
+ * 
+ * The stream is closed by the SSH channel when the channel is closed, which
+ * releases any threads waiting in {@linkplain #awaitClose(long)}.
+ */
+public class CommandOutputCapture extends OutputStream {
+
+	/**
+	 * Line feed.
+	 */
+	static final byte LINE_FEED = '\n';
+
+	/**
+	 * Line separator used for the omission marker.
+	 */
+	static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+	/**
+	 * Message provider for I18N support.
+	 */
+	final MessageProvider messageProvider;
+
+	/**
+	 * Head of the output.
+	 */
+	final byte[] head;
+
+	/**
+	 * Number of bytes stored in the head.
+	 */
+	int headCount = 0;
+
+	/**
+	 * Ring buffer containing the tail of the output.
+	 */
+	final byte[] tail;
+
+	/**
+	 * Next write position in the tail ring buffer.
+	 */
+	int tailPosition = 0;
+
+	/**
+	 * Number of bytes stored in the tail ring buffer.
+	 */
+	int tailCount = 0;
+
+	/**
+	 * Total number of bytes written to the stream.
+	 */
+	long size = 0;
+
+	/**
+	 * Minimum interval between notifications of the listener (in ns).
+	 */
+	final long publishInterval;
+
+	/**
+	 * Time stamp of last notification of the listener (in ns).
+	 */
+	long lastPublish;
+
+	/**
+	 * Listener which is notified with completed lines. Can be null.
+	 */
+	final Consumer<CommandOutputCapture> listener;
+
+	/**
+	 * Latch which is released when the stream is closed.
+	 */
+	final CountDownLatch closedLatch = new CountDownLatch(1);
+
+	/**
+	 * Flag which is set by the first invocation of {@linkplain #close()}.
+	 */
+	final AtomicBoolean closed = new AtomicBoolean(false);
+
+	/**
+	 * CommandOutputCapture constructor.
+	 * 
+	 * @param captureSize
+	 *            maximum number of bytes retained from the output.
+	 * @param publishInterval
+	 *            minimum interval in ms between notifications of the listener.
+	 * @param listener
+	 *            listener which is notified when lines of output are completed.
+	 *            Can be null.
+	 * @param messageProvider
+	 *            message provider for I18N support.
+	 */
+	public CommandOutputCapture(int captureSize, long publishInterval, Consumer<CommandOutputCapture> listener,
+			MessageProvider messageProvider) {
+		notNull(messageProvider, "messageProvider is undefined.");
+		if (captureSize < 0)
+			throw new IllegalArgumentException("captureSize is negative.");
+		this.head = new byte[captureSize / 2];
+		this.tail = new byte[captureSize - head.length];
+		this.publishInterval = TimeUnit.MILLISECONDS.toNanos(publishInterval);
+		this.listener = listener;
+		this.messageProvider = messageProvider;
+		this.lastPublish = System.nanoTime();
+	}
+
+	@Override
+	public void write(int b) {
+		write(new byte[] { (byte) b }, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] bytes, int offset, int length) {
+		boolean lineCompleted = false;
+
+		synchronized (this) {
+			size += length;
+			lineCompleted = containsLineFeed(bytes, offset, length);
+
+			// fill head
+			int headLength = Math.min(length, head.length - headCount);
+			System.arraycopy(bytes, offset, head, headCount, headLength);
+			headCount += headLength;
+			offset += headLength;
+			length -= headLength;
+
+			// write remaining bytes to tail
+			if (length > 0 && tail.length > 0)
+				writeToTail(bytes, offset, length);
+		}
+
+		if (lineCompleted)
+			publish(false);
+	}
+
+	/**
+	 * Write bytes to tail ring buffer.
+	 * 
+	 * @param bytes
+	 *            bytes to write.
+	 * @param offset
+	 *            start offset.
+	 * @param length
+	 *            number of bytes to write.
+	 */
+	void writeToTail(byte[] bytes, int offset, int length) {
+
+		// only the last bytes fits into the tail
+		if (length >= tail.length) {
+			System.arraycopy(bytes, offset + length - tail.length, tail, 0, tail.length);
+			tailPosition = 0;
+			tailCount = tail.length;
+			return;
+		}
+
+		int firstLength = Math.min(length, tail.length - tailPosition);
+		System.arraycopy(bytes, offset, tail, tailPosition, firstLength);
+		System.arraycopy(bytes, offset + firstLength, tail, 0, length - firstLength);
+		tailPosition = (tailPosition + length) % tail.length;
+		tailCount = Math.min(tail.length, tailCount + length);
+	}
+
+	/**
+	 * Returns true if bytes contains a line feed.
+	 * 
+	 * @param bytes
+	 *            bytes to search.
+	 * @param offset
+	 *            start offset.
+	 * @param length
+	 *            number of bytes to search.
+	 * 
+	 * @return true if bytes contains a line feed.
+	 */
+	static boolean containsLineFeed(byte[] bytes, int offset, int length) {
+		for (int i = offset; i < offset + length; i++) {
+			if (bytes[i] == LINE_FEED)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Notify listener if the publish interval is exceeded or if forced.
+	 * 
+	 * @param force
+	 *            if true then the listener is notified regardless of the
+	 *            publish interval.
+	 */
+	void publish(boolean force) {
+		if (listener == null)
+			return;
+
+		synchronized (this) {
+			long now = System.nanoTime();
+			if (!force && (now - lastPublish < publishInterval))
+				return;
+			lastPublish = now;
+		}
+		listener.accept(this);
+	}
+
+	@Override
+	public void close() {
+		if (!closed.compareAndSet(false, true))
+			return;
+		closedLatch.countDown();
+		publish(true);
+	}
+
+	/**
+	 * Wait until the stream is closed.
+	 * 
+	 * @param timeout
+	 *            maximum time to wait in ms.
+	 * 
+	 * @return true if the stream was closed, false if the timeout elapsed.
+	 * 
+	 * @throws InterruptedException
+	 *             if the current thread is interrupted while waiting.
+	 */
+	public boolean awaitClose(long timeout) throws InterruptedException {
+		return closedLatch.await(timeout, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Returns true if the stream is closed.
+	 * 
+	 * @return true if the stream is closed.
+	 */
+	public boolean isClosed() {
+		return (closedLatch.getCount() == 0);
+	}
+
+	/**
+	 * Get total number of bytes written to the stream.
+	 * 
+	 * @return total number of bytes written to the stream.
+	 */
+	public synchronized long getSize() {
+		return size;
+	}
+
+	/**
+	 * Get number of bytes which were discarded from the output.
+	 * 
+	 * @return number of bytes which were discarded from the output.
+	 */
+	public synchronized long getOmittedSize() {
+		return size - headCount - tailCount;
+	}
+
+	/**
+	 * Returns true if bytes were discarded from the output.
+	 * 
+	 * @return true if bytes were discarded from the output.
+	 */
+	public boolean isTruncated() {
+		return (getOmittedSize() > 0);
+	}
+
+	/**
+	 * Get captured output as UTF-8 string. If bytes were discarded then the head
+	 * and tail of the output is separated by a message which contains the number
+	 * of discarded bytes. The head and tail are trimmed to character boundaries,
+	 * so multi-byte characters split by the omission aren't decoded as garbage.
+	 * 
+	 * @return captured output.
+	 */
+	public synchronized String getContent() {
+		if (tailCount == 0)
+			return new String(head, 0, headCount, StandardCharsets.UTF_8);
+
+		// copy head and tail ring buffer in order
+		byte[] output = new byte[headCount + tailCount];
+		System.arraycopy(head, 0, output, 0, headCount);
+		int start = (tailPosition - tailCount + tail.length) % tail.length;
+		int firstLength = Math.min(tailCount, tail.length - start);
+		System.arraycopy(tail, start, output, headCount, firstLength);
+		System.arraycopy(tail, 0, output, headCount + firstLength, tailCount - firstLength);
+
+		// handle no bytes were discarded, decode as one sequence since a
+		// character can span the head and tail
+		long omitted = getOmittedSize();
+		if (omitted == 0)
+			return new String(output, StandardCharsets.UTF_8);
+
+		// trim to character boundaries
+		int headLength = getCharacterBoundary(output, headCount);
+		int tailOffset = skipContinuationBytes(output, headCount);
+		omitted += (headCount - headLength) + (tailOffset - headCount);
+		String headAsString = new String(output, 0, headLength, StandardCharsets.UTF_8);
+		String tailAsString = new String(output, tailOffset, output.length - tailOffset, StandardCharsets.UTF_8);
+
+		Object[] args = { omitted };
+		String marker = messageProvider.getMessage("coc.output_truncated", args);
+		StringBuilder content = new StringBuilder();
+		content.append(headAsString).append(LINE_SEPARATOR);
+		content.append(marker).append(LINE_SEPARATOR);
+		content.append(tailAsString);
+		return content.toString();
+	}
+
+	/**
+	 * Get length of bytes without an incomplete UTF-8 character at the end.
+	 * 
+	 * @param bytes
+	 *            UTF-8 encoded bytes.
+	 * @param length
+	 *            number of bytes.
+	 * 
+	 * @return length of bytes which ends at a character boundary.
+	 */
+	static int getCharacterBoundary(byte[] bytes, int length) {
+
+		// find start of last character
+		int start = length - 1;
+		while (start > 0 && start > length - 4 && isContinuationByte(bytes[start]))
+			start--;
+		if (start < 0)
+			return length;
+
+		// get length of last character from its lead byte
+		int lead = bytes[start] & 0xFF;
+		int characterLength = 1;
+		if (lead >= 0xF0)
+			characterLength = 4;
+		else if (lead >= 0xE0)
+			characterLength = 3;
+		else if (lead >= 0xC0)
+			characterLength = 2;
+
+		if (start + characterLength > length)
+			return start;
+		return length;
+	}
+
+	/**
+	 * Skip continuation bytes of a UTF-8 character which started before the
+	 * offset.
+	 * 
+	 * @param bytes
+	 *            UTF-8 encoded bytes.
+	 * @param offset
+	 *            start offset.
+	 * 
+	 * @return offset of the first character boundary.
+	 */
+	static int skipContinuationBytes(byte[] bytes, int offset) {
+		int end = Math.min(bytes.length, offset + 3);
+		while (offset < end && isContinuationByte(bytes[offset]))
+			offset++;
+		return offset;
+	}
+
+	/**
+	 * Returns true if the byte is a UTF-8 continuation byte.
+	 * 
+	 * @param b
+	 *            byte.
+	 * 
+	 * @return true if the byte is a UTF-8 continuation byte.
+	 */
+	static boolean isContinuationByte(byte b) {
+		return ((b & 0xC0) == 0x80);
+	}
+
+	@Override
+	public String toString() {
+		return getContent();
+	}
+
+}
@@ -23,8 +23,10 @@
 package com.alpha.pineapple.plugin.ssh.utils;
 
 import java.io.File;
+import java.io.IOException;
 
 import com.alpha.pineapple.execution.ExecutionResult;
+import com.alpha.pineapple.plugin.ssh.session.SshSession;
 
 /**
  * Common functionality for SSH.
@@ -60,4 +62,72 @@ public interface SshHelper {
 	 *         physical module directory.
 	 */
 	public String resolveModulePath(ExecutionResult result, String localFile);
+
+	/**
+	 * Execute remote command and wait for it to complete.
+	 * 
+	 * The output from the command is written to the captures while the command
+	 * runs.
+	 * 
+	 * @param session
+	 *            SSH session.
+	 * @param command
+	 *            remote command.
+	 * @param stdout
+	 *            capture for standard out.
+	 * @param stderr
+	 *            capture for error out.
+	 * 
+	 * @return exit status from the remote command.
+	 * 
+	 * @throws Exception
+	 *             if execution fails.
+	 */
+	public int executeCommand(SshSession session, String command, CommandOutputCapture stdout,
+			CommandOutputCapture stderr) throws Exception;
+
+	/**
+	 * Calculate SHA-256 checksum of local file.
+	 * 
+	 * @param localFile
+	 *            local file.
+	 * 
+	 * @return checksum as lower case hex string.
+	 * 
+	 * @throws IOException
+	 *             if file reading fails.
+	 */
+	public String getChecksum(File localFile) throws IOException;
+
+	/**
+	 * Calculate SHA-256 checksum of the first bytes of local file.
+	 * 
+	 * @param localFile
+	 *            local file.
+	 * @param length
+	 *            number of bytes included in the checksum.
+	 * 
+	 * @return checksum as lower case hex string.
+	 * 
+	 * @throws IOException
+	 *             if file reading fails.
+	 */
+	public String getChecksum(File localFile, long length) throws IOException;
+
+	/**
+	 * Calculate SHA-256 checksum of remote file using the <code>sha256sum</code>
+	 * command on the remote host.
+	 * 
+	 * @param session
+	 *            SSH session.
+	 * @param remoteFile
+	 *            remote file.
+	 * 
+	 * @return checksum as lower case hex string. Returns null if the checksum
+	 *         couldn't be calculated, e.g. if the remote file doesn't exist.
+	 * 
+	 * @throws Exception
+	 *             if execution of the remote command fails.
+	 */
+	public String getRemoteChecksum(SshSession session, String remoteFile) throws Exception;
 }
@@ -22,7 +22,14 @@
 
 package com.alpha.pineapple.plugin.ssh.utils;
 
+import static com.alpha.pineapple.plugin.ssh.SshConstants.COMPLETION_CHECK_INTERVAL;
+
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 import javax.annotation.Resource;
 
@@ -32,13 +39,41 @@ import com.alpha.pineapple.execution.ExecutionResult;
 import com.alpha.pineapple.i18n.MessageProvider;
 import com.alpha.pineapple.io.file.RuntimeDirectoryProvider;
 import com.alpha.pineapple.module.ModuleInfo;
+import com.alpha.pineapple.plugin.PluginExecutionFailedException;
+import com.alpha.pineapple.plugin.ssh.session.SshSession;
 import com.alpha.pineapple.test.AssertionHelper;
+import com.jcraft.jsch.ChannelExec;
 
 /**
  * implementation of the {@linkplain SshHelper} interface.
  */
 public class SshHelperImpl implements SshHelper {
 
+	/**
+	 * Checksum algorithm.
+	 */
+	static final String CHECKSUM_ALGORITHM = "SHA-256";
+
+	/**
+	 * Remote checksum command.
+	 */
+	static final String CHECKSUM_COMMAND = "sha256sum -b ";
+
+	/**
+	 * Capture size for output from remote checksum command.
+	 */
+	static final int CHECKSUM_CAPTURE_SIZE = 4096;
+
+	/**
+	 * Buffer size used for reading local files.
+	 */
+	static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Hex digits.
+	 */
+	static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
 	/**
 	 * Message provider for I18N support.
 	 */
@@ -93,4 +128,127 @@ public class SshHelperImpl implements SshHelper {
 		return localFile;
 	}
 
+	public int executeCommand(SshSession session, String command, CommandOutputCapture stdout,
+			CommandOutputCapture stderr) throws Exception {
+		ChannelExec execChannel = null;
+
+		try {
+			// get EXEC channel and set command
+			execChannel = session.getExecuteChannel();
+			execChannel.setCommand(command);
+
+			// set streams
+			execChannel.setInputStream(null);
+			execChannel.setOutputStream(stdout);
+			execChannel.setErrStream(stderr);
+
+			// connect to invoke
+			execChannel.connect();
+
+			// wait for channel closure, the SSH channel closes the captures when
+			// the channel is closed. The channel state is checked periodically
+			// in case the closure of the streams is missed
+			while (!execChannel.isClosed()) {
+				stderr.awaitClose(COMPLETION_CHECK_INTERVAL);
+			}
+
+			return execChannel.getExitStatus();
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			Object[] args = { command };
+			String message = messageProvider.getMessage("shi.execute_interrupted", args);
+			throw new PluginExecutionFailedException(message, e);
+
+		} finally {
+			session.closeChannel(execChannel);
+		}
+	}
+
+	public String getChecksum(File localFile) throws IOException {
+		MessageDigest digest = createDigest();
+		byte[] buffer = new byte[BUFFER_SIZE];
+		try (InputStream in = new FileInputStream(localFile)) {
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+			}
+		}
+		return toHex(digest.digest());
+	}
+
+	public String getChecksum(File localFile, long length) throws IOException {
+		MessageDigest digest = createDigest();
+		byte[] buffer = new byte[BUFFER_SIZE];
+		try (InputStream in = new FileInputStream(localFile)) {
+			long remaining = length;
+			int read;
+			while (remaining > 0 && (read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+				digest.update(buffer, 0, read);
+				remaining -= read;
+			}
+		}
+		return toHex(digest.digest());
+	}
+
+	public String getRemoteChecksum(SshSession session, String remoteFile) throws Exception {
+		CommandOutputCapture stdout = new CommandOutputCapture(CHECKSUM_CAPTURE_SIZE, 0, null, messageProvider);
+		CommandOutputCapture stderr = new CommandOutputCapture(CHECKSUM_CAPTURE_SIZE, 0, null, messageProvider);
+		int status = executeCommand(session, CHECKSUM_COMMAND + quote(remoteFile), stdout, stderr);
+
+		// handle checksum couldn't be calculated
+		if (status != 0)
+			return null;
+
+		// output format is: <checksum> *<file>
+		String output = stdout.getContent().trim();
+		int separatorIndex = output.indexOf(' ');
+		if (separatorIndex == -1)
+			return null;
+		return output.substring(0, separatorIndex).toLowerCase();
+	}
+
+	/**
+	 * Create message digest.
+	 * 
+	 * @return message digest.
+	 */
+	MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance(CHECKSUM_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Convert bytes to lower case hex string.
+	 * 
+	 * @param bytes
+	 *            bytes to convert.
+	 * 
+	 * @return lower case hex string.
+	 */
+	static String toHex(byte[] bytes) {
+		char[] hex = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+			hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xF];
+		}
+		return new String(hex);
+	}
+
+	/**
+	 * Quote argument for the remote shell.
+	 * 
+	 * @param argument
+	 *            argument to quote.
+	 * 
+	 * @return argument enclosed in single quotes.
+	 */
+	static String quote(String argument) {
+		return "'" + argument.replace("'", "'\\''") + "'";
+	}
+
 }
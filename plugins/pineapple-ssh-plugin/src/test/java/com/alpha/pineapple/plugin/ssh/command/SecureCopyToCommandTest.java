@@ -0,0 +1,610 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+* Copyright (C) 2007-2015 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package com.alpha.pineapple.plugin.ssh.command;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.getCurrentArguments;
+import static org.easymock.EasyMock.isA;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alpha.pineapple.execution.ExecutionResult;
+import com.alpha.pineapple.execution.ExecutionResultImpl;
+import com.alpha.pineapple.i18n.PropertyFileMessageProviderImpl;
+import com.alpha.pineapple.plugin.ssh.model.CompareType;
+import com.alpha.pineapple.plugin.ssh.session.SshSession;
+import com.alpha.pineapple.plugin.ssh.utils.SshHelper;
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.SftpATTRS;
+import com.jcraft.jsch.SftpException;
+import com.jcraft.jsch.SftpProgressMonitor;
+
+/**
+ * Unit test of the delta upload in the {@linkplain SecureCopyToCommand} class.
+ */
+public class SecureCopyToCommandTest {
+
+	/**
+	 * Remote file.
+	 */
+	static final String REMOTE_FILE = "/tmp/remote.txt";
+
+	/**
+	 * Partial remote file.
+	 */
+	static final String PARTIAL_FILE = REMOTE_FILE + ".part";
+
+	/**
+	 * Backup of remote file.
+	 */
+	static final String BACKUP_FILE = REMOTE_FILE + ".bak";
+
+	/**
+	 * Target of symbolic link.
+	 */
+	static final String LINK_TARGET = "/opt/remote.txt";
+
+	/**
+	 * Local file content.
+	 */
+	static final String CONTENT = "0123456789";
+
+	/**
+	 * Object under test.
+	 */
+	SecureCopyToCommand command;
+
+	/**
+	 * Local file.
+	 */
+	File localFile;
+
+	/**
+	 * Modification time of local file in seconds.
+	 */
+	int localModificationTime;
+
+	/**
+	 * Mock SFTP channel.
+	 */
+	ChannelSftp sftpChannel;
+
+	/**
+	 * Mock SSH helper.
+	 */
+	SshHelper sshHelper;
+
+	/**
+	 * Mock SSH session.
+	 */
+	SshSession session;
+
+	@Before
+	public void setUp() throws Exception {
+		localFile = File.createTempFile("secure-copy", ".txt");
+		FileUtils.writeStringToFile(localFile, CONTENT, "UTF-8");
+		localFile.setLastModified(1500000000000L);
+		localModificationTime = 1500000000;
+
+		PropertyFileMessageProviderImpl messageProvider = new PropertyFileMessageProviderImpl();
+		messageProvider.setBasename("com.alpha.pineapple.plugin.ssh-messages");
+
+		sftpChannel = createMock(ChannelSftp.class);
+		sshHelper = createMock(SshHelper.class);
+		session = createMock(SshSession.class);
+
+		command = new SecureCopyToCommand();
+		command.messageProvider = messageProvider;
+		command.sshHelper = sshHelper;
+		command.session = session;
+		command.remoteFile = REMOTE_FILE;
+		command.executionResult = new ExecutionResultImpl("root");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		FileUtils.deleteQuietly(localFile);
+	}
+
+	/**
+	 * Create mock remote file attributes.
+	 * 
+	 * @param size
+	 *            file size.
+	 * @param modificationTime
+	 *            modification time in seconds.
+	 * 
+	 * @return mock remote file attributes.
+	 */
+	SftpATTRS createAttributes(long size, int modificationTime) {
+		SftpATTRS attributes = createMock(SftpATTRS.class);
+		expect(attributes.getSize()).andReturn(size).anyTimes();
+		expect(attributes.getMTime()).andReturn(modificationTime).anyTimes();
+		expect(attributes.getFlags()).andReturn(0).anyTimes();
+		expect(attributes.isLink()).andReturn(false).anyTimes();
+		expect(attributes.isDir()).andReturn(false).anyTimes();
+		replay(attributes);
+		return attributes;
+	}
+
+	/**
+	 * Create mock attributes of a directory.
+	 * 
+	 * @return mock attributes of a directory.
+	 */
+	SftpATTRS createDirectoryAttributes() {
+		SftpATTRS attributes = createMock(SftpATTRS.class);
+		expect(attributes.isDir()).andReturn(true).anyTimes();
+		expect(attributes.isLink()).andReturn(false).anyTimes();
+		replay(attributes);
+		return attributes;
+	}
+
+	/**
+	 * Create mock remote file attributes with permissions and ownership.
+	 * 
+	 * @param permissions
+	 *            permissions including the file type bits.
+	 * @param uid
+	 *            user ID.
+	 * @param gid
+	 *            group ID.
+	 * 
+	 * @return mock remote file attributes.
+	 */
+	SftpATTRS createAttributes(int permissions, int uid, int gid) {
+		SftpATTRS attributes = createMock(SftpATTRS.class);
+		int flags = SftpATTRS.SSH_FILEXFER_ATTR_PERMISSIONS | SftpATTRS.SSH_FILEXFER_ATTR_UIDGID;
+		expect(attributes.getFlags()).andReturn(flags).anyTimes();
+		expect(attributes.getPermissions()).andReturn(permissions).anyTimes();
+		expect(attributes.getUId()).andReturn(uid).anyTimes();
+		expect(attributes.getGId()).andReturn(gid).anyTimes();
+		expect(attributes.isLink()).andReturn(false).anyTimes();
+		replay(attributes);
+		return attributes;
+	}
+
+	/**
+	 * Create mock attributes of a symbolic link.
+	 * 
+	 * @return mock attributes of a symbolic link.
+	 */
+	SftpATTRS createLinkAttributes() {
+		SftpATTRS attributes = createMock(SftpATTRS.class);
+		expect(attributes.isLink()).andReturn(true).anyTimes();
+		replay(attributes);
+		return attributes;
+	}
+
+	/**
+	 * Expect upload to partial file which reports the transferred bytes to the
+	 * progress monitor.
+	 * 
+	 * @param mode
+	 *            expected transfer mode.
+	 * @param counts
+	 *            counts reported to the progress monitor.
+	 */
+	void expectUpload(int mode, long... counts) throws SftpException {
+		expectUpload(PARTIAL_FILE, mode, counts);
+	}
+
+	/**
+	 * Expect upload to partial file which reports the transferred bytes to the
+	 * progress monitor.
+	 * 
+	 * @param partialFile
+	 *            expected partial file.
+	 * @param mode
+	 *            expected transfer mode.
+	 * @param counts
+	 *            counts reported to the progress monitor.
+	 */
+	void expectUpload(String partialFile, int mode, long... counts) throws SftpException {
+		sftpChannel.put(eq(localFile.getAbsolutePath()), eq(partialFile), isA(SftpProgressMonitor.class), eq(mode));
+		expectLastCall().andAnswer(() -> {
+			SftpProgressMonitor monitor = (SftpProgressMonitor) getCurrentArguments()[2];
+			for (long count : counts)
+				monitor.count(count);
+			return null;
+		});
+		sftpChannel.setMtime(partialFile, localModificationTime);
+	}
+
+	/**
+	 * Test that a missing remote file is changed.
+	 */
+	@Test
+	public void testMissingRemoteFileIsChanged() throws Exception {
+		assertFalse(command.isUnchanged(localFile, null));
+	}
+
+	/**
+	 * Test that a remote file with different size is changed.
+	 */
+	@Test
+	public void testRemoteFileWithDifferentSizeIsChanged() throws Exception {
+		assertFalse(command.isUnchanged(localFile, createAttributes(5, localModificationTime)));
+	}
+
+	/**
+	 * Test that a remote file with different modification time is changed.
+	 */
+	@Test
+	public void testRemoteFileWithDifferentModificationTimeIsChanged() throws Exception {
+		assertFalse(command.isUnchanged(localFile, createAttributes(CONTENT.length(), localModificationTime + 1)));
+	}
+
+	/**
+	 * Test that a remote file with identical size and modification time is
+	 * unchanged by default.
+	 */
+	@Test
+	public void testRemoteFileWithIdenticalSizeAndTimeIsUnchanged() throws Exception {
+		assertTrue(command.isUnchanged(localFile, createAttributes(CONTENT.length(), localModificationTime)));
+	}
+
+	/**
+	 * Test that the remote file is always changed if comparison is disabled.
+	 */
+	@Test
+	public void testRemoteFileIsChangedIfComparisonIsDisabled() throws Exception {
+		command.compare = CompareType.NONE;
+		assertFalse(command.isUnchanged(localFile, createAttributes(CONTENT.length(), localModificationTime)));
+	}
+
+	/**
+	 * Test that checksums are compared if configured.
+	 */
+	@Test
+	public void testChecksumsAreCompared() throws Exception {
+		command.compare = CompareType.CHECKSUM;
+		expect(sshHelper.getChecksum(localFile)).andReturn("abc").times(2);
+		expect(sshHelper.getRemoteChecksum(session, REMOTE_FILE)).andReturn("abc");
+		expect(sshHelper.getRemoteChecksum(session, REMOTE_FILE)).andReturn("def");
+		replay(sshHelper);
+
+		SftpATTRS attributes = createAttributes(CONTENT.length(), 0);
+		assertTrue(command.isUnchanged(localFile, attributes));
+		assertFalse(command.isUnchanged(localFile, attributes));
+		verify(sshHelper);
+	}
+
+	/**
+	 * Create missing file error.
+	 * 
+	 * @return missing file error.
+	 */
+	SftpException noSuchFile() {
+		return new SftpException(ChannelSftp.SSH_FX_NO_SUCH_FILE, "no such file");
+	}
+
+	/**
+	 * Test that the file is uploaded to a partial file which is renamed onto
+	 * the remote file.
+	 */
+	@Test
+	public void testUploadRenamesPartialFileOntoRemoteFile() throws Exception {
+		SftpATTRS remote = createAttributes(3, 0);
+		expect(sftpChannel.lstat(REMOTE_FILE)).andReturn(remote);
+		expect(sftpChannel.stat(PARTIAL_FILE)).andThrow(noSuchFile());
+		expectUpload(ChannelSftp.OVERWRITE, 4, 6);
+		sftpChannel.rename(PARTIAL_FILE, REMOTE_FILE);
+		replay(sftpChannel);
+
+		long transferred = command.upload(sftpChannel, localFile, remote);
+		assertEquals(CONTENT.length(), transferred);
+		verify(sftpChannel);
+	}
+
+	/**
+	 * Test that the remote file is moved to a backup file if the server refuses
+	 * to rename onto an existing file.
+	 */
+	@Test
+	public void testUploadReplacesRemoteFileViaBackupFile() throws Exception {
+		SftpATTRS remote = createAttributes(3, 0);
+		expect(sftpChannel.lstat(REMOTE_FILE)).andReturn(remote);
+		expect(sftpChannel.stat(PARTIAL_FILE)).andThrow(noSuchFile());
+		expectUpload(ChannelSftp.OVERWRITE, 10);
+		sftpChannel.rename(PARTIAL_FILE, REMOTE_FILE);
+		expectLastCall().andThrow(new SftpException(ChannelSftp.SSH_FX_FAILURE, "file exists"));
+		sftpChannel.rm(BACKUP_FILE);
+		expectLastCall().andThrow(noSuchFile());
+		sftpChannel.rename(REMOTE_FILE, BACKUP_FILE);
+		sftpChannel.rename(PARTIAL_FILE, REMOTE_FILE);
+		sftpChannel.rm(BACKUP_FILE);
+		replay(sftpChannel);
+
+		command.upload(sftpChannel, localFile, remote);
+		verify(sftpChannel);
+	}
+
+	/**
+	 * Test that the backup file is restored if the partial file can't be
+	 * renamed.
+	 */
+	@Test
+	public void testBackupFileIsRestoredIfReplaceFails() throws Exception {
+		SftpATTRS remote = createAttributes(3, 0);
+		expect(sftpChannel.lstat(REMOTE_FILE)).andReturn(remote);
+		SftpException denied = new SftpException(ChannelSftp.SSH_FX_PERMISSION_DENIED, "denied");
+		expect(sftpChannel.stat(PARTIAL_FILE)).andThrow(noSuchFile());
+		expectUpload(ChannelSftp.OVERWRITE, 10);
+		sftpChannel.rename(PARTIAL_FILE, REMOTE_FILE);
+		expectLastCall().andThrow(new SftpException(ChannelSftp.SSH_FX_FAILURE, "file exists"));
+		sftpChannel.rm(BACKUP_FILE);
+		sftpChannel.rename(REMOTE_FILE, BACKUP_FILE);
+		sftpChannel.rename(PARTIAL_FILE, REMOTE_FILE);
+		expectLastCall().andThrow(denied);
+		sftpChannel.rename(BACKUP_FILE, REMOTE_FILE);
+		sftpChannel.rm(PARTIAL_FILE);
+		replay(sftpChannel);
+
+		try {
+			command.upload(sftpChannel, localFile, remote);
+			fail();
+		} catch (SftpException e) {
+			assertEquals(denied, e);
+		}
+		verify(sftpChannel);
+	}
+
+	/**
+	 * Test that the permissions and ownership of the remote file are copied to
+	 * the partial file before it replaces the remote file.
+	 */
+	@Test
+	public void testUploadPreservesPermissionsAndOwnership() throws Exception {
+		SftpATTRS remote = createAttributes(0100750, 1001, 1002);
+		expect(sftpChannel.lstat(REMOTE_FILE)).andReturn(remote);
+		expect(sftpChannel.stat(PARTIAL_FILE)).andThrow(noSuchFile());
+		expectUpload(ChannelSftp.OVERWRITE, 10);
+		sftpChannel.chmod(0750, PARTIAL_FILE);
+		sftpChannel.chown(1001, PARTIAL_FILE);
+		sftpChannel.chgrp(1002, PARTIAL_FILE);
+		sftpChannel.rename(PARTIAL_FILE, REMOTE_FILE);
+		replay(sftpChannel);
+
+		command.upload(sftpChannel, localFile, remote);
+		verify(sftpChannel);
+	}
+
+	/**
+	 * Test that the upload completes if the ownership can't be preserved due to
+	 * insufficient privileges.
+	 */
+	@Test
+	public void testUploadCompletesIfOwnershipIsntPreserved() throws Exception {
+		SftpATTRS remote = createAttributes(0100644, 0, 0);
+		expect(sftpChannel.lstat(REMOTE_FILE)).andReturn(remote);
+		expect(sftpChannel.stat(PARTIAL_FILE)).andThrow(noSuchFile());
+		expectUpload(ChannelSftp.OVERWRITE, 10);
+		sftpChannel.chmod(0644, PARTIAL_FILE);
+		sftpChannel.chown(0, PARTIAL_FILE);
+		expectLastCall().andThrow(new SftpException(ChannelSftp.SSH_FX_PERMISSION_DENIED, "denied"));
+		sftpChannel.rename(PARTIAL_FILE, REMOTE_FILE);
+		replay(sftpChannel);
+
+		command.upload(sftpChannel, localFile, remote);
+		verify(sftpChannel);
+		assertTrue(command.executionResult.getMessages().get("Upload").contains("[0:0]"));
+	}
+
+	/**
+	 * Test that the target of a symbolic link is replaced instead of the link.
+	 */
+	@Test
+	public void testUploadReplacesTargetOfSymbolicLink() throws Exception {
+		String partialFile = LINK_TARGET + ".part";
+		expect(sftpChannel.lstat(REMOTE_FILE)).andReturn(createLinkAttributes());
+		expect(sftpChannel.realpath(REMOTE_FILE)).andReturn(LINK_TARGET);
+		expect(sftpChannel.stat(partialFile)).andThrow(noSuchFile());
+		expectUpload(partialFile, ChannelSftp.OVERWRITE, 10);
+		sftpChannel.rename(partialFile, LINK_TARGET);
+		replay(sftpChannel);
+
+		command.upload(sftpChannel, localFile, createAttributes(3, 0));
+		verify(sftpChannel);
+	}
+
+	/**
+	 * Test that the partial file is deleted if the upload fails.
+	 */
+	@Test
+	public void testFailedUploadDeletesPartialFile() throws Exception {
+		SftpException failure = new SftpException(ChannelSftp.SSH_FX_FAILURE, "disk full");
+		expect(sftpChannel.stat(PARTIAL_FILE)).andThrow(noSuchFile());
+		sftpChannel.put(eq(localFile.getAbsolutePath()), eq(PARTIAL_FILE), isA(SftpProgressMonitor.class),
+				eq(ChannelSftp.OVERWRITE));
+		expectLastCall().andThrow(failure);
+		sftpChannel.rm(PARTIAL_FILE);
+		replay(sftpChannel);
+
+		try {
+			command.upload(sftpChannel, localFile, null);
+			fail();
+		} catch (SftpException e) {
+			assertEquals(failure, e);
+		}
+		verify(sftpChannel);
+	}
+
+	/**
+	 * Test that an interrupted upload is resumed.
+	 */
+	@Test
+	public void testInterruptedUploadIsResumed() throws Exception {
+		expect(sftpChannel.stat(PARTIAL_FILE)).andReturn(createAttributes(4, localModificationTime + 60));
+		expectUpload(ChannelSftp.RESUME, 4, 6);
+		sftpChannel.rename(PARTIAL_FILE, REMOTE_FILE);
+		replay(sftpChannel);
+		expect(sshHelper.getRemoteChecksum(session, PARTIAL_FILE)).andReturn("abc");
+		expect(sshHelper.getChecksum(localFile, 4)).andReturn("abc");
+		replay(sshHelper);
+
+		long transferred = command.upload(sftpChannel, localFile, null);
+		assertEquals(6, transferred);
+		verify(sftpChannel);
+		verify(sshHelper);
+	}
+
+	/**
+	 * Test that a partial file whose content differs from the local file isn't
+	 * resumed.
+	 */
+	@Test
+	public void testPartialFileWithDifferentContentIsOverwritten() throws Exception {
+		expect(sftpChannel.stat(PARTIAL_FILE)).andReturn(createAttributes(4, localModificationTime + 60));
+		expectUpload(ChannelSftp.OVERWRITE, 10);
+		sftpChannel.rename(PARTIAL_FILE, REMOTE_FILE);
+		replay(sftpChannel);
+		expect(sshHelper.getRemoteChecksum(session, PARTIAL_FILE)).andReturn("abc");
+		expect(sshHelper.getChecksum(localFile, 4)).andReturn("def");
+		replay(sshHelper);
+
+		long transferred = command.upload(sftpChannel, localFile, null);
+		assertEquals(CONTENT.length(), transferred);
+		verify(sftpChannel);
+		verify(sshHelper);
+	}
+
+	/**
+	 * Test that a partial file isn't resumed if its checksum can't be
+	 * calculated.
+	 */
+	@Test
+	public void testPartialFileWithoutChecksumIsOverwritten() throws Exception {
+		expect(sftpChannel.stat(PARTIAL_FILE)).andReturn(createAttributes(4, localModificationTime + 60));
+		expectUpload(ChannelSftp.OVERWRITE, 10);
+		sftpChannel.rename(PARTIAL_FILE, REMOTE_FILE);
+		replay(sftpChannel);
+		expect(sshHelper.getRemoteChecksum(session, PARTIAL_FILE)).andReturn(null);
+		replay(sshHelper);
+
+		long transferred = command.upload(sftpChannel, localFile, null);
+		assertEquals(CONTENT.length(), transferred);
+		verify(sftpChannel);
+		verify(sshHelper);
+	}
+
+	/**
+	 * Test that a partial file older than the local file isn't resumed.
+	 */
+	@Test
+	public void testStalePartialFileIsOverwritten() throws Exception {
+		expect(sftpChannel.stat(PARTIAL_FILE)).andReturn(createAttributes(4, localModificationTime - 60));
+		expectUpload(ChannelSftp.OVERWRITE, 10);
+		sftpChannel.rename(PARTIAL_FILE, REMOTE_FILE);
+		replay(sftpChannel);
+
+		long transferred = command.upload(sftpChannel, localFile, null);
+		assertEquals(CONTENT.length(), transferred);
+		verify(sftpChannel);
+	}
+
+	/**
+	 * Test that a file is copied into a remote directory with the name of the
+	 * local file.
+	 */
+	@Test
+	public void testFileIsCopiedIntoRemoteDirectory() throws Exception {
+		String directory = "/tmp/remote-dir";
+		String fileInDirectory = directory + "/" + localFile.getName();
+		command.remoteFile = directory;
+		expect(sftpChannel.stat(directory)).andReturn(createDirectoryAttributes());
+		expect(sftpChannel.stat(fileInDirectory)).andThrow(noSuchFile());
+		expect(sftpChannel.stat(fileInDirectory + ".part")).andThrow(noSuchFile());
+		expectUpload(fileInDirectory + ".part", ChannelSftp.OVERWRITE, 10);
+		sftpChannel.rename(fileInDirectory + ".part", fileInDirectory);
+		replay(sftpChannel);
+
+		SftpATTRS remote = command.resolveRemoteFile(sftpChannel, localFile);
+		assertEquals(null, remote);
+		assertEquals(fileInDirectory, command.remoteFile);
+		command.upload(sftpChannel, localFile, remote);
+		verify(sftpChannel);
+	}
+
+	/**
+	 * Test that a remote file which isn't a directory is resolved unchanged.
+	 */
+	@Test
+	public void testRemoteFileIsResolvedUnchanged() throws Exception {
+		SftpATTRS remote = createAttributes(3, 0);
+		expect(sftpChannel.stat(REMOTE_FILE)).andReturn(remote);
+		replay(sftpChannel);
+
+		assertEquals(remote, command.resolveRemoteFile(sftpChannel, localFile));
+		assertEquals(REMOTE_FILE, command.remoteFile);
+		verify(sftpChannel);
+	}
+
+	/**
+	 * Test that the directory in a remote directory which contains a directory
+	 * with the name of the local file is resolved, so the copy can be refused.
+	 */
+	@Test
+	public void testDirectoryInRemoteDirectoryIsResolved() throws Exception {
+		String directory = "/tmp/remote-dir/";
+		String fileInDirectory = directory + localFile.getName();
+		command.remoteFile = directory;
+		expect(sftpChannel.stat(directory)).andReturn(createDirectoryAttributes());
+		expect(sftpChannel.stat(fileInDirectory)).andReturn(createDirectoryAttributes());
+		replay(sftpChannel);
+
+		assertTrue(command.resolveRemoteFile(sftpChannel, localFile).isDir());
+		assertEquals(fileInDirectory, command.remoteFile);
+		verify(sftpChannel);
+	}
+
+	/**
+	 * Test that stat returns null for a missing file and rethrows other errors.
+	 */
+	@Test(expected = SftpException.class)
+	public void testStatRethrowsOtherErrors() throws Exception {
+		expect(sftpChannel.stat(REMOTE_FILE)).andThrow(new SftpException(ChannelSftp.SSH_FX_NO_SUCH_FILE, "missing"));
+		expect(sftpChannel.stat(PARTIAL_FILE))
+				.andThrow(new SftpException(ChannelSftp.SSH_FX_PERMISSION_DENIED, "denied"));
+		replay(sftpChannel);
+
+		assertEquals(null, command.stat(sftpChannel, REMOTE_FILE));
+		command.stat(sftpChannel, PARTIAL_FILE);
+	}
+
+}
@@ -0,0 +1,286 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+* Copyright (C) 2007-2015 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package com.alpha.pineapple.plugin.ssh.operation;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.getCurrentArguments;
+import static org.easymock.EasyMock.isA;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.alpha.pineapple.execution.ExecutionResult;
+import com.alpha.pineapple.execution.ExecutionResultImpl;
+import com.alpha.pineapple.i18n.MessageProvider;
+import com.alpha.pineapple.plugin.PluginExecutionFailedException;
+import com.alpha.pineapple.plugin.ssh.model.Barrier;
+import com.alpha.pineapple.plugin.ssh.model.Execute;
+import com.alpha.pineapple.plugin.ssh.model.Ssh;
+import com.alpha.pineapple.plugin.ssh.model.SshCommand;
+import com.alpha.pineapple.plugin.ssh.session.SshSession;
+
+/**
+ * Unit test of the processing of commands in the {@linkplain DefaultOperation}
+ * class.
+ */
+public class DefaultOperationTest {
+
+	/**
+	 * Maximum number of channels.
+	 */
+	static final int MAX_CHANNELS = 2;
+
+	/**
+	 * Object under test.
+	 */
+	RecordingOperation operation;
+
+	/**
+	 * Executor.
+	 */
+	ThreadPoolTaskExecutor executor;
+
+	/**
+	 * Mock SSH session.
+	 */
+	SshSession session;
+
+	/**
+	 * Execution result.
+	 */
+	ExecutionResult result;
+
+	/**
+	 * Operation which records the executed commands instead of executing them.
+	 */
+	static class RecordingOperation extends DefaultOperation {
+
+		/**
+		 * Executed commands.
+		 */
+		List<String> executed = Collections.synchronizedList(new ArrayList<String>());
+
+		/**
+		 * Number of running commands.
+		 */
+		AtomicInteger running = new AtomicInteger();
+
+		/**
+		 * Maximum number of concurrently running commands.
+		 */
+		AtomicInteger maxRunning = new AtomicInteger();
+
+		/**
+		 * Execution time of each command in ms.
+		 */
+		long executionTime = 0;
+
+		/**
+		 * Command which is executed slowly.
+		 */
+		String slowCommand;
+
+		/**
+		 * Command which fails.
+		 */
+		String failingCommand;
+
+		@Override
+		void executeCommand(SshSession session, SshCommand command, ExecutionResult commandResult) {
+			if (command instanceof Barrier)
+				return;
+			String commandAsString = ((Execute) command).getCommand();
+			if (commandAsString.equals(failingCommand))
+				throw new IllegalStateException(commandAsString);
+			int current = running.incrementAndGet();
+			maxRunning.accumulateAndGet(current, Math::max);
+			try {
+				long delay = commandAsString.equals(slowCommand) ? executionTime * 5 : executionTime;
+				TimeUnit.MILLISECONDS.sleep(delay);
+				executed.add(commandAsString);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				running.decrementAndGet();
+			}
+		}
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(8);
+		executor.setMaxPoolSize(8);
+		executor.initialize();
+
+		MessageProvider messageProvider = createMock(MessageProvider.class);
+		expect(messageProvider.getMessage(isA(String.class), (Object[]) anyObject()))
+				.andAnswer(() -> ((Object[]) getCurrentArguments()[1])[0].toString()).anyTimes();
+		replay(messageProvider);
+
+		operation = new RecordingOperation();
+		operation.sshChannelExecutor = executor;
+		operation.messageProvider = messageProvider;
+
+		session = createMock(SshSession.class);
+		expect(session.getMaxChannels()).andReturn(MAX_CHANNELS).anyTimes();
+		replay(session);
+
+		result = new ExecutionResultImpl("root");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		executor.shutdown();
+	}
+
+	/**
+	 * Create model.
+	 * 
+	 * @param parallel
+	 *            parallel flag.
+	 * @param commands
+	 *            commands, where "|" defines a barrier.
+	 * 
+	 * @return model.
+	 */
+	Ssh createModel(boolean parallel, String... commands) {
+		Ssh model = new Ssh();
+		model.setParallel(parallel);
+		for (String command : commands) {
+			if ("|".equals(command)) {
+				model.getCommands().add(new Barrier());
+				continue;
+			}
+			Execute execute = new Execute();
+			execute.setCommand(command);
+			model.getCommands().add(execute);
+		}
+		return model;
+	}
+
+	/**
+	 * Test that commands are executed one at a time in model order by default.
+	 */
+	@Test
+	public void testExecutesCommandsSequentiallyByDefault() throws Exception {
+		operation.executionTime = 10;
+		operation.processModel(createModel(false, "a", "b", "|", "c"), session, result);
+		assertEquals(3, operation.executed.size());
+		assertEquals("a", operation.executed.get(0));
+		assertEquals("b", operation.executed.get(1));
+		assertEquals("c", operation.executed.get(2));
+		assertEquals(1, operation.maxRunning.get());
+	}
+
+	/**
+	 * Test that the number of concurrent commands is bounded by the maximum
+	 * number of channels of the session and that the executor isn't resized.
+	 */
+	@Test
+	public void testConcurrentCommandsAreBoundedByMaxChannels() throws Exception {
+		operation.executionTime = 50;
+		operation.processModel(createModel(true, "a", "b", "c", "d", "e", "f"), session, result);
+		assertEquals(6, operation.executed.size());
+		assertEquals(MAX_CHANNELS, operation.maxRunning.get());
+		assertEquals(8, executor.getMaxPoolSize());
+		assertEquals(8, executor.getCorePoolSize());
+	}
+
+	/**
+	 * Test that the results of the commands are added in model order, regardless
+	 * of the order in which the commands complete.
+	 */
+	@Test
+	public void testCommandResultsAreAddedInModelOrder() throws Exception {
+		operation.executionTime = 20;
+		operation.slowCommand = "a";
+		operation.processModel(createModel(true, "a", "b"), session, result);
+		assertEquals("b", operation.executed.get(0));
+		assertEquals("a", operation.executed.get(1));
+		ExecutionResult[] children = result.getChildren();
+		assertEquals(2, children.length);
+		assertEquals("a", children[0].getDescription());
+		assertEquals("b", children[1].getDescription());
+	}
+
+	/**
+	 * Test that the remaining commands are cancelled if a command fails.
+	 */
+	@Test
+	public void testFailedCommandCancelsRemainingCommands() throws Exception {
+		operation.executionTime = 1000;
+		operation.failingCommand = "a";
+		try {
+			operation.processModel(createModel(true, "a", "b"), session, result);
+			fail();
+		} catch (PluginExecutionFailedException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+		TimeUnit.MILLISECONDS.sleep(100);
+		assertEquals(0, operation.running.get());
+		assertTrue(operation.executed.isEmpty());
+	}
+
+	/**
+	 * Test that a barrier waits for completion of the preceding commands.
+	 */
+	@Test
+	public void testBarrierSeparatesPhases() throws Exception {
+		operation.executionTime = 20;
+		operation.processModel(createModel(true, "a1", "a2", "a3", "|", "b1", "b2", "|", "|", "c1"), session, result);
+		assertEquals(6, operation.executed.size());
+		for (int i = 0; i < 3; i++)
+			assertTrue(operation.executed.get(i).startsWith("a"));
+		for (int i = 3; i < 5; i++)
+			assertTrue(operation.executed.get(i).startsWith("b"));
+		assertEquals("c1", operation.executed.get(5));
+	}
+
+	/**
+	 * Test that the calling thread waits for the last phase to complete.
+	 */
+	@Test
+	public void testWaitsForCompletionOfLastPhase() throws Exception {
+		operation.executionTime = 100;
+		operation.processModel(createModel(true, "a", "b"), session, result);
+		assertEquals(2, operation.executed.size());
+		assertEquals(0, operation.running.get());
+	}
+
+}
@@ -0,0 +1,209 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+* Copyright (C) 2007-2015 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package com.alpha.pineapple.plugin.ssh.session;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alpha.pineapple.i18n.PropertyFileMessageProviderImpl;
+import com.alpha.pineapple.model.configuration.Credential;
+import com.alpha.pineapple.model.configuration.Property;
+import com.alpha.pineapple.model.configuration.Resource;
+import com.alpha.pineapple.session.SessionConnectException;
+import com.alpha.pineapple.session.SessionException;
+import com.jcraft.jsch.Channel;
+import com.jcraft.jsch.ChannelExec;
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+
+/**
+ * Unit test of the channel permits in the {@linkplain SshSessionImpl} class.
+ */
+public class SshSessionImplTest {
+
+	/**
+	 * Object under test.
+	 */
+	SshSessionImpl session;
+
+	/**
+	 * Mock JSch session.
+	 */
+	Session jschSession;
+
+	/**
+	 * Executor for opening channels from another thread.
+	 */
+	ExecutorService executor;
+
+	@Before
+	public void setUp() throws Exception {
+		PropertyFileMessageProviderImpl messageProvider = new PropertyFileMessageProviderImpl();
+		messageProvider.setBasename("com.alpha.pineapple.plugin.ssh-messages");
+
+		jschSession = createMock(Session.class);
+		expect(jschSession.isConnected()).andReturn(true).anyTimes();
+
+		session = new SshSessionImpl();
+		session.messageProvider = messageProvider;
+		session.sshSession = jschSession;
+		session.channelPermits = new Semaphore(1);
+
+		executor = Executors.newSingleThreadExecutor();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Create mock EXEC channel.
+	 * 
+	 * @return mock EXEC channel.
+	 */
+	ChannelExec createChannel() {
+		ChannelExec channel = createNiceMock(ChannelExec.class);
+		replay(channel);
+		return channel;
+	}
+
+	/**
+	 * Test that nested channels opened by a thread only use one permit.
+	 */
+	@Test
+	public void testNestedChannelsUseOnePermit() throws Exception {
+		expect(jschSession.openChannel(SshSessionImpl.EXEC_CHANNEL_ID)).andReturn(createChannel());
+		expect(jschSession.openChannel(SshSessionImpl.EXEC_CHANNEL_ID)).andReturn(createChannel());
+		replay(jschSession);
+
+		Channel outer = session.getExecuteChannel();
+		Channel inner = session.getExecuteChannel();
+		assertEquals(0, session.channelPermits.availablePermits());
+
+		session.closeChannel(inner);
+		assertEquals(0, session.channelPermits.availablePermits());
+		session.closeChannel(outer);
+		assertEquals(1, session.channelPermits.availablePermits());
+	}
+
+	/**
+	 * Test that a thread waits for a permit until another thread closes its
+	 * channel.
+	 */
+	@Test
+	public void testChannelWaitsForPermit() throws Exception {
+		expect(jschSession.openChannel(SshSessionImpl.EXEC_CHANNEL_ID)).andReturn(createChannel()).times(2);
+		replay(jschSession);
+
+		Channel channel = session.getExecuteChannel();
+		Future<ChannelExec> waiting = executor.submit(() -> session.getExecuteChannel());
+		TimeUnit.MILLISECONDS.sleep(100);
+		assertFalse(waiting.isDone());
+
+		session.closeChannel(channel);
+		session.closeChannel(waiting.get(1, TimeUnit.SECONDS));
+		assertEquals(1, session.channelPermits.availablePermits());
+	}
+
+	/**
+	 * Test that the permit is released if the channel can't be opened.
+	 */
+	@Test
+	public void testPermitIsReleasedIfChannelCreationFails() throws Exception {
+		expect(jschSession.openChannel(SshSessionImpl.EXEC_CHANNEL_ID)).andThrow(new JSchException("failed"));
+		replay(jschSession);
+
+		try {
+			session.getExecuteChannel();
+			fail();
+		} catch (SessionException e) {
+			assertEquals(1, session.channelPermits.availablePermits());
+		}
+	}
+
+	/**
+	 * Test that closing an unknown channel doesn't release a permit.
+	 */
+	@Test
+	public void testClosingUnknownChannelDoesntReleasePermit() throws Exception {
+		replay(jschSession);
+		session.closeChannel(createChannel());
+		session.closeChannel(null);
+		assertEquals(1, session.channelPermits.availablePermits());
+	}
+
+	/**
+	 * Test that reconnect keeps the permits held by threads with open channels.
+	 */
+	@Test
+	public void testReconnectKeepsChannelPermits() throws Exception {
+		expect(jschSession.openChannel(SshSessionImpl.EXEC_CHANNEL_ID)).andReturn(createChannel());
+		replay(jschSession);
+		JSch jsch = createMock(JSch.class);
+		expect(jsch.getSession("user", "localhost", 22)).andThrow(new JSchException("failed"));
+		replay(jsch);
+		session.jsch = jsch;
+		Semaphore permits = session.channelPermits;
+
+		Resource resource = new Resource();
+		resource.setId("ssh-resource");
+		Property property = new Property();
+		property.setKey("host");
+		property.setValue("localhost");
+		resource.getProperty().add(property);
+		Credential credential = new Credential();
+		credential.setId("ssh-credential");
+		credential.setUser("user");
+		credential.setPassword("password");
+
+		Channel channel = session.getExecuteChannel();
+		try {
+			session.connect(resource, credential);
+			fail();
+		} catch (SessionConnectException e) {
+			assertSame(permits, session.channelPermits);
+		}
+
+		session.closeChannel(channel);
+		assertEquals(1, session.channelPermits.availablePermits());
+	}
+
+}
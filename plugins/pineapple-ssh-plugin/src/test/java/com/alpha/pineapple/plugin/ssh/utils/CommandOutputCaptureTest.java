@@ -0,0 +1,268 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+* Copyright (C) 2007-2015 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package com.alpha.pineapple.plugin.ssh.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alpha.pineapple.i18n.PropertyFileMessageProviderImpl;
+
+/**
+ * Unit test of the {@linkplain CommandOutputCapture} class.
+ */
+public class CommandOutputCaptureTest {
+
+	/**
+	 * Message provider.
+	 */
+	PropertyFileMessageProviderImpl messageProvider;
+
+	/**
+	 * Published content.
+	 */
+	List<String> published;
+
+	@Before
+	public void setUp() throws Exception {
+		messageProvider = new PropertyFileMessageProviderImpl();
+		messageProvider.setBasename("com.alpha.pineapple.plugin.ssh-messages");
+		published = new ArrayList<String>();
+	}
+
+	/**
+	 * Create capture which records published content.
+	 * 
+	 * @param captureSize
+	 *            capture size.
+	 * @param publishInterval
+	 *            publish interval in ms.
+	 * 
+	 * @return capture.
+	 */
+	CommandOutputCapture createCapture(int captureSize, long publishInterval) {
+		return new CommandOutputCapture(captureSize, publishInterval, capture -> published.add(capture.getContent()),
+				messageProvider);
+	}
+
+	/**
+	 * Write string to capture.
+	 */
+	void write(CommandOutputCapture capture, String output) {
+		byte[] bytes = output.getBytes(StandardCharsets.UTF_8);
+		capture.write(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * Test that output smaller than the capture size is captured.
+	 */
+	@Test
+	public void testCapturesOutputSmallerThanCaptureSize() {
+		CommandOutputCapture capture = createCapture(100, 0);
+		write(capture, "line1\n");
+		write(capture, "line2\n");
+		assertEquals("line1\nline2\n", capture.getContent());
+		assertEquals(12, capture.getSize());
+		assertFalse(capture.isTruncated());
+	}
+
+	/**
+	 * Test that output which overflows the head is captured in the tail.
+	 */
+	@Test
+	public void testCapturesOutputWhichFillsHeadAndTail() {
+		CommandOutputCapture capture = createCapture(10, 0);
+		write(capture, "0123456789");
+		assertEquals("0123456789", capture.getContent());
+		assertFalse(capture.isTruncated());
+	}
+
+	/**
+	 * Test that output larger than the capture size is truncated in the middle.
+	 */
+	@Test
+	public void testTruncatesOutputLargerThanCaptureSize() {
+		CommandOutputCapture capture = createCapture(10, 0);
+		write(capture, "01234");
+		write(capture, "abc");
+		write(capture, "defg");
+		write(capture, "hij");
+
+		assertEquals(15, capture.getSize());
+		assertEquals(5, capture.getOmittedSize());
+		assertTrue(capture.isTruncated());
+		String content = capture.getContent();
+		assertTrue(content.startsWith("01234"));
+		assertTrue(content.contains("5 bytes"));
+		assertTrue(content.endsWith("fghij"));
+	}
+
+	/**
+	 * Test that a single write larger than the tail retains the last bytes.
+	 */
+	@Test
+	public void testTruncatesSingleLargeWrite() {
+		CommandOutputCapture capture = createCapture(10, 0);
+		write(capture, "0123456789abcdefghij");
+		String content = capture.getContent();
+		assertTrue(content.startsWith("01234"));
+		assertTrue(content.endsWith("fghij"));
+		assertEquals(10, capture.getOmittedSize());
+	}
+
+	/**
+	 * Test that a character which spans the head and tail is decoded when no
+	 * bytes were discarded.
+	 */
+	@Test
+	public void testDecodesCharacterSpanningHeadAndTail() {
+		CommandOutputCapture capture = createCapture(6, 0);
+		write(capture, "ab\u00e6\u00f8");
+		assertEquals("ab\u00e6\u00f8", capture.getContent());
+		assertFalse(capture.isTruncated());
+	}
+
+	/**
+	 * Test that truncated output is trimmed to character boundaries.
+	 */
+	@Test
+	public void testTrimsTruncatedOutputToCharacterBoundaries() {
+		CommandOutputCapture capture = createCapture(6, 0);
+		write(capture, "ab\u00e6\u00f8\u00e5xy\u20acz");
+
+		// head is "ab" and the first byte of the third character, tail is the
+		// last two bytes of the euro sign and "z"
+		assertEquals(14, capture.getSize());
+		assertEquals(8, capture.getOmittedSize());
+		String content = capture.getContent();
+		assertTrue(content.startsWith("ab" + CommandOutputCapture.LINE_SEPARATOR));
+		assertTrue(content.contains("11 bytes"));
+		assertFalse(content.contains("\ufffd"));
+		assertTrue(content.endsWith(CommandOutputCapture.LINE_SEPARATOR + "z"));
+	}
+
+	/**
+	 * Test that only the first of concurrent invocations of close publishes.
+	 */
+	@Test
+	public void testConcurrentCloseIsAtomic() throws Exception {
+		for (int i = 0; i < 100; i++) {
+			published.clear();
+			CommandOutputCapture capture = new CommandOutputCapture(100, 0, c -> {
+				synchronized (published) {
+					published.add(c.getContent());
+				}
+			}, messageProvider);
+			Thread first = new Thread(() -> capture.close());
+			Thread second = new Thread(() -> capture.close());
+			first.start();
+			second.start();
+			first.join();
+			second.join();
+			assertEquals(1, published.size());
+		}
+	}
+
+	/**
+	 * Test that single bytes are captured.
+	 */
+	@Test
+	public void testCapturesSingleBytes() {
+		CommandOutputCapture capture = createCapture(4, 0);
+		for (char c : "abcdef".toCharArray())
+			capture.write(c);
+		String content = capture.getContent();
+		assertTrue(content.startsWith("ab"));
+		assertTrue(content.endsWith("ef"));
+		assertEquals(2, capture.getOmittedSize());
+	}
+
+	/**
+	 * Test that content is published when lines are completed.
+	 */
+	@Test
+	public void testPublishesCompletedLines() {
+		CommandOutputCapture capture = createCapture(100, 0);
+		write(capture, "line1");
+		assertTrue(published.isEmpty());
+		write(capture, "\nline2");
+		assertEquals(1, published.size());
+		assertEquals("line1\nline2", published.get(0));
+	}
+
+	/**
+	 * Test that publication is throttled by the publish interval.
+	 */
+	@Test
+	public void testThrottlesPublication() {
+		CommandOutputCapture capture = createCapture(100, TimeUnit.HOURS.toMillis(1));
+		write(capture, "line1\n");
+		write(capture, "line2\n");
+		assertTrue(published.isEmpty());
+	}
+
+	/**
+	 * Test that close publishes final content and releases waiting threads.
+	 */
+	@Test
+	public void testClosePublishesAndReleasesWait() throws Exception {
+		CommandOutputCapture capture = createCapture(100, TimeUnit.HOURS.toMillis(1));
+		write(capture, "line1\n");
+		assertFalse(capture.awaitClose(1));
+		assertFalse(capture.isClosed());
+
+		Thread closer = new Thread(() -> capture.close());
+		closer.start();
+		assertTrue(capture.awaitClose(TimeUnit.SECONDS.toMillis(10)));
+		closer.join();
+
+		assertTrue(capture.isClosed());
+		assertEquals(1, published.size());
+		assertEquals("line1\n", published.get(0));
+
+		// second close is ignored
+		capture.close();
+		assertEquals(1, published.size());
+	}
+
+	/**
+	 * Test that capture size zero discards all output.
+	 */
+	@Test
+	public void testCaptureSizeZeroDiscardsOutput() {
+		CommandOutputCapture capture = createCapture(0, 0);
+		write(capture, "line1\n");
+		assertEquals(6, capture.getOmittedSize());
+		assertEquals("", capture.getContent());
+	}
+
+}
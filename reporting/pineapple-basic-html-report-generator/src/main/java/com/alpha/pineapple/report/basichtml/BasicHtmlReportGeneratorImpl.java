@@ -28,38 +28,49 @@ import static com.alpha.pineapple.execution.ExecutionResult.MSG_ERROR_MESSAGE;
 import static com.alpha.pineapple.execution.ExecutionResult.MSG_MESSAGE;
 import static com.alpha.pineapple.execution.ExecutionResult.MSG_REPORT;
 import static com.alpha.pineapple.execution.ExecutionResult.ExecutionState.EXECUTING;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 import static javax.xml.transform.OutputKeys.ENCODING;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.annotation.Resource;
-import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.bind.util.JAXBSource;
 import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
 import org.apache.log4j.Logger;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
-import org.w3c.dom.Document;
+import org.springframework.core.task.TaskExecutor;
 
 import com.alpha.pineapple.execution.ExecutionResult;
 import com.alpha.pineapple.execution.ExecutionResultNotification;
 import com.alpha.pineapple.execution.ResultListener;
 import com.alpha.pineapple.i18n.MessageProvider;
+import com.alpha.pineapple.model.JAXBContextRegistry;
 import com.alpha.pineapple.model.report.basichtml.ObjectFactory;
 import com.alpha.pineapple.model.report.basichtml.Report;
 import com.alpha.pineapple.model.report.basichtml.Result;
@@ -117,6 +128,11 @@ public class BasicHtmlReportGeneratorImpl implements ResultListener, ReportGener
 	 */
 	static final String REPORT_HTML = "basic-report.html";
 
+	/**
+	 * Suffix of HTML report file while it is being rendered.
+	 */
+	static final String PARTIAL_FILE_SUFFIX = ".part";
+
 	/**
 	 * HTML output encoding.
 	 */
@@ -137,6 +153,18 @@ public class BasicHtmlReportGeneratorImpl implements ResultListener, ReportGener
 	 */
 	DateFormat timestampFormat;
 
+	/**
+	 * Compiled style sheet. Is compiled on first use and shared by all
+	 * renderings.
+	 */
+	volatile Templates templates;
+
+	/**
+	 * Reports which are currently being rendered, indexed by report ID.
+	 */
+	final ConcurrentMap<String, CompletableFuture<Boolean>> pendingReports =
+			new ConcurrentHashMap<String, CompletableFuture<Boolean>>();
+
 	/**
 	 * JAXB factory.
 	 */
@@ -155,12 +183,24 @@ public class BasicHtmlReportGeneratorImpl implements ResultListener, ReportGener
 	@Resource
 	Mapper mapper;
 
+	/**
+	 * JAXB context registry.
+	 */
+	@Resource
+	JAXBContextRegistry jaxbContextRegistry;
+
 	/**
 	 * Message provider for I18N support.
 	 */
 	@Resource(name = "reportMessageProvider")
 	MessageProvider messageProvider;
 
+	/**
+	 * Executor which renders reports.
+	 */
+	@Resource
+	TaskExecutor reportRenderingExecutor;
+
 	/**
 	 * BasicHtmlReportGenerator no-arg constructor.
 	 */
@@ -198,95 +238,205 @@ public class BasicHtmlReportGeneratorImpl implements ResultListener, ReportGener
 	}
 
 	public void notify(ExecutionResultNotification notification) {
+		generateReport(notification);
+	}
+
+	@Override
+	public CompletableFuture<Boolean> generateReport(ExecutionResultNotification notification) {
 
 		// determine if execution is completed
 		if (!isExecutionCompleted(notification))
-			return;
+			return null;
 
-		// create XML report
-		File xmlReport = createXmlReport(notification.getResult());
+		// create directory for this report
+		ExecutionResult result = notification.getResult();
+		File newReportDir = createReportInstanceDirectory();
+
+		// map result to report model while the result is stable
+		Report reportRoot = createReport(result);
+
+		// add report message to result
+		result.addMessage(MSG_REPORT, newReportDir.getName());
 
-		// create HTML report from XML file
-		transformToHtml(xmlReport, notification.getResult());
+		// render report files asynchronously
+		return scheduleRendering(reportRoot, newReportDir, result);
+	}
+
+	@Override
+	public boolean awaitReport(String reportId, long timeout) throws InterruptedException {
+		notNull(reportId, "reportId is undefined");
+
+		// exit if report isn't pending
+		CompletableFuture<Boolean> rendering = pendingReports.get(reportId);
+		if (rendering == null)
+			return true;
+
+		try {
+			rendering.get(timeout, TimeUnit.MILLISECONDS);
+			return true;
+		} catch (TimeoutException e) {
+			return false;
+		} catch (ExecutionException | CancellationException e) {
+			// rendering failures are reported in the execution result
+			return true;
+		}
 	}
 
 	/**
-	 * Transform XML report to HTML report.
+	 * Schedule rendering of the report files on the report rendering executor.
+	 * The report is registered as pending until the rendering is completed.
 	 * 
-	 * @param xmlReport       File name of the XML report.
+	 * @param reportRoot      Report model.
+	 * @param reportDir       Directory for this report.
 	 * @param executionResult root execution result.
+	 * 
+	 * @return future which is completed with true when the report is rendered,
+	 *         or with false if the rendering failed.
 	 */
-	void transformToHtml(File xmlReport, ExecutionResult executionResult) {
-
-		// define report directory for this report
-		File newReportDir = xmlReport.getParentFile();
+	CompletableFuture<Boolean> scheduleRendering(Report reportRoot, File reportDir, ExecutionResult executionResult) {
+		final String reportId = reportDir.getName();
 
-		// create HTML file name.
-		File htmlReport = new File(newReportDir, REPORT_HTML);
+		// register rendering which unregisters itself when it is done
+		final CompletableFuture<Boolean> rendering = new CompletableFuture<Boolean>();
+		pendingReports.put(reportId, rendering);
+		rendering.whenComplete((rendered, e) -> pendingReports.remove(reportId, rendering));
 
 		// log debug message
 		if (logger.isDebugEnabled()) {
-			String message = messageProvider.get("bhrg.start_html_transform", xmlReport.getAbsolutePath(), REPORT_XSL,
-					htmlReport);
+			String message = messageProvider.get("bhrg.schedule_rendering", reportId);
 			logger.debug(message);
 		}
 
-		try {
+		reportRenderingExecutor.execute(() -> {
+			try {
+				rendering.complete(renderReport(reportRoot, reportDir, executionResult));
+			} catch (Throwable e) {
+				rendering.completeExceptionally(e);
+			}
+		});
+		return rendering;
+	}
+
+	/**
+	 * Render the XML and HTML report files from the report model.
+	 * 
+	 * @param reportRoot      Report model.
+	 * @param reportDir       Directory for this report.
+	 * @param executionResult root execution result.
+	 * 
+	 * @return true if the HTML report is rendered.
+	 */
+	boolean renderReport(Report reportRoot, File reportDir, ExecutionResult executionResult) {
 
-			// load XML report as DOM
-			DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-			dbFactory.setNamespaceAware(true);
-			DocumentBuilder documentBuilder = dbFactory.newDocumentBuilder();
-			Document xmlDoc = documentBuilder.parse(xmlReport);
-			DOMSource dom = new DOMSource(xmlDoc);
+		// create XML report
+		jaxbMarshall(reportRoot, new File(reportDir, REPORT_XML));
 
-			// create XSLT transformer factory
-			TransformerFactory factory = TransformerFactory.newInstance();
+		// create HTML report from report model
+		return transformToHtml(reportRoot, reportDir, executionResult);
+	}
 
-			// get style sheet from class loader
-			InputStream xslStream = this.getClass().getResourceAsStream(REPORT_XSL);
+	/**
+	 * Transform report model to HTML report. The report model is streamed
+	 * directly into the compiled style sheet. The HTML report is written to a
+	 * partial file which is renamed when the transformation is completed.
+	 * 
+	 * @param reportRoot      Report model.
+	 * @param reportDir       Directory for this report.
+	 * @param executionResult root execution result.
+	 * 
+	 * @return true if the HTML report is rendered.
+	 */
+	boolean transformToHtml(Report reportRoot, File reportDir, ExecutionResult executionResult) {
 
-			// create streams
-			StreamSource xsl = new StreamSource(xslStream);
-			StreamResult html = new StreamResult(htmlReport);
+		// create HTML file names
+		File htmlReport = new File(reportDir, REPORT_HTML);
+		File partialHtmlReport = new File(reportDir, REPORT_HTML + PARTIAL_FILE_SUFFIX);
 
-			// create XSLT transformer
-			Transformer transformer = factory.newTransformer(xsl);
+		// log debug message
+		if (logger.isDebugEnabled()) {
+			String message = messageProvider.get("bhrg.start_html_transform", reportRoot, REPORT_XSL, htmlReport);
+			logger.debug(message);
+		}
+
+		try {
+
+			// create source from report model
+			JAXBSource source = new JAXBSource(createMarshaller(reportRoot), reportRoot);
+
+			// create XSLT transformer from compiled style sheet
+			Transformer transformer = getTemplates().newTransformer();
 			transformer.setOutputProperty(ENCODING, UTF_8);
 			transformer.setOutputProperty(OutputKeys.METHOD, "html");
 
 			// transform
-			transformer.transform(dom, html);
+			try (OutputStream os = new BufferedOutputStream(new FileOutputStream(partialHtmlReport))) {
+				transformer.transform(source, new StreamResult(os));
+			}
+			Files.move(partialHtmlReport.toPath(), htmlReport.toPath(), REPLACE_EXISTING);
 
 			// log debug message
 			String message = messageProvider.get("bhrg.completed_html_transform", htmlReport);
 			if (logger.isDebugEnabled())
 				logger.debug(message);
 
-			// add report message to result
-			executionResult.addMessage(MSG_REPORT, newReportDir.getName());
+			// add message to result
 			executionResult.addMessage(MSG_MESSAGE, message);
+			return true;
 
 		} catch (Exception e) {
 			String message = messageProvider.get("bhrg.failed_html_transform", getStrackTrace(e));
 			logger.error(message);
 
+			// delete partial report
+			partialHtmlReport.delete();
+
 			// post error in execution result
 			executionResult.addMessage(MSG_ERROR_MESSAGE, message);
+			return false;
 		}
 	}
 
 	/**
-	 * Create report in an XML document.
+	 * Get compiled style sheet. The style sheet is compiled on first invocation.
 	 * 
-	 * @param result Root execution result object.
+	 * @return compiled style sheet.
 	 * 
-	 * @return File which contains the name of the XML document.
+	 * @throws TransformerConfigurationException if compilation of the style sheet
+	 *                                           fails.
+	 * @throws IOException                       if the style sheet can't be read.
 	 */
-	File createXmlReport(ExecutionResult result) {
+	Templates getTemplates() throws TransformerConfigurationException, IOException {
+		Templates compiled = templates;
+		if (compiled != null)
+			return compiled;
+
+		synchronized (this) {
+			if (templates == null) {
+
+				// get style sheet from class loader and compile it
+				try (InputStream xslStream = this.getClass().getResourceAsStream(REPORT_XSL)) {
+					TransformerFactory factory = TransformerFactory.newInstance();
+					templates = factory.newTemplates(new StreamSource(xslStream));
+				}
 
-		// create directory for this report
-		File newReportDir = createReportInstanceDirectory();
+				// log debug message
+				if (logger.isDebugEnabled()) {
+					String message = messageProvider.get("bhrg.compiled_stylesheet", REPORT_XSL);
+					logger.debug(message);
+				}
+			}
+			return templates;
+		}
+	}
+
+	/**
+	 * Create report model from execution result.
+	 * 
+	 * @param result Root execution result object.
+	 * 
+	 * @return report model.
+	 */
+	Report createReport(ExecutionResult result) {
 
 		// create report root object
 		Report reportRoot = mapper.createReport();
@@ -302,13 +452,7 @@ public class BasicHtmlReportGeneratorImpl implements ResultListener, ReportGener
 			mapper.mapModelToReport(operationReportResult, childResult);
 		}
 
-		// create report file name
-		File reportFile = new File(newReportDir, REPORT_XML);
-
-		// marshall to XML file
-		jaxbMarshall(reportRoot, reportFile);
-
-		return reportFile;
+		return reportRoot;
 	}
 
 	/**
@@ -373,36 +517,21 @@ public class BasicHtmlReportGeneratorImpl implements ResultListener, ReportGener
 		OutputStream os = null;
 
 		try {
-			// get package name
-			String packageName = rootObject.getClass().getPackage().getName();
-
 			// log debug message
 			if (logger.isDebugEnabled()) {
+				String packageName = rootObject.getClass().getPackage().getName();
 				Object[] args = { rootObject, file.getAbsolutePath(), packageName };
 				String message = messageProvider.getMessage("bhrg.start_marshal", args);
 				logger.debug(message);
 			}
 
-			JAXBContext jaxbContext = JAXBContext.newInstance(packageName);
-			Marshaller marshaller = jaxbContext.createMarshaller();
-
-			// set prefix mapper if it is defined
-			if (prefixMapper != null) {
-
-				// log debug message
-				if (logger.isDebugEnabled()) {
-					String message = messageProvider.get("bhrg.set_prefixmapper", prefixMapper);
-					logger.debug(message);
-				}
-
-				marshaller.setProperty("com.sun.xml.bind.namespacePrefixMapper", prefixMapper);
-			}
+			Marshaller marshaller = createMarshaller(rootObject);
 
 			// set pretty print and encoding
 			marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
 			marshaller.setProperty(Marshaller.JAXB_ENCODING, UTF_8);
 
-			os = new FileOutputStream(file);
+			os = new BufferedOutputStream(new FileOutputStream(file));
 			marshaller.marshal(rootObject, os);
 			os.close();
 		} catch (Exception e) {
@@ -425,6 +554,35 @@ public class BasicHtmlReportGeneratorImpl implements ResultListener, ReportGener
 		}
 	}
 
+	/**
+	 * Get marshaller for the package of the root object. The marshaller is
+	 * configured with the namespace prefix mapper if it is defined.
+	 * 
+	 * @param rootObject Root object of object graph which should be marshalled.
+	 * 
+	 * @return marshaller for the package of the root object.
+	 * 
+	 * @throws JAXBException if marshaller creation fails.
+	 */
+	Marshaller createMarshaller(Object rootObject) throws JAXBException {
+		String packageName = rootObject.getClass().getPackage().getName();
+		Marshaller marshaller = jaxbContextRegistry.getMarshaller(packageName);
+
+		// set prefix mapper if it is defined
+		if (prefixMapper != null) {
+
+			// log debug message
+			if (logger.isDebugEnabled()) {
+				String message = messageProvider.get("bhrg.set_prefixmapper", prefixMapper);
+				logger.debug(message);
+			}
+
+			marshaller.setProperty("com.sun.xml.bind.namespacePrefixMapper", prefixMapper);
+		}
+
+		return marshaller;
+	}
+
 	public File getCurrentReportDirectory() {
 		return reportDirectory;
 	}
@@ -23,6 +23,9 @@
 package com.alpha.pineapple.report.basichtml;
 
 import java.io.File;
+import java.util.concurrent.CompletableFuture;
+
+import com.alpha.pineapple.execution.ExecutionResultNotification;
 
 /**
  * Provides information about the report generation process.
@@ -45,4 +48,35 @@ public interface ReportGeneratorInfo {
 	 */
 	public void setReportDirectory(File reportDirectory);
 
+	/**
+	 * Generate report for a completed execution. The report ID is added to the
+	 * root execution result with the report message before the method returns.
+	 * The report files are rendered asynchronously.
+	 * 
+	 * @param notification
+	 *            execution result notification.
+	 * 
+	 * @return future which is completed with true when the report is rendered,
+	 *         or with false if the rendering failed. Returns null if the
+	 *         notification doesn't signal a completed execution.
+	 */
+	public CompletableFuture<Boolean> generateReport(ExecutionResultNotification notification);
+
+	/**
+	 * Wait for the asynchronous rendering of a report to complete.
+	 * 
+	 * @param reportId
+	 *            ID of the report, as added to the root execution result
+	 *            with the report message.
+	 * @param timeout
+	 *            Maximum time to wait in milliseconds.
+	 * 
+	 * @return true if the report is rendered or isn't pending. Returns false if
+	 *         the timeout elapsed before the rendering completed.
+	 * 
+	 * @throws InterruptedException
+	 *             if the current thread is interrupted while waiting.
+	 */
+	public boolean awaitReport(String reportId, long timeout) throws InterruptedException;
+
 }
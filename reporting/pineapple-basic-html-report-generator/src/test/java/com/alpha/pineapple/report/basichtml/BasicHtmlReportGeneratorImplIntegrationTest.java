@@ -22,16 +22,22 @@
 
 package com.alpha.pineapple.report.basichtml;
 
+import static com.alpha.pineapple.execution.ExecutionResult.MSG_MESSAGE;
 import static com.alpha.pineapple.execution.ExecutionResult.MSG_REPORT;
+import static com.alpha.pineapple.execution.ExecutionResult.ExecutionState.EXECUTING;
 import static com.alpha.pineapple.execution.ExecutionResult.ExecutionState.SUCCESS;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Resource;
 
@@ -65,6 +71,11 @@ public class BasicHtmlReportGeneratorImplIntegrationTest {
 	 */
 	static final String OPERATION = "operation on module";
 
+	/**
+	 * Maximum time to wait for rendering of a report (in ms).
+	 */
+	static final long RENDERING_TIMEOUT = 10000;
+
 	/**
 	 * Object under test.
 	 */
@@ -129,6 +140,23 @@ public class BasicHtmlReportGeneratorImplIntegrationTest {
 		return null;
 	}
 
+	/**
+	 * Wait for the generator to complete rendering of the report for the root
+	 * result.
+	 * 
+	 * @param generator Report generator.
+	 */
+	void awaitReport(ResultListener generator) {
+		String reportId = rootResult.getMessages().get(MSG_REPORT);
+		assertNotNull(reportId);
+
+		try {
+			assertTrue(((ReportGeneratorInfo) generator).awaitReport(reportId, RENDERING_TIMEOUT));
+		} catch (InterruptedException e) {
+			fail("Interrupted while waiting for report: " + reportId);
+		}
+	}
+
 	/**
 	 * Get content of time stamped directory.
 	 * 
@@ -203,6 +231,7 @@ public class BasicHtmlReportGeneratorImplIntegrationTest {
 
 		// create report
 		factoryCreatedGenerator.notify(notification);
+		awaitReport(factoryCreatedGenerator);
 
 		// type cast
 		ReportGeneratorInfo generatorInfo = (ReportGeneratorInfo) factoryCreatedGenerator;
@@ -230,6 +259,7 @@ public class BasicHtmlReportGeneratorImplIntegrationTest {
 
 		// create report
 		factoryCreatedGenerator.notify(notification);
+		awaitReport(factoryCreatedGenerator);
 
 		// type cast
 		ReportGeneratorInfo generatorInfo = (ReportGeneratorInfo) factoryCreatedGenerator;
@@ -260,6 +290,7 @@ public class BasicHtmlReportGeneratorImplIntegrationTest {
 
 		// create report
 		factoryCreatedGenerator.notify(notification);
+		awaitReport(factoryCreatedGenerator);
 
 		// get content
 		File[] timestamedDirectoryContent = getTimeStampedDirectoryContent(factoryCreatedGenerator);
@@ -283,6 +314,7 @@ public class BasicHtmlReportGeneratorImplIntegrationTest {
 
 		// create report
 		factoryCreatedGenerator.notify(notification);
+		awaitReport(factoryCreatedGenerator);
 
 		// get content
 		File[] timestamedDirectoryContent = getTimeStampedDirectoryContent(factoryCreatedGenerator);
@@ -307,6 +339,7 @@ public class BasicHtmlReportGeneratorImplIntegrationTest {
 
 		// create report
 		factoryCreatedGenerator.notify(notification);
+		awaitReport(factoryCreatedGenerator);
 
 		// get content
 		File[] timestamedDirectoryContent = getTimeStampedDirectoryContent(factoryCreatedGenerator);
@@ -333,6 +366,7 @@ public class BasicHtmlReportGeneratorImplIntegrationTest {
 
 		// create report
 		factoryCreatedGenerator.notify(notification);
+		awaitReport(factoryCreatedGenerator);
 
 		// get content
 		File[] timestamedDirectoryContent = getTimeStampedDirectoryContent(factoryCreatedGenerator);
@@ -362,6 +396,7 @@ public class BasicHtmlReportGeneratorImplIntegrationTest {
 
 		// create report
 		factoryCreatedGenerator.notify(notification);
+		awaitReport(factoryCreatedGenerator);
 
 		// get content
 		File[] timestamedDirectoryContent = getTimeStampedDirectoryContent(factoryCreatedGenerator);
@@ -392,6 +427,7 @@ public class BasicHtmlReportGeneratorImplIntegrationTest {
 
 		// create report
 		factoryCreatedGenerator.notify(notification);
+		awaitReport(factoryCreatedGenerator);
 
 		// get content
 		File[] timestamedDirectoryContent = getTimeStampedDirectoryContent(factoryCreatedGenerator);
@@ -424,6 +460,7 @@ public class BasicHtmlReportGeneratorImplIntegrationTest {
 
 		// create report
 		factoryCreatedGenerator.notify(notification);
+		awaitReport(factoryCreatedGenerator);
 
 		// get content
 		File[] timestamedDirectoryContent = getTimeStampedDirectoryContent(factoryCreatedGenerator);
@@ -447,6 +484,7 @@ public class BasicHtmlReportGeneratorImplIntegrationTest {
 
 		// create report
 		factoryCreatedGenerator.notify(notification);
+		awaitReport(factoryCreatedGenerator);
 
 		// test
 		Map<String, String> messages = rootResult.getMessages();
@@ -468,6 +506,7 @@ public class BasicHtmlReportGeneratorImplIntegrationTest {
 
 		// create report
 		factoryCreatedGenerator.notify(notification);
+		awaitReport(factoryCreatedGenerator);
 
 		// get report ID
 		Map<String, String> messages = rootResult.getMessages();
@@ -509,6 +548,7 @@ public class BasicHtmlReportGeneratorImplIntegrationTest {
 
 		// create report
 		factoryCreatedGenerator.notify(notification);
+		awaitReport(factoryCreatedGenerator);
 
 		// get content
 		File[] timestamedDirectoryContent = getTimeStampedDirectoryContent(factoryCreatedGenerator);
@@ -544,6 +584,7 @@ public class BasicHtmlReportGeneratorImplIntegrationTest {
 
 		// create report
 		factoryCreatedGenerator.notify(notification);
+		awaitReport(factoryCreatedGenerator);
 
 		// get content
 		File[] timestamedDirectoryContent = getTimeStampedDirectoryContent(factoryCreatedGenerator);
@@ -582,6 +623,7 @@ public class BasicHtmlReportGeneratorImplIntegrationTest {
 
 		// create report
 		factoryCreatedGenerator.notify(notification);
+		awaitReport(factoryCreatedGenerator);
 
 		// get content
 		File[] timestamedDirectoryContent = getTimeStampedDirectoryContent(factoryCreatedGenerator);
@@ -620,6 +662,7 @@ public class BasicHtmlReportGeneratorImplIntegrationTest {
 
 		// create report
 		factoryCreatedGenerator.notify(notification);
+		awaitReport(factoryCreatedGenerator);
 
 		// get content
 		File[] timestamedDirectoryContent = getTimeStampedDirectoryContent(factoryCreatedGenerator);
@@ -659,6 +702,7 @@ public class BasicHtmlReportGeneratorImplIntegrationTest {
 
 		// create report
 		factoryCreatedGenerator.notify(notification);
+		awaitReport(factoryCreatedGenerator);
 
 		// get content
 		File[] timestamedDirectoryContent = getTimeStampedDirectoryContent(factoryCreatedGenerator);
@@ -698,6 +742,7 @@ public class BasicHtmlReportGeneratorImplIntegrationTest {
 
 		// create report
 		factoryCreatedGenerator.notify(notification);
+		awaitReport(factoryCreatedGenerator);
 
 		// get content
 		File[] timestamedDirectoryContent = getTimeStampedDirectoryContent(factoryCreatedGenerator);
@@ -711,4 +756,127 @@ public class BasicHtmlReportGeneratorImplIntegrationTest {
 		assertTrue(htmlReport.contains(escapedTestString));
 	}
 
+	/**
+	 * Test that generator adds completion message to root result when the
+	 * report is rendered.
+	 */
+	@Test
+	public void testAddsCompletionMessageWhenReportIsRendered() {
+
+		notification = createNotificationAndRootResult();
+
+		// create generator
+		File rootDirectory = new File(testDirectory, "reports");
+		var factoryCreatedGenerator = BasicHtmlReportGeneratorImpl.getInstance(rootDirectory);
+
+		// create report
+		factoryCreatedGenerator.notify(notification);
+		awaitReport(factoryCreatedGenerator);
+
+		// test
+		Map<String, String> messages = rootResult.getMessages();
+		assertTrue(messages.containsKey(MSG_MESSAGE));
+	}
+
+	/**
+	 * Test that rendered report doesn't leave a partial HTML file in the time
+	 * stamped directory.
+	 */
+	@Test
+	public void testTimeStampedDirectoryDoesntContainPartialFile() {
+
+		notification = createNotificationAndRootResult();
+
+		// create generator
+		File rootDirectory = new File(testDirectory, "reports");
+		var factoryCreatedGenerator = BasicHtmlReportGeneratorImpl.getInstance(rootDirectory);
+
+		// create report
+		factoryCreatedGenerator.notify(notification);
+		awaitReport(factoryCreatedGenerator);
+
+		// get content
+		File[] timestamedDirectoryContent = getTimeStampedDirectoryContent(factoryCreatedGenerator);
+
+		// test
+		assertEquals(2, timestamedDirectoryContent.length);
+		assertNull(getFile(timestamedDirectoryContent, BasicHtmlReportGeneratorImpl.PARTIAL_FILE_SUFFIX));
+	}
+
+	/**
+	 * Test that generator compiles the style sheet once and reuses it for
+	 * subsequent reports.
+	 * 
+	 * @throws Exception if test fails.
+	 */
+	@Test
+	public void testReusesCompiledStyleSheet() throws Exception {
+
+		// create generator
+		File rootDirectory = new File(testDirectory, "reports");
+		var factoryCreatedGenerator = (BasicHtmlReportGeneratorImpl) BasicHtmlReportGeneratorImpl
+				.getInstance(rootDirectory);
+
+		// test
+		assertSame(factoryCreatedGenerator.getTemplates(), factoryCreatedGenerator.getTemplates());
+	}
+
+	/**
+	 * Test that waiting for a report which isn't pending returns immediately.
+	 * 
+	 * @throws Exception if test fails.
+	 */
+	@Test
+	public void testAwaitReportReturnsForUnknownReport() throws Exception {
+
+		// create generator
+		File rootDirectory = new File(testDirectory, "reports");
+		var factoryCreatedGenerator = BasicHtmlReportGeneratorImpl.getInstance(rootDirectory);
+
+		// test
+		assertTrue(((ReportGeneratorInfo) factoryCreatedGenerator).awaitReport("report-unknown", 0));
+	}
+
+	/**
+	 * Test that the future returned by report generation is completed when the
+	 * HTML report is rendered.
+	 * 
+	 * @throws Exception if test fails.
+	 */
+	@Test
+	public void testGenerateReportCompletesWhenReportIsRendered() throws Exception {
+
+		notification = createNotificationAndRootResult();
+
+		// create generator
+		File rootDirectory = new File(testDirectory, "reports");
+		var factoryCreatedGenerator = BasicHtmlReportGeneratorImpl.getInstance(rootDirectory);
+
+		// create report
+		CompletableFuture<Boolean> rendering = ((ReportGeneratorInfo) factoryCreatedGenerator)
+				.generateReport(notification);
+
+		// test
+		assertTrue(rendering.get(RENDERING_TIMEOUT, TimeUnit.MILLISECONDS));
+		File[] timestamedDirectoryContent = getTimeStampedDirectoryContent(factoryCreatedGenerator);
+		assertNotNull(getFile(timestamedDirectoryContent, BasicHtmlReportGeneratorImpl.REPORT_HTML));
+	}
+
+	/**
+	 * Test that no report is generated for an executing root result.
+	 */
+	@Test
+	public void testGenerateReportReturnsNullForExecutingResult() {
+		rootResult = new ExecutionResultImpl(OPERATION);
+		notification = ExecutionResultNotificationImpl.getInstance(rootResult, EXECUTING);
+
+		// create generator
+		File rootDirectory = new File(testDirectory, "reports");
+		var factoryCreatedGenerator = BasicHtmlReportGeneratorImpl.getInstance(rootDirectory);
+
+		// test
+		assertNull(((ReportGeneratorInfo) factoryCreatedGenerator).generateReport(notification));
+		assertNull(rootResult.getMessages().get(MSG_REPORT));
+	}
+
 }
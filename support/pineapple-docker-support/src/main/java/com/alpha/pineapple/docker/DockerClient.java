@@ -36,6 +36,10 @@ import com.alpha.pineapple.execution.ExecutionResult;
 
 /**
  * Interface for the Docker client.
+ * 
+ * Queries for the existence of images and containers and for the running or
+ * paused state of containers are answered from the state cache of the session,
+ * see {@linkplain DockerSession#getStateCache()}.
  */
 public interface DockerClient {
 
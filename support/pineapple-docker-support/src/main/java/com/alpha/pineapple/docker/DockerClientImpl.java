@@ -27,12 +27,12 @@ import static com.alpha.pineapple.docker.DockerConstants.DOCKER_NAME_PREFIX;
 import static org.apache.commons.lang3.Validate.notEmpty;
 
 import java.io.File;
-import java.util.List;
 
 import javax.annotation.Resource;
 
 import org.apache.commons.chain.Command;
 import org.apache.commons.chain.Context;
+import org.springframework.beans.factory.ObjectFactory;
 
 import com.alpha.pineapple.command.execution.CommandRunner;
 import com.alpha.pineapple.docker.command.BuildImageCommand;
@@ -64,6 +64,7 @@ import com.alpha.pineapple.docker.model.rest.InspectedContainerState;
 import com.alpha.pineapple.docker.model.rest.ListedContainer;
 import com.alpha.pineapple.docker.model.rest.ListedImage;
 import com.alpha.pineapple.docker.session.DockerSession;
+import com.alpha.pineapple.docker.session.DockerStateCache;
 import com.alpha.pineapple.execution.ExecutionResult;
 import com.alpha.pineapple.execution.ExecutionResultFactory;
 import com.alpha.pineapple.i18n.MessageProvider;
@@ -87,118 +88,118 @@ public class DockerClientImpl implements DockerClient {
 	CommandRunner commandRunner;
 
 	/**
-	 * Create container command.
+	 * Create container command factory.
 	 */
 	@Resource
-	Command createContainerCommand;
+	ObjectFactory<Command> createContainerCommandFactory;
 
 	/**
-	 * Delete container command.
+	 * Delete container command factory.
 	 */
 	@Resource
-	Command deleteContainerCommand;
+	ObjectFactory<Command> deleteContainerCommandFactory;
 
 	/**
-	 * List all containers command.
+	 * List all containers command factory.
 	 */
 	@Resource
-	Command listAllContainersCommand;
+	ObjectFactory<Command> listAllContainersCommandFactory;
 
 	/**
-	 * Start container command.
+	 * Start container command factory.
 	 */
 	@Resource
-	Command startContainerCommand;
+	ObjectFactory<Command> startContainerCommandFactory;
 
 	/**
-	 * Kill container command.
+	 * Kill container command factory.
 	 */
 	@Resource
-	Command killContainerCommand;
+	ObjectFactory<Command> killContainerCommandFactory;
 
 	/**
-	 * Stop container command.
+	 * Stop container command factory.
 	 */
 	@Resource
-	Command stopContainerCommand;
+	ObjectFactory<Command> stopContainerCommandFactory;
 
 	/**
-	 * Pause container command.
+	 * Pause container command factory.
 	 */
 	@Resource
-	Command pauseContainerCommand;
+	ObjectFactory<Command> pauseContainerCommandFactory;
 
 	/**
-	 * Unpause container command.
+	 * Unpause container command factory.
 	 */
 	@Resource
-	Command unpauseContainerCommand;
+	ObjectFactory<Command> unpauseContainerCommandFactory;
 
 	/**
-	 * Inspect container command.
+	 * Inspect container command factory.
 	 */
 	@Resource
-	Command inspectContainerCommand;
+	ObjectFactory<Command> inspectContainerCommandFactory;
 
 	/**
-	 * List all images command.
+	 * List all images command factory.
 	 */
 	@Resource
-	Command listAllImagesCommand;
+	ObjectFactory<Command> listAllImagesCommandFactory;
 
 	/**
-	 * Inspect image command.
+	 * Inspect image command factory.
 	 */
 	@Resource
-	Command inspectImageCommand;
+	ObjectFactory<Command> inspectImageCommandFactory;
 
 	/**
-	 * Create image command.
+	 * Create image command factory.
 	 */
 	@Resource
-	Command createImageCommand;
+	ObjectFactory<Command> createImageCommandFactory;
 
 	/**
-	 * Delete image command.
+	 * Delete image command factory.
 	 */
 	@Resource
-	Command deleteImageCommand;
+	ObjectFactory<Command> deleteImageCommandFactory;
 
 	/**
-	 * Create tagged image command.
+	 * Create tagged image command factory.
 	 */
 	@Resource
-	Command createTaggedImageCommand;
+	ObjectFactory<Command> createTaggedImageCommandFactory;
 
 	/**
-	 * Create TAR archive command.
+	 * Create TAR archive command factory.
 	 */
 	@Resource
-	Command createTarArchiveCommand;
+	ObjectFactory<Command> createTarArchiveCommandFactory;
 
 	/**
-	 * Build image from Dockerfile command.
+	 * Build image from Dockerfile command factory.
 	 */
 	@Resource
-	Command buildImageCommand;
+	ObjectFactory<Command> buildImageCommandFactory;
 
 	/**
-	 * Create report from images command.
+	 * Create report from images command factory.
 	 */
 	@Resource
-	Command reportOnImagesCommand;
+	ObjectFactory<Command> reportOnImagesCommandFactory;
 
 	/**
-	 * Create report from containers command.
+	 * Create report from containers command factory.
 	 */
 	@Resource
-	Command reportOnContainersCommand;
+	ObjectFactory<Command> reportOnContainersCommandFactory;
 
 	/**
-	 * Test container command.
+	 * Test container command factory.
 	 */
 	@Resource
-	Command testContainerCommand;
+	ObjectFactory<Command> testContainerCommandFactory;
 
 	/**
 	 * Execution result factory.
@@ -211,36 +212,10 @@ public class DockerClientImpl implements DockerClient {
 		notNull(session, "session is undefined.");
 		notNull(imageInfo, "imageInfo is undefined.");
 
-		ExecutionResult result = executionResultFactory.startExecution("List Docker images");
-		ListedImage[] images = listImages(session, result);
-
-		if (images == null)
-			return false;
-		if (images.length == 0)
-			return false;
-
-		// iterate over images
-		for (ListedImage image : images) {
-			List<String> imageTags = image.getRepoTags();
-
-			// skip image if no tags are defined
-			if (imageTags == null)
-				continue;
-			if (imageTags.size() == 0)
-				continue;
-
-			// iterate over tags
-			for (String imageTag : imageTags) {
-				if (imageTag == null)
-					continue;
-				if (imageTag.isEmpty())
-					continue;
-				String imageFqName = imageInfo.getFullyQualifiedName();
-				if (imageFqName.equalsIgnoreCase(imageTag))
-					return true;
-			}
-		}
-		return false;
+		// query cached images
+		DockerStateCache cache = session.getStateCache();
+		String imageFqName = imageInfo.getFullyQualifiedName();
+		return (cache.getImageByTag(imageFqName, () -> queryImages(session)) != null);
 	}
 
 	@Override
@@ -261,7 +236,7 @@ public class DockerClientImpl implements DockerClient {
 		context.put(CreateImageCommand.IMAGE_INFO_KEY, imageInfo);
 
 		// run command
-		commandRunner.run(createImageCommand, commandResult, context);
+		commandRunner.run(createImageCommandFactory.getObject(), commandResult, context);
 
 		// handle unsuccessful execution
 		if (!commandResult.isSuccess())
@@ -293,7 +268,7 @@ public class DockerClientImpl implements DockerClient {
 		context.put(BuildImageCommand.PULL_IMAGE_KEY, pullImageBehavior);
 
 		// run command
-		commandRunner.run(buildImageCommand, commandResult, context);
+		commandRunner.run(buildImageCommandFactory.getObject(), commandResult, context);
 
 		// handle unsuccessful execution
 		if (!commandResult.isSuccess())
@@ -321,7 +296,7 @@ public class DockerClientImpl implements DockerClient {
 		context.put(DeleteImageCommand.IMAGE_INFO_KEY, imageInfo);
 
 		// run command
-		commandRunner.run(deleteImageCommand, commandResult, context);
+		commandRunner.run(deleteImageCommandFactory.getObject(), commandResult, context);
 
 		// handle unsuccessful execution
 		if (!commandResult.isSuccess())
@@ -353,7 +328,7 @@ public class DockerClientImpl implements DockerClient {
 		context.put(CreateTaggedImageCommand.TARGET_IMAGE_INFO_KEY, targetImageInfo);
 
 		// run command
-		commandRunner.run(createTaggedImageCommand, commandResult, context);
+		commandRunner.run(createTaggedImageCommandFactory.getObject(), commandResult, context);
 
 		// handle unsuccessful execution
 		if (!commandResult.isSuccess())
@@ -378,7 +353,7 @@ public class DockerClientImpl implements DockerClient {
 		context.put(ListAllImagesCommand.SESSION_KEY, session);
 
 		// run command
-		commandRunner.run(listAllImagesCommand, commandResult, context);
+		commandRunner.run(listAllImagesCommandFactory.getObject(), commandResult, context);
 
 		// handle unsuccessful execution
 		if (!commandResult.isSuccess())
@@ -403,7 +378,7 @@ public class DockerClientImpl implements DockerClient {
 		context.put(ReportOnImagesCommand.SESSION_KEY, session);
 
 		// run command
-		commandRunner.run(reportOnImagesCommand, commandResult, context);
+		commandRunner.run(reportOnImagesCommandFactory.getObject(), commandResult, context);
 
 		// handle unsuccessful execution
 		if (!commandResult.isSuccess())
@@ -438,7 +413,7 @@ public class DockerClientImpl implements DockerClient {
 		context.put(InspectImageCommand.IMAGE_INFO_KEY, info);
 
 		// run command
-		commandRunner.run(inspectImageCommand, commandResult, context);
+		commandRunner.run(inspectImageCommandFactory.getObject(), commandResult, context);
 
 		// handle unsuccessful execution
 		if (!commandResult.isSuccess())
@@ -466,7 +441,7 @@ public class DockerClientImpl implements DockerClient {
 		context.put(CreateContainerCommand.CONTAINER_INFO_KEY, info);
 
 		// run command
-		commandRunner.run(createContainerCommand, commandResult, context);
+		commandRunner.run(createContainerCommandFactory.getObject(), commandResult, context);
 
 		// handle unsuccessful execution
 		if (!commandResult.isSuccess())
@@ -494,7 +469,7 @@ public class DockerClientImpl implements DockerClient {
 		context.put(DeleteContainerCommand.CONTAINER_INFO_KEY, info);
 
 		// run command
-		commandRunner.run(deleteContainerCommand, commandResult, context);
+		commandRunner.run(deleteContainerCommandFactory.getObject(), commandResult, context);
 
 		// handle unsuccessful execution
 		if (!commandResult.isSuccess())
@@ -505,7 +480,6 @@ public class DockerClientImpl implements DockerClient {
 	}
 
 	@Override
-	@SuppressWarnings("unchecked")
 	public boolean containerExists(DockerSession session, ContainerInfo info) {
 		notNull(session, "session is undefined.");
 		notNull(info, "info is undefined.");
@@ -513,36 +487,9 @@ public class DockerClientImpl implements DockerClient {
 		// create prefixed container name
 		String name = new StringBuilder().append(DOCKER_NAME_PREFIX).append(getContainerName(info)).toString();
 
-		// setup context
-		Context context = commandRunner.createContext();
-		context.put(ListAllContainersCommand.SESSION_KEY, session);
-
-		// run command
-		ExecutionResult result = executionResultFactory.startExecution("List Docker containers");
-		ExecutionResult commandResult = commandRunner.run(listAllContainersCommand, result, context);
-
-		// handle unsuccessful execution
-		if (!commandResult.isSuccess())
-			throw new DockerClientException(commandResult);
-
-		// handle successful execution
-		// get listed containers
-		ListedContainer[] listedContainers = null;
-		listedContainers = (ListedContainer[]) context.get(ListAllContainersCommand.CONTAINERS_KEY);
-
-		if (listedContainers == null)
-			return false;
-		if (listedContainers.length == 0)
-			return false;
-
-		// iterate over images
-		for (ListedContainer listedContainer : listedContainers) {
-			List<String> names = listedContainer.getNames();
-			if (names.contains(name))
-				return true;
-		}
-
-		return false;
+		// query cached containers
+		DockerStateCache cache = session.getStateCache();
+		return (cache.getContainerByName(name, () -> queryContainers(session)) != null);
 	}
 
 	/**
@@ -560,43 +507,13 @@ public class DockerClientImpl implements DockerClient {
 	 *             if query fails.
 	 */
 	@Override
-	@SuppressWarnings("unchecked")
 	public boolean containerExistsQueryById(DockerSession session, ContainerInstanceInfo info) {
 		notNull(session, "session is undefined.");
 		notNull(info, "info is undefined.");
 
-		String id = info.getId();
-
-		// setup context
-		Context context = commandRunner.createContext();
-		context.put(ListAllContainersCommand.SESSION_KEY, session);
-
-		// run command
-		ExecutionResult result = executionResultFactory.startExecution("List Docker containers");
-		ExecutionResult commandResult = commandRunner.run(listAllContainersCommand, result, context);
-
-		// handle unsuccessful execution
-		if (!commandResult.isSuccess())
-			throw new DockerClientException(commandResult);
-
-		// handle successful execution
-		// get listed containers
-		ListedContainer[] listedContainers = null;
-		listedContainers = (ListedContainer[]) context.get(ListAllContainersCommand.CONTAINERS_KEY);
-
-		if (listedContainers == null)
-			return false;
-		if (listedContainers.length == 0)
-			return false;
-
-		// iterate over images
-		for (ListedContainer listedContainer : listedContainers) {
-			String containerId = listedContainer.getId();
-			if (containerId.equals(id))
-				return true;
-		}
-
-		return false;
+		// query cached containers
+		DockerStateCache cache = session.getStateCache();
+		return (cache.getContainerById(info.getId(), () -> queryContainers(session)) != null);
 	}
 
 	@Override
@@ -617,7 +534,7 @@ public class DockerClientImpl implements DockerClient {
 		context.put(StartContainerCommand.CONTAINER_INFO_KEY, info);
 
 		// execute command
-		commandRunner.run(startContainerCommand, commandResult, context);
+		commandRunner.run(startContainerCommandFactory.getObject(), commandResult, context);
 
 		// handle unsuccessful execution
 		if (!commandResult.isSuccess())
@@ -646,7 +563,7 @@ public class DockerClientImpl implements DockerClient {
 		context.put(StopContainerCommand.TIMEOUT_ID_KEY, CONTAINER_STOP_TIMEOUT);
 
 		// run command
-		commandRunner.run(stopContainerCommand, commandResult, context);
+		commandRunner.run(stopContainerCommandFactory.getObject(), commandResult, context);
 
 		// handle unsuccessful execution
 		if (!commandResult.isSuccess())
@@ -681,7 +598,7 @@ public class DockerClientImpl implements DockerClient {
 		context.put(KillContainerCommand.CONTAINER_INFO_KEY, info);
 
 		// run command
-		commandRunner.run(killContainerCommand, commandResult, context);
+		commandRunner.run(killContainerCommandFactory.getObject(), commandResult, context);
 
 		// handle unsuccessful execution
 		if (!commandResult.isSuccess())
@@ -716,7 +633,7 @@ public class DockerClientImpl implements DockerClient {
 		context.put(PauseContainerCommand.CONTAINER_INFO_KEY, info);
 
 		// run command
-		commandRunner.run(pauseContainerCommand, commandResult, context);
+		commandRunner.run(pauseContainerCommandFactory.getObject(), commandResult, context);
 
 		// handle unsuccessful execution
 		if (!commandResult.isSuccess())
@@ -751,7 +668,7 @@ public class DockerClientImpl implements DockerClient {
 		context.put(UnpauseContainerCommand.CONTAINER_INFO_KEY, info);
 
 		// run command
-		commandRunner.run(unpauseContainerCommand, commandResult, context);
+		commandRunner.run(unpauseContainerCommandFactory.getObject(), commandResult, context);
 
 		// handle unsuccessful execution
 		if (!commandResult.isSuccess())
@@ -777,7 +694,7 @@ public class DockerClientImpl implements DockerClient {
 		context.put(ListAllContainersCommand.SESSION_KEY, session);
 
 		// run command
-		commandRunner.run(listAllContainersCommand, commandResult, context);
+		commandRunner.run(listAllContainersCommandFactory.getObject(), commandResult, context);
 
 		// handle unsuccessful execution
 		if (!commandResult.isSuccess())
@@ -812,7 +729,7 @@ public class DockerClientImpl implements DockerClient {
 		context.put(InspectContainerCommand.CONTAINER_INFO_KEY, info);
 
 		// run command
-		commandRunner.run(inspectContainerCommand, commandResult, context);
+		commandRunner.run(inspectContainerCommandFactory.getObject(), commandResult, context);
 
 		// handle unsuccessful execution
 		if (!commandResult.isSuccess())
@@ -837,7 +754,7 @@ public class DockerClientImpl implements DockerClient {
 		context.put(ReportOnContainersCommand.SESSION_KEY, session);
 
 		// run command
-		commandRunner.run(reportOnContainersCommand, commandResult, context);
+		commandRunner.run(reportOnContainersCommandFactory.getObject(), commandResult, context);
 
 		// handle unsuccessful execution
 		if (!commandResult.isSuccess())
@@ -867,7 +784,7 @@ public class DockerClientImpl implements DockerClient {
 		context.put(TestContainerCommand.CONTAINER_STATE_KEY, state);
 
 		// run command
-		commandRunner.run(testContainerCommand, commandResult, context);
+		commandRunner.run(testContainerCommandFactory.getObject(), commandResult, context);
 
 		// handle unsuccessful execution
 		if (!commandResult.isSuccess())
@@ -887,8 +804,7 @@ public class DockerClientImpl implements DockerClient {
 		notNull(session, "session is undefined.");
 		notNull(info, "info is undefined.");
 
-		ExecutionResult result = executionResultFactory.startExecution("Inspect container");
-		ContainerJson inspectedContainer = inspectContainer(session, info, result);
+		ContainerJson inspectedContainer = queryInspectedContainer(session, info);
 		InspectedContainerState state = inspectedContainer.getState();
 		return state.isRunning();
 	}
@@ -898,8 +814,7 @@ public class DockerClientImpl implements DockerClient {
 		notNull(session, "session is undefined.");
 		notNull(info, "info is undefined.");
 
-		ExecutionResult result = executionResultFactory.startExecution("Inspect container");
-		ContainerJson inspectedContainer = inspectContainer(session, info, result);
+		ContainerJson inspectedContainer = queryInspectedContainer(session, info);
 		InspectedContainerState state = inspectedContainer.getState();
 		return state.isPaused();
 	}
@@ -922,7 +837,7 @@ public class DockerClientImpl implements DockerClient {
 		context.put(CreateTarArchiveCommand.TAR_ARCHIVE_KEY, tarArchive);
 
 		// run command
-		commandRunner.run(createTarArchiveCommand, commandResult, context);
+		commandRunner.run(createTarArchiveCommandFactory.getObject(), commandResult, context);
 
 		// handle unsuccessful execution
 		if (!commandResult.isSuccess())
@@ -932,6 +847,50 @@ public class DockerClientImpl implements DockerClient {
 		// NO-OP
 	}
 
+	/**
+	 * List images for a query of the state cache.
+	 * 
+	 * @param session
+	 *            Docker session.
+	 * 
+	 * @return listed images.
+	 */
+	ListedImage[] queryImages(DockerSession session) {
+		ExecutionResult result = executionResultFactory.startExecution("List Docker images");
+		return listImages(session, result);
+	}
+
+	/**
+	 * List containers for a query of the state cache.
+	 * 
+	 * @param session
+	 *            Docker session.
+	 * 
+	 * @return listed containers.
+	 */
+	ListedContainer[] queryContainers(DockerSession session) {
+		ExecutionResult result = executionResultFactory.startExecution("List Docker containers");
+		return listContainers(session, result);
+	}
+
+	/**
+	 * Inspect container using the state cache.
+	 * 
+	 * @param session
+	 *            Docker session.
+	 * @param info
+	 *            container info.
+	 * 
+	 * @return inspected container.
+	 */
+	ContainerJson queryInspectedContainer(DockerSession session, ContainerInfo info) {
+		DockerStateCache cache = session.getStateCache();
+		return cache.getInspectedContainer(getContainerName(info), () -> {
+			ExecutionResult result = executionResultFactory.startExecution("Inspect container");
+			return inspectContainer(session, info, result);
+		});
+	}
+
 	/**
 	 * Get name from container info while testing that the value is defined.
 	 * 
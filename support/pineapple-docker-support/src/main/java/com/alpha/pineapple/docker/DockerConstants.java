@@ -42,6 +42,17 @@ public interface DockerConstants {
 	 */
 	public static final String DEFAULT_CONNECT_TIMEOUT = "5000";
 
+	/**
+	 * Default time to live (in ms) for the cached state of containers and
+	 * images in a session.
+	 */
+	public static final String DEFAULT_STATE_CACHE_TTL = "5000";
+
+	/**
+	 * Default maximum number of commands executed concurrently on a session.
+	 */
+	public static final String DEFAULT_MAX_CONCURRENT_COMMANDS = "4";
+
 	/**
 	 * Default container stop timeout (in seconds).
 	 */
@@ -67,6 +78,11 @@ public interface DockerConstants {
 	 */
 	public static final String VERSION_URI = "/version";
 
+	/**
+	 * Ping service URI.
+	 */
+	public static final String PING_URI = "/_ping";
+
 	/**
 	 * Create container REST service URI.
 	 */
@@ -122,6 +138,11 @@ public interface DockerConstants {
 	 */
 	public static final String LIST_CONTAINERS_URI = "/containers/json?all={all}";
 
+	/**
+	 * Common prefix of container REST service URI's.
+	 */
+	public static final String CONTAINERS_URI_PREFIX = "/containers";
+
 	/**
 	 * Create image REST service URI.
 	 */
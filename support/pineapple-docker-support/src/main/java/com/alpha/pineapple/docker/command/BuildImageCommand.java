@@ -23,7 +23,6 @@
 package com.alpha.pineapple.docker.command;
 
 import static com.alpha.pineapple.docker.DockerConstants.BUILD_IMAGE_URI;
-import static com.alpha.pineapple.docker.DockerConstants.CONTENT_TYPE_KEY;
 import static com.alpha.pineapple.docker.DockerConstants.CONTENT_TYPE_TAR;
 import static com.alpha.pineapple.docker.utils.ModelUtils.containsErrorUpdate;
 import static com.alpha.pineapple.docker.utils.ModelUtils.containsStatusUpdate;
@@ -32,20 +31,16 @@ import static com.alpha.pineapple.docker.utils.ModelUtils.remoteLfFromStreamUpda
 import static com.alpha.pineapple.execution.ExecutionResult.MSG_MESSAGE;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.annotation.Resource;
 
 import org.apache.commons.chain.Command;
 import org.apache.commons.chain.Context;
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
 import org.hamcrest.Matcher;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
 
 import com.alpha.pineapple.command.initialization.CommandInitializer;
 import com.alpha.pineapple.command.initialization.CommandInitializerImpl;
@@ -56,6 +51,7 @@ import com.alpha.pineapple.docker.DockerClient;
 import com.alpha.pineapple.docker.model.ImageInfo;
 import com.alpha.pineapple.docker.model.rest.JsonMessage;
 import com.alpha.pineapple.docker.session.DockerSession;
+import com.alpha.pineapple.docker.session.RequestFileReadException;
 import com.alpha.pineapple.docker.utils.RestResponseException;
 import com.alpha.pineapple.execution.ExecutionResult;
 import com.alpha.pineapple.i18n.MessageProvider;
@@ -231,7 +227,6 @@ public class BuildImageCommand implements Command {
 	 * @throws SessionException
 	 *             if HTTP post fails.
 	 */
-	@SuppressWarnings("unchecked")
 	void buildImage(Context context) throws SessionException {
 
 		// exit if image exists in repository
@@ -265,39 +260,23 @@ public class BuildImageCommand implements Command {
 		uriVariables.put("tag", imageInfo.getFullyQualifiedName());
 		uriVariables.put("pull", getPullImageBehavior());
 
-		// create HTTP request object
-		HttpHeaders requestHeaders = new HttpHeaders();
-		requestHeaders.set(CONTENT_TYPE_KEY, CONTENT_TYPE_TAR);
-		HttpEntity<byte[]> requestEntity;
-		FileInputStream openInputStream = null;
+		// post to create image, TAR archive is streamed from disk
+		// and creation info's are reported as they are received
+		List<JsonMessage> infos = new ArrayList<JsonMessage>();
 
 		try {
-			// read TAR archive into HTTP request
-			openInputStream = FileUtils.openInputStream(tarArchive);
-			byte[] byteArray = IOUtils.toByteArray(openInputStream);
-			requestEntity = new HttpEntity<byte[]>(byteArray, requestHeaders);
 
-			// close stream
-			IOUtils.closeQuietly(openInputStream);
+			session.httpPostForStreamedObjects(BUILD_IMAGE_URI, uriVariables, tarArchive, JsonMessage.class,
+					CONTENT_TYPE_TAR, info -> {
+						infos.add(info);
+						addInfoToResult(info);
+					});
 
-		} catch (IOException e) {
+		} catch (RequestFileReadException e) {
 
 			// complete with error
 			executionResult.completeAsError(messageProvider, "bic.read_tar_archive_error", e);
-
-			// close stream
-			IOUtils.closeQuietly(openInputStream);
-
 			return;
-		}
-
-		// post to create image
-		JsonMessage[] infos = null;
-
-		try {
-
-			infos = session.httpPostForObjectWithMultipleRootElements(BUILD_IMAGE_URI, uriVariables, requestEntity,
-					JsonMessage[].class, CONTENT_TYPE_TAR);
 
 		} catch (RestResponseException rre) {
 			Object[] args2 = { rre.getStatusCode(), rre.getMessage() };
@@ -305,52 +284,17 @@ public class BuildImageCommand implements Command {
 			return;
 		}
 
-		// define error flag 
-		boolean errorReported = false;
-		String errorMessage = null;
-		
 		// add messages
-		Object[] args = { infos.length };
+		Object[] args = { infos.size() };
 		String message = messageProvider.getMessage("bic.list_image_info", args);
 		executionResult.addMessage(ExecutionResult.MSG_MESSAGE, message);
 
-		for (JsonMessage info : infos) {
-
-			// handle status update
-			if (containsStatusUpdate(info)) {
-				Object[] args2 = { info.getStatus() };
-				String message2 = messageProvider.getMessage("bic.list_single_info", args2);
-				executionResult.addMessage(ExecutionResult.MSG_MESSAGE, message2);
-				continue;
-			}
-			
-			// handle stream update
-			if (containsStreamUpdate(info)) {
-				Object[] args2 = { remoteLfFromStreamUpdate(info.getStream()) };
-				String message2 = messageProvider.getMessage("bic.list_single_stream_info", args2);
-				executionResult.addMessage(ExecutionResult.MSG_MESSAGE, message2);
-				continue;
-			}
-
-			// handle error update
-			if (containsErrorUpdate(info)) {
-				Object[] args2 = { info.getError() };
-				String message2 = messageProvider.getMessage("bic.list_single_error_info", args2);
-				executionResult.addMessage(ExecutionResult.MSG_MESSAGE, message2);				
-				
-				// signal error 
-				errorReported = true;
-				errorMessage = info.getError();
-				continue;
-			}
-			
-		}
-
 		// store creation info's
-		context.put(IMAGE_CREATION_INFOS_KEY, infos);
+		context.put(IMAGE_CREATION_INFOS_KEY, infos.toArray(NULL_INFOS));
 
 		// complete with failure
-		if (errorReported) {
+		String errorMessage = getLastError(infos);
+		if (errorMessage != null) {
 			Object[] args2 = { errorMessage };
 			executionResult.completeAsFailure(messageProvider, "bic.build_image_build_error", args2);			
 			return;
@@ -361,6 +305,56 @@ public class BuildImageCommand implements Command {
 		executionResult.completeAsSuccessful(messageProvider, "bic.build_image_completed", args2);
 	}
 
+	/**
+	 * Add image creation info to execution result.
+	 * 
+	 * @param info
+	 *            image creation info received from Docker.
+	 */
+	void addInfoToResult(JsonMessage info) {
+
+		// handle status update
+		if (containsStatusUpdate(info)) {
+			Object[] args = { info.getStatus() };
+			String message = messageProvider.getMessage("bic.list_single_info", args);
+			executionResult.addMessage(ExecutionResult.MSG_MESSAGE, message);
+			return;
+		}
+
+		// handle stream update
+		if (containsStreamUpdate(info)) {
+			Object[] args = { remoteLfFromStreamUpdate(info.getStream()) };
+			String message = messageProvider.getMessage("bic.list_single_stream_info", args);
+			executionResult.addMessage(ExecutionResult.MSG_MESSAGE, message);
+			return;
+		}
+
+		// handle error update
+		if (containsErrorUpdate(info)) {
+			Object[] args = { info.getError() };
+			String message = messageProvider.getMessage("bic.list_single_error_info", args);
+			executionResult.addMessage(ExecutionResult.MSG_MESSAGE, message);
+		}
+	}
+
+	/**
+	 * Return last error reported in image creation info's.
+	 * 
+	 * @param infos
+	 *            image creation info's received from Docker.
+	 * 
+	 * @return last error reported. Returns null if no error was reported.
+	 */
+	String getLastError(List<JsonMessage> infos) {
+		String errorMessage = null;
+		for (JsonMessage info : infos) {
+			if (containsStatusUpdate(info) || containsStreamUpdate(info))
+				continue;
+			if (containsErrorUpdate(info))
+				errorMessage = info.getError();
+		}
+		return errorMessage;
+	}
 
 	/**
 	 * Return the pull image behaviour as a string.
@@ -22,18 +22,23 @@
 
 package com.alpha.pineapple.docker.session;
 
+import java.io.File;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import com.alpha.pineapple.docker.model.rest.ContainerConfiguration;
 import com.alpha.pineapple.docker.utils.RestResponseException;
-import com.alpha.pineapple.session.Session;
+import com.alpha.pineapple.session.PoolableSession;
 import com.alpha.pineapple.session.SessionConnectException;
 import com.alpha.pineapple.session.SessionException;
 
 /**
  * Session which provides access to a remote Docker daemon session.
+ * 
+ * The session is poolable, i.e. the core component reuses a connected session
+ * for subsequent operations on the same resource.
  */
-public interface DockerSession extends Session {
+public interface DockerSession extends PoolableSession {
 
 	/**
 	 * Connect to host using HTTP and password authentication.
@@ -136,27 +141,35 @@ public interface DockerSession extends Session {
 			Class<T[]> responseType) throws SessionException;
 
 	/**
-	 * Invoke HTTP POST operation with processing of the result which contains
-	 * multiple JSON root elements.
+	 * Invoke HTTP POST operation with incremental processing of the result which
+	 * contains multiple JSON root elements. The request file is streamed from
+	 * disk as the request body and each JSON root element is passed to the
+	 * consumer as soon as it is received.
 	 * 
 	 * @param uriPath
 	 *            URI path for service including template variables.
 	 * @param uriVariables
 	 *            URI variables to be expanded by template.
+	 * @param request
+	 *            file which is streamed as the request body. If null then the
+	 *            operation is invoked without a request body.
 	 * @param responseType
-	 *            response type which must be defined as an array.
+	 *            type of a single JSON root element.
 	 * @param contentType
 	 *            the content type that the operation will be invoked with.
+	 * @param consumer
+	 *            consumer which is invoked with each marshalled response
+	 *            object.
 	 * 
-	 * @return marshalled array of response objects.
-	 * 
+	 * @throws RequestFileReadException
+	 *             if reading the request file fails.
 	 * @throws SessionException
 	 *             parsing the JSON result fails.
 	 * @throws RestResponseException
 	 *             if invocation fails.
 	 */
-	public <T> T[] httpPostForObjectWithMultipleRootElements(String uriPath, Map<String, String> uriVariables,
-			Object request, Class<T[]> responseType, String contentType) throws SessionException;
+	public <T> void httpPostForStreamedObjects(String uriPath, Map<String, String> uriVariables, File request,
+			Class<T> responseType, String contentType, Consumer<T> consumer) throws SessionException;
 
 	/**
 	 * Invoke HTTP GET operation.
@@ -189,6 +202,22 @@ public interface DockerSession extends Session {
 	 */
 	public void httpDelete(String uriPath, Map<String, String> uriVariables) throws RestResponseException;
 
+	/**
+	 * Get cache of the state of containers and images in the Docker daemon.
+	 * The cached state is invalidated when the session invokes an operation
+	 * which modifies containers or images.
+	 * 
+	 * @return cache of the state of containers and images.
+	 */
+	DockerStateCache getStateCache();
+
+	/**
+	 * Get maximum number of commands executed concurrently on the session.
+	 * 
+	 * @return maximum number of commands executed concurrently on the session.
+	 */
+	int getMaxConcurrentCommands();
+
 	/**
 	 * Get host name and port.
 	 * 
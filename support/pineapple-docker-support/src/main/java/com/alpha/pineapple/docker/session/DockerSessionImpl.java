@@ -24,20 +24,35 @@ package com.alpha.pineapple.docker.session;
 
 import static com.alpha.javautils.ArgumentUtils.notNull;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import javax.annotation.Resource;
 
-import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.log4j.Logger;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriTemplate;
 
 import com.alpha.pineapple.docker.DockerConstants;
 import com.alpha.pineapple.docker.model.rest.ContainerConfiguration;
+import com.alpha.pineapple.docker.utils.RestResponseException;
 import com.alpha.pineapple.i18n.MessageProvider;
 import com.alpha.pineapple.model.configuration.Credential;
 import com.alpha.pineapple.plugin.PluginSession;
@@ -45,6 +60,8 @@ import com.alpha.pineapple.resource.ResourcePropertyGetter;
 import com.alpha.pineapple.session.SessionConnectException;
 import com.alpha.pineapple.session.SessionDisconnectException;
 import com.alpha.pineapple.session.SessionException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
@@ -58,6 +75,16 @@ public class DockerSessionImpl implements DockerSession {
 	 */
 	final static Object NULL_REQUEST = null;
 
+	/**
+	 * Null request file.
+	 */
+	final static File NULL_FILE = null;
+
+	/**
+	 * Size of buffer used to write request file.
+	 */
+	final static int REQUEST_BUFFER_SIZE = 8192;
+
 	/**
 	 * Logger object.
 	 */
@@ -113,6 +140,22 @@ public class DockerSessionImpl implements DockerSession {
 	 */
 	int port;
 
+	/**
+	 * Connection state. Set when the session is connected and cleared when it is
+	 * disconnected.
+	 */
+	volatile boolean connected = false;
+
+	/**
+	 * Cache of the state of containers and images.
+	 */
+	DockerStateCache stateCache = new DockerStateCacheImpl(Long.parseLong(DockerConstants.DEFAULT_STATE_CACHE_TTL));
+
+	/**
+	 * Maximum number of commands executed concurrently.
+	 */
+	int maxConcurrentCommands = Integer.parseInt(DockerConstants.DEFAULT_MAX_CONCURRENT_COMMANDS);
+
 	/**
 	 * DockerSessionImpl no-arg constructor.
 	 * 
@@ -176,6 +219,14 @@ public class DockerSessionImpl implements DockerSession {
 			int port = Integer.parseInt(getter.getProperty("port", DockerConstants.DEFAULT_PORT));
 			int connectTimeOut = Integer
 					.parseInt(getter.getProperty("timeout", DockerConstants.DEFAULT_CONNECT_TIMEOUT));
+			long stateCacheTtl = Long
+					.parseLong(getter.getProperty("state-cache-ttl", DockerConstants.DEFAULT_STATE_CACHE_TTL));
+
+			maxConcurrentCommands = Integer.parseInt(
+					getter.getProperty("max-concurrent-commands", DockerConstants.DEFAULT_MAX_CONCURRENT_COMMANDS));
+
+			// create state cache
+			stateCache = new DockerStateCacheImpl(stateCacheTtl);
 
 			// get credential attributes
 			String user = credential.getUser();
@@ -218,11 +269,7 @@ public class DockerSessionImpl implements DockerSession {
 			// set fields
 			this.host = host;
 			this.port = port;
-
-			// assert host is alive
-			Map<String, String> uriVariables = new HashMap<String, String>();
-			// Version version = httpGetForObject(VERSION_URI, uriVariables,
-			// Version.class);
+			this.connected = true;
 
 		} catch (Exception e) {
 
@@ -246,6 +293,8 @@ public class DockerSessionImpl implements DockerSession {
 			logger.error(messageProvider.getMessage("ds.disconnect_notconnected"));
 			return;
 		}
+
+		connected = false;
 	}
 
 	@Override
@@ -259,7 +308,11 @@ public class DockerSessionImpl implements DockerSession {
 		Map<String, String> urlVariables = new HashMap<String, String>();
 		setJsonContentType(urlVariables);
 		URI expandedServiceUri = expandServiceUri(urlVariables, serviceUri);
-		return restTemplate.postForObject(expandedServiceUri, request, responseType);
+		try {
+			return restTemplate.postForObject(expandedServiceUri, request, responseType);
+		} finally {
+			stateCache.invalidate(uriPath);
+		}
 	}
 
 	@Override
@@ -267,46 +320,155 @@ public class DockerSessionImpl implements DockerSession {
 		String serviceUri = createServiceUrl(uriPath);
 		setJsonContentType(uriVariables);
 		URI expandedServiceUri = expandServiceUri(uriVariables, serviceUri);
-		return restTemplate.postForObject(expandedServiceUri, NULL_REQUEST, responseType);
+		try {
+			return restTemplate.postForObject(expandedServiceUri, NULL_REQUEST, responseType);
+		} finally {
+			stateCache.invalidate(uriPath);
+		}
 	}
 
 	@Override
+	@SuppressWarnings("unchecked")
 	public <T> T[] httpPostForObjectWithMultipleRootElements(String uriPath, Map<String, String> uriVariables,
 			Class<T[]> responseType) throws SessionException {
 
-		return httpPostForObjectWithMultipleRootElements(uriPath, uriVariables, NULL_REQUEST, responseType,
-				MediaType.APPLICATION_JSON_VALUE);
+		// collect streamed objects
+		List<T> objects = new ArrayList<T>();
+		Class<T> componentType = (Class<T>) responseType.getComponentType();
+		httpPostForStreamedObjects(uriPath, uriVariables, NULL_FILE, componentType, MediaType.APPLICATION_JSON_VALUE,
+				objects::add);
+
+		// create array
+		T[] array = (T[]) Array.newInstance(componentType, objects.size());
+		return objects.toArray(array);
 	}
 
 	@Override
-	public <T> T[] httpPostForObjectWithMultipleRootElements(String uriPath, Map<String, String> uriVariables,
-			Object request, Class<T[]> responseType, String contentType) throws SessionException {
+	public <T> void httpPostForStreamedObjects(String uriPath, Map<String, String> uriVariables, File request,
+			Class<T> responseType, String contentType, Consumer<T> consumer) throws SessionException {
 
 		String serviceUri = createServiceUrl(uriPath);
 		setContentType(uriVariables, contentType);
 		URI expandedServiceUri = expandServiceUri(uriVariables, serviceUri);
 
-		// invoke post
-		// result is requested as string since Docker returns multiple JSON root elements
-		String resultAsString = restTemplateWithoutMessageConverters.postForObject(expandedServiceUri, request,
-				String.class);
+		// stream request body from disk
+		RequestCallback requestCallback = httpRequest -> {
+			httpRequest.getHeaders().set(DockerConstants.CONTENT_TYPE_KEY, contentType);
+			if (request == NULL_FILE)
+				return;
+			writeRequestFile(request, httpRequest.getBody());
+		};
+
+		// parse JSON root elements as they are received
+		// since Docker returns multiple JSON root elements
+		ResponseExtractor<Integer> responseExtractor = httpResponse -> readObjects(httpResponse.getBody(),
+				responseType, consumer);
 
-		// transforms string with multiple JSON root elements into JSON array
-		String jsonArrayAsString = transformStringToJsonArray(resultAsString);
-		
 		try {
 
-			// parse string to JSON
-			//jacksonObjectMapper = new ObjectMapper();
-			T[] array = jacksonObjectMapper.readValue(jsonArrayAsString, responseType);
-			return array;
+			// invoke post
+			restTemplateWithoutMessageConverters.execute(expandedServiceUri, HttpMethod.POST, requestCallback,
+					responseExtractor);
 
-		} catch (Exception e) {
+		} catch (ResourceAccessException e) {
+
+			// handle failure to read request file
+			if (e.getCause() instanceof RequestFileReadFailure) {
+				Object[] args = { serviceUri, request, e.getCause().getCause() };
+				String message = messageProvider.getMessage("ds.read_request_file_failure", args);
+				throw new RequestFileReadException(message, e.getCause().getCause());
+			}
 
-			Object[] args = { serviceUri, jsonArrayAsString, e.getMessage() };
+			// re-throw if failure isn't caused by parsing
+			if (!(e.getCause() instanceof JsonProcessingException))
+				throw e;
+
+			Object[] args = { serviceUri, e.getCause().getMessage() };
 			String message = messageProvider.getMessage("ds.parse_json_failure", args);
-			throw new SessionException(message, e);
+			throw new SessionException(message, e.getCause());
+
+		} finally {
+			stateCache.invalidate(uriPath);
+		}
+	}
+
+	/**
+	 * Write request file to request body. Failures to read the file are wrapped
+	 * in a {@linkplain RequestFileReadFailure} to separate them from failures to
+	 * write to the connection.
+	 * 
+	 * @param request
+	 *            file which is written as the request body.
+	 * @param body
+	 *            request body.
+	 * 
+	 * @throws IOException
+	 *             if reading the file or writing the request body fails.
+	 */
+	void writeRequestFile(File request, OutputStream body) throws IOException {
+		InputStream input = null;
+		try {
+			input = FileUtils.openInputStream(request);
+		} catch (IOException e) {
+			throw new RequestFileReadFailure(e);
+		}
+
+		try {
+			byte[] buffer = new byte[REQUEST_BUFFER_SIZE];
+			int length;
+			while ((length = read(input, buffer)) != IOUtils.EOF)
+				body.write(buffer, 0, length);
+		} finally {
+			IOUtils.closeQuietly(input);
+		}
+	}
+
+	/**
+	 * Read from request file into buffer.
+	 * 
+	 * @param input
+	 *            request file stream.
+	 * @param buffer
+	 *            buffer to read into.
+	 * 
+	 * @return number of bytes read. Returns -1 at end of file.
+	 * 
+	 * @throws RequestFileReadFailure
+	 *             if read fails.
+	 */
+	int read(InputStream input, byte[] buffer) throws RequestFileReadFailure {
+		try {
+			return input.read(buffer);
+		} catch (IOException e) {
+			throw new RequestFileReadFailure(e);
+		}
+	}
+
+	/**
+	 * Read stream of JSON root elements. Each element is parsed and passed to
+	 * the consumer as soon as it is read from the stream.
+	 * 
+	 * @param stream
+	 *            stream which contains zero or more JSON root elements.
+	 * @param responseType
+	 *            type of a single JSON root element.
+	 * @param consumer
+	 *            consumer which is invoked with each parsed object.
+	 * 
+	 * @return number of parsed objects.
+	 * 
+	 * @throws IOException
+	 *             if reading or parsing the stream fails.
+	 */
+	<T> int readObjects(InputStream stream, Class<T> responseType, Consumer<T> consumer) throws IOException {
+		int count = 0;
+		try (MappingIterator<T> iterator = jacksonObjectMapper.readerFor(responseType).readValues(stream)) {
+			while (iterator.hasNextValue()) {
+				consumer.accept(iterator.nextValue());
+				count++;
+			}
 		}
+		return count;
 	}
 
 	@Override
@@ -322,7 +484,11 @@ public class DockerSessionImpl implements DockerSession {
 		String serviceUri = createServiceUrl(uriPath);
 		setJsonContentType(uriVariables);
 		URI expandedServiceUri = expandServiceUri(uriVariables, serviceUri);
-		restTemplate.delete(expandedServiceUri);
+		try {
+			restTemplate.delete(expandedServiceUri);
+		} finally {
+			stateCache.invalidate(uriPath);
+		}
 	}
 
 	public com.alpha.pineapple.model.configuration.Resource getResource() {
@@ -333,8 +499,40 @@ public class DockerSessionImpl implements DockerSession {
 		return this.credential;
 	}
 
+	/**
+	 * Returns true if the session is connected and the Docker host answers the
+	 * ping service. Used by the session pool to validate a session before it is
+	 * reused.
+	 * 
+	 * @return true if the session is connected and the Docker host is alive.
+	 */
 	public boolean isConnected() {
-		return (restTemplate != null);
+		if (!connected)
+			return false;
+
+		try {
+			restTemplate.getForObject(createServiceUrl(DockerConstants.PING_URI), String.class);
+			return true;
+		} catch (RestClientException | RestResponseException e) {
+
+			// log debug message
+			if (logger.isDebugEnabled()) {
+				Object[] args = { host, port, e };
+				String message = messageProvider.getMessage("ds.ping_failure", args);
+				logger.debug(message);
+			}
+			return false;
+		}
+	}
+
+	@Override
+	public DockerStateCache getStateCache() {
+		return stateCache;
+	}
+
+	@Override
+	public int getMaxConcurrentCommands() {
+		return maxConcurrentCommands;
 	}
 
 	@Override
@@ -373,30 +571,6 @@ public class DockerSessionImpl implements DockerSession {
 		return new StringBuilder().append("http://").append(host).append(":").append(Integer.toString(port)).toString();
 	}
 
-	/**
-	 * Transform string into JSON array.
-	 * 
-	 * The string is transformed in three steps: 1) The string is decorated with
-	 * JSON array delimiters; [..] 2) All carriage returns and new line chars are
-	 * removed. 3) A comma is added between every array entry.
-	 * 
-	 * @param resultAsString
-	 *            string which is transformed.
-	 * 
-	 * @return transformed string.
-	 */
-	String transformStringToJsonArray(String resultAsString) {
-		// transform root elements into an JSON array - decorate with [..]
-		String jsonArrayAsString = new StringBuilder().append("[").append(resultAsString).append("]").toString();
-
-		// remove carriage return and new line
-		jsonArrayAsString = jsonArrayAsString.replaceAll("\\r|\\n", "");
-
-		// add command between each root element
-		jsonArrayAsString = StringUtils.replace(jsonArrayAsString, "}{", "},{");
-		return jsonArrayAsString;
-	}
-
 	/**
 	 * Set the JSON content.
 	 * 
@@ -419,4 +593,26 @@ public class DockerSessionImpl implements DockerSession {
 		uriVariables.put(DockerConstants.CONTENT_TYPE_KEY, contentType);
 	}
 
+	/**
+	 * Signals failure to read the request file. Passed through the REST
+	 * template as the cause of a {@linkplain ResourceAccessException}.
+	 */
+	static class RequestFileReadFailure extends IOException {
+
+		/**
+		 * serialVersionUID
+		 */
+		private static final long serialVersionUID = -4405146284924520233L;
+
+		/**
+		 * RequestFileReadFailure constructor.
+		 * 
+		 * @param cause
+		 *            Cause of the failure.
+		 */
+		RequestFileReadFailure(IOException cause) {
+			super(cause);
+		}
+	}
+
 }
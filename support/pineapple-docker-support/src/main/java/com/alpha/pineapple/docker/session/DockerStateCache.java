@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+* Copyright (C) 2007-2015 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package com.alpha.pineapple.docker.session;
+
+import java.util.function.Supplier;
+
+import com.alpha.pineapple.docker.model.rest.ContainerJson;
+import com.alpha.pineapple.docker.model.rest.ListedContainer;
+import com.alpha.pineapple.docker.model.rest.ListedImage;
+
+/**
+ * Cache of the state of containers and images in a Docker daemon. The cache is
+ * owned by a {@linkplain DockerSession}.
+ * 
+ * Listed containers are indexed by name and ID and listed images are indexed
+ * by repository tag. The indexes are created from a snapshot which is queried
+ * from Docker using the supplied loader if the cache doesn't contain a valid
+ * snapshot. Snapshots expire after a bounded time to live.
+ * 
+ * The session invalidates the cached state when it invokes an operation which
+ * modifies containers or images.
+ */
+public interface DockerStateCache {
+
+	/**
+	 * Get listed container by name.
+	 * 
+	 * @param name
+	 *            container name, prefixed with the Docker name prefix.
+	 * @param loader
+	 *            loader which lists all containers from Docker.
+	 * 
+	 * @return listed container. Returns null if no container with the name
+	 *         exists.
+	 */
+	ListedContainer getContainerByName(String name, Supplier<ListedContainer[]> loader);
+
+	/**
+	 * Get listed container by ID.
+	 * 
+	 * @param id
+	 *            container ID.
+	 * @param loader
+	 *            loader which lists all containers from Docker.
+	 * 
+	 * @return listed container. Returns null if no container with the ID exists.
+	 */
+	ListedContainer getContainerById(String id, Supplier<ListedContainer[]> loader);
+
+	/**
+	 * Get inspected container by name.
+	 * 
+	 * @param name
+	 *            container name.
+	 * @param loader
+	 *            loader which inspects the container in Docker.
+	 * 
+	 * @return inspected container.
+	 */
+	ContainerJson getInspectedContainer(String name, Supplier<ContainerJson> loader);
+
+	/**
+	 * Get listed image by repository tag. The tag is matched case insensitive.
+	 * 
+	 * @param tag
+	 *            fully qualified image name, i.e. repository and tag.
+	 * @param loader
+	 *            loader which lists all images from Docker.
+	 * 
+	 * @return listed image. Returns null if no image with the tag exists.
+	 */
+	ListedImage getImageByTag(String tag, Supplier<ListedImage[]> loader);
+
+	/**
+	 * Invalidate cached state of containers.
+	 */
+	void invalidateContainers();
+
+	/**
+	 * Invalidate cached state of images.
+	 */
+	void invalidateImages();
+
+	/**
+	 * Invalidate cached state affected by an invocation of a Docker REST
+	 * service.
+	 * 
+	 * @param uriPath
+	 *            URI path of invoked service.
+	 */
+	void invalidate(String uriPath);
+
+	/**
+	 * Get number of queries answered from the cache, i.e. the number of saved
+	 * round-trips to Docker.
+	 * 
+	 * @return number of queries answered from the cache.
+	 */
+	long getHitCount();
+
+	/**
+	 * Get number of queries which were forwarded to Docker.
+	 * 
+	 * @return number of queries which were forwarded to Docker.
+	 */
+	long getMissCount();
+
+}
@@ -0,0 +1,330 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+* Copyright (C) 2007-2015 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package com.alpha.pineapple.docker.session;
+
+import static com.alpha.javautils.ArgumentUtils.notNull;
+import static com.alpha.pineapple.docker.DockerConstants.CONTAINERS_URI_PREFIX;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import com.alpha.pineapple.docker.model.rest.ContainerJson;
+import com.alpha.pineapple.docker.model.rest.ListedContainer;
+import com.alpha.pineapple.docker.model.rest.ListedImage;
+
+/**
+ * Implementation of the {@linkplain DockerStateCache} interface.
+ * 
+ * A time to live of zero (or less) disables the cache, i.e. all queries are
+ * forwarded to Docker.
+ */
+public class DockerStateCacheImpl implements DockerStateCache {
+
+	/**
+	 * Time to live for cached state (in ms).
+	 */
+	final long timeToLive;
+
+	/**
+	 * Lock which guards cached state of containers.
+	 */
+	final Object containersLock = new Object();
+
+	/**
+	 * Lock which guards cached state of images.
+	 */
+	final Object imagesLock = new Object();
+
+	/**
+	 * Listed containers indexed by name.
+	 */
+	Entry<Map<String, ListedContainer>> containersByName;
+
+	/**
+	 * Listed containers indexed by ID.
+	 */
+	Entry<Map<String, ListedContainer>> containersById;
+
+	/**
+	 * Listed images indexed by (lower case) repository tag.
+	 */
+	Entry<Map<String, ListedImage>> imagesByTag;
+
+	/**
+	 * Inspected containers indexed by name.
+	 */
+	Map<String, Entry<ContainerJson>> inspectedContainers = new ConcurrentHashMap<String, Entry<ContainerJson>>();
+
+	/**
+	 * Generation of cached state of containers. Incremented on invalidation.
+	 */
+	long containersGeneration = 0;
+
+	/**
+	 * Number of queries answered from the cache.
+	 */
+	AtomicLong hitCount = new AtomicLong();
+
+	/**
+	 * Number of queries forwarded to Docker.
+	 */
+	AtomicLong missCount = new AtomicLong();
+
+	/**
+	 * DockerStateCacheImpl constructor.
+	 * 
+	 * @param timeToLive
+	 *            time to live for cached state (in ms).
+	 */
+	public DockerStateCacheImpl(long timeToLive) {
+		this.timeToLive = timeToLive;
+	}
+
+	@Override
+	public ListedContainer getContainerByName(String name, Supplier<ListedContainer[]> loader) {
+		notNull(name, "name is undefined.");
+		notNull(loader, "loader is undefined.");
+		synchronized (containersLock) {
+			loadContainers(loader);
+			return containersByName.value.get(name);
+		}
+	}
+
+	@Override
+	public ListedContainer getContainerById(String id, Supplier<ListedContainer[]> loader) {
+		notNull(id, "id is undefined.");
+		notNull(loader, "loader is undefined.");
+		synchronized (containersLock) {
+			loadContainers(loader);
+			return containersById.value.get(id);
+		}
+	}
+
+	@Override
+	public ContainerJson getInspectedContainer(String name, Supplier<ContainerJson> loader) {
+		notNull(name, "name is undefined.");
+		notNull(loader, "loader is undefined.");
+
+		// return cached container
+		Entry<ContainerJson> entry = inspectedContainers.get(name);
+		if (isValid(entry)) {
+			hitCount.incrementAndGet();
+			return entry.value;
+		}
+
+		// inspect container without holding the lock
+		missCount.incrementAndGet();
+		long generation = getContainersGeneration();
+		ContainerJson container = loader.get();
+
+		// cache container unless state was invalidated during inspection
+		synchronized (containersLock) {
+			if (generation == containersGeneration)
+				inspectedContainers.put(name, new Entry<ContainerJson>(container, getExpiration()));
+		}
+		return container;
+	}
+
+	@Override
+	public ListedImage getImageByTag(String tag, Supplier<ListedImage[]> loader) {
+		notNull(tag, "tag is undefined.");
+		notNull(loader, "loader is undefined.");
+		synchronized (imagesLock) {
+
+			// return cached image
+			if (isValid(imagesByTag)) {
+				hitCount.incrementAndGet();
+				return imagesByTag.value.get(tag.toLowerCase());
+			}
+
+			// list images
+			missCount.incrementAndGet();
+			Map<String, ListedImage> index = new HashMap<String, ListedImage>();
+			ListedImage[] images = loader.get();
+			if (images != null) {
+				for (ListedImage image : images) {
+					for (String imageTag : nullSafe(image.getRepoTags())) {
+						if ((imageTag != null) && (!imageTag.isEmpty()))
+							index.put(imageTag.toLowerCase(), image);
+					}
+				}
+			}
+			imagesByTag = new Entry<Map<String, ListedImage>>(index, getExpiration());
+			return index.get(tag.toLowerCase());
+		}
+	}
+
+	@Override
+	public void invalidateContainers() {
+		synchronized (containersLock) {
+			containersByName = null;
+			containersById = null;
+			inspectedContainers.clear();
+			containersGeneration++;
+		}
+	}
+
+	@Override
+	public void invalidateImages() {
+		synchronized (imagesLock) {
+			imagesByTag = null;
+		}
+	}
+
+	@Override
+	public void invalidate(String uriPath) {
+		notNull(uriPath, "uriPath is undefined.");
+		if (uriPath.startsWith(CONTAINERS_URI_PREFIX)) {
+			invalidateContainers();
+			return;
+		}
+		invalidateImages();
+	}
+
+	@Override
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	@Override
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Load containers into indexes unless the indexes are valid. Must be invoked
+	 * while holding the containers lock.
+	 * 
+	 * @param loader
+	 *            loader which lists all containers from Docker.
+	 */
+	void loadContainers(Supplier<ListedContainer[]> loader) {
+
+		// exit if indexes are valid
+		if (isValid(containersByName)) {
+			hitCount.incrementAndGet();
+			return;
+		}
+
+		// list containers
+		missCount.incrementAndGet();
+		Map<String, ListedContainer> nameIndex = new HashMap<String, ListedContainer>();
+		Map<String, ListedContainer> idIndex = new HashMap<String, ListedContainer>();
+		ListedContainer[] containers = loader.get();
+		if (containers != null) {
+			for (ListedContainer container : containers) {
+				idIndex.put(container.getId(), container);
+				for (String name : nullSafe(container.getNames())) {
+					nameIndex.put(name, container);
+				}
+			}
+		}
+		long expiration = getExpiration();
+		containersByName = new Entry<Map<String, ListedContainer>>(nameIndex, expiration);
+		containersById = new Entry<Map<String, ListedContainer>>(idIndex, expiration);
+	}
+
+	/**
+	 * Get generation of cached state of containers.
+	 * 
+	 * @return generation of cached state of containers.
+	 */
+	long getContainersGeneration() {
+		synchronized (containersLock) {
+			return containersGeneration;
+		}
+	}
+
+	/**
+	 * Returns true if cache entry is defined and not expired.
+	 * 
+	 * @param entry
+	 *            cache entry.
+	 * 
+	 * @return true if cache entry is defined and not expired.
+	 */
+	boolean isValid(Entry<?> entry) {
+		if (entry == null)
+			return false;
+		return (System.currentTimeMillis() < entry.expiration);
+	}
+
+	/**
+	 * Get expiration time for entries created now.
+	 * 
+	 * @return expiration time for entries created now.
+	 */
+	long getExpiration() {
+		return System.currentTimeMillis() + timeToLive;
+	}
+
+	/**
+	 * Return empty list if list is undefined.
+	 * 
+	 * @param list
+	 *            list.
+	 * 
+	 * @return empty list if list is undefined.
+	 */
+	static List<String> nullSafe(List<String> list) {
+		if (list == null)
+			return Collections.emptyList();
+		return list;
+	}
+
+	/**
+	 * Cache entry.
+	 */
+	static class Entry<T> {
+
+		/**
+		 * Cached value.
+		 */
+		final T value;
+
+		/**
+		 * Expiration time (in ms).
+		 */
+		final long expiration;
+
+		/**
+		 * Entry constructor.
+		 * 
+		 * @param value
+		 *            cached value.
+		 * @param expiration
+		 *            expiration time (in ms).
+		 */
+		Entry(T value, long expiration) {
+			this.value = value;
+			this.expiration = expiration;
+		}
+	}
+
+}
@@ -0,0 +1,307 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+* Copyright (C) 2007-2015 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package com.alpha.pineapple.docker.session;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import com.alpha.pineapple.docker.DockerConstants;
+import com.alpha.pineapple.docker.model.rest.JsonMessage;
+import com.alpha.pineapple.docker.session.DockerSessionImpl.RequestFileReadFailure;
+import com.alpha.pineapple.docker.utils.MultipleRootElementsStyleStrategy;
+import com.alpha.pineapple.i18n.MessageProvider;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Unit test of the class {@linkplain DockerSessionImpl}.
+ */
+public class DockerSessionImplTest {
+
+	/**
+	 * Object under test.
+	 */
+	DockerSessionImpl session;
+
+	/**
+	 * Collected objects.
+	 */
+	List<JsonMessage> messages;
+
+	/**
+	 * Temporary folder.
+	 */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Before
+	public void setUp() throws Exception {
+		ObjectMapper objectMapper = new ObjectMapper();
+		objectMapper.setPropertyNamingStrategy(new MultipleRootElementsStyleStrategy());
+		session = new DockerSessionImpl(null, null, null, null, objectMapper);
+		messages = new ArrayList<JsonMessage>();
+	}
+
+	/**
+	 * Create input stream from string.
+	 * 
+	 * @param content
+	 *            stream content.
+	 * 
+	 * @return input stream from string.
+	 */
+	InputStream createStream(String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Test that empty stream is read without any objects.
+	 */
+	@Test
+	public void testReadEmptyStream() throws Exception {
+		int count = session.readObjects(createStream(""), JsonMessage.class, messages::add);
+		assertEquals(0, count);
+		assertEquals(0, messages.size());
+	}
+
+	/**
+	 * Test that single root element is read.
+	 */
+	@Test
+	public void testReadSingleRootElement() throws Exception {
+		int count = session.readObjects(createStream("{\"status\":\"s1\"}"), JsonMessage.class, messages::add);
+		assertEquals(1, count);
+		assertEquals("s1", messages.get(0).getStatus());
+	}
+
+	/**
+	 * Test that multiple root elements are read in order, separated by line
+	 * feeds or not separated at all.
+	 */
+	@Test
+	public void testReadMultipleRootElements() throws Exception {
+		String content = "{\"stream\":\"Step 1\\n\"}\r\n{\"status\":\"s2\"}{\"error\":\"e3\"}\n";
+		int count = session.readObjects(createStream(content), JsonMessage.class, messages::add);
+		assertEquals(3, count);
+		assertEquals("Step 1\n", messages.get(0).getStream());
+		assertEquals("s2", messages.get(1).getStatus());
+		assertNull(messages.get(1).getError());
+		assertEquals("e3", messages.get(2).getError());
+	}
+
+	/**
+	 * Test that root elements are passed to the consumer as they are received,
+	 * i.e. before the remaining stream is read.
+	 */
+	@Test
+	public void testRootElementsArePassedToConsumerAsTheyAreReceived() throws Exception {
+		String[] chunks = { "{\"status\":\"s1\"}", "{\"status\":\"s2\"}" };
+		List<Integer> consumedBeforeRead = new ArrayList<Integer>();
+
+		// stream which returns a single chunk per read
+		InputStream stream = new InputStream() {
+			int index = 0;
+
+			@Override
+			public int read() throws IOException {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public int read(byte[] buffer, int offset, int length) throws IOException {
+				consumedBeforeRead.add(messages.size());
+				if (index == chunks.length)
+					return -1;
+				byte[] bytes = chunks[index++].getBytes(StandardCharsets.UTF_8);
+				System.arraycopy(bytes, 0, buffer, offset, bytes.length);
+				return bytes.length;
+			}
+		};
+
+		int count = session.readObjects(stream, JsonMessage.class, messages::add);
+		assertEquals(2, count);
+		assertEquals(Integer.valueOf(0), consumedBeforeRead.get(0));
+		assertEquals(Integer.valueOf(1), consumedBeforeRead.get(1));
+	}
+
+	/**
+	 * Test that invalid JSON fails with a parsing exception after the preceding
+	 * root elements have been consumed.
+	 */
+	@Test(expected = JsonProcessingException.class)
+	public void testReadInvalidJsonFails() throws Exception {
+		try {
+			session.readObjects(createStream("{\"status\":\"s1\"}{\"status\":"), JsonMessage.class, messages::add);
+		} finally {
+			assertEquals(1, messages.size());
+		}
+	}
+
+	/**
+	 * Test that request file is written to the request body.
+	 */
+	@Test
+	public void testWriteRequestFile() throws Exception {
+		byte[] content = new byte[100000];
+		for (int i = 0; i < content.length; i++)
+			content[i] = (byte) i;
+		File request = folder.newFile();
+		FileUtils.writeByteArrayToFile(request, content);
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		session.writeRequestFile(request, body);
+		assertArrayEquals(content, body.toByteArray());
+	}
+
+	/**
+	 * Test that failure to open the request file is signaled as a read failure.
+	 */
+	@Test(expected = RequestFileReadFailure.class)
+	public void testWriteUnknownRequestFileFailsAsReadFailure() throws Exception {
+		File request = new File(folder.getRoot(), "unknown.tar");
+		session.writeRequestFile(request, new ByteArrayOutputStream());
+	}
+
+	/**
+	 * Test that failure to write the request body isn't signaled as a read
+	 * failure.
+	 */
+	@Test
+	public void testFailureToWriteRequestBodyIsntReadFailure() throws Exception {
+		File request = folder.newFile();
+		FileUtils.writeStringToFile(request, "content", StandardCharsets.UTF_8);
+		OutputStream body = new OutputStream() {
+
+			@Override
+			public void write(int b) throws IOException {
+				throw new IOException("connection reset");
+			}
+		};
+
+		try {
+			session.writeRequestFile(request, body);
+		} catch (IOException e) {
+			assertFalse(e instanceof RequestFileReadFailure);
+			return;
+		}
+		throw new AssertionError("IOException expected");
+	}
+
+	/**
+	 * Create session with mock REST template.
+	 * 
+	 * @param restTemplate
+	 *            mock REST template.
+	 * 
+	 * @return session with mock REST template.
+	 */
+	DockerSessionImpl createSession(RestTemplate restTemplate) throws Exception {
+		MessageProvider messageProvider = EasyMock.createNiceMock(MessageProvider.class);
+		EasyMock.replay(messageProvider);
+		return new DockerSessionImpl(messageProvider, null, restTemplate, null, new ObjectMapper());
+	}
+
+	/**
+	 * Test that session isn't connected before it is connected.
+	 */
+	@Test
+	public void testSessionIsntConnectedBeforeConnect() throws Exception {
+		RestTemplate restTemplate = EasyMock.createMock(RestTemplate.class);
+		EasyMock.replay(restTemplate);
+
+		assertFalse(createSession(restTemplate).isConnected());
+		EasyMock.verify(restTemplate);
+	}
+
+	/**
+	 * Test that connected session is connected if the host answers the ping.
+	 */
+	@Test
+	public void testSessionIsConnectedIfHostAnswersPing() throws Exception {
+		RestTemplate restTemplate = EasyMock.createMock(RestTemplate.class);
+		EasyMock.expect(restTemplate.getForObject("http://host:2375" + DockerConstants.PING_URI, String.class))
+				.andReturn("OK");
+		EasyMock.replay(restTemplate);
+
+		DockerSessionImpl session = createSession(restTemplate);
+		session.connect("host", 2375, "user", "password", 1000);
+		assertTrue(session.isConnected());
+		EasyMock.verify(restTemplate);
+	}
+
+	/**
+	 * Test that connected session isn't connected if the ping fails.
+	 */
+	@Test
+	public void testSessionIsntConnectedIfPingFails() throws Exception {
+		RestTemplate restTemplate = EasyMock.createMock(RestTemplate.class);
+		EasyMock.expect(restTemplate.getForObject("http://host:2375" + DockerConstants.PING_URI, String.class))
+				.andThrow(new ResourceAccessException("connection refused"));
+		EasyMock.replay(restTemplate);
+
+		DockerSessionImpl session = createSession(restTemplate);
+		session.connect("host", 2375, "user", "password", 1000);
+		assertFalse(session.isConnected());
+		EasyMock.verify(restTemplate);
+	}
+
+	/**
+	 * Test that session isn't connected after it is disconnected.
+	 */
+	@Test
+	public void testSessionIsntConnectedAfterDisconnect() throws Exception {
+		RestTemplate restTemplate = EasyMock.createMock(RestTemplate.class);
+		EasyMock.expect(restTemplate.getForObject("http://host:2375" + DockerConstants.PING_URI, String.class))
+				.andReturn("OK");
+		EasyMock.replay(restTemplate);
+
+		DockerSessionImpl session = createSession(restTemplate);
+		session.connect("host", 2375, "user", "password", 1000);
+		session.disconnect();
+		assertFalse(session.isConnected());
+		EasyMock.verify(restTemplate);
+	}
+
+}
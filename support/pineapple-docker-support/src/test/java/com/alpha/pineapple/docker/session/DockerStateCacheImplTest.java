@@ -0,0 +1,264 @@
+/*******************************************************************************
+ * Pineapple - a tool to install, configure and test Java web applications 
+ * and infrastructure. 
+ * 
+* Copyright (C) 2007-2015 Allan Thrane Andersen.
+ * 
+ * This file is part of Pineapple.
+ * 
+ * Pineapple is free software: you can redistribute it and/or modify it under
+ *  the terms of the GNU General Public License as published by the Free 
+ * Software Foundation, either version 3 of the License, or (at your option) 
+ * any later version.
+ * 
+ * Pineapple is distributed in the hope that it will be useful, but WITHOUT 
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY 
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public 
+ * license for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along 
+ * with Pineapple. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+
+package com.alpha.pineapple.docker.session;
+
+import static com.alpha.pineapple.docker.DockerConstants.LIST_CONTAINERS_URI;
+import static com.alpha.pineapple.docker.DockerConstants.LIST_IMAGES_URI;
+import static com.alpha.pineapple.docker.DockerConstants.START_CONTAINER_URI;
+import static com.alpha.pineapple.docker.DockerConstants.TAG_IMAGE_URI;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alpha.pineapple.docker.model.rest.ContainerJson;
+import com.alpha.pineapple.docker.model.rest.ListedContainer;
+import com.alpha.pineapple.docker.model.rest.ListedImage;
+import com.alpha.pineapple.docker.model.rest.ObjectFactory;
+
+/**
+ * Unit test of the class {@linkplain DockerStateCacheImpl}.
+ */
+public class DockerStateCacheImplTest {
+
+	/**
+	 * Time to live (in ms) which outlives the test.
+	 */
+	static final long LONG_TTL = 60000;
+
+	/**
+	 * Time to live which disables the cache.
+	 */
+	static final long DISABLED_TTL = 0;
+
+	/**
+	 * Docker REST model object factory.
+	 */
+	ObjectFactory objectFactory;
+
+	/**
+	 * Number of loader invocations.
+	 */
+	AtomicInteger loads;
+
+	/**
+	 * Random container ID.
+	 */
+	String randomId;
+
+	/**
+	 * Random container name.
+	 */
+	String randomName;
+
+	/**
+	 * Random image tag.
+	 */
+	String randomTag;
+
+	@Before
+	public void setUp() throws Exception {
+		objectFactory = new ObjectFactory();
+		loads = new AtomicInteger();
+		randomId = RandomStringUtils.randomAlphanumeric(12);
+		randomName = "/" + RandomStringUtils.randomAlphabetic(10);
+		randomTag = RandomStringUtils.randomAlphabetic(10) + ":latest";
+	}
+
+	/**
+	 * Create counting loader of listed containers.
+	 * 
+	 * @return counting loader of listed containers.
+	 */
+	Supplier<ListedContainer[]> createContainersLoader() {
+		return () -> {
+			loads.incrementAndGet();
+			ListedContainer container = objectFactory.createListedContainer();
+			container.setId(randomId);
+			container.getNames().add(randomName);
+			return new ListedContainer[] { container };
+		};
+	}
+
+	/**
+	 * Create counting loader of listed images.
+	 * 
+	 * @return counting loader of listed images.
+	 */
+	Supplier<ListedImage[]> createImagesLoader() {
+		return () -> {
+			loads.incrementAndGet();
+			ListedImage image = objectFactory.createListedImage();
+			image.getRepoTags().add(randomTag);
+			return new ListedImage[] { image };
+		};
+	}
+
+	/**
+	 * Test that containers are listed once and looked up by name and ID.
+	 */
+	@Test
+	public void testContainersAreIndexedByNameAndId() {
+		DockerStateCache cache = new DockerStateCacheImpl(LONG_TTL);
+		assertNotNull(cache.getContainerByName(randomName, createContainersLoader()));
+		assertNotNull(cache.getContainerById(randomId, createContainersLoader()));
+		assertNull(cache.getContainerByName("/unknown", createContainersLoader()));
+		assertNull(cache.getContainerById("unknown", createContainersLoader()));
+		assertEquals(1, loads.get());
+		assertEquals(3, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+
+	/**
+	 * Test that images are listed once and looked up by tag case insensitive.
+	 */
+	@Test
+	public void testImagesAreIndexedByTag() {
+		DockerStateCache cache = new DockerStateCacheImpl(LONG_TTL);
+		assertNotNull(cache.getImageByTag(randomTag, createImagesLoader()));
+		assertNotNull(cache.getImageByTag(randomTag.toUpperCase(), createImagesLoader()));
+		assertNull(cache.getImageByTag("unknown:latest", createImagesLoader()));
+		assertEquals(1, loads.get());
+		assertEquals(2, cache.getHitCount());
+	}
+
+	/**
+	 * Test that disabled cache forwards all queries.
+	 */
+	@Test
+	public void testDisabledCacheForwardsAllQueries() {
+		DockerStateCache cache = new DockerStateCacheImpl(DISABLED_TTL);
+		cache.getContainerByName(randomName, createContainersLoader());
+		cache.getContainerById(randomId, createContainersLoader());
+		cache.getImageByTag(randomTag, createImagesLoader());
+		assertEquals(3, loads.get());
+		assertEquals(0, cache.getHitCount());
+		assertEquals(3, cache.getMissCount());
+	}
+
+	/**
+	 * Test that invocation of container service invalidates containers but not
+	 * images.
+	 */
+	@Test
+	public void testContainerServiceInvalidatesContainers() {
+		DockerStateCache cache = new DockerStateCacheImpl(LONG_TTL);
+		cache.getContainerByName(randomName, createContainersLoader());
+		cache.getImageByTag(randomTag, createImagesLoader());
+		cache.invalidate(START_CONTAINER_URI);
+		cache.getContainerByName(randomName, createContainersLoader());
+		cache.getImageByTag(randomTag, createImagesLoader());
+		assertEquals(3, loads.get());
+	}
+
+	/**
+	 * Test that invocation of image service invalidates images but not
+	 * containers.
+	 */
+	@Test
+	public void testImageServiceInvalidatesImages() {
+		DockerStateCache cache = new DockerStateCacheImpl(LONG_TTL);
+		cache.getContainerByName(randomName, createContainersLoader());
+		cache.getImageByTag(randomTag, createImagesLoader());
+		cache.invalidate(TAG_IMAGE_URI);
+		cache.getContainerByName(randomName, createContainersLoader());
+		cache.getImageByTag(randomTag, createImagesLoader());
+		assertEquals(3, loads.get());
+	}
+
+	/**
+	 * Test that list services are classified as container and image services.
+	 */
+	@Test
+	public void testListServicesInvalidateTheirState() {
+		DockerStateCache cache = new DockerStateCacheImpl(LONG_TTL);
+		cache.getContainerByName(randomName, createContainersLoader());
+		cache.getImageByTag(randomTag, createImagesLoader());
+		cache.invalidate(LIST_CONTAINERS_URI);
+		cache.invalidate(LIST_IMAGES_URI);
+		cache.getContainerByName(randomName, createContainersLoader());
+		cache.getImageByTag(randomTag, createImagesLoader());
+		assertEquals(4, loads.get());
+	}
+
+	/**
+	 * Test that inspected container is cached until containers are invalidated.
+	 */
+	@Test
+	public void testInspectedContainerIsCachedUntilInvalidation() {
+		DockerStateCache cache = new DockerStateCacheImpl(LONG_TTL);
+		ContainerJson container = objectFactory.createContainerJson();
+		Supplier<ContainerJson> loader = () -> {
+			loads.incrementAndGet();
+			return container;
+		};
+
+		assertSame(container, cache.getInspectedContainer(randomName, loader));
+		assertSame(container, cache.getInspectedContainer(randomName, loader));
+		assertEquals(1, loads.get());
+
+		cache.invalidateContainers();
+		cache.getInspectedContainer(randomName, loader);
+		assertEquals(2, loads.get());
+	}
+
+	/**
+	 * Test that inspected container isn't cached if containers are invalidated
+	 * while the container is inspected.
+	 */
+	@Test
+	public void testInspectedContainerIsntCachedIfInvalidatedDuringInspection() {
+		DockerStateCache cache = new DockerStateCacheImpl(LONG_TTL);
+		ContainerJson container = objectFactory.createContainerJson();
+		Supplier<ContainerJson> loader = () -> {
+			if (loads.incrementAndGet() == 1)
+				cache.invalidateContainers();
+			return container;
+		};
+
+		cache.getInspectedContainer(randomName, loader);
+		cache.getInspectedContainer(randomName, loader);
+		assertEquals(2, loads.get());
+	}
+
+	/**
+	 * Test that expired snapshot is reloaded.
+	 */
+	@Test
+	public void testExpiredSnapshotIsReloaded() throws Exception {
+		DockerStateCache cache = new DockerStateCacheImpl(1);
+		cache.getContainerByName(randomName, createContainersLoader());
+		Thread.sleep(10);
+		cache.getContainerByName(randomName, createContainersLoader());
+		assertEquals(2, loads.get());
+	}
+
+}